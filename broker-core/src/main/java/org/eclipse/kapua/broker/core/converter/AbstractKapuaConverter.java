@@ -17,7 +17,6 @@ import org.apache.camel.Converter;
 import org.apache.camel.Exchange;
 import org.apache.camel.component.jms.JmsMessage;
 import org.apache.camel.impl.DefaultMessage;
-import org.apache.commons.lang3.SerializationUtils;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.broker.core.listener.CamelConstants;
 import org.eclipse.kapua.broker.core.message.CamelKapuaMessage;
@@ -26,6 +25,8 @@ import org.eclipse.kapua.broker.core.message.JmsUtil;
 import org.eclipse.kapua.broker.core.message.MessageConstants;
 import org.eclipse.kapua.broker.core.plugin.ConnectorDescriptor;
 import org.eclipse.kapua.broker.core.plugin.ConnectorDescriptor.MessageType;
+import org.eclipse.kapua.broker.core.plugin.ConnectorDescriptorProviders;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -35,7 +36,6 @@ import org.slf4j.LoggerFactory;
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import java.util.Base64;
 import java.util.Date;
 
 /**
@@ -81,10 +81,14 @@ public abstract class AbstractKapuaConverter {
                 try {
                     // FIX #164
                     Date queuedOn = new Date(message.getHeader(CamelConstants.JMS_HEADER_TIMESTAMP, Long.class));
-                    KapuaId connectionId = (KapuaId) SerializationUtils.deserialize(Base64.getDecoder().decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTION_ID, String.class)));
+                    String compactConnectionId = message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTION_ID, String.class);
+                    KapuaId connectionId = compactConnectionId != null ? KapuaEid.parseCompactId(compactConnectionId) : null;
                     String clientId = message.getHeader(MessageConstants.HEADER_KAPUA_CLIENT_ID, String.class);
-                    ConnectorDescriptor connectorDescriptor = (ConnectorDescriptor) SerializationUtils
-                            .deserialize(Base64.getDecoder().decode(message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, String.class)));
+                    String connectorName = message.getHeader(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, String.class);
+                    ConnectorDescriptor connectorDescriptor = ConnectorDescriptorProviders.getDescriptor(connectorName);
+                    if (connectorDescriptor == null) {
+                        throw KapuaException.internalError(String.format("Unable to find connector descriptor for connector '%s'", connectorName));
+                    }
                     return JmsUtil.convertToCamelKapuaMessage(connectorDescriptor, messageType, messageContent, CamelUtil.getTopic(message), queuedOn, connectionId, clientId);
                 } catch (JMSException e) {
                     metricConverterErrorMessage.inc();
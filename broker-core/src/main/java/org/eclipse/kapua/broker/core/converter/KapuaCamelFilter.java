@@ -12,12 +12,13 @@
 package org.eclipse.kapua.broker.core.converter;
 
 import org.apache.camel.Exchange;
-import org.apache.commons.lang.SerializationException;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.shiro.util.ThreadContext;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.broker.core.listener.AbstractListener;
 import org.eclipse.kapua.broker.core.message.MessageConstants;
+import org.eclipse.kapua.broker.core.plugin.KapuaSessionRegistry;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.slf4j.Logger;
@@ -37,7 +38,11 @@ public class KapuaCamelFilter extends AbstractListener {
     }
 
     /**
-     * Bind the Kapua session retrieved from the message header (with key {@link MessageConstants#HEADER_KAPUA_SESSION}) to the current thread context.
+     * Bind the Kapua session referenced by the message header (with key {@link MessageConstants#HEADER_KAPUA_SESSION}) to the current thread context.<br>
+     * If the session is no more available in the {@link KapuaSessionRegistry} (i.e. the broker restarted or the retention time of the closed connection is elapsed)
+     * the trusted session of the connection is restored from the session scope and user id headers. These headers are always set by the broker
+     * (see {@link org.eclipse.kapua.broker.core.plugin.KapuaSecurityBrokerFilter}) so they cannot be forged by the publisher.<br>
+     * If these headers are missing the message is processed without session.
      *
      * @param exchange
      * @param value
@@ -46,13 +51,25 @@ public class KapuaCamelFilter extends AbstractListener {
     public void bindSession(Exchange exchange, Object value) throws KapuaException {
         ThreadContext.unbindSubject();
         if (!exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, boolean.class)) {
-            try {
-                // FIX #164
-                KapuaSecurityUtils
-                        .setSession((KapuaSession) SerializationUtils.deserialize(Base64.getDecoder().decode(exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION, String.class))));
-            } catch (IllegalArgumentException | SerializationException e) {
-                // continue without session
-                logger.debug("Cannot restore Kapua session: {}", e.getMessage(), e);
+            String brokerConnectionId = exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION, String.class);
+            KapuaSession kapuaSession = brokerConnectionId != null ? KapuaSessionRegistry.getInstance().get(brokerConnectionId) : null;
+            if (kapuaSession != null) {
+                KapuaSecurityUtils.setSession(kapuaSession);
+            } else {
+                String scopeId = exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION_SCOPE_ID, String.class);
+                String userId = exchange.getIn().getHeader(MessageConstants.HEADER_KAPUA_SESSION_USER_ID, String.class);
+                if (scopeId != null && userId != null) {
+                    try {
+                        // like the registered one the restored session is trusted (and it is bound to the thread context by createFrom)
+                        KapuaSession.createFrom(KapuaEid.parseCompactId(scopeId), KapuaEid.parseCompactId(userId));
+                    } catch (IllegalArgumentException e) {
+                        // continue without session
+                        logger.debug("Cannot restore Kapua session: {}", e.getMessage(), e);
+                    }
+                } else {
+                    // continue without session
+                    logger.debug("Cannot restore Kapua session: no session scope or user id");
+                }
             }
         }
     }
@@ -36,10 +36,27 @@ public class MessageConstants {
     public static final String METRIC_USER_ID = "userId";
     public static final String METRIC_NODE_ID = "nodeId";
 
+    /**
+     * Kapua connection id (compact id)
+     */
     public static final String HEADER_KAPUA_CONNECTION_ID = "KAPUA_CONNECTION_ID";
     public static final String HEADER_KAPUA_CLIENT_ID = "KAPUA_CLIENT_ID";
+    /**
+     * Name of the connector the message was received from (the connector descriptor is resolved through the {@link org.eclipse.kapua.broker.core.plugin.ConnectorDescriptorProviders})
+     */
     public static final String HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL = "KAPUA_DEVICE_PROTOCOL";
+    /**
+     * Broker connection id used to look up the Kapua session in the {@link org.eclipse.kapua.broker.core.plugin.KapuaSessionRegistry}
+     */
     public static final String HEADER_KAPUA_SESSION = "KAPUA_SESSION";
+    /**
+     * Kapua session scope id (compact id) used to restore the session if it is no more available in the session registry
+     */
+    public static final String HEADER_KAPUA_SESSION_SCOPE_ID = "KAPUA_SESSION_SCOPE_ID";
+    /**
+     * Kapua session user id (compact id) used to restore the session if it is no more available in the session registry
+     */
+    public static final String HEADER_KAPUA_SESSION_USER_ID = "KAPUA_SESSION_USER_ID";
     public static final String HEADER_KAPUA_BROKER_CONTEXT = "KAPUA_BROKER_CONTEXT";
     public static final String HEADER_KAPUA_PROCESSING_EXCEPTION = "KAPUA_PROCESSING_EXCEPTION";
 
@@ -26,7 +26,7 @@ public final class ConnectorDescriptorProviders {
     private ConnectorDescriptorProviders() {
     }
 
-    private static ConnectorDescriptorProvider provider;
+    private static volatile ConnectorDescriptorProvider provider;
 
     /**
      * Get a {@link ConnectorDescriptorProvider} instance
@@ -34,14 +34,18 @@ public final class ConnectorDescriptorProviders {
      * @return An instance of {@link ConnectorDescriptorProvider}, never returns {@code null}
      */
     public static ConnectorDescriptorProvider getInstance() {
+        // called for every converted message, so avoid locking once the provider is located
+        ConnectorDescriptorProvider result = provider;
+        if (result != null) {
+            return result;
+        }
+
         synchronized (ConnectorDescriptorProviders.class) {
 
-            if (provider != null) {
-                return provider;
+            if (provider == null) {
+                provider = locateProvider();
             }
 
-            provider = locateProvider();
-
             return provider;
         }
     }
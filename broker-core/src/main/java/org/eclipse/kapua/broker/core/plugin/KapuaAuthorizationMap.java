@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import java.security.Principal;
+import java.util.Set;
+
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.security.DefaultAuthorizationMap;
+
+/**
+ * Precompiled authorization map shared by all the connections with the same authorization profile (same client and same ACL list).<br>
+ * The ACLs are granted to a profile {@link Principal} (instead of the connection principal) so the map can be referenced by every {@link KapuaSecurityContext} of the profile without being rebuilt.
+ *
+ * @since 1.1
+ */
+public class KapuaAuthorizationMap {
+
+    private final Principal profilePrincipal;
+    private final DefaultAuthorizationMap authorizationMap;
+
+    /**
+     * Constructs the map
+     *
+     * @param profilePrincipal
+     *            the principal the ACLs of the map are granted to
+     * @param authorizationMap
+     */
+    public KapuaAuthorizationMap(Principal profilePrincipal, DefaultAuthorizationMap authorizationMap) {
+        this.profilePrincipal = profilePrincipal;
+        this.authorizationMap = authorizationMap;
+    }
+
+    public Principal getProfilePrincipal() {
+        return profilePrincipal;
+    }
+
+    public DefaultAuthorizationMap getAuthorizationMap() {
+        return authorizationMap;
+    }
+
+    /**
+     * Check if the profile is allowed to write to the destination
+     *
+     * @param destination
+     * @return
+     */
+    public boolean isWriteAllowed(ActiveMQDestination destination) {
+        return isAllowed(authorizationMap.getWriteACLs(destination));
+    }
+
+    /**
+     * Check if the profile is allowed to read from the destination
+     *
+     * @param destination
+     * @return
+     */
+    public boolean isReadAllowed(ActiveMQDestination destination) {
+        return isAllowed(authorizationMap.getReadACLs(destination));
+    }
+
+    private boolean isAllowed(Set<?> allowedACLs) {
+        return allowedACLs == null || allowedACLs.contains(profilePrincipal);
+    }
+
+    /**
+     * Principal identifying an authorization profile (equal only to itself)
+     */
+    public static class ProfilePrincipal implements Principal {
+
+        private final String name;
+
+        public ProfilePrincipal(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
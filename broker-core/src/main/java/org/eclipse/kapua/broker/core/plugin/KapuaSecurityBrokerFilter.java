@@ -31,7 +31,6 @@ import org.apache.activemq.filter.DestinationMapEntry;
 import org.apache.activemq.security.AuthorizationEntry;
 import org.apache.activemq.security.DefaultAuthorizationMap;
 import org.apache.activemq.security.SecurityContext;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.shiro.ShiroException;
 import org.apache.shiro.authc.AuthenticationException;
@@ -43,12 +42,16 @@ import org.eclipse.kapua.KapuaRuntimeException;
 import org.eclipse.kapua.broker.core.message.MessageConstants;
 import org.eclipse.kapua.broker.core.plugin.authentication.Authenticator;
 import org.eclipse.kapua.broker.core.plugin.authentication.DefaultAuthenticator;
+import org.eclipse.kapua.broker.core.plugin.authentication.DeviceConnectionStatusWriter;
 import org.eclipse.kapua.broker.core.plugin.metric.LoginMetric;
 import org.eclipse.kapua.broker.core.plugin.metric.PublishMetric;
 import org.eclipse.kapua.broker.core.plugin.metric.SubscribeMetric;
 import org.eclipse.kapua.broker.core.pool.JmsConsumerWrapper;
 import org.eclipse.kapua.broker.core.setting.BrokerSetting;
 import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
@@ -70,9 +73,9 @@ import javax.jms.JMSException;
 import javax.jms.MessageListener;
 import javax.security.auth.login.CredentialException;
 import java.io.IOException;
+import java.security.Principal;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -130,6 +133,11 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
 
     protected static final Map<String, String> CONNECTION_MAP = new ConcurrentHashMap<>();
     private static final String CONNECTOR_NAME_VM = String.format("vm://%s", BrokerSetting.getInstance().getString(BrokerSettingKey.BROKER_NAME));
+    // authorization maps shared by the connections with the same authorization profile (so a reconnecting client doesn't rebuild its map)
+    private static final Cache<String, KapuaAuthorizationMap> AUTHORIZATION_MAP_CACHE = CacheProviders.newCache("broker.authorization_map",
+            new CacheConfiguration<>(BrokerSetting.getInstance().getLong(BrokerSettingKey.AUTHORIZATION_MAP_CACHE_SIZE_MAX, 10000L),
+                    BrokerSetting.getInstance().getInt(BrokerSettingKey.AUTHORIZATION_MAP_CACHE_EXPIRE_AFTER, 3600)),
+            null);
     private Authenticator authenticator;
 
     private AuthenticationService authenticationService = KapuaLocator.getInstance().getService(AuthenticationService.class);
@@ -181,6 +189,8 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
             logger.info(">>> Security broker filter: calling stop... Unregister stealing link manager");
             unregisterStealingLinkManager();
         }
+        logger.info(">>> Security broker filter: calling stop... Write the pending device connection status updates");
+        DeviceConnectionStatusWriter.getInstance().flush();
         super.stop();
         logger.info(">>> Security broker filter: calling stop... DONE");
     }
@@ -425,8 +435,10 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
 
             List<org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry> authorizationEntries = authenticator.connect(kcc);
             CONNECTION_MAP.put(kcc.getFullClientId(), info.getConnectionId().getValue());
-            DefaultAuthorizationMap authMap = buildAuthorization(kcc, authorizationEntries);
-            context.setSecurityContext(new KapuaSecurityContext(kcc, authMap));
+            KapuaAuthorizationMap authMap = getAuthorization(kcc, authorizationEntries);
+            KapuaSecurityContext kapuaSecurityContext = new KapuaSecurityContext(kcc, authMap);
+            KapuaSessionRegistry.getInstance().register(kapuaSecurityContext.getBrokerConnectionId(), kapuaSecurityContext.getKapuaSession());
+            context.setSecurityContext(kapuaSecurityContext);
 
             // multiple account stealing link fix
             info.setClientId(kcc.getFullClientId());
@@ -504,6 +516,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
                 info.setClientId(kcc.getFullClientId());
                 context.setClientId(kcc.getFullClientId());
             } finally {
+                KapuaSessionRegistry.getInstance().unregister(info.getConnectionId().getValue());
                 loginRemoveConnectionTimeContext.stop();
                 authenticationService.logout();
                 if (kcc != null && kcc.getFullClientId() != null) {
@@ -554,8 +567,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
         if (!isBrokerContext(producerExchange.getConnectionContext())) {
             KapuaSecurityContext kapuaSecurityContext = getKapuaSecurityContext(producerExchange.getConnectionContext());
             if (!messageSend.getDestination().isTemporary()) {
-                Set<?> allowedACLs = kapuaSecurityContext.getAuthorizationMap().getWriteACLs(messageSend.getDestination());
-                if (allowedACLs != null && !kapuaSecurityContext.isInOneOf(allowedACLs)) {
+                if (!kapuaSecurityContext.isWriteAllowed(messageSend.getDestination())) {
                     String message = MessageFormat.format("User {0} ({1} - {2} - conn id {3}) is not authorized to write to: {4}",
                             kapuaSecurityContext.getUserName(),
                             ((KapuaPrincipal) kapuaSecurityContext.getMainPrincipal()).getClientId(),
@@ -571,11 +583,25 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
                 }
             }
             // FIX #164
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getConnectionId())));
+            // the headers carry just references (compact ids and names) resolved back by the converters instead of serialized objects
+            if (kapuaSecurityContext.getConnectionId() != null) {
+                messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTION_ID, kapuaSecurityContext.getConnectionId().toCompactId());
+            }
             messageSend.setProperty(MessageConstants.HEADER_KAPUA_CLIENT_ID, ((KapuaPrincipal) kapuaSecurityContext.getMainPrincipal()).getClientId());
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL,
-                    Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getConnectorDescriptor())));
-            messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION, Base64.getEncoder().encodeToString(SerializationUtils.serialize(kapuaSecurityContext.getKapuaSession())));
+            messageSend.setProperty(MessageConstants.HEADER_KAPUA_CONNECTOR_DEVICE_PROTOCOL, kapuaSecurityContext.getConnectorName());
+            messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION, kapuaSecurityContext.getBrokerConnectionId());
+            // the session headers are used to restore a trusted session, so the values set by the publisher are never kept
+            KapuaSession kapuaSession = kapuaSecurityContext.getKapuaSession();
+            if (kapuaSession.getScopeId() != null) {
+                messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION_SCOPE_ID, kapuaSession.getScopeId().toCompactId());
+            } else {
+                messageSend.removeProperty(MessageConstants.HEADER_KAPUA_SESSION_SCOPE_ID);
+            }
+            if (kapuaSession.getUserId() != null) {
+                messageSend.setProperty(MessageConstants.HEADER_KAPUA_SESSION_USER_ID, kapuaSession.getUserId().toCompactId());
+            } else {
+                messageSend.removeProperty(MessageConstants.HEADER_KAPUA_SESSION_USER_ID);
+            }
             messageSend.setProperty(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, false);
         } else {
             messageSend.setProperty(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, true);
@@ -633,9 +659,7 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
             // if (!kapuaSecurityContext.getAuthorizedReadDests().contains(info.getDestination()))
             // {
             if (!info.getDestination().isTemporary()) {
-                Set<?> allowedACLs = null;
-                allowedACLs = kapuaSecurityContext.getAuthorizationMap().getReadACLs(info.getDestination());
-                if (allowedACLs != null && !kapuaSecurityContext.isInOneOf(allowedACLs)) {
+                if (!kapuaSecurityContext.isReadAllowed(info.getDestination())) {
                     String message = MessageFormat.format("User {0} ({1} - {2} - conn id {3}) is not authorized to read from: {4}",
                             kapuaSecurityContext.getUserName(),
                             ((KapuaPrincipal) kapuaSecurityContext.getMainPrincipal()).getClientId(),
@@ -662,38 +686,66 @@ public class KapuaSecurityBrokerFilter extends BrokerFilter {
     //
     // ------------------------------------------------------------------
 
-    protected DefaultAuthorizationMap buildAuthorization(KapuaConnectionContext kcc, List<org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry> authorizationEntries) {
+    /**
+     * Get the authorization map shared by the connections with the same authorization profile (same full client id and same ACL list), building it if missing
+     *
+     * @param kcc
+     * @param authorizationEntries
+     * @return
+     */
+    protected KapuaAuthorizationMap getAuthorization(KapuaConnectionContext kcc, List<org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry> authorizationEntries) {
+        StringBuilder profileKey = new StringBuilder(kcc.getFullClientId());
+        for (org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry entry : authorizationEntries) {
+            Acl acl = entry.getAcl();
+            profileKey.append('\n')
+                    .append(acl.isRead() ? 'r' : '_')
+                    .append(acl.isWrite() ? 'w' : '_')
+                    .append(acl.isAdmin() ? 'a' : '_')
+                    .append(entry.getAddress());
+        }
+        String key = profileKey.toString();
+        KapuaAuthorizationMap authMap = AUTHORIZATION_MAP_CACHE.get(key);
+        if (authMap == null) {
+            Principal profilePrincipal = new KapuaAuthorizationMap.ProfilePrincipal(kcc.getFullClientId());
+            authMap = new KapuaAuthorizationMap(profilePrincipal, buildAuthorization(kcc, profilePrincipal, authorizationEntries));
+            AUTHORIZATION_MAP_CACHE.put(key, authMap);
+        }
+        return authMap;
+    }
+
+    protected DefaultAuthorizationMap buildAuthorization(KapuaConnectionContext kcc, Principal principal,
+            List<org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry> authorizationEntries) {
         @SuppressWarnings("rawtypes")
         List<DestinationMapEntry> entries = new ArrayList<>();
         for (org.eclipse.kapua.broker.core.plugin.authentication.AuthorizationEntry entry : authorizationEntries) {
-            entries.add(createAuthorizationEntry(kcc, entry.getAcl(), entry.getAddress()));
+            entries.add(createAuthorizationEntry(principal, entry.getAcl(), entry.getAddress()));
             // added to support the vt topic name space for durable subscriptions
             if (entry.getAcl().isRead()) {
                 // logger.info("pattern {} - clientid {} - topic {} - evaluated {}", new Object[]{JmsConstants.ACL_VT_DURABLE_PREFIX[0], clientId, topic,
                 // MessageFormat.format(JmsConstants.ACL_VT_DURABLE_PREFIX[0], fullClientId, topic)});
-                entries.add(createAuthorizationEntry(kcc, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(0), kcc.getFullClientId(), entry.getAddress())));
+                entries.add(createAuthorizationEntry(principal, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(0), kcc.getFullClientId(), entry.getAddress())));
                 // logger.info("pattern {} - clientid {} - topic {} - evaluated {}", new Object[]{JmsConstants.ACL_VT_DURABLE_PREFIX[1], clientId, topic,
                 // MessageFormat.format(JmsConstants.ACL_VT_DURABLE_PREFIX[1], fullClientId, topic)});
-                entries.add(createAuthorizationEntry(kcc, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(1), kcc.getFullClientId(), entry.getAddress())));
+                entries.add(createAuthorizationEntry(principal, entry.getAcl(), MessageFormat.format(VT_DURABLE_PREFIX.get(1), kcc.getFullClientId(), entry.getAddress())));
             }
         }
         return new DefaultAuthorizationMap(entries);
     }
 
-    protected AuthorizationEntry createAuthorizationEntry(KapuaConnectionContext kcc, Acl acl, String address) {
+    protected AuthorizationEntry createAuthorizationEntry(Principal principal, Acl acl, String address) {
         AuthorizationEntry authorizationEntry = new AuthorizationEntry();
         authorizationEntry.setDestination(ActiveMQDestination.createDestination(address, ActiveMQDestination.TOPIC_TYPE));
         Set<Object> writeACLs = new HashSet<>();
         Set<Object> readACLs = new HashSet<>();
         Set<Object> adminACLs = new HashSet<>();
         if (acl.isRead()) {
-            readACLs.add(kcc.getPrincipal());
+            readACLs.add(principal);
         }
         if (acl.isWrite()) {
-            writeACLs.add(kcc.getPrincipal());
+            writeACLs.add(principal);
         }
         if (acl.isAdmin()) {
-            adminACLs.add(kcc.getPrincipal());
+            adminACLs.add(principal);
         }
         authorizationEntry.setWriteACLs(writeACLs);
         authorizationEntry.setReadACLs(readACLs);
@@ -14,9 +14,13 @@ package org.eclipse.kapua.broker.core.plugin;
 import java.security.Principal;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.activemq.command.ActiveMQDestination;
 import org.apache.activemq.security.AuthorizationMap;
 import org.apache.activemq.security.SecurityContext;
+import org.eclipse.kapua.broker.core.setting.BrokerSetting;
+import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.authentication.KapuaPrincipal;
@@ -28,30 +32,38 @@ import org.eclipse.kapua.service.authentication.KapuaPrincipal;
  */
 public class KapuaSecurityContext extends SecurityContext {
 
+    private static final int AUTHORIZED_DESTINATIONS_SIZE_MAX = BrokerSetting.getInstance().getInt(BrokerSettingKey.AUTHORIZED_DESTINATIONS_SIZE_MAX, 256);
+
     private KapuaPrincipal principal;
     private KapuaSession kapuaSession;
     private KapuaId connectionId;
     private Set<Principal> principals;
+    private String connectorName;
     private ConnectorDescriptor connectorDescriptor;
     private String brokerConnectionId;
 
-    private AuthorizationMap authMap;
+    private KapuaAuthorizationMap authMap;
+    // per connection memo of the granted destinations (qualified names), so the shared map is walked just once per destination
+    private Set<String> authorizedReadDestinations = ConcurrentHashMap.newKeySet();
+    private Set<String> authorizedWriteDestinations = ConcurrentHashMap.newKeySet();
     private boolean hasDataView;
     private boolean hasDataManage;
     private boolean hasDeviceView;
     private boolean hasDeviceManage;
 
     public KapuaSecurityContext(KapuaConnectionContext kcc,
-            AuthorizationMap authMap) {
+            KapuaAuthorizationMap authMap) {
         super(kcc.getPrincipal().getName());
 
         this.principal = kcc.getPrincipal();
         this.kapuaSession = KapuaSession.createFrom();
         principals = new HashSet<Principal>();
         principals.add(principal);
+        principals.add(authMap.getProfilePrincipal());
 
         this.authMap = authMap;
         this.connectionId = kcc.getKapuaConnectionId();
+        this.connectorName = kcc.getConnectorName();
         this.connectorDescriptor = kcc.getConnectorDescriptor();
         this.brokerConnectionId = kcc.getConnectionId();
     }
@@ -65,7 +77,45 @@ public class KapuaSecurityContext extends SecurityContext {
     }
 
     public AuthorizationMap getAuthorizationMap() {
-        return authMap;
+        return authMap.getAuthorizationMap();
+    }
+
+    /**
+     * Check if the connection is allowed to write to the destination
+     *
+     * @param destination
+     * @return
+     * @since 1.1
+     */
+    public boolean isWriteAllowed(ActiveMQDestination destination) {
+        String qualifiedName = destination.getQualifiedName();
+        if (authorizedWriteDestinations.contains(qualifiedName)) {
+            return true;
+        }
+        boolean allowed = authMap.isWriteAllowed(destination);
+        if (allowed && authorizedWriteDestinations.size() < AUTHORIZED_DESTINATIONS_SIZE_MAX) {
+            authorizedWriteDestinations.add(qualifiedName);
+        }
+        return allowed;
+    }
+
+    /**
+     * Check if the connection is allowed to read from the destination
+     *
+     * @param destination
+     * @return
+     * @since 1.1
+     */
+    public boolean isReadAllowed(ActiveMQDestination destination) {
+        String qualifiedName = destination.getQualifiedName();
+        if (authorizedReadDestinations.contains(qualifiedName)) {
+            return true;
+        }
+        boolean allowed = authMap.isReadAllowed(destination);
+        if (allowed && authorizedReadDestinations.size() < AUTHORIZED_DESTINATIONS_SIZE_MAX) {
+            authorizedReadDestinations.add(qualifiedName);
+        }
+        return allowed;
     }
 
     public KapuaId getConnectionId() {
@@ -76,6 +126,10 @@ public class KapuaSecurityContext extends SecurityContext {
         return brokerConnectionId;
     }
 
+    public String getConnectorName() {
+        return connectorName;
+    }
+
     public ConnectorDescriptor getConnectorDescriptor() {
         return connectorDescriptor;
     }
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kapua.broker.core.message.MessageConstants;
+import org.eclipse.kapua.broker.core.setting.BrokerSetting;
+import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
+import org.eclipse.kapua.commons.security.KapuaSession;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Registry of the {@link KapuaSession} bound to the connections opened on this broker.<br>
+ * The messages reference the session through the broker connection id (see {@link MessageConstants#HEADER_KAPUA_SESSION}) instead of carrying it serialized.<br>
+ * The session of a closed connection is kept for {@link BrokerSettingKey#SESSION_REGISTRY_CLOSED_RETENTION_TIME} since the messages published by that connection may still be queued.
+ *
+ * @since 1.1
+ */
+public final class KapuaSessionRegistry {
+
+    private static final KapuaSessionRegistry INSTANCE = new KapuaSessionRegistry();
+
+    private final Map<String, KapuaSession> openSessions = new ConcurrentHashMap<>();
+    private final Cache<String, KapuaSession> closedSessions;
+
+    private KapuaSessionRegistry() {
+        long retentionTime = BrokerSetting.getInstance().getLong(BrokerSettingKey.SESSION_REGISTRY_CLOSED_RETENTION_TIME, 600000L);
+        closedSessions = CacheBuilder.newBuilder().expireAfterWrite(retentionTime, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Get the {@link KapuaSessionRegistry} instance
+     *
+     * @return
+     */
+    public static KapuaSessionRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the session of an opened connection
+     *
+     * @param connectionId
+     *            the broker connection id
+     * @param kapuaSession
+     */
+    public void register(String connectionId, KapuaSession kapuaSession) {
+        closedSessions.invalidate(connectionId);
+        openSessions.put(connectionId, kapuaSession);
+    }
+
+    /**
+     * Unregister the session of a closed connection (the session is still available for the retention time)
+     *
+     * @param connectionId
+     *            the broker connection id
+     */
+    public void unregister(String connectionId) {
+        KapuaSession kapuaSession = openSessions.remove(connectionId);
+        if (kapuaSession != null) {
+            closedSessions.put(connectionId, kapuaSession);
+        }
+    }
+
+    /**
+     * Get the session bound to the connection
+     *
+     * @param connectionId
+     *            the broker connection id
+     * @return the session or {@code null} if the connection is unknown or its retention time is elapsed
+     */
+    public KapuaSession get(String connectionId) {
+        KapuaSession kapuaSession = openSessions.get(connectionId);
+        if (kapuaSession == null) {
+            kapuaSession = closedSessions.getIfPresent(connectionId);
+        }
+        return kapuaSession;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin.authentication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.broker.core.setting.BrokerSetting;
+import org.eclipse.kapua.broker.core.setting.BrokerSettingKey;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionCreator;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceConnectionCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
+/**
+ * Device connection write behind stage.<br>
+ * The {@link DeviceConnection}s are read through the {@link DeviceConnectionCache} and the connection status updates are queued and coalesced per client,
+ * so just the latest status of a client is written. A background thread writes the queued updates every {@link BrokerSettingKey#DEVICE_CONNECTION_WRITE_INTERVAL} milliseconds
+ * in batches of {@link BrokerSettingKey#DEVICE_CONNECTION_WRITE_BATCH_SIZE} updates (one transaction per batch).<br>
+ * <br>
+ * The device connection creation is still synchronous since the connection id is needed by the connection context.<br>
+ * Every lookup returns a new {@link DeviceConnection} copy (with the connection info of the update still queued, if any) owned by the caller,
+ * that may change the connection info and then hand it over to {@link #update(DeviceConnection)}. The caller must not change it afterwards.
+ *
+ * @since 1.1
+ */
+public final class DeviceConnectionStatusWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceConnectionStatusWriter.class);
+
+    private static final DeviceConnectionStatusWriter INSTANCE = new DeviceConnectionStatusWriter();
+
+    private final DeviceConnectionService deviceConnectionService = KapuaLocator.getInstance().getService(DeviceConnectionService.class);
+
+    private final DeviceConnectionCache deviceConnectionCache = DeviceConnectionCache.getInstance();
+    private final Map<String, DeviceConnection> pendingUpdates = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    private final Counter metricWriteCount;
+    private final Counter metricWriteErrorCount;
+    private final Histogram metricWriteBatchSize;
+
+    private DeviceConnectionStatusWriter() {
+        BrokerSetting settings = BrokerSetting.getInstance();
+        batchSize = settings.getInt(BrokerSettingKey.DEVICE_CONNECTION_WRITE_BATCH_SIZE, 100);
+        long interval = settings.getLong(BrokerSettingKey.DEVICE_CONNECTION_WRITE_INTERVAL, 100L);
+
+        MetricsService metricsService = MetricServiceFactory.getInstance();
+        metricWriteCount = metricsService.getCounter("security", "login", "device_connection", "write", "count");
+        metricWriteErrorCount = metricsService.getCounter("security", "login", "device_connection", "write", "error", "count");
+        metricWriteBatchSize = metricsService.getHistogram("security", "login", "device_connection", "write", "batch_size");
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DeviceConnectionStatusWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the {@link DeviceConnectionStatusWriter} instance
+     *
+     * @return
+     */
+    public static DeviceConnectionStatusWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Find the device connection by client id (looking first into the cache)
+     *
+     * @param scopeId
+     * @param clientId
+     * @return a new copy of the device connection or {@code null} if it doesn't exist
+     * @throws KapuaException
+     */
+    public DeviceConnection findByClientId(KapuaId scopeId, String clientId) throws KapuaException {
+        DeviceConnection deviceConnection = deviceConnectionCache.get(scopeId, clientId,
+                () -> KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(scopeId, clientId)));
+        if (deviceConnection != null) {
+            // the cached connection may have been reloaded before the queued update was written
+            DeviceConnection pendingUpdate = pendingUpdates.get(getKey(scopeId, clientId));
+            if (pendingUpdate != null && pendingUpdate.getId().equals(deviceConnection.getId())) {
+                deviceConnection.setStatus(pendingUpdate.getStatus());
+                deviceConnection.setClientIp(pendingUpdate.getClientIp());
+                deviceConnection.setServerIp(pendingUpdate.getServerIp());
+                deviceConnection.setProtocol(pendingUpdate.getProtocol());
+                deviceConnection.setUserId(pendingUpdate.getUserId());
+                deviceConnection.setAllowUserChange(pendingUpdate.getAllowUserChange());
+            }
+        }
+        return deviceConnection;
+    }
+
+    /**
+     * Create the device connection (synchronously) and put it in the cache
+     *
+     * @param deviceConnectionCreator
+     * @return
+     * @throws KapuaException
+     */
+    public DeviceConnection create(DeviceConnectionCreator deviceConnectionCreator) throws KapuaException {
+        DeviceConnection deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.create(deviceConnectionCreator));
+        deviceConnectionCache.put(deviceConnection);
+        return deviceConnection;
+    }
+
+    /**
+     * Queue the update of the device connection info (replacing the update still queued for the same client, if any).<br>
+     * The connection info of the cached device connection is updated too, without changing its expiration time.
+     *
+     * @param deviceConnection
+     *            the device connection (handed over, it must not be changed afterwards)
+     */
+    public void update(DeviceConnection deviceConnection) {
+        pendingUpdates.put(getKey(deviceConnection.getScopeId(), deviceConnection.getClientId()), deviceConnection);
+        deviceConnectionCache.updateConnectionInfo(deviceConnection);
+    }
+
+    /**
+     * Remove the device connection from the cache (i.e. the device is connected to another broker)
+     *
+     * @param scopeId
+     * @param clientId
+     */
+    public void invalidate(KapuaId scopeId, String clientId) {
+        deviceConnectionCache.invalidate(scopeId, clientId);
+    }
+
+    /**
+     * Write the queued updates now (i.e. on broker stop)
+     */
+    public void flush() {
+        flushSafely();
+    }
+
+    private void flushSafely() {
+        try {
+            writePendingUpdates();
+        } catch (Exception e) {
+            logger.error("Error while writing the device connection status updates", e);
+        }
+    }
+
+    private synchronized void writePendingUpdates() {
+        List<DeviceConnection> batch = new ArrayList<>(batchSize);
+        for (String key : pendingUpdates.keySet()) {
+            DeviceConnection deviceConnection = pendingUpdates.remove(key);
+            if (deviceConnection != null) {
+                batch.add(deviceConnection);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<DeviceConnection> batch) {
+        metricWriteBatchSize.update(batch.size());
+        try {
+            KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.updateStatus(batch));
+            metricWriteCount.inc(batch.size());
+        } catch (Exception e) {
+            if (batch.size() > 1) {
+                // retry one by one so a single failure doesn't discard the whole batch
+                logger.warn("Error while writing {} device connection status updates. Retrying one by one...", batch.size(), e);
+                for (DeviceConnection deviceConnection : batch) {
+                    write(Collections.singletonList(deviceConnection));
+                }
+            } else {
+                DeviceConnection deviceConnection = batch.get(0);
+                logger.warn("Error while writing the device connection status update for client id {} - account id {}", deviceConnection.getClientId(), deviceConnection.getScopeId(), e);
+                metricWriteErrorCount.inc();
+                invalidate(deviceConnection.getScopeId(), deviceConnection.getClientId());
+            }
+        }
+    }
+
+    private static String getKey(KapuaId scopeId, String clientId) {
+        return scopeId.toCompactId() + ':' + clientId;
+    }
+}
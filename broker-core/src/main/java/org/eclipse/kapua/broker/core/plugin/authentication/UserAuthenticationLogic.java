@@ -44,6 +44,8 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
     protected String aclDataAccCli;
     protected String aclCtrlAccNotify;
 
+    protected DeviceConnectionStatusWriter deviceConnectionStatusWriter = DeviceConnectionStatusWriter.getInstance();
+
     protected static final int BROKER_CONNECT_IDX = 0;
     protected static final int DEVICE_MANAGE_IDX = 1;
     protected static final int DATA_VIEW_IDX = 2;
@@ -79,7 +81,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
         kcc.updatePermissions(hasPermissions);
 
         Context loginFindClientIdTimeContext = loginMetric.getFindClientIdTime().time();
-        DeviceConnection deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(kcc.getScopeId(), kcc.getClientId()));
+        DeviceConnection deviceConnection = deviceConnectionStatusWriter.findByClientId(kcc.getScopeId(), kcc.getClientId());
         loginFindClientIdTimeContext.stop();
 
         // enforce the user-device bound
@@ -122,6 +124,8 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
                     kcc.getClientIp());
         }
         if (stealingLinkDetected) {
+            // the device is connected to another node (or will be soon) so the cached connection is no longer reliable
+            deviceConnectionStatusWriter.invalidate(kcc.getScopeId(), kcc.getClientId());
             loginMetric.getStealingLinkDisconnect().inc();
             logger.debug("Skip device connection status update since is coming from a stealing link condition. Client id: {} - Connection id: {}",
                     kcc.getClientId(),
@@ -131,7 +135,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
             // update device connection (if the disconnection wasn't caused by a stealing link)
             DeviceConnection deviceConnection;
             try {
-                deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.findByClientId(kcc.getScopeId(), kcc.getClientId()));
+                deviceConnection = deviceConnectionStatusWriter.findByClientId(kcc.getScopeId(), kcc.getClientId());
             } catch (Exception e) {
                 throw new ShiroException("Error while looking for device connection on updating the device status!", e);
             }
@@ -152,11 +156,10 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
                 }
                 if(deviceOwnedByTheCurrentNode) {
                     deviceConnection.setStatus(error == null ? DeviceConnectionStatus.DISCONNECTED : DeviceConnectionStatus.MISSING);
-                    try {
-                        KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnection));
-                    } catch (Exception e) {
-                        throw new ShiroException("Error while updating the device connection status!", e);
-                    }
+                    deviceConnectionStatusWriter.update(deviceConnection);
+                }
+                else {
+                    deviceConnectionStatusWriter.invalidate(kcc.getScopeId(), kcc.getClientId());
                 }
             }
         }
@@ -229,7 +232,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
             deviceConnectionCreator.setUserId(kcc.getUserId());
             deviceConnectionCreator.setUserCouplingMode(ConnectionUserCouplingMode.INHERITED);
             deviceConnectionCreator.setAllowUserChange(false);
-            deviceConnection = KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.create(deviceConnectionCreator));
+            deviceConnection = deviceConnectionStatusWriter.create(deviceConnectionCreator);
         } else {
             deviceConnection.setStatus(DeviceConnectionStatus.CONNECTED);
             deviceConnection.setClientIp(kcc.getClientIp());
@@ -237,8 +240,7 @@ public class UserAuthenticationLogic extends AuthenticationLogic {
             deviceConnection.setServerIp(kcc.getBrokerIpOrHostName());
             deviceConnection.setUserId(kcc.getUserId());
             deviceConnection.setAllowUserChange(false);
-            DeviceConnection deviceConnectionToUpdate = deviceConnection;
-            KapuaSecurityUtils.doPrivileged(() -> deviceConnectionService.update(deviceConnectionToUpdate));
+            deviceConnectionStatusWriter.update(deviceConnection);
             // TODO implement the banned status
             // if (DeviceStatus.DISABLED.equals(device.getStatus())) {
             // throw new KapuaIllegalAccessException("clientId - This client ID is disabled and cannot connect");
@@ -29,14 +29,22 @@ import org.xml.sax.SAXException;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Default message router
+ * Default message router<br>
+ * <br>
+ * The routing configuration is compiled into a trie of topic levels (see {@link EndPointTrie}) and, if the configuration file is a local file,
+ * it is reloaded (without restarting the broker) when it changes (see {@link BrokerSettingKey#CAMEL_DEFAULT_ROUTE_CONFIGURATION_REFRESH_INTERVAL}).
+ * If the new configuration cannot be loaded the current one is kept.
  *
  * @since 1.0
  */
@@ -44,58 +52,110 @@ public class CamelKapuaDefaultRouter {
 
     private static final Logger LOG = LoggerFactory.getLogger(CamelKapuaDefaultRouter.class);
 
-    private EndPointContainer endPointContainer;
+    private final String configurationFileName;
+    private final URL url;
+    private volatile EndPointContainer endPointContainer;
+    private volatile EndPointTrie endPointTrie;
+    private long configurationLastModified;
 
     public CamelKapuaDefaultRouter() {
-        String configurationFileName = BrokerSetting.getInstance().getString(BrokerSettingKey.CAMEL_DEFAULT_ROUTE_CONFIGURATION_FILE_NAME);
-        URL url = null;
+        configurationFileName = BrokerSetting.getInstance().getString(BrokerSettingKey.CAMEL_DEFAULT_ROUTE_CONFIGURATION_FILE_NAME);
         try {
             url = KapuaFileUtils.getAsURL(configurationFileName);
         } catch (KapuaSettingException e) {
             throw new KapuaRuntimeException(KapuaErrorCodes.INTERNAL_ERROR, e, "Cannot find configuration file!");
         }
-        LOG.info("Default Camel routing... Loading configuration from file {}", url.getFile());
-        FileReader configurationFileReader = null;
+        configurationLastModified = getConfigurationLastModified();
         try {
-            configurationFileReader = new FileReader(url.getFile());
-            endPointContainer = XmlUtil.unmarshal(configurationFileReader, EndPointContainer.class);
-            LOG.info("Default Camel routing... Loading configuration from file {} Found {} parent endpoints in the route", configurationFileName,
-                    (endPointContainer.getEndPoints() != null ? endPointContainer.getEndPoints().size() : 0));
-            logLoadedEndPoints(endPointContainer.getEndPoints());
+            loadConfiguration();
         } catch (XMLStreamException | JAXBException | SAXException | IOException e) {
             throw new KapuaRuntimeException(KapuaErrorCodes.INTERNAL_ERROR, e, "Cannot load configuration!");
-        } finally {
-            if (configurationFileReader != null) {
-                try {
-                    configurationFileReader.close();
-                } catch (IOException e) {
-                    LOG.warn("Cannot close configuration file '{}'!", configurationFileName, e);
-                }
-            }
         }
-        LOG.info("Default Camel routing... Loading configuration '{}' from file '{}' DONE", configurationFileName, url.getFile());
+
+        long refreshInterval = BrokerSetting.getInstance().getLong(BrokerSettingKey.CAMEL_DEFAULT_ROUTE_CONFIGURATION_REFRESH_INTERVAL, 0L);
+        if (refreshInterval > 0 && "file".equals(url.getProtocol())) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CamelKapuaDefaultRouter-ConfigurationWatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::reloadIfModified, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+        }
     }
 
     public String defaultRoute(Exchange exchange, Object value, @Header(Exchange.SLIP_ENDPOINT) String previous, @Properties Map<String, Object> properties) {
+        String originalTopic = exchange.getIn().getHeader(MessageConstants.PROPERTY_ORIGINAL_TOPIC, String.class);
         LOG.trace("Received message on topic {} - Previous slip endpoint {} - id {}",
-                exchange.getIn().getHeader(MessageConstants.PROPERTY_ORIGINAL_TOPIC, String.class),
+                originalTopic,
                 previous,
                 exchange.getIn().getHeader(CamelConstants.JMS_CORRELATION_ID));
-        for (EndPoint endPoint : endPointContainer.getEndPoints()) {
-            if (endPoint.matches(exchange, value, previous, properties)) {
-                return endPoint.getEndpoint(exchange, value, previous, properties);
+        if (previous != null || originalTopic == null) {
+            // the compiled routes match the original topic of the first slip step only
+            for (EndPoint endPoint : endPointContainer.getEndPoints()) {
+                if (endPoint.matches(exchange, value, previous, properties)) {
+                    return endPoint.getEndpoint(exchange, value, previous, properties);
+                }
+            }
+            return null;
+        }
+
+        String[] levels = EndPointTrie.splitLevels(originalTopic);
+        EndPointTrie.Route route = endPointTrie.match(levels, exchange, value, previous, properties);
+        while (route != null) {
+            route.hit();
+            if (route.getChildren() == null) {
+                return route.getEndPoint().getEndpoint(exchange, value, previous, properties);
             }
+            route = route.getChildren().match(levels, exchange, value, previous, properties);
         }
         return null;
     }
 
-    private void logLoadedEndPoints(List<EndPoint> endPoints) {
+    /**
+     * Reload the routing configuration if the configuration file was modified
+     */
+    void reloadIfModified() {
+        try {
+            long lastModified = getConfigurationLastModified();
+            if (lastModified != configurationLastModified) {
+                configurationLastModified = lastModified;
+                LOG.info("Default Camel routing... Configuration file {} modified. Reloading", url.getFile());
+                loadConfiguration();
+            }
+        } catch (Exception e) {
+            LOG.error("Default Camel routing... Cannot reload configuration from file {}. The current configuration is kept", url.getFile(), e);
+        }
+    }
+
+    private void loadConfiguration() throws XMLStreamException, JAXBException, SAXException, IOException {
+        LOG.info("Default Camel routing... Loading configuration from file {}", url.getFile());
+        EndPointContainer newEndPointContainer;
+        try (FileReader configurationFileReader = new FileReader(url.getFile())) {
+            newEndPointContainer = XmlUtil.unmarshal(configurationFileReader, EndPointContainer.class);
+        }
+        LOG.info("Default Camel routing... Loading configuration from file {} Found {} parent endpoints in the route", configurationFileName,
+                (newEndPointContainer.getEndPoints() != null ? newEndPointContainer.getEndPoints().size() : 0));
+        EndPointTrie newEndPointTrie = EndPointTrie.compile(newEndPointContainer.getEndPoints());
+        logLoadedEndPoints(newEndPointContainer.getEndPoints(), newEndPointTrie);
+
+        endPointTrie = newEndPointTrie;
+        endPointContainer = newEndPointContainer;
+        LOG.info("Default Camel routing... Loading configuration '{}' from file '{}' DONE", configurationFileName, url.getFile());
+    }
+
+    private long getConfigurationLastModified() {
+        return "file".equals(url.getProtocol()) ? new File(url.getFile()).lastModified() : 0;
+    }
+
+    private void logLoadedEndPoints(List<EndPoint> endPoints, EndPointTrie endPointTrie) {
         StringBuffer buffer = new StringBuffer();
         buffer.append("\n");
         for (EndPoint endPoint : endPoints) {
             endPoint.toLog(buffer, "");
         }
+        buffer.append("\nCompiled routes:\n");
+        endPointTrie.toLog(buffer, "");
         LOG.info(buffer.toString());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.router;
+
+import com.codahale.metrics.Counter;
+import org.apache.camel.Exchange;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CamelKapuaDefaultRouter} compiled routes.<br>
+ * <br>
+ * The {@link EndPoint}s are compiled into a trie of topic levels, so the matching {@link EndPoint} is found by a single walk over the levels of the topic
+ * instead of evaluating the regex of each {@link EndPoint} in order.
+ * The regexes (with the placeholders already replaced) are compiled if they are a sequence of levels separated by {@code \.} where each level is:
+ * <ul>
+ * <li>a literal (with the regex special characters escaped)</li>
+ * <li>{@code .*} (one or more levels, with any content)</li>
+ * <li>{@code (.*\.){n}} (n or more levels, with any content)</li>
+ * </ul>
+ * The other regexes and the other {@link EndPoint} implementations (like {@link EndChainEndPoint}) are evaluated by {@link EndPoint#matches(Exchange, Object, String, Map)}
+ * but only if no {@link EndPoint} declared before them has already matched, so the first matching {@link EndPoint}, in the configuration order, is still the selected one.
+ *
+ * @since 1.1
+ */
+class EndPointTrie {
+
+    private static final MetricsService METRICS_SERVICE = MetricServiceFactory.getInstance();
+    private static final String METRIC_MODULE_NAME = "router";
+    private static final String METRIC_COMPONENT_NAME = "default_route";
+
+    private static final char LEVEL_SEPARATOR = '.';
+    private static final String REGEX_LEVEL_SEPARATOR = "\\.";
+    private static final String REGEX_ANY_LEVELS = ".*";
+    private static final String REGEX_ANY_LEVELS_GROUP_START = "(.*\\.){";
+    private static final String REGEX_SPECIAL_CHARS = ".[]{}()*+?^$|\\";
+
+    private final List<Route> routes;
+    private final Node root = new Node();
+    private final List<Route> uncompiledRoutes = new ArrayList<>();
+
+    private EndPointTrie(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * Compile the {@link EndPoint}s (and the {@link ParentEndPoint} children)
+     *
+     * @param endPoints
+     * @return
+     */
+    static EndPointTrie compile(List<EndPoint> endPoints) {
+        return compile(endPoints != null ? endPoints : Collections.emptyList(), "route");
+    }
+
+    private static EndPointTrie compile(List<EndPoint> endPoints, String name) {
+        List<Route> routes = new ArrayList<>(endPoints.size());
+        EndPointTrie trie = new EndPointTrie(Collections.unmodifiableList(routes));
+        for (EndPoint endPoint : endPoints) {
+            Route route = new Route(routes.size(), name + "_" + routes.size(), endPoint);
+            routes.add(route);
+
+            String regex = null;
+            if (endPoint instanceof ParentEndPoint) {
+                ParentEndPoint parentEndPoint = (ParentEndPoint) endPoint;
+                regex = parentEndPoint.getRegex();
+                route.children = compile(parentEndPoint.getEndPoints() != null ? parentEndPoint.getEndPoints() : Collections.emptyList(), route.name);
+            } else if (endPoint instanceof SimpleEndPoint) {
+                regex = ((SimpleEndPoint) endPoint).getRegex();
+            }
+
+            List<Level> levels = regex != null ? parseRegex(EndPoint.replacePlaceholder(regex)) : null;
+            if (levels != null) {
+                route.compiled = true;
+                trie.root.add(levels, 0, route);
+            } else {
+                trie.uncompiledRoutes.add(route);
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * Find the first {@link Route} matching the topic levels (or the {@link EndPoint#matches(Exchange, Object, String, Map)} for the not compiled ones)
+     *
+     * @param levels
+     * @param exchange
+     * @param value
+     * @param previous
+     * @param properties
+     * @return the matching route or {@code null} if no route matches
+     */
+    Route match(String[] levels, Exchange exchange, Object value, String previous, Map<String, Object> properties) {
+        int first = root.match(levels, 0, routes.size());
+        for (Route route : uncompiledRoutes) {
+            if (route.ordinal >= first) {
+                break;
+            }
+            if (route.endPoint.matches(exchange, value, previous, properties)) {
+                return route;
+            }
+        }
+        return first < routes.size() ? routes.get(first) : null;
+    }
+
+    /**
+     * Split the topic into levels (the empty levels are kept)
+     *
+     * @param topic
+     * @return
+     */
+    static String[] splitLevels(String topic) {
+        int count = 1;
+        for (int i = 0; i < topic.length(); i++) {
+            if (topic.charAt(i) == LEVEL_SEPARATOR) {
+                count++;
+            }
+        }
+        String[] levels = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; i++) {
+            int end = topic.indexOf(LEVEL_SEPARATOR, start);
+            levels[i] = topic.substring(start, end);
+            start = end + 1;
+        }
+        levels[count - 1] = topic.substring(start);
+        return levels;
+    }
+
+    void toLog(StringBuffer buffer, String prefix) {
+        for (Route route : routes) {
+            buffer.append(prefix);
+            buffer.append(route.name);
+            buffer.append(route.compiled ? " (compiled)" : " (regex)");
+            buffer.append(" - hits: ");
+            buffer.append(route.hits.getCount());
+            buffer.append("\n");
+            if (route.children != null) {
+                route.children.toLog(buffer, prefix + "\t");
+            }
+        }
+    }
+
+    /**
+     * Parse the regex into levels
+     *
+     * @param regex
+     * @return the levels or {@code null} if the regex cannot be compiled
+     */
+    private static List<Level> parseRegex(String regex) {
+        if (regex == null) {
+            return null;
+        }
+        List<Level> levels = new ArrayList<>();
+        int i = regex.startsWith("^") ? 1 : 0;
+        int end = regex.endsWith("$") && !regex.endsWith("\\$") ? regex.length() - 1 : regex.length();
+        while (true) {
+            if (regex.startsWith(REGEX_ANY_LEVELS_GROUP_START, i)) {
+                int groupEnd = regex.indexOf('}', i);
+                int count;
+                try {
+                    count = Integer.parseInt(regex.substring(i + REGEX_ANY_LEVELS_GROUP_START.length(), groupEnd));
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                    return null;
+                }
+                if (count <= 0) {
+                    return null;
+                }
+                addAnyLevels(levels, count);
+                // the group includes the level separator
+                i = groupEnd + 1;
+                continue;
+            }
+            if (regex.startsWith(REGEX_ANY_LEVELS, i) && (i + REGEX_ANY_LEVELS.length() == end || regex.startsWith(REGEX_LEVEL_SEPARATOR, i + REGEX_ANY_LEVELS.length()))) {
+                addAnyLevels(levels, 1);
+                i += REGEX_ANY_LEVELS.length();
+            } else {
+                StringBuilder literal = new StringBuilder();
+                i = parseLiteral(regex, i, end, literal);
+                if (i < 0) {
+                    return null;
+                }
+                levels.add(new Level(literal.toString(), 0));
+            }
+            if (i >= end) {
+                return levels;
+            }
+            // the parsing of the level stops at the end or at the level separator
+            i += REGEX_LEVEL_SEPARATOR.length();
+        }
+    }
+
+    /**
+     * Parse a literal level
+     *
+     * @return the index of the level separator (or of the end) or -1 if the level is not a literal
+     */
+    private static int parseLiteral(String regex, int start, int end, StringBuilder literal) {
+        int i = start;
+        while (i < end) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= end) {
+                    return -1;
+                }
+                char escaped = regex.charAt(i + 1);
+                if (escaped == LEVEL_SEPARATOR) {
+                    return i;
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    // character classes (\d, \w, ...)
+                    return -1;
+                }
+                literal.append(escaped);
+                i += 2;
+            } else if (REGEX_SPECIAL_CHARS.indexOf(c) >= 0) {
+                return -1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static void addAnyLevels(List<Level> levels, int count) {
+        int last = levels.size() - 1;
+        if (last >= 0 && levels.get(last).literal == null) {
+            levels.set(last, new Level(null, levels.get(last).anyLevels + count));
+        } else {
+            levels.add(new Level(null, count));
+        }
+    }
+
+    /**
+     * Compiled {@link EndPoint}
+     */
+    static class Route {
+
+        private final int ordinal;
+        private final String name;
+        private final EndPoint endPoint;
+        private final Counter hits;
+        private EndPointTrie children;
+        private boolean compiled;
+
+        private Route(int ordinal, String name, EndPoint endPoint) {
+            this.ordinal = ordinal;
+            this.name = name;
+            this.endPoint = endPoint;
+            hits = METRICS_SERVICE.getCounter(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, name, "hits", "count");
+        }
+
+        EndPoint getEndPoint() {
+            return endPoint;
+        }
+
+        /**
+         * Get the compiled children (only for the {@link ParentEndPoint})
+         *
+         * @return
+         */
+        EndPointTrie getChildren() {
+            return children;
+        }
+
+        void hit() {
+            hits.inc();
+        }
+
+        long getHits() {
+            return hits.getCount();
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        private final Map<Integer, Node> anyLevelsChildren = new HashMap<>();
+        private int terminalOrdinal = Integer.MAX_VALUE;
+        private int minOrdinal = Integer.MAX_VALUE;
+
+        private void add(List<Level> levels, int index, Route route) {
+            minOrdinal = Math.min(minOrdinal, route.ordinal);
+            if (index == levels.size()) {
+                terminalOrdinal = Math.min(terminalOrdinal, route.ordinal);
+                return;
+            }
+            Level level = levels.get(index);
+            Node child;
+            if (level.literal != null) {
+                child = literalChildren.computeIfAbsent(level.literal, literal -> new Node());
+            } else {
+                child = anyLevelsChildren.computeIfAbsent(level.anyLevels, anyLevels -> new Node());
+            }
+            child.add(levels, index + 1, route);
+        }
+
+        /**
+         * @return the lowest ordinal of the routes matching the levels from the index, or the given best one if lower
+         */
+        private int match(String[] levels, int index, int best) {
+            if (minOrdinal >= best) {
+                return best;
+            }
+            if (index == levels.length) {
+                return Math.min(best, terminalOrdinal);
+            }
+            Node literalChild = literalChildren.get(levels[index]);
+            if (literalChild != null) {
+                best = literalChild.match(levels, index + 1, best);
+            }
+            for (Map.Entry<Integer, Node> anyLevelsChild : anyLevelsChildren.entrySet()) {
+                for (int next = index + anyLevelsChild.getKey(); next <= levels.length; next++) {
+                    best = anyLevelsChild.getValue().match(levels, next, best);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Regex level: a literal or a number of levels (one or more) with any content
+     */
+    private static class Level {
+
+        private final String literal;
+        private final int anyLevels;
+
+        private Level(String literal, int anyLevels) {
+            this.literal = literal;
+            this.anyLevels = anyLevels;
+        }
+    }
+}
@@ -12,6 +12,7 @@
 package org.eclipse.kapua.broker.core.setting;
 
 import org.eclipse.kapua.broker.core.plugin.ConnectorDescriptor;
+import org.eclipse.kapua.broker.core.plugin.KapuaSessionRegistry;
 import org.eclipse.kapua.broker.core.router.CamelKapuaDefaultRouter;
 import org.eclipse.kapua.commons.setting.SettingKey;
 
@@ -79,7 +80,36 @@ public enum BrokerSettingKey implements SettingKey {
      * Camel default route configuration file name. (please specify just the name. The file path will be discovered by the class loader)
      * Used by the {@link CamelKapuaDefaultRouter} to load the routing configuration.
      */
-    CAMEL_DEFAULT_ROUTE_CONFIGURATION_FILE_NAME("camel.default_route.configuration_file_name");
+    CAMEL_DEFAULT_ROUTE_CONFIGURATION_FILE_NAME("camel.default_route.configuration_file_name"),
+    /**
+     * Interval (in seconds) between two checks of the Camel default route configuration file modification time.
+     * If the file was modified the {@link CamelKapuaDefaultRouter} reloads the routing configuration. 0 disables the reload.
+     */
+    CAMEL_DEFAULT_ROUTE_CONFIGURATION_REFRESH_INTERVAL("camel.default_route.configuration_refresh_interval"),
+    /**
+     * Time (in milliseconds) the Kapua session of a closed connection is kept by the {@link KapuaSessionRegistry} (its messages could still be queued)
+     */
+    SESSION_REGISTRY_CLOSED_RETENTION_TIME("broker.session_registry.closed_retention_time"),
+    /**
+     * Max number of authorization maps shared by the connections with the same authorization profile
+     */
+    AUTHORIZATION_MAP_CACHE_SIZE_MAX("broker.authorization_map.cache.size_max"),
+    /**
+     * Time (in seconds) a shared authorization map is kept (it is rebuilt by the next connection of the profile)
+     */
+    AUTHORIZATION_MAP_CACHE_EXPIRE_AFTER("broker.authorization_map.cache.expire_after"),
+    /**
+     * Max number of granted destinations remembered by a connection (per access type)
+     */
+    AUTHORIZED_DESTINATIONS_SIZE_MAX("broker.authorized_destinations.size_max"),
+    /**
+     * Max number of device connection status updates written in the same transaction
+     */
+    DEVICE_CONNECTION_WRITE_BATCH_SIZE("broker.device_connection.write.batch_size"),
+    /**
+     * Interval (in milliseconds) between two writes of the queued device connection status updates
+     */
+    DEVICE_CONNECTION_WRITE_INTERVAL("broker.device_connection.write.interval");
 
     private String key;
 
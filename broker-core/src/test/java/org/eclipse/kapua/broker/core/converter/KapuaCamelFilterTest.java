@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.converter;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.eclipse.kapua.broker.core.message.MessageConstants;
+import org.eclipse.kapua.broker.core.plugin.KapuaSessionRegistry;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigInteger;
+
+@Category(JUnitTests.class)
+public class KapuaCamelFilterTest {
+
+    private static final KapuaEid SCOPE_ID = new KapuaEid(BigInteger.valueOf(12));
+    private static final KapuaEid USER_ID = new KapuaEid(BigInteger.valueOf(34));
+
+    private KapuaCamelFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new KapuaCamelFilter();
+    }
+
+    @After
+    public void tearDown() {
+        KapuaSecurityUtils.clearSession();
+    }
+
+    @Test
+    public void testBindRegisteredSession() throws Exception {
+        KapuaSession registeredSession = new KapuaSession(null, SCOPE_ID, USER_ID);
+        KapuaSessionRegistry.getInstance().register("registered-connection", registeredSession);
+        try {
+            filter.bindSession(newExchange("registered-connection", SCOPE_ID.toCompactId(), USER_ID.toCompactId()), null);
+
+            Assert.assertSame(registeredSession, KapuaSecurityUtils.getSession());
+        } finally {
+            KapuaSessionRegistry.getInstance().unregister("registered-connection");
+        }
+    }
+
+    @Test
+    public void testBindSessionAfterRegistryEntryExpired() throws Exception {
+        // the connection is no more in the registry (broker restarted or closed connection retention time elapsed)
+        Assert.assertNull(KapuaSessionRegistry.getInstance().get("expired-connection"));
+
+        filter.bindSession(newExchange("expired-connection", SCOPE_ID.toCompactId(), USER_ID.toCompactId()), null);
+
+        KapuaSession kapuaSession = KapuaSecurityUtils.getSession();
+        Assert.assertNotNull(kapuaSession);
+        Assert.assertTrue(kapuaSession.isTrustedMode());
+        Assert.assertEquals(SCOPE_ID, kapuaSession.getScopeId());
+        Assert.assertEquals(USER_ID, kapuaSession.getUserId());
+    }
+
+    @Test
+    public void testBindSessionWithoutSessionHeaders() throws Exception {
+        filter.bindSession(newExchange("expired-connection", SCOPE_ID.toCompactId(), null), null);
+
+        Assert.assertNull(KapuaSecurityUtils.getSession());
+    }
+
+    @Test
+    public void testBindSessionWithMalformedSessionHeaders() throws Exception {
+        filter.bindSession(newExchange("expired-connection", "not a compact id!", USER_ID.toCompactId()), null);
+
+        Assert.assertNull(KapuaSecurityUtils.getSession());
+    }
+
+    @Test
+    public void testUnbindSession() throws Exception {
+        filter.bindSession(newExchange("expired-connection", SCOPE_ID.toCompactId(), USER_ID.toCompactId()), null);
+        filter.unbindSession(null, null);
+
+        Assert.assertNull(KapuaSecurityUtils.getSession());
+    }
+
+    private static Exchange newExchange(String brokerConnectionId, String scopeId, String userId) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader(MessageConstants.HEADER_KAPUA_BROKER_CONTEXT, false);
+        exchange.getIn().setHeader(MessageConstants.HEADER_KAPUA_SESSION, brokerConnectionId);
+        exchange.getIn().setHeader(MessageConstants.HEADER_KAPUA_SESSION_SCOPE_ID, scopeId);
+        exchange.getIn().setHeader(MessageConstants.HEADER_KAPUA_SESSION_USER_ID, userId);
+        return exchange;
+    }
+}
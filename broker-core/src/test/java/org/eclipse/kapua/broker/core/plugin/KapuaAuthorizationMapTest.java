@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.plugin;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.security.AuthorizationEntry;
+import org.apache.activemq.security.DefaultAuthorizationMap;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class KapuaAuthorizationMapTest {
+
+    @Test
+    public void testProfileAcls() {
+        Principal profilePrincipal = new KapuaAuthorizationMap.ProfilePrincipal("acme:device-1");
+        DefaultAuthorizationMap authorizationMap = new DefaultAuthorizationMap(Collections.singletonList(
+                newEntry("acme.device-1.>", Collections.singleton(profilePrincipal), Collections.emptySet())));
+        KapuaAuthorizationMap kapuaAuthorizationMap = new KapuaAuthorizationMap(profilePrincipal, authorizationMap);
+
+        Assert.assertTrue(kapuaAuthorizationMap.isReadAllowed(topic("acme.device-1.control")));
+        Assert.assertFalse(kapuaAuthorizationMap.isWriteAllowed(topic("acme.device-1.control")));
+        Assert.assertFalse(kapuaAuthorizationMap.isReadAllowed(topic("acme.device-2.control")));
+
+        // ACLs are granted to the profile principal only
+        KapuaAuthorizationMap otherProfile = new KapuaAuthorizationMap(new KapuaAuthorizationMap.ProfilePrincipal("acme:device-1"), authorizationMap);
+        Assert.assertFalse(otherProfile.isReadAllowed(topic("acme.device-1.control")));
+    }
+
+    private static AuthorizationEntry newEntry(String address, Set<Object> readACLs, Set<Object> writeACLs) {
+        AuthorizationEntry entry = new AuthorizationEntry();
+        entry.setDestination(topic(address));
+        entry.setReadACLs(readACLs);
+        entry.setWriteACLs(writeACLs);
+        entry.setAdminACLs(Collections.emptySet());
+        return entry;
+    }
+
+    private static ActiveMQDestination topic(String address) {
+        return ActiveMQDestination.createDestination(address, ActiveMQDestination.TOPIC_TYPE);
+    }
+}
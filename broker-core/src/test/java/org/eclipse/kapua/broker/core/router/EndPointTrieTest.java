@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.broker.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.eclipse.kapua.broker.core.message.MessageConstants;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class EndPointTrieTest {
+
+    private static final String[] REGEXES = {
+            "${CLASSIFIER}(.*\\.){2}MQTT\\.BIRTH",
+            "${CLASSIFIER}(.*\\.){2}MQTT\\.DC",
+            "^\\$EDC\\.account\\.[^.]+\\.MQTT\\.APPS",
+            "${CLASSIFIER}.*",
+            "account\\.(.*\\.){1}data$",
+            ".*"
+    };
+
+    private static final String[] TOPICS = {
+            "$EDC.account.client.MQTT.BIRTH",
+            "$EDC.account.client.extra.MQTT.BIRTH",
+            "$EDC.account.MQTT.BIRTH",
+            "$EDC.account.client.MQTT.DC",
+            "$EDC.account.client.MQTT.APPS",
+            "$EDC.account.client.MQTT.NOTIFY",
+            "$EDC.",
+            "$EDC",
+            "account.client.data",
+            "account.client.sensor.data",
+            "account.data",
+            "account..data",
+            ""
+    };
+
+    @Test
+    public void testFirstMatchingRoute() {
+        List<EndPoint> endPoints = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : REGEXES) {
+            SimpleEndPoint endPoint = new SimpleEndPoint();
+            endPoint.setRegex(regex);
+            endPoint.setEndPoint(regex);
+            endPoints.add(endPoint);
+            patterns.add(Pattern.compile(PlaceholderReplacer.replace(regex)));
+        }
+        EndPointTrie endPointTrie = EndPointTrie.compile(endPoints);
+
+        for (String topic : TOPICS) {
+            String expected = null;
+            for (int i = 0; i < patterns.size() && expected == null; i++) {
+                if (patterns.get(i).matcher(topic).matches()) {
+                    expected = REGEXES[i];
+                }
+            }
+            Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+            exchange.getIn().setHeader(MessageConstants.PROPERTY_ORIGINAL_TOPIC, topic);
+            EndPointTrie.Route route = endPointTrie.match(EndPointTrie.splitLevels(topic), exchange, null, null, null);
+            Assert.assertNotNull(topic, route);
+            Assert.assertEquals(topic, expected, route.getEndPoint().getEndpoint(null, null, null, null));
+        }
+    }
+
+    @Test
+    public void testParentEndPoint() {
+        SimpleEndPoint birth = new SimpleEndPoint();
+        birth.setRegex("${CLASSIFIER}(.*\\.){2}MQTT\\.BIRTH");
+        birth.setEndPoint("birth");
+        ParentEndPoint parent = new ParentEndPoint();
+        parent.setRegex("${CLASSIFIER}.*");
+        parent.setEndPoints(Arrays.asList(birth, new EndChainEndPoint()));
+        SimpleEndPoint data = new SimpleEndPoint();
+        data.setRegex(".*");
+        data.setEndPoint("data");
+        EndPointTrie endPointTrie = EndPointTrie.compile(Arrays.asList(parent, data));
+
+        EndPointTrie.Route route = endPointTrie.match(EndPointTrie.splitLevels("$EDC.account.client.MQTT.BIRTH"), null, null, null, null);
+        Assert.assertSame(parent, route.getEndPoint());
+        Assert.assertSame(birth, route.getChildren().match(EndPointTrie.splitLevels("$EDC.account.client.MQTT.BIRTH"), null, null, null, null).getEndPoint());
+        Assert.assertTrue(route.getChildren().match(EndPointTrie.splitLevels("$EDC.account.client.MQTT.DC"), null, null, null, null).getEndPoint() instanceof EndChainEndPoint);
+        Assert.assertSame(data, endPointTrie.match(EndPointTrie.splitLevels("account.client.data"), null, null, null, null).getEndPoint());
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * {@link Cache} configuration.<br>
+ * The entries weight, the loader and the refresh time are honored only by the providers supporting them (see {@link CaffeineCacheProvider}).
+ *
+ * @param <K>
+ *            keys type
+ * @param <V>
+ *            values type
+ *
+ * @since 1.1
+ */
+public class CacheConfiguration<K, V> {
+
+    private long sizeMax;
+    private Integer expireAfter;
+    private Integer refreshAfter;
+    private ToIntBiFunction<K, V> weigher;
+    private Function<K, V> loader;
+
+    /**
+     * Constructs the configuration of a cache bounded by the number of entries
+     *
+     * @param sizeMax
+     *            max cache size (max cache weight if a weigher is set)
+     * @param expireAfter
+     *            values ttl in seconds ({@code null} to disable time based eviction)
+     */
+    public CacheConfiguration(long sizeMax, Integer expireAfter) {
+        this.sizeMax = sizeMax;
+        this.expireAfter = expireAfter;
+    }
+
+    /**
+     * Get the max cache size (max cache weight if a weigher is set)
+     *
+     * @return
+     */
+    public long getSizeMax() {
+        return sizeMax;
+    }
+
+    public void setSizeMax(long sizeMax) {
+        this.sizeMax = sizeMax;
+    }
+
+    /**
+     * Get the values ttl in seconds
+     *
+     * @return the ttl or {@code null} if the time based eviction is disabled
+     */
+    public Integer getExpireAfter() {
+        return expireAfter;
+    }
+
+    public void setExpireAfter(Integer expireAfter) {
+        this.expireAfter = expireAfter;
+    }
+
+    /**
+     * Get the time (in seconds) after that a value is asynchronously reloaded on access (requires a loader)
+     *
+     * @return the refresh time or {@code null} if the refresh is disabled
+     */
+    public Integer getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    public void setRefreshAfter(Integer refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    /**
+     * Get the entries weigher
+     *
+     * @return the weigher or {@code null} if every entry weighs 1
+     */
+    public ToIntBiFunction<K, V> getWeigher() {
+        return weigher;
+    }
+
+    public void setWeigher(ToIntBiFunction<K, V> weigher) {
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get the loader used to compute the missing (and to refresh the expiring) values
+     *
+     * @return the loader or {@code null} if the values are only put explicitly
+     */
+    public Function<K, V> getLoader() {
+        return loader;
+    }
+
+    public void setLoader(Function<K, V> loader) {
+        this.loader = loader;
+    }
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+/**
+ * {@link Cache} provider definition.<br>
+ * The provider in use is defined by the {@link org.eclipse.kapua.commons.setting.system.SystemSettingKey#CACHE_PROVIDER} setting (see {@link CacheProviders}).
+ *
+ * @since 1.1
+ */
+public interface CacheProvider {
+
+    /**
+     * Create a new cache
+     *
+     * @param name
+     *            the cache name (used to export the cache statistics)
+     * @param configuration
+     *            the cache configuration
+     * @param defaultValue
+     *            default value (if no value is found for a specific key)
+     * @return
+     */
+    <K, V> Cache<K, V> createCache(String name, CacheConfiguration<K, V> configuration, V defaultValue);
+}
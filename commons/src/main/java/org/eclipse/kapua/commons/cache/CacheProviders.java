@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import java.util.Map;
+
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helper class for creating {@link Cache} instances through the configured {@link CacheProvider}.<br>
+ * The configuration provided by the cache owner can be overridden per cache name through the settings:
+ * <ul>
+ * <li>{@code commons.cache.config.<cache name>.size.maximum}</li>
+ * <li>{@code commons.cache.config.<cache name>.expire.after} (seconds)</li>
+ * <li>{@code commons.cache.config.<cache name>.refresh.after} (seconds)</li>
+ * </ul>
+ *
+ * @since 1.1
+ */
+public final class CacheProviders {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheProviders.class);
+
+    private static final String SIZE_MAXIMUM = ".size.maximum";
+    private static final String EXPIRE_AFTER = ".expire.after";
+    private static final String REFRESH_AFTER = ".refresh.after";
+
+    private static volatile CacheProvider provider;
+
+    private CacheProviders() {
+    }
+
+    /**
+     * Get the configured {@link CacheProvider} instance
+     *
+     * @return An instance of {@link CacheProvider}, never returns {@code null}
+     */
+    public static CacheProvider getInstance() {
+        CacheProvider result = provider;
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (CacheProviders.class) {
+            if (provider == null) {
+                provider = locateProvider();
+            }
+            return provider;
+        }
+    }
+
+    /**
+     * Create a new cache applying the configuration overrides defined for the cache name
+     *
+     * @param name
+     *            the cache name
+     * @param configuration
+     *            the default cache configuration
+     * @param defaultValue
+     *            default value (if no value is found for a specific key)
+     * @return
+     */
+    public static <K, V> Cache<K, V> newCache(String name, CacheConfiguration<K, V> configuration, V defaultValue) {
+        Map<String, String> overrides = SystemSetting.getInstance().getMap(String.class, SystemSettingKey.CACHE_CONFIGURATION);
+        String sizeMax = overrides.get(name + SIZE_MAXIMUM);
+        if (sizeMax != null) {
+            configuration.setSizeMax(Long.parseLong(sizeMax));
+        }
+        String expireAfter = overrides.get(name + EXPIRE_AFTER);
+        if (expireAfter != null) {
+            configuration.setExpireAfter(Integer.valueOf(expireAfter));
+        }
+        String refreshAfter = overrides.get(name + REFRESH_AFTER);
+        if (refreshAfter != null) {
+            configuration.setRefreshAfter(Integer.valueOf(refreshAfter));
+        }
+        return getInstance().createCache(name, configuration, defaultValue);
+    }
+
+    /**
+     * Instantiate the provider defined by the settings
+     *
+     * @return An instance of {@link CacheProvider}, never returns {@code null}
+     */
+    private static CacheProvider locateProvider() {
+        String providerClassName = SystemSetting.getInstance().getString(SystemSettingKey.CACHE_PROVIDER, CaffeineCacheProvider.class.getName());
+        try {
+            Class<?> providerClass = Class.forName(providerClassName);
+            if (CacheProvider.class.isAssignableFrom(providerClass)) {
+                return (CacheProvider) providerClass.newInstance();
+            }
+            logger.warn("Wrong cache provider type ('{}')! Using the default provider", providerClassName);
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            logger.warn("Cannot instantiate the cache provider '{}'! Using the default provider", providerClassName, e);
+        }
+        return new CaffeineCacheProvider();
+    }
+}
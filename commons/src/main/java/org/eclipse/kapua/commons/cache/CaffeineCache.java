@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+/**
+ * Caffeine based Kapua cache implementation (see {@link CaffeineCacheProvider})
+ *
+ * @param <K>
+ *            keys type
+ * @param <V>
+ *            values type
+ *
+ * @since 1.1
+ */
+public class CaffeineCache<K, V> implements Cache<K, V> {
+
+    private String namespace;
+    private final com.github.benmanes.caffeine.cache.Cache<K, V> cache;
+    private final LoadingCache<K, V> loadingCache;
+    private final V defaultValue;
+
+    /**
+     * Constructs the cache
+     *
+     * @param builder
+     *            the configured builder
+     * @param weigher
+     *            the entries weigher (may be {@code null})
+     * @param loader
+     *            the values loader (may be {@code null})
+     * @param defaultValue
+     *            default value (if no value is found for a specific key)
+     */
+    CaffeineCache(Caffeine<Object, Object> builder, ToIntBiFunction<K, V> weigher, Function<K, V> loader, V defaultValue) {
+        this.defaultValue = defaultValue;
+        Caffeine<K, V> typedBuilder = weigher != null ? builder.weigher((K k, V v) -> weigher.applyAsInt(k, v)) : castBuilder(builder);
+        if (loader != null) {
+            loadingCache = typedBuilder.build(loader::apply);
+            cache = loadingCache;
+        } else {
+            loadingCache = null;
+            cache = typedBuilder.build();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Caffeine<K, V> castBuilder(Caffeine<Object, Object> builder) {
+        return (Caffeine<K, V>) (Caffeine<?, ?>) builder;
+    }
+
+    /**
+     * Get the underlying Caffeine cache
+     *
+     * @return
+     */
+    com.github.benmanes.caffeine.cache.Cache<K, V> getNativeCache() {
+        return cache;
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+
+    @Override
+    public V get(K k) {
+        V v = loadingCache != null ? loadingCache.get(k) : cache.getIfPresent(k);
+        return v != null ? v : defaultValue;
+    }
+
+    @Override
+    public void put(K k, V v) {
+        cache.put(k, v);
+    }
+
+    @Override
+    public void remove(K k) {
+        cache.invalidate(k);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * {@link CacheProvider} creating Caffeine (W-TinyLFU eviction policy) based caches.<br>
+ * The statistics of every cache (hits, misses, evictions and size) are exported through the {@link MetricsService} as gauges named {@code cache.<cache name>.<statistic>}.
+ *
+ * @since 1.1
+ */
+public class CaffeineCacheProvider implements CacheProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaffeineCacheProvider.class);
+
+    private static final String METRIC_MODULE_NAME = "cache";
+
+    // the gauges are registered once per cache name and always report the statistics of the last cache created with that name
+    private static final Map<String, com.github.benmanes.caffeine.cache.Cache<?, ?>> CACHES = new ConcurrentHashMap<>();
+
+    @Override
+    public <K, V> Cache<K, V> createCache(String name, CacheConfiguration<K, V> configuration, V defaultValue) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (configuration.getWeigher() != null) {
+            builder.maximumWeight(configuration.getSizeMax());
+        } else {
+            builder.maximumSize(configuration.getSizeMax());
+        }
+        if (configuration.getExpireAfter() != null) {
+            builder.expireAfterWrite(configuration.getExpireAfter(), TimeUnit.SECONDS);
+        }
+        if (configuration.getRefreshAfter() != null) {
+            if (configuration.getLoader() != null) {
+                builder.refreshAfterWrite(configuration.getRefreshAfter(), TimeUnit.SECONDS);
+            } else {
+                logger.warn("Cache '{}': refresh ignored since no loader is configured", name);
+            }
+        }
+
+        CaffeineCache<K, V> cache = new CaffeineCache<>(builder, configuration.getWeigher(), configuration.getLoader(), defaultValue);
+        cache.setNamespace(name);
+        if (CACHES.put(name, cache.getNativeCache()) == null) {
+            registerStatsGauges(name);
+        }
+        return cache;
+    }
+
+    private static void registerStatsGauges(String name) {
+        MetricsService metricsService = MetricServiceFactory.getInstance();
+        try {
+            metricsService.registerGauge(statsGauge(name, CacheStats::hitCount), METRIC_MODULE_NAME, name, "hit", "count");
+            metricsService.registerGauge(statsGauge(name, CacheStats::missCount), METRIC_MODULE_NAME, name, "miss", "count");
+            metricsService.registerGauge(statsGauge(name, CacheStats::hitRate), METRIC_MODULE_NAME, name, "hit", "rate");
+            metricsService.registerGauge(statsGauge(name, CacheStats::evictionCount), METRIC_MODULE_NAME, name, "eviction", "count");
+            metricsService.registerGauge(statsGauge(name, CacheStats::evictionWeight), METRIC_MODULE_NAME, name, "eviction", "weight");
+            metricsService.registerGauge(statsGauge(name, CacheStats::loadFailureCount), METRIC_MODULE_NAME, name, "load", "failure", "count");
+            metricsService.registerGauge((Gauge<Long>) () -> CACHES.get(name).estimatedSize(), METRIC_MODULE_NAME, name, "size");
+        } catch (KapuaException e) {
+            logger.warn("Cannot register the statistics of the cache '{}'", name, e);
+        }
+    }
+
+    private static <T> Gauge<T> statsGauge(String name, Function<CacheStats, T> statistic) {
+        return () -> statistic.apply(CACHES.get(name).stats());
+    }
+}
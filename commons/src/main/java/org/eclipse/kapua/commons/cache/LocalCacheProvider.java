@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link CacheProvider} creating {@link LocalCache} instances.<br>
+ * The entries weight, the loader and the refresh time are not supported.
+ *
+ * @since 1.1
+ */
+public class LocalCacheProvider implements CacheProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheProvider.class);
+
+    @Override
+    public <K, V> Cache<K, V> createCache(String name, CacheConfiguration<K, V> configuration, V defaultValue) {
+        if (configuration.getWeigher() != null || configuration.getLoader() != null || configuration.getRefreshAfter() != null) {
+            logger.warn("Cache '{}': weigher, loader and refresh are not supported by {} and will be ignored", name, LocalCacheProvider.class.getSimpleName());
+        }
+        int sizeMax = (int) Math.min(configuration.getSizeMax(), Integer.MAX_VALUE);
+        LocalCache<K, V> cache;
+        if (configuration.getExpireAfter() != null) {
+            cache = new LocalCache<>(sizeMax, configuration.getExpireAfter(), defaultValue);
+        } else {
+            cache = new LocalCache<>(sizeMax, defaultValue);
+        }
+        cache.setNamespace(name);
+        return cache;
+    }
+}
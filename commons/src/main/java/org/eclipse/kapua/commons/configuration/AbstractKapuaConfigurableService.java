@@ -14,6 +14,9 @@ package org.eclipse.kapua.commons.configuration;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
 import org.eclipse.kapua.commons.jpa.EntityManagerFactory;
 import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
@@ -36,21 +39,41 @@ import org.eclipse.kapua.service.config.KapuaConfigurableService;
 
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Configurable service definition abstract reference implementation.
+ * Configurable service definition abstract reference implementation.<br>
+ * The metadata of the service pid is parsed once and the configuration values are cached per scope, so the configuration lookups don't hit the database on every call.<br>
+ * The cached values of a scope are invalidated by {@link #setConfigValues(KapuaId, KapuaId, Map)} on the same node, while the other nodes see the new values once the cached ones expire
+ * (see {@link CacheProviders} for the {@code commons.configuration.<pid>} cache configuration).
  */
 public abstract class AbstractKapuaConfigurableService extends AbstractKapuaService implements KapuaConfigurableService {
 
+    private static final String CONFIG_VALUES_CACHE_NAME_PREFIX = "commons.configuration.";
+    private static final long CONFIG_VALUES_CACHE_SIZE_MAX = 10000;
+    private static final int CONFIG_VALUES_CACHE_EXPIRE_AFTER = 60;
+
+    /**
+     * Metadata by pid (the metatype definitions are read from the classpath so they never change)
+     */
+    private static final ConcurrentMap<String, Optional<KapuaTocd>> CONFIG_METADATA = new ConcurrentHashMap<>();
+
     private Domain domain;
     private String pid;
 
+    private final Cache<KapuaId, Map<String, Object>> configValuesCache;
+    private final AtomicLong configValuesVersion = new AtomicLong();
+
     /**
      * Constructor
      *
@@ -62,6 +85,9 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
         super(entityManagerFactory);
         this.pid = pid;
         this.domain = domain;
+
+        configValuesCache = CacheProviders.newCache(CONFIG_VALUES_CACHE_NAME_PREFIX + pid,
+                new CacheConfiguration<>(CONFIG_VALUES_CACHE_SIZE_MAX, CONFIG_VALUES_CACHE_EXPIRE_AFTER), null);
     }
 
     /**
@@ -237,19 +263,36 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
 
         authorizationService.checkPermission(permissionFactory.newPermission(domain, Actions.read, scopeId));
 
-        try {
-            KapuaTmetadata metadata = readMetadata(pid);
-            if (metadata != null && metadata.getOCD() != null && !metadata.getOCD().isEmpty()) {
-                for (KapuaTocd ocd : metadata.getOCD()) {
-                    if (ocd.getId() != null && ocd.getId().equals(pid)) {
-                        return ocd;
+        return getConfigMetadata();
+    }
+
+    /**
+     * Get the metadata of the service pid (parsed on the first call)
+     *
+     * @return
+     * @throws KapuaException
+     */
+    private KapuaTocd getConfigMetadata() throws KapuaException {
+        Optional<KapuaTocd> configMetadata = CONFIG_METADATA.get(pid);
+        if (configMetadata == null) {
+            KapuaTocd pidOcd = null;
+            try {
+                KapuaTmetadata metadata = readMetadata(pid);
+                if (metadata != null && metadata.getOCD() != null && !metadata.getOCD().isEmpty()) {
+                    for (KapuaTocd ocd : metadata.getOCD()) {
+                        if (ocd.getId() != null && ocd.getId().equals(pid)) {
+                            pidOcd = ocd;
+                            break;
+                        }
                     }
                 }
+            } catch (Exception e) {
+                throw KapuaException.internalError(e);
             }
-            return null;
-        } catch (Exception e) {
-            throw KapuaException.internalError(e);
+            configMetadata = Optional.ofNullable(pidOcd);
+            CONFIG_METADATA.putIfAbsent(pid, configMetadata);
         }
+        return configMetadata.orElse(null);
     }
 
     @Override
@@ -260,6 +303,29 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
         PermissionFactory permissionFactory = locator.getFactory(PermissionFactory.class);
         authorizationService.checkPermission(permissionFactory.newPermission(domain, Actions.read, scopeId));
 
+        Map<String, Object> configValues = configValuesCache.get(scopeId);
+        if (configValues == null) {
+            long version = configValuesVersion.get();
+            configValues = Collections.unmodifiableMap(readConfigValues(scopeId));
+            if (configValuesVersion.get() == version) {
+                configValuesCache.put(scopeId, configValues);
+                // the values may have been changed while they were cached
+                if (configValuesVersion.get() != version) {
+                    configValuesCache.remove(scopeId);
+                }
+            }
+        }
+        return new HashMap<>(configValues);
+    }
+
+    /**
+     * Read the configuration values of the scope from the database
+     *
+     * @param scopeId
+     * @return
+     * @throws KapuaException
+     */
+    private Map<String, Object> readConfigValues(KapuaId scopeId) throws KapuaException {
         AndPredicateImpl predicate = new AndPredicateImpl()
                 .and(new AttributePredicateImpl<>(ServiceConfigAttributes.SERVICE_ID, pid, Operator.EQUAL))
                 .and(new AttributePredicateImpl<>(KapuaEntityAttributes.SCOPE_ID, scopeId, Operator.EQUAL));
@@ -274,8 +340,18 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
             properties = result.getFirstItem().getConfigurations();
         }
 
-        KapuaTocd ocd = getConfigMetadata(scopeId);
-        return toValues(ocd, properties);
+        return toValues(getConfigMetadata(), properties);
+    }
+
+    /**
+     * Invalidate the cached configuration values of the scope
+     *
+     * @param scopeId
+     * @since 1.1
+     */
+    protected void invalidateConfigValues(KapuaId scopeId) {
+        configValuesVersion.incrementAndGet();
+        configValuesCache.remove(scopeId);
     }
 
     @Override
@@ -286,7 +362,7 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
         PermissionFactory permissionFactory = locator.getFactory(PermissionFactory.class);
         authorizationService.checkPermission(permissionFactory.newPermission(domain, Actions.write, scopeId));
 
-        KapuaTocd ocd = getConfigMetadata(scopeId);
+        KapuaTocd ocd = getConfigMetadata();
         validateConfigurations(pid, ocd, values, scopeId, parentId);
 
         ServiceConfigQueryImpl query = new ServiceConfigQueryImpl(scopeId);
@@ -314,5 +390,6 @@ public abstract class AbstractKapuaConfigurableService extends AbstractKapuaServ
 
             updateConfig(serviceConfig);
         }
+        invalidateConfigValues(scopeId);
     }
 }
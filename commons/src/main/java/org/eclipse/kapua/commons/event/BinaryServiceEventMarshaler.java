@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.model.id.KapuaId;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Binary event bus marshaller implementation.<br>
+ * <br>
+ * The event is written as a format version byte followed by the not null fields and by the {@link #END} tag.
+ * Each field is written as its tag (1 byte), the value length (4 bytes) and the value:
+ * <ul>
+ * <li>strings and {@link EventStatus} names as UTF-8 bytes</li>
+ * <li>{@link KapuaId}s as the two's complement bytes of the id</li>
+ * <li>dates as the milliseconds since the epoch (8 bytes)</li>
+ * </ul>
+ * The field lengths are checked against the bytes left to read, so a corrupted message can't allocate more memory than its own size.<br>
+ * The fields of unknown tags are skipped, so new fields can be added with new tags without changing the format version.
+ * The tags of the existing fields must never change.<br>
+ * <br>
+ * The {@link String} methods use the Base64 encoding of the binary content.
+ *
+ * @since 1.1
+ */
+public class BinaryServiceEventMarshaler implements ServiceEventBinaryMarshaler {
+
+    public static final String CONTENT_TYPE_BINARY = "application/vnd.kapua.service-event";
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte END = 0;
+    static final byte ID = 1;
+    static final byte CONTEXT_ID = 2;
+    static final byte TIMESTAMP = 3;
+    static final byte USER_ID = 4;
+    static final byte SERVICE = 5;
+    static final byte ENTITY_TYPE = 6;
+    static final byte SCOPE_ID = 7;
+    static final byte ENTITY_ID = 8;
+    static final byte OPERATION = 9;
+    static final byte INPUTS = 10;
+    static final byte OUTPUTS = 11;
+    static final byte STATUS = 12;
+    static final byte NOTE = 13;
+
+    private static final int BUFFER_SIZE_INITIAL = 1024;
+    static final int BUFFER_SIZE_MAX_POOLED = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE_INITIAL]);
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE_BINARY;
+    }
+
+    @Override
+    public ServiceEvent unmarshal(String message) throws KapuaException {
+        return unmarshal(new ByteArrayServiceEventInput(Base64.getDecoder().decode(message)));
+    }
+
+    @Override
+    public String marshal(ServiceEvent kapuaEvent) throws KapuaException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        marshal(kapuaEvent, new DataOutputStream(buffer));
+        return Base64.getEncoder().encodeToString(buffer.toByteArray());
+    }
+
+    @Override
+    public ServiceEvent unmarshal(ServiceEventBinaryInput input) throws KapuaException {
+        try {
+            byte formatVersion = input.readByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new ServiceEventBusException(String.format("Unsupported service event format version %d", formatVersion));
+            }
+
+            ServiceEvent kapuaEvent = new ServiceEvent();
+            for (byte tag = input.readByte(); tag != END; tag = input.readByte()) {
+                int length = input.readInt();
+                // a corrupted length must not allocate a huge buffer
+                if (length < 0 || length > input.remaining()) {
+                    throw new ServiceEventBusException(String.format("Invalid length %d of the service event field %d (%d bytes left)", length, tag, input.remaining()));
+                }
+                switch (tag) {
+                case ID:
+                    kapuaEvent.setId(readString(input, length));
+                    break;
+                case CONTEXT_ID:
+                    kapuaEvent.setContextId(readString(input, length));
+                    break;
+                case TIMESTAMP:
+                    if (length != Long.BYTES) {
+                        throw new ServiceEventBusException(String.format("Invalid length %d of the service event timestamp", length));
+                    }
+                    kapuaEvent.setTimestamp(new Date(input.readLong()));
+                    break;
+                case USER_ID:
+                    kapuaEvent.setUserId(readKapuaId(input, length));
+                    break;
+                case SERVICE:
+                    kapuaEvent.setService(readString(input, length));
+                    break;
+                case ENTITY_TYPE:
+                    kapuaEvent.setEntityType(readString(input, length));
+                    break;
+                case SCOPE_ID:
+                    kapuaEvent.setScopeId(readKapuaId(input, length));
+                    break;
+                case ENTITY_ID:
+                    kapuaEvent.setEntityId(readKapuaId(input, length));
+                    break;
+                case OPERATION:
+                    kapuaEvent.setOperation(readString(input, length));
+                    break;
+                case INPUTS:
+                    kapuaEvent.setInputs(readString(input, length));
+                    break;
+                case OUTPUTS:
+                    kapuaEvent.setOutputs(readString(input, length));
+                    break;
+                case STATUS:
+                    kapuaEvent.setStatus(EventStatus.valueOf(readString(input, length)));
+                    break;
+                case NOTE:
+                    kapuaEvent.setNote(readString(input, length));
+                    break;
+                default:
+                    // field added by a newer version
+                    input.skipBytes(length);
+                    break;
+                }
+            }
+            return kapuaEvent;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ServiceEventBusException(e);
+        }
+    }
+
+    @Override
+    public void marshal(ServiceEvent kapuaEvent, DataOutput output) throws KapuaException {
+        try {
+            output.writeByte(FORMAT_VERSION);
+            writeString(output, ID, kapuaEvent.getId());
+            writeString(output, CONTEXT_ID, kapuaEvent.getContextId());
+            if (kapuaEvent.getTimestamp() != null) {
+                output.writeByte(TIMESTAMP);
+                output.writeInt(Long.BYTES);
+                output.writeLong(kapuaEvent.getTimestamp().getTime());
+            }
+            writeKapuaId(output, USER_ID, kapuaEvent.getUserId());
+            writeString(output, SERVICE, kapuaEvent.getService());
+            writeString(output, ENTITY_TYPE, kapuaEvent.getEntityType());
+            writeKapuaId(output, SCOPE_ID, kapuaEvent.getScopeId());
+            writeKapuaId(output, ENTITY_ID, kapuaEvent.getEntityId());
+            writeString(output, OPERATION, kapuaEvent.getOperation());
+            writeString(output, INPUTS, kapuaEvent.getInputs());
+            writeString(output, OUTPUTS, kapuaEvent.getOutputs());
+            writeString(output, STATUS, kapuaEvent.getStatus() != null ? kapuaEvent.getStatus().name() : null);
+            writeString(output, NOTE, kapuaEvent.getNote());
+            output.writeByte(END);
+        } catch (IOException e) {
+            throw new ServiceEventBusException(e);
+        }
+    }
+
+    private static void writeString(DataOutput output, byte tag, String value) throws IOException {
+        if (value != null) {
+            writeBytes(output, tag, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeKapuaId(DataOutput output, byte tag, KapuaId value) throws IOException {
+        if (value != null) {
+            writeBytes(output, tag, value.getId().toByteArray());
+        }
+    }
+
+    private static void writeBytes(DataOutput output, byte tag, byte[] value) throws IOException {
+        output.writeByte(tag);
+        output.writeInt(value.length);
+        output.write(value);
+    }
+
+    private static String readString(ServiceEventBinaryInput input, int length) throws IOException {
+        byte[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+            // do not keep a buffer grown too much by a large field
+            if (buffer.length <= BUFFER_SIZE_MAX_POOLED) {
+                BUFFER.set(buffer);
+            }
+        }
+        input.readFully(buffer, 0, length);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static KapuaId readKapuaId(ServiceEventBinaryInput input, int length) throws IOException {
+        byte[] value = new byte[length];
+        input.readFully(value, 0, length);
+        return new KapuaEid(new BigInteger(value));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import java.io.EOFException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ServiceEventBinaryInput} reading from a byte array
+ *
+ * @since 1.1
+ */
+class ByteArrayServiceEventInput implements ServiceEventBinaryInput {
+
+    private final ByteBuffer buffer;
+
+    ByteArrayServiceEventInput(byte[] content) {
+        buffer = ByteBuffer.wrap(content);
+    }
+
+    @Override
+    public byte readByte() throws EOFException {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public int readInt() throws EOFException {
+        try {
+            return buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public long readLong() throws EOFException {
+        try {
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws EOFException {
+        try {
+            buffer.get(b, off, len);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public void skipBytes(int n) throws EOFException {
+        if (n > buffer.remaining()) {
+            throw new EOFException();
+        }
+        buffer.position(buffer.position() + n);
+    }
+
+    @Override
+    public long remaining() {
+        return buffer.remaining();
+    }
+}
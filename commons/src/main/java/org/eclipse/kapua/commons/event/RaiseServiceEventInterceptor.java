@@ -20,6 +20,8 @@ import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.commons.service.event.store.api.ServiceEventUtil;
 import org.eclipse.kapua.commons.service.event.store.internal.EventStoreDAO;
 import org.eclipse.kapua.commons.service.internal.AbstractKapuaService;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.event.RaiseServiceEvent;
 import org.eclipse.kapua.event.ServiceEvent;
 import org.eclipse.kapua.event.ServiceEvent.EventStatus;
@@ -31,8 +33,12 @@ import org.eclipse.kapua.service.KapuaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Event interceptor. It builds the event object and sends it to the event bus.
@@ -45,6 +51,16 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
 
     private static final Logger LOG = LoggerFactory.getLogger(RaiseServiceEventInterceptor.class);
 
+    private static final int INPUTS_MAX_LENGTH = SystemSetting.getInstance().getInt(SystemSettingKey.EVENT_BUS_INPUTS_MAX_LENGTH, 4096);
+
+    private static final ClassValue<Map<Method, ServiceEventDescriptor>> DESCRIPTORS = new ClassValue<Map<Method, ServiceEventDescriptor>>() {
+
+        @Override
+        protected Map<Method, ServiceEventDescriptor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
         Object returnObject = null;
@@ -78,91 +94,55 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
     }
 
     private void fillEvent(MethodInvocation invocation, ServiceEvent serviceEvent) {
-        // fill the inputs
-        StringBuilder inputs = new StringBuilder();
-        for (Object obj : invocation.getArguments()) {
-            inputs.append(obj != null ? obj.toString() : "null");
-            inputs.append(", ");
+        Object[] arguments = invocation.getArguments();
+        // the inputs are built only when the event is stored or sent
+        serviceEvent.setInputs(() -> buildInputs(arguments));
+
+        ServiceEventDescriptor descriptor = DESCRIPTORS.get(invocation.getThis().getClass())
+                .computeIfAbsent(invocation.getMethod(), method -> new ServiceEventDescriptor(invocation.getThis(), method));
+        serviceEvent.setService(descriptor.service);
+        serviceEvent.setOperation(descriptor.operation);
+        if (descriptor.note != null) {
+            serviceEvent.setNote(descriptor.note);
         }
-        if (inputs.length() > 2) {
-            inputs.replace(inputs.length() - 2, inputs.length(), "");
+        if (descriptor.entityArgumentIndex >= 0 && arguments[descriptor.entityArgumentIndex] != null) {
+            KapuaEntity entity = (KapuaEntity) arguments[descriptor.entityArgumentIndex];
+            serviceEvent.setEntityType(entity.getClass().getName());
+            serviceEvent.setEntityId(entity.getId());
+        } else {
+            if (descriptor.entityType != null) {
+                serviceEvent.setEntityType(descriptor.entityType);
+            }
+            if (descriptor.entityIdArgumentIndex >= 0) {
+                serviceEvent.setEntityId((KapuaId) arguments[descriptor.entityIdArgumentIndex]);
+            }
         }
-        serviceEvent.setInputs(inputs.toString());
-        if (invocation.getThis() instanceof AbstractKapuaService) {
-            // get the service name
-            // the service is wrapped by guice so getThis --> getSuperclass() should provide the intercepted class
-            // then keep the interface from this object
-            serviceEvent.setOperation(invocation.getMethod().getName());
-            Class<?> wrappedClass = ((AbstractKapuaService) invocation.getThis()).getClass().getSuperclass(); // this object should be not null
-            Class<?>[] impementedClass = wrappedClass.getInterfaces();
-            // assuming that the KapuaService implemented is specified by the first implementing interface
-            String serviceInterfaceName = impementedClass[0].getName();
-            // String splittedServiceInterfaceName[] = serviceInterfaceName.split("\\.");
-            // String serviceName = splittedServiceInterfaceName.length > 0 ? splittedServiceInterfaceName[splittedServiceInterfaceName.length-1] : "";
-            // String cleanedServiceName = serviceName.substring(0, serviceName.length()-"Service".length()).toLowerCase();
-            String cleanedServiceName = serviceInterfaceName;
-            LOG.info("Service name '{}' ", cleanedServiceName);
-            serviceEvent.setService(cleanedServiceName);
-            Object[] arguments = invocation.getArguments();
-            if (arguments != null) {
-                for (Object tmp : arguments) {
-                    LOG.info("Scan for entity. Object: {}", tmp != null ? tmp.getClass() : "null");
-                    if (tmp instanceof KapuaEntity) {
-                        serviceEvent.setEntityType(tmp.getClass().getName());
-                        serviceEvent.setEntityId(((KapuaEntity) tmp).getId());
-                        LOG.info("Entity '{}' with id '{}' found!", tmp.getClass().getName(), ((KapuaEntity) tmp).getId());
-                        return;
-                    }
-                }
-                // otherwise assume that the second identifier is the entity id (if there are more than one) or take the first one (if there is one)
-                int kapuaIdPosition = 0;
-                int kapuaIdFound = 0;
-                for (int i = 0; i < arguments.length; i++) {
-                    Object tmp = arguments[i];
-                    if (tmp instanceof KapuaId) {
-                        kapuaIdPosition = i;
-                        if (++kapuaIdFound > 1) {
-                            break;
-                        }
-                    }
-                }
-                if (kapuaIdFound > 0) {
-                    serviceEvent.setEntityId(((KapuaId) arguments[kapuaIdPosition]));
-                    String serviceInterface = impementedClass[0].getAnnotatedInterfaces()[0].getType().getTypeName();
-                    String genericsList = serviceInterface.substring(serviceInterface.indexOf('<') + 1, serviceInterface.indexOf('>'));
-                    String[] entityClassesToScan = genericsList.replaceAll("\\,", "").split(" ");
-                    for (String str : entityClassesToScan) {
-                        try {
-                            if (KapuaEntity.class.isAssignableFrom(Class.forName(str))) {
-                                serviceEvent.setEntityType(str);
-                            }
-                        } catch (ClassNotFoundException e) {
-                            // do nothing
-                            LOG.warn("Cannon find class {}", str, e);
-                        }
-                    }
+        LOG.debug("Service '{}' - operation '{}' - entity type '{}' - entity id '{}'",
+                serviceEvent.getService(), serviceEvent.getOperation(), serviceEvent.getEntityType(), serviceEvent.getEntityId());
+    }
+
+    private static String buildInputs(Object[] arguments) {
+        StringBuilder inputs = new StringBuilder();
+        if (arguments != null) {
+            for (Object obj : arguments) {
+                if (inputs.length() > 0) {
+                    inputs.append(", ");
                 }
-            }
-        } else {
-            Annotation[] annotations = invocation.getMethod().getDeclaredAnnotations();
-            for (Annotation annotation : annotations) {
-                if (RaiseServiceEvent.class.isAssignableFrom(annotation.annotationType())) {
-                    RaiseServiceEvent raiseKapuaEvent = (RaiseServiceEvent) annotation;
-                    serviceEvent.setService(raiseKapuaEvent.service());
-                    serviceEvent.setEntityType(raiseKapuaEvent.entityType());
-                    serviceEvent.setOperation(raiseKapuaEvent.operation());
-                    serviceEvent.setNote(raiseKapuaEvent.note());
+                inputs.append(obj != null ? obj.toString() : "null");
+                if (inputs.length() >= INPUTS_MAX_LENGTH) {
+                    inputs.setLength(INPUTS_MAX_LENGTH);
                     break;
                 }
             }
         }
+        return inputs.toString();
     }
 
     private void sendEvent(MethodInvocation invocation, ServiceEvent serviceEvent, Object returnedValue) throws ServiceEventBusException {
         String address = ServiceMap.getAddress(serviceEvent.getService());
         try {
             ServiceEventBusManager.getInstance().publish(address, serviceEvent);
-            LOG.info("SENT event from service {} to {} - entity type {} - entity id {} - context id {}",
+            LOG.debug("SENT event from service {} to {} - entity type {} - entity id {} - context id {}",
                     serviceEvent.getService(),
                     address,
                     serviceEvent.getEntityType(),
@@ -174,6 +154,8 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
             LOG.warn("Error sending event", e);
             // mark event status as SEND_ERROR
             updateEventStatus(invocation, serviceEvent, EventStatus.SEND_ERROR);
+            // let the housekeeper retry it without waiting for the next scheduled execution
+            ServiceEventHousekeeper.notifyPendingEvents();
         }
     }
 
@@ -191,4 +173,67 @@ public class RaiseServiceEventInterceptor implements MethodInterceptor {
         }
     }
 
+    /**
+     * Event metadata of an intercepted method, resolved once from the service class, the method signature and the {@link RaiseServiceEvent} annotation
+     */
+    private static class ServiceEventDescriptor {
+
+        private String service;
+        private String operation;
+        private String note;
+        private String entityType;
+        private int entityArgumentIndex = -1;
+        private int entityIdArgumentIndex = -1;
+
+        ServiceEventDescriptor(Object service, Method method) {
+            if (service instanceof AbstractKapuaService) {
+                // the service is wrapped by guice so getClass --> getSuperclass() should provide the intercepted class
+                // then keep the interface from this object
+                // assuming that the KapuaService implemented is specified by the first implementing interface
+                Class<?> serviceInterface = service.getClass().getSuperclass().getInterfaces()[0];
+                this.service = serviceInterface.getName();
+                operation = method.getName();
+
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                // the first entity argument is the event entity
+                // otherwise assume that the second identifier is the entity id (if there are more than one) or take the first one (if there is one)
+                int kapuaIdFound = 0;
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    if (entityArgumentIndex < 0 && KapuaEntity.class.isAssignableFrom(parameterTypes[i])) {
+                        entityArgumentIndex = i;
+                    } else if (kapuaIdFound < 2 && KapuaId.class.isAssignableFrom(parameterTypes[i])) {
+                        entityIdArgumentIndex = i;
+                        kapuaIdFound++;
+                    }
+                }
+                if (entityIdArgumentIndex >= 0) {
+                    entityType = findEntityType(serviceInterface);
+                }
+            } else {
+                RaiseServiceEvent raiseKapuaEvent = method.getAnnotation(RaiseServiceEvent.class);
+                if (raiseKapuaEvent != null) {
+                    this.service = raiseKapuaEvent.service();
+                    entityType = raiseKapuaEvent.entityType();
+                    operation = raiseKapuaEvent.operation();
+                    note = raiseKapuaEvent.note();
+                }
+            }
+        }
+
+        /**
+         * Get the entity type from the type arguments of the service interface (the last {@link KapuaEntity} one)
+         */
+        private static String findEntityType(Class<?> serviceInterface) {
+            String entityType = null;
+            Type[] genericInterfaces = serviceInterface.getGenericInterfaces();
+            if (genericInterfaces.length > 0 && genericInterfaces[0] instanceof ParameterizedType) {
+                for (Type typeArgument : ((ParameterizedType) genericInterfaces[0]).getActualTypeArguments()) {
+                    if (typeArgument instanceof Class && KapuaEntity.class.isAssignableFrom((Class<?>) typeArgument)) {
+                        entityType = ((Class<?>) typeArgument).getName();
+                    }
+                }
+            }
+            return entityType;
+        }
+    }
 }
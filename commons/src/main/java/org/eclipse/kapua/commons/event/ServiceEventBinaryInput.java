@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Binary content read by a {@link ServiceEventBinaryMarshaler}.<br>
+ * The values are read in big-endian order (as {@link java.io.DataInput} does).
+ *
+ * @since 1.1
+ */
+public interface ServiceEventBinaryInput {
+
+    /**
+     * Read one byte
+     *
+     * @return
+     * @throws EOFException
+     *             if there are no more bytes
+     * @throws IOException
+     */
+    byte readByte() throws IOException;
+
+    /**
+     * Read four bytes as an int
+     *
+     * @return
+     * @throws EOFException
+     *             if there are less than four bytes left
+     * @throws IOException
+     */
+    int readInt() throws IOException;
+
+    /**
+     * Read eight bytes as a long
+     *
+     * @return
+     * @throws EOFException
+     *             if there are less than eight bytes left
+     * @throws IOException
+     */
+    long readLong() throws IOException;
+
+    /**
+     * Read exactly len bytes into the buffer
+     *
+     * @param b
+     * @param off
+     * @param len
+     * @throws EOFException
+     *             if there are less than len bytes left
+     * @throws IOException
+     */
+    void readFully(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Skip exactly n bytes
+     *
+     * @param n
+     * @throws EOFException
+     *             if there are less than n bytes left
+     * @throws IOException
+     */
+    void skipBytes(int n) throws IOException;
+
+    /**
+     * Get the number of bytes left to read
+     *
+     * @return
+     * @throws IOException
+     */
+    long remaining() throws IOException;
+}
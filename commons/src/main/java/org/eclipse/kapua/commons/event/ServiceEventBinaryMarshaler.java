@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.event.ServiceEvent;
+
+import java.io.DataOutput;
+
+/**
+ * Event bus marshaler writing the service bus event object as binary content.<br>
+ * The event bus writes and reads the events directly to and from the binary message body, without building an intermediate text message.
+ *
+ * @since 1.1
+ */
+public interface ServiceEventBinaryMarshaler extends ServiceEventMarshaler {
+
+    /**
+     * Unmarshal the message body received from the bus
+     *
+     * @param input
+     * @return
+     * @throws KapuaException
+     */
+    ServiceEvent unmarshal(ServiceEventBinaryInput input) throws KapuaException;
+
+    /**
+     * Marshal the message body to the service event bus
+     *
+     * @param kapuaEvent
+     * @param output
+     * @throws KapuaException
+     */
+    void marshal(ServiceEvent kapuaEvent, DataOutput output) throws KapuaException;
+
+}
@@ -14,6 +14,8 @@ package org.eclipse.kapua.commons.event;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
 import org.eclipse.kapua.commons.jpa.EntityManagerFactory;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria.SortOrder;
 import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
@@ -28,6 +30,7 @@ import org.eclipse.kapua.commons.service.event.store.internal.EventStoreServiceI
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
+import org.eclipse.kapua.event.ServiceEvent;
 import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.event.ServiceEventBus;
 import org.eclipse.kapua.event.ServiceEventBusException;
@@ -37,11 +40,18 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
- * Event bus housekeeper. It is responsible to send unsent messages or send again messages gone in error.
+ * Event bus housekeeper. It is responsible to send unsent messages or send again messages gone in error.<br>
+ * The pending events are read from the event store in batches of {@link SystemSettingKey#HOUSEKEEPER_EVENT_SCAN_WINDOW} events (oldest first),
+ * each batch is published with a single {@link ServiceEventBus#publish(String, List)} and marked as {@link EventStatus#SENT} in a single transaction.<br>
+ * If the batch publish fails the events are published one by one and the events that still cannot be published are skipped until the next execution.<br>
+ * The housekeeper runs every {@link SystemSettingKey#HOUSEKEEPER_EXECUTION_WAIT_TIME} milliseconds or as soon as {@link #notifyPendingEvents()} is called.
  *
  * @since 1.0
  */
@@ -49,7 +59,7 @@ public class ServiceEventHousekeeper implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceEventHousekeeper.class);
 
-    private enum EventsProcessType {
+    enum EventsProcessType {
         OLD,
         SEND_ERROR
     }
@@ -58,7 +68,10 @@ public class ServiceEventHousekeeper implements Runnable {
     private static final long OLD_MESSAGES_TIME_WINDOW = SystemSetting.getInstance().getLong(SystemSettingKey.HOUSEKEEPER_OLD_MESSAGES_TIME_WINDOW);
     private static final int EVENT_SCAN_WINDOW = SystemSetting.getInstance().getInt(SystemSettingKey.HOUSEKEEPER_EVENT_SCAN_WINDOW);
 
+    private static final Set<ServiceEventHousekeeper> INSTANCES = new CopyOnWriteArraySet<>();
+
     private final Object monitor = new Object();
+    private boolean pendingEvents;
 
     private EventStoreService kapuaEventService;
 
@@ -87,13 +100,14 @@ public class ServiceEventHousekeeper implements Runnable {
     public void run() {
         //TODO handling events table cleanup
         running = true;
+        INSTANCES.add(this);
         while (running) {
-            waitStep();
+            boolean notified = waitStep();
             for (ServiceEntry serviceEntry : servicesEntryList) {
                 try {
                     if (running) {
                         KapuaSecurityUtils.doPrivileged(() -> {
-                            processServiceEvents(serviceEntry.getServiceName());
+                            processServiceEvents(serviceEntry.getServiceName(), notified);
                         });
                     }
                 } catch (KapuaException e) {
@@ -106,15 +120,27 @@ public class ServiceEventHousekeeper implements Runnable {
                 }
             }
         }
+        INSTANCES.remove(this);
         running = false;
     }
 
-    private void processServiceEvents(String serviceName) throws KapuaException {
+    /**
+     * Wakes up the running housekeepers, so the pending events are sent without waiting for the next scheduled execution
+     *
+     * @since 1.1.0
+     */
+    public static void notifyPendingEvents() {
+        for (ServiceEventHousekeeper housekeeper : INSTANCES) {
+            housekeeper.wakeUp();
+        }
+    }
+
+    private void processServiceEvents(String serviceName, boolean notified) throws KapuaException {
         try {
             LOGGER.trace("Scan not processed events for service '{}'", serviceName);
             Date startRun = Date.from(KapuaDateUtils.getKapuaSysDate());
             //try to acquire lock
-            HousekeeperRun kapuaEventHousekeeper = getLock(serviceName);
+            HousekeeperRun kapuaEventHousekeeper = getLock(serviceName, notified);
             //scan unsent events (marked as SENT_ERROR)
             findAndSendUnsentEvents(serviceName, EventsProcessType.SEND_ERROR);
             //scan unsent OLD events (marked as FIRED but raised before a specific (configurable) time window)
@@ -132,35 +158,96 @@ public class ServiceEventHousekeeper implements Runnable {
     }
 
     private void findAndSendUnsentEvents(String serviceName, EventsProcessType eventsProcessType) throws KapuaException {
-        EventStoreRecordListResult unsentMessagesList = getUnsentEvents(serviceName, eventsProcessType);
-        //send unprocessed events
-        if (!unsentMessagesList.isEmpty()) {
-            for (EventStoreRecord kapuaEvent : unsentMessagesList.getItems()) {
-                try {
-                    String address = ServiceMap.getAddress(serviceName);
-                    LOGGER.info("publish event: service '{}' - address '{}' - operation '{}' - id '{}'",
-                            kapuaEvent.getService(),
-                            address,
-                            kapuaEvent.getOperation(),
-                            kapuaEvent.getContextId());
-
-                    eventbus.publish(address, ServiceEventUtil.toServiceEventBus(kapuaEvent));
-                    //if message was sent successfully then confirm the event in the event table
-                    //if something goes wrong during this update the event message may be raised twice (but this condition should happens rarely and it is compliant to the contract of the service events)
-                    //this is done in a different transaction
-                    kapuaEvent.setStatus(EventStatus.SENT);
-                    kapuaEventService.update(kapuaEvent);
-                } catch (ServiceEventBusException e) {
-                    LOGGER.warn("Exception publishing event: {}", e.getMessage(), e);
-                } catch (KapuaException e) {
-                    //this may be a valid condition if the HouseKeeper is doing the update concurrently with this task
-                    LOGGER.warn("Exception acknowledging event: {}", e.getMessage(), e);
-                }
+        String address = ServiceMap.getAddress(serviceName);
+        EventStoreRecordListResult unsentMessagesList;
+        //the events that cannot be published are left in their status and skipped, so they don't block the following events
+        int skippedEvents = 0;
+        do {
+            unsentMessagesList = getUnsentEvents(serviceName, eventsProcessType, skippedEvents);
+            if (unsentMessagesList.isEmpty()) {
+                break;
+            }
+            List<EventStoreRecord> kapuaEvents = unsentMessagesList.getItems();
+            try {
+                LOGGER.info("publish events: service '{}' - address '{}' - type '{}' - count '{}'", serviceName, address, eventsProcessType, kapuaEvents.size());
+                List<EventStoreRecord> publishedEvents = publishEvents(eventbus, address, kapuaEvents);
+                skippedEvents += kapuaEvents.size() - publishedEvents.size();
+
+                //if messages were sent successfully then confirm the events in the event table
+                //if something goes wrong during this update the event messages may be raised twice (but this condition should happens rarely and it is compliant to the contract of the service events)
+                //this is done in a different transaction
+                kapuaEventService.updateStatus(publishedEvents, EventStatus.SENT);
+            } catch (ServiceEventBusException e) {
+                LOGGER.warn("Exception publishing events: {}", e.getMessage(), e);
+                break;
+            } catch (KapuaException e) {
+                //this may be a valid condition if the HouseKeeper is doing the update concurrently with this task
+                LOGGER.warn("Exception acknowledging events: {}", e.getMessage(), e);
+                break;
+            }
+        }
+        while (unsentMessagesList.isLimitExceeded() && running);
+    }
+
+    /**
+     * Publish the events with a single {@link ServiceEventBus#publish(String, List)}.<br>
+     * If the batch publish fails the events are published one by one, so a single event that cannot be converted or marshaled doesn't prevent the others from being sent.
+     *
+     * @param eventbus
+     * @param address
+     * @param kapuaEvents
+     * @return the events published (in the same order of the provided list)
+     * @throws ServiceEventBusException
+     *             if no event can be published because of the event bus (the last publish exception is thrown)
+     */
+    static List<EventStoreRecord> publishEvents(ServiceEventBus eventbus, String address, List<EventStoreRecord> kapuaEvents) throws ServiceEventBusException {
+        try {
+            List<ServiceEvent> serviceEvents = new ArrayList<>(kapuaEvents.size());
+            for (EventStoreRecord kapuaEvent : kapuaEvents) {
+                serviceEvents.add(ServiceEventUtil.toServiceEventBus(kapuaEvent));
+            }
+            eventbus.publish(address, serviceEvents);
+            return kapuaEvents;
+        } catch (KapuaException e) {
+            LOGGER.warn("Exception publishing events batch, falling back to single event publish: {}", e.getMessage(), e);
+        }
+
+        List<EventStoreRecord> publishedEvents = new ArrayList<>(kapuaEvents.size());
+        ServiceEventBusException publishException = null;
+        for (EventStoreRecord kapuaEvent : kapuaEvents) {
+            try {
+                eventbus.publish(address, ServiceEventUtil.toServiceEventBus(kapuaEvent));
+                publishedEvents.add(kapuaEvent);
+            } catch (ServiceEventBusException e) {
+                LOGGER.warn("Exception publishing event {}: {}", kapuaEvent.getId(), e.getMessage(), e);
+                publishException = e;
+            } catch (KapuaException e) {
+                LOGGER.warn("Exception converting event {}: {}", kapuaEvent.getId(), e.getMessage(), e);
             }
         }
+        if (publishedEvents.isEmpty() && publishException != null) {
+            //every publish failed so the event bus is not available
+            throw publishException;
+        }
+        return publishedEvents;
+    }
+
+    private EventStoreRecordListResult getUnsentEvents(String serviceName, EventsProcessType eventsProcessType, int offset) throws KapuaException {
+        return kapuaEventService.query(newUnsentEventsQuery(serviceName, eventsProcessType, offset, EVENT_SCAN_WINDOW));
     }
 
-    private EventStoreRecordListResult getUnsentEvents(String serviceName, EventsProcessType eventsProcessType) throws KapuaException {
+    /**
+     * Build the query of the events to be sent (oldest first)
+     *
+     * @param serviceName
+     * @param eventsProcessType
+     * @param offset
+     *            the number of events to be skipped (the events that cannot be published)
+     * @param limit
+     *            the maximum number of events to be read
+     * @return
+     */
+    static EventStoreRecordQuery newUnsentEventsQuery(String serviceName, EventsProcessType eventsProcessType, int offset, int limit) {
         EventStoreRecordQuery query = new EventStoreFactoryImpl().newQuery(null);
         AndPredicateImpl andPredicate = new AndPredicateImpl();
         andPredicate.and(new AttributePredicateImpl<>(EventStoreRecordAttributes.SERVICE_NAME, serviceName));
@@ -176,17 +263,35 @@ public class ServiceEventHousekeeper implements Runnable {
             andPredicate.and(new AttributePredicateImpl<>(EventStoreRecordAttributes.MODIFIED_ON, eventDateBound, Operator.LESS_THAN_OR_EQUAL));
         }
         query.setPredicate(andPredicate);
-        query.setLimit(EVENT_SCAN_WINDOW);
-        return kapuaEventService.query(query);
+        query.setSortCriteria(new FieldSortCriteria(EventStoreRecordAttributes.CREATED_ON, SortOrder.ASCENDING));
+        query.setOffset(offset);
+        query.setLimit(limit);
+        return query;
     }
 
-    private void waitStep() {
+    /**
+     * @return {@code true} if the wait has been interrupted by {@link #notifyPendingEvents()}
+     */
+    private boolean waitStep() {
         try {
             synchronized (monitor) {
-                monitor.wait(WAIT_TIME);
+                if (!pendingEvents) {
+                    monitor.wait(WAIT_TIME);
+                }
+                boolean notified = pendingEvents;
+                pendingEvents = false;
+                return notified;
             }
         } catch (InterruptedException e) {
             LOGGER.warn("Exception waiting for next scheduled execution: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (monitor) {
+            pendingEvents = true;
+            monitor.notify();
         }
     }
 
@@ -197,7 +302,7 @@ public class ServiceEventHousekeeper implements Runnable {
         }
     }
 
-    private HousekeeperRun getLock(String serviceName) throws LockException, NoExecutionNeededException {
+    private HousekeeperRun getLock(String serviceName, boolean notified) throws LockException, NoExecutionNeededException {
         HousekeeperRun kapuaEventHousekeeper = null;
         try {
             manager.beginTransaction();
@@ -206,7 +311,7 @@ public class ServiceEventHousekeeper implements Runnable {
             throw new LockException(String.format("Cannot acquire lock: %s", e.getMessage()), e);
         }
         // Check last housekeeper run
-        if (KapuaDateUtils.getKapuaSysDate().isBefore(kapuaEventHousekeeper.getLastRunOn().toInstant().plus(Duration.of(WAIT_TIME, ChronoUnit.MILLIS)))) {
+        if (!notified && KapuaDateUtils.getKapuaSysDate().isBefore(kapuaEventHousekeeper.getLastRunOn().toInstant().plus(Duration.of(WAIT_TIME, ChronoUnit.MILLIS)))) {
             throw new NoExecutionNeededException("Not enough time since the last execution");
         }
         return kapuaEventHousekeeper;
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event.jms;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * {@link DataOutput} writing directly to the body of a {@link BytesMessage}
+ *
+ * @since 1.1
+ */
+class BytesMessageDataOutput implements DataOutput {
+
+    private final BytesMessage message;
+
+    BytesMessageDataOutput(BytesMessage message) {
+        this.message = message;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        try {
+            message.writeBytes(b);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        try {
+            message.writeBytes(b, off, len);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        try {
+            message.writeBoolean(v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        try {
+            message.writeByte((byte) v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        try {
+            message.writeShort((short) v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        try {
+            message.writeChar((char) v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        try {
+            message.writeInt(v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        try {
+            message.writeLong(v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        try {
+            message.writeFloat(v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        try {
+            message.writeDouble(v);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        try {
+            message.writeUTF(s);
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event.jms;
+
+import org.eclipse.kapua.commons.event.ServiceEventBinaryInput;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MessageEOFException;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * {@link ServiceEventBinaryInput} reading directly from the body of a received (read-only) {@link BytesMessage}
+ *
+ * @since 1.1
+ */
+class BytesMessageServiceEventInput implements ServiceEventBinaryInput {
+
+    private final BytesMessage message;
+    private long position;
+
+    BytesMessageServiceEventInput(BytesMessage message) {
+        this.message = message;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        try {
+            byte value = message.readByte();
+            position += Byte.BYTES;
+            return value;
+        } catch (MessageEOFException e) {
+            throw new EOFException(e.getMessage());
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        try {
+            int value = message.readInt();
+            position += Integer.BYTES;
+            return value;
+        } catch (MessageEOFException e) {
+            throw new EOFException(e.getMessage());
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        try {
+            long value = message.readLong();
+            position += Long.BYTES;
+            return value;
+        } catch (MessageEOFException e) {
+            throw new EOFException(e.getMessage());
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        try {
+            byte[] buffer = off == 0 ? b : new byte[len];
+            if (message.readBytes(buffer, len) < len) {
+                throw new EOFException();
+            }
+            if (buffer != b) {
+                System.arraycopy(buffer, 0, b, off, len);
+            }
+            position += len;
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void skipBytes(int n) throws IOException {
+        byte[] buffer = new byte[Math.min(n, 1024)];
+        int skipped = 0;
+        try {
+            while (skipped < n) {
+                int read = message.readBytes(buffer, Math.min(buffer.length, n - skipped));
+                if (read <= 0) {
+                    throw new EOFException();
+                }
+                skipped += read;
+                position += read;
+            }
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public long remaining() throws IOException {
+        try {
+            return message.getBodyLength() - position;
+        } catch (JMSException e) {
+            throw new IOException(e);
+        }
+    }
+}
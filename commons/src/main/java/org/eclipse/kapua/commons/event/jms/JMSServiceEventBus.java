@@ -19,10 +19,14 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.qpid.jms.jndi.JmsInitialContextFactory;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaRuntimeException;
+import org.eclipse.kapua.commons.event.BinaryServiceEventMarshaler;
+import org.eclipse.kapua.commons.event.JsonServiceEventMarshaler;
+import org.eclipse.kapua.commons.event.ServiceEventBinaryMarshaler;
 import org.eclipse.kapua.commons.event.ServiceEventBusDriver;
 import org.eclipse.kapua.commons.event.ServiceEventBusManager;
 import org.eclipse.kapua.commons.event.ServiceEventMarshaler;
 import org.eclipse.kapua.commons.event.ServiceEventScope;
+import org.eclipse.kapua.commons.event.XmlServiceEventMarshaler;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
@@ -34,6 +38,7 @@ import org.eclipse.kapua.event.ServiceEventBusListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.ExceptionListener;
@@ -74,6 +79,7 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
     private List<Subscription> subscriptionList = new ArrayList<>();
     private EventBusJMSConnectionBridge eventBusJMSConnectionBridge;
     private ServiceEventMarshaler eventBusMarshaler;
+    private Map<String, ServiceEventMarshaler> eventBusUnmarshalers = new HashMap<>();
 
     /**
      * Default constructor
@@ -102,6 +108,11 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
             Class<?> messageSerializerClazz = Class.forName(MESSAGE_SERIALIZER);
             if (ServiceEventMarshaler.class.isAssignableFrom(messageSerializerClazz)) {
                 eventBusMarshaler = (ServiceEventMarshaler) messageSerializerClazz.newInstance();
+                // the events published by the nodes not yet configured with the same serializer can still be read
+                for (ServiceEventMarshaler unmarshaler : new ServiceEventMarshaler[] { new XmlServiceEventMarshaler(), new JsonServiceEventMarshaler(), new BinaryServiceEventMarshaler() }) {
+                    eventBusUnmarshalers.put(unmarshaler.getContentType(), unmarshaler);
+                }
+                eventBusUnmarshalers.put(eventBusMarshaler.getContentType(), eventBusMarshaler);
             } else {
                 throw new ServiceEventBusException(String.format("Wrong message serializer Object type ('%s')!", messageSerializerClazz));
             }
@@ -117,6 +128,12 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         eventBusJMSConnectionBridge.publish(address, kapuaEvent);
     }
 
+    @Override
+    public void publish(String address, List<ServiceEvent> kapuaEvents)
+            throws ServiceEventBusException {
+        eventBusJMSConnectionBridge.publish(address, kapuaEvents);
+    }
+
     @Override
     public synchronized void subscribe(String address, String name, final ServiceEventBusListener kapuaEventListener)
             throws ServiceEventBusException {
@@ -129,6 +146,34 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         }
     }
 
+    private Message createMessage(Session jmsSession, ServiceEvent kapuaEvent) throws JMSException, KapuaException {
+        Message message;
+        // Serialize outgoing kapua event based on platform configuration
+        if (eventBusMarshaler instanceof ServiceEventBinaryMarshaler) {
+            BytesMessage bytesMessage = jmsSession.createBytesMessage();
+            ((ServiceEventBinaryMarshaler) eventBusMarshaler).marshal(kapuaEvent, new BytesMessageDataOutput(bytesMessage));
+            message = bytesMessage;
+        } else {
+            message = jmsSession.createTextMessage(eventBusMarshaler.marshal(kapuaEvent));
+        }
+        message.setStringProperty(ServiceEventMarshaler.CONTENT_TYPE_KEY, eventBusMarshaler.getContentType());
+        return message;
+    }
+
+    /**
+     * @return the unmarshaled event or {@code null} if the message type is not supported
+     */
+    private ServiceEvent unmarshal(Message message) throws JMSException, KapuaException {
+        String contentType = message.getStringProperty(ServiceEventMarshaler.CONTENT_TYPE_KEY);
+        ServiceEventMarshaler unmarshaler = contentType != null ? eventBusUnmarshalers.getOrDefault(contentType, eventBusMarshaler) : eventBusMarshaler;
+        if (message instanceof BytesMessage && unmarshaler instanceof ServiceEventBinaryMarshaler) {
+            return ((ServiceEventBinaryMarshaler) unmarshaler).unmarshal(new BytesMessageServiceEventInput((BytesMessage) message));
+        } else if (message instanceof TextMessage) {
+            return unmarshaler.unmarshal(((TextMessage) message).getText());
+        }
+        return null;
+    }
+
     private void setSession(ServiceEvent kapuaEvent) {
         KapuaSession.createFrom(kapuaEvent.getScopeId(), kapuaEvent.getUserId());
     }
@@ -261,18 +306,9 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         void publish(String address, ServiceEvent kapuaEvent)
                 throws ServiceEventBusException {
             if (address != null && address.trim().length() > 0) {
-                SenderPool senderPool = senders.get(address);
+                SenderPool senderPool = getSenderPool(address);
                 Sender sender = null;
                 try {
-                    if (senderPool == null) {
-                        synchronized (SenderPool.class) {
-                            senderPool = senders.get(address);
-                            if (senderPool == null) {
-                                senderPool = new SenderPool(new PooledSenderFactory(address));
-                                senders.put(address, senderPool);
-                            }
-                        }
-                    }
                     sender = senderPool.borrowObject();
                     sender.sendMessage(kapuaEvent);
                 } catch (Exception e) {
@@ -287,6 +323,40 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
             }
         }
 
+        void publish(String address, List<ServiceEvent> kapuaEvents)
+                throws ServiceEventBusException {
+            if (address != null && address.trim().length() > 0) {
+                SenderPool senderPool = getSenderPool(address);
+                Sender sender = null;
+                try {
+                    sender = senderPool.borrowObject();
+                    sender.sendMessages(kapuaEvents);
+                } catch (Exception e) {
+                    throw new ServiceEventBusException(e);
+                } finally {
+                    if (sender != null) {
+                        senderPool.returnObject(sender);
+                    }
+                }
+            } else {
+                LOGGER.warn("Discarded events publish since the publish address is empty!");
+            }
+        }
+
+        private SenderPool getSenderPool(String address) {
+            SenderPool senderPool = senders.get(address);
+            if (senderPool == null) {
+                synchronized (SenderPool.class) {
+                    senderPool = senders.get(address);
+                    if (senderPool == null) {
+                        senderPool = new SenderPool(new PooledSenderFactory(address));
+                        senders.put(address, senderPool);
+                    }
+                }
+            }
+            return senderPool;
+        }
+
         synchronized void subscribe(Subscription subscription)
                 throws ServiceEventBusException {
             try {
@@ -302,9 +372,8 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
                         @Override
                         public void onMessage(Message message) {
                             try {
-                                if (message instanceof TextMessage) {
-                                    TextMessage textMessage = (TextMessage) message;
-                                    final ServiceEvent kapuaEvent = eventBusMarshaler.unmarshal(textMessage.getText());
+                                final ServiceEvent kapuaEvent = message != null ? unmarshal(message) : null;
+                                if (kapuaEvent != null) {
                                     setSession(kapuaEvent);
                                     KapuaSecurityUtils.doPrivileged(() -> {
                                         try {
@@ -336,30 +405,64 @@ public class JMSServiceEventBus implements ServiceEventBus, ServiceEventBusDrive
         private class Sender {
 
             // TODO manage the session/producer in a stronger way (if the client disconnects due to a network error the connection will not be restored)
+            private Connection jmsConnection;
+            private String address;
             private Session jmsSession;
             private MessageProducer jmsProducer;
+            private Session jmsBatchSession;
+            private MessageProducer jmsBatchProducer;
 
             public Sender(Connection jmsConnection, String address) throws JMSException {
-                address = String.format("events.%s", address);
+                this.jmsConnection = jmsConnection;
+                this.address = String.format("events.%s", address);
                 jmsSession = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-                Topic jmsTopic = jmsSession.createTopic(address);
+                Topic jmsTopic = jmsSession.createTopic(this.address);
                 jmsProducer = jmsSession.createProducer(jmsTopic);
             }
 
             public void sendMessage(ServiceEvent kapuaEvent) throws Exception {
                 try {
-                    TextMessage message = jmsSession.createTextMessage();
-                    // Serialize outgoing kapua event based on platform configuration
-                    message.setText(eventBusMarshaler.marshal(kapuaEvent));
-                    message.setStringProperty(ServiceEventMarshaler.CONTENT_TYPE_KEY, eventBusMarshaler.getContentType());
-                    jmsProducer.send(message);
+                    jmsProducer.send(createMessage(jmsSession, kapuaEvent));
                 } catch (JMSException | KapuaException e) {
                     LOGGER.error("Message publish interrupted: {}", e.getMessage());
                     throw e;
                 }
             }
 
+            /**
+             * Send the events in a transacted session, so the broker acknowledges the whole batch on commit instead of each event.
+             */
+            public void sendMessages(List<ServiceEvent> kapuaEvents) throws Exception {
+                try {
+                    if (jmsBatchSession == null) {
+                        jmsBatchSession = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+                        jmsBatchProducer = jmsBatchSession.createProducer(jmsBatchSession.createTopic(address));
+                    }
+                    for (ServiceEvent kapuaEvent : kapuaEvents) {
+                        jmsBatchProducer.send(createMessage(jmsBatchSession, kapuaEvent));
+                    }
+                    jmsBatchSession.commit();
+                } catch (JMSException | KapuaException e) {
+                    LOGGER.error("Messages publish interrupted: {}", e.getMessage());
+                    if (jmsBatchSession != null) {
+                        try {
+                            jmsBatchSession.rollback();
+                        } catch (JMSException e1) {
+                            LOGGER.warn("Cannot rollback the Sender batch session!", e1);
+                        }
+                    }
+                    throw e;
+                }
+            }
+
             public void close() {
+                if (jmsBatchSession != null) {
+                    try {
+                        jmsBatchSession.close();
+                    } catch (JMSException e) {
+                        LOGGER.warn("Cannot close the Sender batch session!", e);
+                    }
+                }
                 try {
                     jmsSession.close();
                 } catch (JMSException e) {
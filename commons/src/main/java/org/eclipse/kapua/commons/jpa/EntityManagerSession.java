@@ -259,7 +259,7 @@ public class EntityManagerSession {
                         logger.debug("Kapua event - update entity id to '{}'", ((KapuaEntity) instance).getId());
                         serviceEventBus.setEntityId(((KapuaEntity) instance).getId());
                     }
-                    logger.info("Entity '{}' with id '{}' found!", instance.getClass().getName(), ((KapuaEntity) instance).getId());
+                    logger.debug("Entity '{}' with id '{}' found!", instance.getClass().getName(), ((KapuaEntity) instance).getId());
                 }
 
                 //insert the kapua event only if it's a new entity
@@ -69,6 +69,17 @@ public interface MetricsService extends KapuaService {
      */
     public void registerGauge(Gauge<?> gauge, String module, String component, String... names) throws KapuaException;
 
+    /**
+     * Remove the metric (of any type) with the specified name. Nothing is done if the metric doesn't exist.
+     * 
+     * @param module
+     * @param component
+     * @param names
+     * @return true if the metric was removed
+     * @since 1.1.0
+     */
+    public boolean removeMetric(String module, String component, String... names);
+
     /**
      * Return the MetricRegistry containing all the metrics
      * 
@@ -115,6 +115,11 @@ public class MetricsServiceImpl implements MetricsService {
         }
     }
 
+    @Override
+    public boolean removeMetric(String module, String component, String... names) {
+        return metricRegistry.remove(getMetricName(module, component, names));
+    }
+
     /**
      * Build the metric name based on module, component and metric names
      *
@@ -12,11 +12,14 @@
 package org.eclipse.kapua.commons.service.event.store.api;
 
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.KapuaQuery;
 import org.eclipse.kapua.service.KapuaEntityService;
 import org.eclipse.kapua.service.KapuaUpdatableEntityService;
 
+import java.util.List;
+
 /**
  * KapuaEventService exposes APIs to manage KapuaEvent objects.<br>
  * It includes APIs to create, update, find, list and delete KapuaEvents.<br>
@@ -49,4 +52,15 @@ public interface EventStoreService extends KapuaEntityService<EventStoreRecord,
     public EventStoreRecordListResult query(KapuaQuery<EventStoreRecord> query)
             throws KapuaException;
 
+    /**
+     * Sets the status of the given {@link EventStoreRecord}s in a single transaction.
+     *
+     * @param kapuaEvents The {@link EventStoreRecord}s to update.
+     * @param status      The new {@link EventStatus}.
+     * @throws KapuaException
+     * @since 1.1.0
+     */
+    public void updateStatus(List<EventStoreRecord> kapuaEvents, EventStatus status)
+            throws KapuaException;
+
 }
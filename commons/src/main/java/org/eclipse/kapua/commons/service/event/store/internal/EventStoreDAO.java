@@ -14,12 +14,17 @@ package org.eclipse.kapua.commons.service.event.store.internal;
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecord;
 import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordListResult;
 import org.eclipse.kapua.commons.service.internal.ServiceDAO;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.model.KapuaEntityAttributes;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.KapuaQuery;
 
+import java.util.Set;
+
 public class EventStoreDAO {
 
     private EventStoreDAO() {
@@ -54,6 +59,33 @@ public class EventStoreDAO {
         return ServiceDAO.update(em, EventStoreRecordImpl.class, kapuaEventImpl);
     }
 
+    /**
+     * Sets the status of the events with the provided identifiers
+     *
+     * @param em
+     * @param eventIds
+     * @param status
+     * @throws KapuaException
+     */
+    public static void updateStatus(EntityManager em, Set<KapuaId> eventIds, EventStatus status)
+            throws KapuaException {
+        EventStoreQueryImpl query = new EventStoreQueryImpl(null);
+        query.setPredicate(new AttributePredicateImpl<>(KapuaEntityAttributes.ENTITY_ID, eventIds.toArray()));
+
+        EventStoreRecordListResult eventsToUpdate = query(em, query);
+        if (eventsToUpdate.getSize() != eventIds.size()) {
+            for (KapuaId eventId : eventIds) {
+                if (eventsToUpdate.getItems().stream().noneMatch(event -> event.getId().equals(eventId))) {
+                    throw new KapuaEntityNotFoundException(EventStoreRecord.TYPE, eventId);
+                }
+            }
+        }
+
+        for (EventStoreRecord eventToUpdate : eventsToUpdate.getItems()) {
+            eventToUpdate.setStatus(status);
+        }
+    }
+
     /**
      * Finds the event by event identifier
      *
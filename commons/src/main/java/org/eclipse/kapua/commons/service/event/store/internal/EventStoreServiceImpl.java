@@ -22,6 +22,7 @@ import org.eclipse.kapua.commons.service.event.store.api.EventStoreService;
 import org.eclipse.kapua.commons.service.internal.AbstractKapuaService;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.event.RaiseServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.model.domain.Actions;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -30,6 +31,9 @@ import org.eclipse.kapua.service.authorization.AuthorizationService;
 import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 
 import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * {@link EventStoreService} implementation.
@@ -165,6 +169,35 @@ public class EventStoreServiceImpl extends AbstractKapuaService implements Event
         return entityManagerSession.onResult(em -> EventStoreDAO.count(em, query));
     }
 
+    @Override
+    public void updateStatus(List<EventStoreRecord> kapuaEvents, EventStatus status)
+            throws KapuaException {
+        //
+        // Validation of the fields
+        ArgumentValidator.notNull(kapuaEvents, "kapuaEvents");
+        ArgumentValidator.notNull(status, "status");
+
+        if (kapuaEvents.isEmpty()) {
+            return;
+        }
+
+        //
+        // Check Access
+        Set<KapuaId> scopeIds = new HashSet<>();
+        Set<KapuaId> kapuaEventIds = new HashSet<>();
+        for (EventStoreRecord kapuaEvent : kapuaEvents) {
+            ArgumentValidator.notNull(kapuaEvent.getId(), "kapuaEvent.id");
+            if (scopeIds.add(kapuaEvent.getScopeId())) {
+                AUTHORIZATION_SERVICE.checkPermission(PERMISSION_FACTORY.newPermission(EventStoreDomains.EVENT_STORE_DOMAIN, Actions.write, kapuaEvent.getScopeId()));
+            }
+            kapuaEventIds.add(kapuaEvent.getId());
+        }
+
+        //
+        // Do update
+        entityManagerSession.onTransactedAction(em -> EventStoreDAO.updateStatus(em, kapuaEventIds, status));
+    }
+
     /**
      * Find an {@link EventStoreRecord} without authorization checks.
      *
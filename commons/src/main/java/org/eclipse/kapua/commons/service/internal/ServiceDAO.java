@@ -583,10 +583,13 @@ public class ServiceDAO {
 
         // Fields to query properties of sub attributes of the root entity
         Attribute attribute;
+        Class<?> attributeJavaType;
         if (attrName.contains(ATTRIBUTE_SEPARATOR)) {
             attribute = entityType.getAttribute(attrName.split(ATTRIBUTE_SEPARATOR_ESCAPED)[0]);
+            attributeJavaType = extractAttribute(entityRoot, attrName).getJavaType();
         } else {
             attribute = entityType.getAttribute(attrName);
+            attributeJavaType = attribute.getJavaType();
         }
 
         if (attrValue instanceof Object[]) {
@@ -635,7 +638,7 @@ public class ServiceDAO {
                     break;
 
                 case GREATER_THAN:
-                    if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
+                    if (attrValue instanceof Comparable && ArrayUtils.contains(attributeJavaType.getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
                         Comparable comparablAttrValue = (Comparable) attrValue;
                         expr = cb.greaterThan(comparableExpression, comparablAttrValue);
@@ -645,7 +648,7 @@ public class ServiceDAO {
                     break;
 
                 case GREATER_THAN_OR_EQUAL:
-                    if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
+                    if (attrValue instanceof Comparable && ArrayUtils.contains(attributeJavaType.getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
                         Comparable comparablAttrValue = (Comparable) attrValue;
                         expr = cb.greaterThanOrEqualTo(comparableExpression, comparablAttrValue);
@@ -655,7 +658,7 @@ public class ServiceDAO {
                     break;
 
                 case LESS_THAN:
-                    if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
+                    if (attrValue instanceof Comparable && ArrayUtils.contains(attributeJavaType.getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
                         Comparable comparablAttrValue = (Comparable) attrValue;
                         expr = cb.lessThan(comparableExpression, comparablAttrValue);
@@ -664,7 +667,7 @@ public class ServiceDAO {
                     }
                     break;
                 case LESS_THAN_OR_EQUAL:
-                    if (attrValue instanceof Comparable && ArrayUtils.contains(attribute.getJavaType().getInterfaces(), Comparable.class)) {
+                    if (attrValue instanceof Comparable && ArrayUtils.contains(attributeJavaType.getInterfaces(), Comparable.class)) {
                         Expression<? extends Comparable> comparableExpression = extractAttribute(entityRoot, attrName);
                         Comparable comparablAttrValue = (Comparable) attrValue;
                         expr = cb.lessThanOrEqualTo(comparableExpression, comparablAttrValue);
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.service.internal.cache;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.account.AccountService;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read through {@link Account} cache for the hot paths that resolve an account by id or by name (i.e. message store and device calls).<br>
+ * The accounts are looked up through the {@link AccountService} without authorization checks, so the caller is responsible for checking the access to the returned account.<br>
+ * The cached accounts are shared, so they <b>must not be modified</b> by the callers.<br>
+ * <br>
+ * The {@link AccountService} invalidates the account on update and delete, while the other nodes see the change once the cached account expires
+ * (see {@link CacheProviders} for the {@code commons.account.id} and {@code commons.account.name} cache configurations).
+ *
+ * @since 1.1
+ */
+public final class AccountCache {
+
+    private static final long CACHE_SIZE_MAX = 10000;
+    private static final int CACHE_EXPIRE_AFTER = 60;
+
+    private static final AccountCache INSTANCE = new AccountCache();
+
+    private final Cache<KapuaId, Account> accountsById;
+    private final Cache<String, Account> accountsByName;
+    private final AtomicLong version = new AtomicLong();
+
+    private AccountCache() {
+        accountsById = CacheProviders.newCache("commons.account.id", new CacheConfiguration<>(CACHE_SIZE_MAX, CACHE_EXPIRE_AFTER), null);
+        accountsByName = CacheProviders.newCache("commons.account.name", new CacheConfiguration<>(CACHE_SIZE_MAX, CACHE_EXPIRE_AFTER), null);
+    }
+
+    /**
+     * Get the account cache instance
+     *
+     * @return
+     */
+    public static AccountCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Find the account by id
+     *
+     * @param accountId
+     * @return the account or null if no account is found
+     * @throws KapuaException
+     */
+    public Account findById(KapuaId accountId) throws KapuaException {
+        Account account = accountsById.get(accountId);
+        if (account == null) {
+            long currentVersion = version.get();
+            AccountService accountService = KapuaLocator.getInstance().getService(AccountService.class);
+            account = KapuaSecurityUtils.doPrivileged(() -> accountService.find(accountId));
+            cache(account, currentVersion);
+        }
+        return account;
+    }
+
+    /**
+     * Find the account by name
+     *
+     * @param name
+     * @return the account or null if no account is found
+     * @throws KapuaException
+     */
+    public Account findByName(String name) throws KapuaException {
+        Account account = accountsByName.get(name);
+        if (account == null) {
+            long currentVersion = version.get();
+            AccountService accountService = KapuaLocator.getInstance().getService(AccountService.class);
+            account = KapuaSecurityUtils.doPrivileged(() -> accountService.findByName(name));
+            cache(account, currentVersion);
+        }
+        return account;
+    }
+
+    /**
+     * Remove the account from the cache
+     *
+     * @param account
+     */
+    public void invalidate(Account account) {
+        version.incrementAndGet();
+        accountsById.remove(account.getId());
+        accountsByName.remove(account.getName());
+    }
+
+    private void cache(Account account, long loadVersion) {
+        if (account == null || version.get() != loadVersion) {
+            return;
+        }
+        accountsById.put(account.getId(), account);
+        accountsByName.put(account.getName(), account);
+        // the account may have been changed while it was cached
+        if (version.get() != loadVersion) {
+            accountsById.remove(account.getId());
+            accountsByName.remove(account.getName());
+        }
+    }
+}
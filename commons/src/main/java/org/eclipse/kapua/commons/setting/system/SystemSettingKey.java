@@ -242,6 +242,11 @@ public enum SystemSettingKey implements SettingKey {
      */
     EVENT_BUS_TRANSPORT_USE_EPOLL("commons.eventbus.transport.useEpoll"),
 
+    /**
+     * Max length of the inputs (the intercepted method arguments) stored in the service events. The longer inputs are truncated.
+     */
+    EVENT_BUS_INPUTS_MAX_LENGTH("commons.eventbus.inputs.maxLength"),
+
     /**
      * Wait time between housekeeper executions (in milliseconds)
      */
@@ -254,6 +259,14 @@ public enum SystemSettingKey implements SettingKey {
      * Time window to consider FIRED messages as "old" messages so ready to be processed by the housekeeper (in milliseconds)
      */
     HOUSEKEEPER_OLD_MESSAGES_TIME_WINDOW("commons.eventbus.houskeeper.oldMessagesTimeWindow"),
+    /**
+     * Cache provider class (see {@link org.eclipse.kapua.commons.cache.CacheProviders})
+     */
+    CACHE_PROVIDER("commons.cache.provider"),
+    /**
+     * Prefix of the per cache name configuration overrides (see {@link org.eclipse.kapua.commons.cache.CacheProviders})
+     */
+    CACHE_CONFIGURATION("commons.cache.config"),
     /**
      * Allow System Settings to be updatable at runtime via System.setProperty()
      */
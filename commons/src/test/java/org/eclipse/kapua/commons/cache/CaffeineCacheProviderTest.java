@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.cache;
+
+import org.assertj.core.api.Assertions;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.codahale.metrics.Gauge;
+
+@Category(JUnitTests.class)
+public class CaffeineCacheProviderTest {
+
+    @Test
+    public void shouldReturnDefaultValueAndExportStatistics() {
+        // Given
+        Cache<String, Boolean> cache = new CaffeineCacheProvider().createCache("test.default", new CacheConfiguration<>(10, 60), false);
+
+        // When
+        Boolean missing = cache.get("key");
+        cache.put("key", true);
+        Boolean present = cache.get("key");
+
+        // Then
+        Assertions.assertThat(missing).isFalse();
+        Assertions.assertThat(present).isTrue();
+        Gauge<?> hitCount = MetricServiceFactory.getInstance().getMetricRegistry().getGauges().get("cache.test.default.hit.count");
+        Gauge<?> missCount = MetricServiceFactory.getInstance().getMetricRegistry().getGauges().get("cache.test.default.miss.count");
+        Assertions.assertThat(hitCount.getValue()).isEqualTo(1L);
+        Assertions.assertThat(missCount.getValue()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldLoadMissingValues() {
+        // Given
+        CacheConfiguration<String, Integer> configuration = new CacheConfiguration<>(10, null);
+        configuration.setLoader(String::length);
+        Cache<String, Integer> cache = new CaffeineCacheProvider().createCache("test.loader", configuration, -1);
+
+        // When
+        Integer value = cache.get("four");
+
+        // Then
+        Assertions.assertThat(value).isEqualTo(4);
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigInteger;
+import java.util.Date;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class BinaryServiceEventMarshalerTest {
+
+    private final BinaryServiceEventMarshaler marshaler = new BinaryServiceEventMarshaler();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ServiceEvent kapuaEvent = newServiceEvent();
+
+        ServiceEvent unmarshaled = marshaler.unmarshal(marshaler.marshal(kapuaEvent));
+        assertEquals(kapuaEvent, unmarshaled);
+        Assert.assertNull(unmarshaled.getOutputs());
+        Assert.assertNull(unmarshaled.getNote());
+    }
+
+    @Test
+    public void testFieldLargerThanPooledBuffer() throws Exception {
+        StringBuilder inputs = new StringBuilder();
+        while (inputs.length() <= BinaryServiceEventMarshaler.BUFFER_SIZE_MAX_POOLED) {
+            inputs.append("Device [clientId=device-è€]");
+        }
+        ServiceEvent largeEvent = newServiceEvent();
+        largeEvent.setInputs(inputs.toString());
+        ServiceEvent kapuaEvent = newServiceEvent();
+
+        assertEquals(largeEvent, marshaler.unmarshal(marshaler.marshal(largeEvent)));
+        // the following events are read through the pooled buffer
+        assertEquals(kapuaEvent, marshaler.unmarshal(marshaler.marshal(kapuaEvent)));
+    }
+
+    @Test
+    public void testUnknownFieldsAreSkipped() throws Exception {
+        ServiceEvent kapuaEvent = newServiceEvent();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(buffer);
+        marshaler.marshal(kapuaEvent, output);
+        // replace the end tag with a field unknown to this version
+        byte[] knownFields = buffer.toByteArray();
+        buffer.reset();
+        output.write(knownFields, 0, knownFields.length - 1);
+        output.writeByte(100);
+        output.writeInt(3);
+        output.write(new byte[] { 1, 2, 3 });
+        output.writeByte(BinaryServiceEventMarshaler.END);
+
+        ServiceEvent unmarshaled = marshaler.unmarshal(new ByteArrayServiceEventInput(buffer.toByteArray()));
+        assertEquals(kapuaEvent, unmarshaled);
+    }
+
+    @Test(expected = ServiceEventBusException.class)
+    public void testLengthOverRemainingBytes() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeByte(BinaryServiceEventMarshaler.FORMAT_VERSION);
+        output.writeByte(BinaryServiceEventMarshaler.INPUTS);
+        // a corrupted length, much more than the message size
+        output.writeInt(Integer.MAX_VALUE);
+        output.write(new byte[] { 1, 2, 3 });
+        output.writeByte(BinaryServiceEventMarshaler.END);
+
+        marshaler.unmarshal(new ByteArrayServiceEventInput(buffer.toByteArray()));
+    }
+
+    @Test(expected = ServiceEventBusException.class)
+    public void testNegativeLength() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeByte(BinaryServiceEventMarshaler.FORMAT_VERSION);
+        output.writeByte(BinaryServiceEventMarshaler.SCOPE_ID);
+        output.writeInt(-1);
+        output.writeByte(BinaryServiceEventMarshaler.END);
+
+        marshaler.unmarshal(new ByteArrayServiceEventInput(buffer.toByteArray()));
+    }
+
+    @Test
+    public void testTruncatedMessage() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        marshaler.marshal(newServiceEvent(), new DataOutputStream(buffer));
+        byte[] content = buffer.toByteArray();
+
+        // every truncation fails, none is read as a (partial) event
+        for (int length = 0; length < content.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(content, 0, truncated, 0, length);
+            try {
+                marshaler.unmarshal(new ByteArrayServiceEventInput(truncated));
+                Assert.fail("The unmarshal of " + length + " bytes should fail!");
+            } catch (ServiceEventBusException e) {
+                // expected
+            }
+        }
+    }
+
+    private static ServiceEvent newServiceEvent() {
+        ServiceEvent kapuaEvent = new ServiceEvent();
+        kapuaEvent.setId("AQ");
+        kapuaEvent.setContextId("context-1");
+        kapuaEvent.setTimestamp(new Date(1_500_000_000_000L));
+        kapuaEvent.setUserId(new KapuaEid(BigInteger.valueOf(2)));
+        kapuaEvent.setScopeId(new KapuaEid(BigInteger.ONE));
+        kapuaEvent.setEntityId(new KapuaEid(new BigInteger("18446744073709551615")));
+        kapuaEvent.setService("org.eclipse.kapua.service.device.registry.DeviceRegistryService");
+        kapuaEvent.setEntityType("org.eclipse.kapua.service.device.registry.internal.DeviceImpl");
+        kapuaEvent.setOperation("update");
+        kapuaEvent.setInputs("Device [clientId=device-è€]");
+        kapuaEvent.setStatus(EventStatus.TRIGGERED);
+        return kapuaEvent;
+    }
+
+    private static void assertEquals(ServiceEvent expected, ServiceEvent actual) {
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertEquals(expected.getContextId(), actual.getContextId());
+        Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        Assert.assertEquals(expected.getUserId().getId(), actual.getUserId().getId());
+        Assert.assertEquals(expected.getScopeId().getId(), actual.getScopeId().getId());
+        Assert.assertEquals(expected.getEntityId().getId(), actual.getEntityId().getId());
+        Assert.assertEquals(expected.getService(), actual.getService());
+        Assert.assertEquals(expected.getEntityType(), actual.getEntityType());
+        Assert.assertEquals(expected.getOperation(), actual.getOperation());
+        Assert.assertEquals(expected.getInputs(), actual.getInputs());
+        Assert.assertEquals(expected.getStatus(), actual.getStatus());
+    }
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.kapua.KapuaEntityNotFoundException;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.event.ServiceEventHousekeeper.EventsProcessType;
+import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.model.AbstractCommonServiceTest;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.misc.CollisionEntityManagerFactory;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria.SortOrder;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecord;
+import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordListResult;
+import org.eclipse.kapua.commons.service.event.store.api.EventStoreRecordQuery;
+import org.eclipse.kapua.commons.service.event.store.internal.EventStoreDAO;
+import org.eclipse.kapua.commons.service.event.store.internal.EventStoreRecordImpl;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.event.ServiceEventBus;
+import org.eclipse.kapua.event.ServiceEventBusException;
+import org.eclipse.kapua.event.ServiceEventBusListener;
+import org.eclipse.kapua.model.KapuaEntityAttributes;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test the batches of unsent events read by the housekeeper and their status update.
+ *
+ * @since 1.1
+ */
+@Category(JUnitTests.class)
+public class ServiceEventHousekeeperTest extends AbstractCommonServiceTest {
+
+    private static final KapuaId SCOPE_ID = new KapuaEid(BigInteger.ONE);
+    private static final int BATCH_SIZE = 2;
+    private static final String UNMARSHALABLE_INPUTS = "unmarshalable";
+
+    private EntityManager em;
+    private String serviceName;
+
+    @Before
+    public void setUp() throws KapuaException {
+        KapuaSecurityUtils.setSession(new KapuaSession(null, SCOPE_ID, SCOPE_ID));
+        em = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        serviceName = "housekeeper-test-" + System.nanoTime();
+    }
+
+    @After
+    public void tearDownSession() {
+        if (em.isTransactionActive()) {
+            em.rollback();
+        }
+        em.close();
+        KapuaSecurityUtils.clearSession();
+    }
+
+    @Test
+    public void testUnsentEventsQuery() {
+        EventStoreRecordQuery query = ServiceEventHousekeeper.newUnsentEventsQuery(serviceName, EventsProcessType.SEND_ERROR, 0, BATCH_SIZE);
+
+        FieldSortCriteria sortCriteria = (FieldSortCriteria) query.getSortCriteria();
+        Assert.assertEquals(KapuaEntityAttributes.CREATED_ON, sortCriteria.getAttributeName());
+        Assert.assertEquals(SortOrder.ASCENDING, sortCriteria.getSortOrder());
+        Assert.assertEquals(Integer.valueOf(0), query.getOffset());
+        Assert.assertEquals(Integer.valueOf(BATCH_SIZE), query.getLimit());
+    }
+
+    @Test
+    public void testUnsentEventsBatches() throws Exception {
+        List<KapuaId> unsentEventIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            unsentEventIds.add(createEvent(EventStatus.SEND_ERROR).getId());
+            // distinct creation times
+            Thread.sleep(5);
+        }
+        createEvent(EventStatus.SENT);
+        createEvent(EventStatus.TRIGGERED);
+
+        // same loop of the housekeeper: read a batch and mark it as sent until the limit is no more exceeded
+        List<KapuaId> sentEventIds = new ArrayList<>();
+        int batches = 0;
+        EventStoreRecordListResult unsentEvents;
+        do {
+            unsentEvents = EventStoreDAO.query(em, ServiceEventHousekeeper.newUnsentEventsQuery(serviceName, EventsProcessType.SEND_ERROR, 0, BATCH_SIZE));
+            Assert.assertTrue(unsentEvents.getSize() <= BATCH_SIZE);
+            batches++;
+
+            Set<KapuaId> batchIds = new HashSet<>();
+            for (EventStoreRecord event : unsentEvents.getItems()) {
+                sentEventIds.add(event.getId());
+                batchIds.add(event.getId());
+            }
+            updateStatus(batchIds, EventStatus.SENT);
+        }
+        while (unsentEvents.isLimitExceeded());
+
+        Assert.assertEquals(3, batches);
+        Assert.assertEquals(unsentEventIds, sentEventIds);
+        Assert.assertTrue(EventStoreDAO.query(em, ServiceEventHousekeeper.newUnsentEventsQuery(serviceName, EventsProcessType.SEND_ERROR, 0, BATCH_SIZE)).isEmpty());
+        for (KapuaId eventId : unsentEventIds) {
+            Assert.assertEquals(EventStatus.SENT, EventStoreDAO.find(em, null, eventId).getStatus());
+        }
+    }
+
+    @Test
+    public void testUnmarshalableEventInBatch() throws Exception {
+        List<KapuaId> unsentEventIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            unsentEventIds.add(createEvent(EventStatus.SEND_ERROR, i == 1 ? UNMARSHALABLE_INPUTS : "inputs").getId());
+            // distinct creation times
+            Thread.sleep(5);
+        }
+        KapuaId unmarshalableEventId = unsentEventIds.remove(1);
+        TestServiceEventBus eventBus = new TestServiceEventBus();
+
+        // same loop of the housekeeper: the events that cannot be published are skipped
+        List<KapuaId> sentEventIds = new ArrayList<>();
+        int skippedEvents = 0;
+        EventStoreRecordListResult unsentEvents;
+        do {
+            unsentEvents = EventStoreDAO.query(em, ServiceEventHousekeeper.newUnsentEventsQuery(serviceName, EventsProcessType.SEND_ERROR, skippedEvents, BATCH_SIZE));
+            List<EventStoreRecord> publishedEvents = ServiceEventHousekeeper.publishEvents(eventBus, "address", unsentEvents.getItems());
+            skippedEvents += unsentEvents.getSize() - publishedEvents.size();
+
+            Set<KapuaId> batchIds = new HashSet<>();
+            for (EventStoreRecord event : publishedEvents) {
+                sentEventIds.add(event.getId());
+                batchIds.add(event.getId());
+            }
+            updateStatus(batchIds, EventStatus.SENT);
+        }
+        while (unsentEvents.isLimitExceeded());
+
+        Assert.assertEquals(1, skippedEvents);
+        Assert.assertEquals(unsentEventIds, sentEventIds);
+        Assert.assertEquals(unsentEventIds.size(), eventBus.publishedEvents.size());
+        for (KapuaId eventId : unsentEventIds) {
+            Assert.assertEquals(EventStatus.SENT, EventStoreDAO.find(em, null, eventId).getStatus());
+        }
+        // the unmarshalable event is left to the next execution
+        Assert.assertEquals(EventStatus.SEND_ERROR, EventStoreDAO.find(em, null, unmarshalableEventId).getStatus());
+    }
+
+    @Test
+    public void testEventBusNotAvailable() throws Exception {
+        List<EventStoreRecord> events = new ArrayList<>();
+        events.add(createEvent(EventStatus.SEND_ERROR, "inputs"));
+        events.add(createEvent(EventStatus.SEND_ERROR, "inputs"));
+        TestServiceEventBus eventBus = new TestServiceEventBus();
+        eventBus.available = false;
+
+        try {
+            ServiceEventHousekeeper.publishEvents(eventBus, "address", events);
+            Assert.fail("The publish should fail if the event bus is not available!");
+        } catch (ServiceEventBusException e) {
+            // the events are not skipped, the whole batch is sent again in the next execution
+        }
+        Assert.assertTrue(eventBus.publishedEvents.isEmpty());
+    }
+
+    @Test
+    public void testUpdateStatusOfMissingEvent() throws Exception {
+        KapuaId eventId = createEvent(EventStatus.SEND_ERROR).getId();
+
+        Set<KapuaId> eventIds = new HashSet<>();
+        eventIds.add(eventId);
+        eventIds.add(new KapuaEid(BigInteger.valueOf(Long.MAX_VALUE)));
+        try {
+            updateStatus(eventIds, EventStatus.SENT);
+            Assert.fail("The status update should fail for a missing event!");
+        } catch (KapuaEntityNotFoundException e) {
+            em.rollback();
+        }
+
+        EntityManager otherEm = CollisionEntityManagerFactory.getInstance().createEntityManager();
+        try {
+            Assert.assertEquals(EventStatus.SEND_ERROR, EventStoreDAO.find(otherEm, null, eventId).getStatus());
+        } finally {
+            otherEm.close();
+        }
+    }
+
+    private EventStoreRecord createEvent(EventStatus status) throws KapuaException {
+        return createEvent(status, "inputs");
+    }
+
+    private EventStoreRecord createEvent(EventStatus status, String inputs) throws KapuaException {
+        EventStoreRecordImpl event = new EventStoreRecordImpl(SCOPE_ID);
+        event.setContextId("context");
+        event.setTimestamp(new Date());
+        event.setUserId(SCOPE_ID);
+        event.setService(serviceName);
+        event.setEntityType("entity");
+        event.setEntityId(SCOPE_ID);
+        event.setOperation("create");
+        event.setInputs(inputs);
+        event.setStatus(status);
+
+        em.beginTransaction();
+        EventStoreRecord created = EventStoreDAO.create(em, event);
+        em.commit();
+        return created;
+    }
+
+    private void updateStatus(Set<KapuaId> eventIds, EventStatus status) throws KapuaException {
+        em.beginTransaction();
+        EventStoreDAO.updateStatus(em, eventIds, status);
+        em.commit();
+    }
+
+    /**
+     * Event bus failing to marshal the events with {@link #UNMARSHALABLE_INPUTS} (the whole batch fails if it contains one of them)
+     */
+    private static class TestServiceEventBus implements ServiceEventBus {
+
+        private final List<ServiceEvent> publishedEvents = new ArrayList<>();
+        private boolean available = true;
+
+        @Override
+        public void publish(String address, ServiceEvent event) throws ServiceEventBusException {
+            publish(address, Collections.singletonList(event));
+        }
+
+        @Override
+        public void publish(String address, List<ServiceEvent> events) throws ServiceEventBusException {
+            if (!available) {
+                throw new ServiceEventBusException("Event bus not available");
+            }
+            for (ServiceEvent event : events) {
+                if (UNMARSHALABLE_INPUTS.equals(event.getInputs())) {
+                    throw new ServiceEventBusException(String.format("Cannot marshal the event %s", event.getId()));
+                }
+            }
+            publishedEvents.addAll(events);
+        }
+
+        @Override
+        public void subscribe(String address, String name, ServiceEventBusListener eventListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.id.KapuaIdFactoryImpl;
+import org.eclipse.kapua.commons.util.xml.XmlUtil;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.KapuaObjectFactory;
+import org.eclipse.kapua.model.id.KapuaIdFactory;
+import org.eclipse.kapua.service.KapuaService;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Service event marshaling benchmark (the {@link XmlServiceEventMarshaler} and {@link JsonServiceEventMarshaler} compared to the {@link BinaryServiceEventMarshaler}).<br>
+ * The binary marshaler is measured through the Base64 {@link String} methods,
+ * the event bus writes it directly to the JMS bytes message body.
+ * Run it through the {@link #main(String[])} method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ServiceEventMarshalerBenchmark {
+
+    static {
+        // the JAXB KapuaId adapter needs a locator providing the KapuaIdFactory
+        System.setProperty(KapuaLocator.LOCATOR_CLASS_NAME_SYSTEM_PROPERTY, BenchmarkLocator.class.getName());
+    }
+
+    @Param({ "xml", "json", "binary" })
+    private String format;
+
+    private ServiceEventMarshaler marshaler;
+    private ServiceEvent kapuaEvent;
+    private String message;
+
+    @Setup
+    public void setup() throws KapuaException {
+        try {
+            JAXBContext jaxbContext = JAXBContextFactory.createContext(new Class<?>[] { ServiceEvent.class }, null);
+            XmlUtil.setContextProvider(() -> jaxbContext);
+        } catch (JAXBException e) {
+            throw KapuaException.internalError(e);
+        }
+
+        switch (format) {
+        case "xml":
+            marshaler = new XmlServiceEventMarshaler();
+            break;
+        case "json":
+            marshaler = new JsonServiceEventMarshaler();
+            break;
+        default:
+            marshaler = new BinaryServiceEventMarshaler();
+            break;
+        }
+
+        kapuaEvent = new ServiceEvent();
+        kapuaEvent.setId("AQ");
+        kapuaEvent.setContextId("b0e6d1b6-0a6c-4ff4-8a43-7c1a0c3f8f9e");
+        kapuaEvent.setTimestamp(new Date());
+        kapuaEvent.setUserId(new KapuaEid(BigInteger.valueOf(2)));
+        kapuaEvent.setScopeId(new KapuaEid(BigInteger.ONE));
+        kapuaEvent.setEntityId(new KapuaEid(new BigInteger("4815162342")));
+        kapuaEvent.setService("org.eclipse.kapua.service.device.registry.DeviceRegistryService");
+        kapuaEvent.setEntityType("org.eclipse.kapua.service.device.registry.internal.DeviceImpl");
+        kapuaEvent.setOperation("update");
+        kapuaEvent.setInputs("DeviceImpl [scopeId=1, clientId=device-0001, displayName=device-0001, status=ENABLED]");
+        kapuaEvent.setStatus(EventStatus.TRIGGERED);
+
+        message = marshaler.marshal(kapuaEvent);
+    }
+
+    @Benchmark
+    public String marshal() throws KapuaException {
+        return marshaler.marshal(kapuaEvent);
+    }
+
+    @Benchmark
+    public ServiceEvent unmarshal() throws KapuaException {
+        return marshaler.unmarshal(message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ServiceEventMarshalerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    public static class BenchmarkLocator extends KapuaLocator {
+
+        @Override
+        public <S extends KapuaService> S getService(Class<S> serviceClass) {
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <F extends KapuaObjectFactory> F getFactory(Class<F> factoryClass) {
+            return KapuaIdFactory.class.equals(factoryClass) ? (F) new KapuaIdFactoryImpl() : null;
+        }
+
+        @Override
+        public List<KapuaService> getServices() {
+            return Collections.emptyList();
+        }
+    }
+}
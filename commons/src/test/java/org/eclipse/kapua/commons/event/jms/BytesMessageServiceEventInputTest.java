@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.commons.event.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.Date;
+
+import javax.jms.BytesMessage;
+import javax.jms.MessageEOFException;
+
+import org.eclipse.kapua.commons.event.BinaryServiceEventMarshaler;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.event.ServiceEvent;
+import org.eclipse.kapua.event.ServiceEvent.EventStatus;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class BytesMessageServiceEventInputTest {
+
+    private final BinaryServiceEventMarshaler marshaler = new BinaryServiceEventMarshaler();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ServiceEvent kapuaEvent = new ServiceEvent();
+        kapuaEvent.setContextId("context-1");
+        kapuaEvent.setTimestamp(new Date(1_500_000_000_000L));
+        kapuaEvent.setScopeId(new KapuaEid(BigInteger.ONE));
+        kapuaEvent.setEntityId(new KapuaEid(BigInteger.valueOf(Long.MAX_VALUE)));
+        kapuaEvent.setInputs("Device [clientId=device-è€]");
+        kapuaEvent.setStatus(EventStatus.TRIGGERED);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        marshaler.marshal(kapuaEvent, new BytesMessageDataOutput(newBytesMessage(body, null)));
+
+        ServiceEvent unmarshaled = marshaler.unmarshal(new BytesMessageServiceEventInput(newBytesMessage(null, body.toByteArray())));
+        Assert.assertEquals(kapuaEvent.getContextId(), unmarshaled.getContextId());
+        Assert.assertEquals(kapuaEvent.getTimestamp(), unmarshaled.getTimestamp());
+        Assert.assertEquals(kapuaEvent.getScopeId().getId(), unmarshaled.getScopeId().getId());
+        Assert.assertEquals(kapuaEvent.getEntityId().getId(), unmarshaled.getEntityId().getId());
+        Assert.assertEquals(kapuaEvent.getInputs(), unmarshaled.getInputs());
+        Assert.assertEquals(kapuaEvent.getStatus(), unmarshaled.getStatus());
+        Assert.assertNull(unmarshaled.getUserId());
+    }
+
+    @Test
+    public void testRemaining() throws Exception {
+        BytesMessageServiceEventInput input = new BytesMessageServiceEventInput(newBytesMessage(null, new byte[20]));
+
+        Assert.assertEquals(20, input.remaining());
+        input.readByte();
+        input.readInt();
+        input.readLong();
+        Assert.assertEquals(7, input.remaining());
+        input.readFully(new byte[10], 2, 3);
+        input.skipBytes(2);
+        Assert.assertEquals(2, input.remaining());
+
+        try {
+            input.skipBytes(3);
+            Assert.fail("The skip should fail!");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    /**
+     * {@link BytesMessage} writing its body to the output stream or reading it from the content
+     */
+    private static BytesMessage newBytesMessage(ByteArrayOutputStream body, byte[] content) {
+        DataOutputStream output = body != null ? new DataOutputStream(body) : null;
+        DataInputStream input = content != null ? new DataInputStream(new ByteArrayInputStream(content)) : null;
+        return (BytesMessage) Proxy.newProxyInstance(BytesMessage.class.getClassLoader(), new Class<?>[] { BytesMessage.class }, (proxy, method, args) -> {
+            try {
+                switch (method.getName()) {
+                case "getBodyLength":
+                    return (long) content.length;
+                case "readByte":
+                    return input.readByte();
+                case "readInt":
+                    return input.readInt();
+                case "readLong":
+                    return input.readLong();
+                case "readBytes":
+                    return input.read((byte[]) args[0], 0, (Integer) args[1]);
+                case "writeByte":
+                    output.writeByte((Byte) args[0]);
+                    return null;
+                case "writeInt":
+                    output.writeInt((Integer) args[0]);
+                    return null;
+                case "writeLong":
+                    output.writeLong((Long) args[0]);
+                    return null;
+                case "writeBytes":
+                    if (args.length == 1) {
+                        output.write((byte[]) args[0]);
+                    } else {
+                        output.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+                    }
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            } catch (EOFException e) {
+                throw new MessageEOFException(e.getMessage());
+            }
+        });
+    }
+}
@@ -38,4 +38,14 @@ public class MetricServiceFactoryTest extends Assert {
     public void testMetricService() {
         Assert.assertNotNull(MetricServiceFactory.getInstance());
     }
+
+    @Test
+    public void testRemoveMetric() {
+        MetricsService metricsService = MetricServiceFactory.getInstance();
+        metricsService.getCounter("module", "component", "removed", "count").inc();
+
+        Assert.assertTrue(metricsService.removeMetric("module", "component", "removed", "count"));
+        Assert.assertFalse(metricsService.removeMetric("module", "component", "removed", "count"));
+        Assert.assertEquals(0, metricsService.getCounter("module", "component", "removed", "count").getCount());
+    }
 }
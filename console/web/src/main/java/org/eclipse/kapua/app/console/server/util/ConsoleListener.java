@@ -22,6 +22,7 @@ import org.eclipse.kapua.commons.util.xml.JAXBContextProvider;
 import org.eclipse.kapua.commons.util.xml.XmlUtil;
 import org.eclipse.kapua.service.liquibase.KapuaLiquibaseClient;
 import org.eclipse.kapua.service.scheduler.quartz.SchedulerServiceInit;
+import org.eclipse.kapua.transport.mqtt.MqttRequestMultiplexer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,6 +100,11 @@ public class ConsoleListener implements ServletContextListener {
         LOG.info("Stopping job scheduler...");
         SchedulerServiceInit.close();
         LOG.info("Stopping job scheduler... DONE");
+
+        // close the device request connections
+        LOG.info("Closing device request connections...");
+        MqttRequestMultiplexer.closeAll();
+        LOG.info("Closing device request connections... DONE");
     }
 
 }
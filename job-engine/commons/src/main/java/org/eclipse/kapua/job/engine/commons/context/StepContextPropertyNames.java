@@ -17,4 +17,12 @@ public interface StepContextPropertyNames {
 
     String STEP_NEXT_INDEX = "step.nextStepIndex";
 
+    String STEP_PARTITION_INDEX = "step.partitionIndex";
+
+    String STEP_PARTITION_TARGET_ID_FROM = "step.partitionTargetIdFrom";
+
+    String STEP_PARTITION_TARGET_ID_TO = "step.partitionTargetIdTo";
+
+    String STEP_PARTITION_ACCOUNT_THREADS_MAX = "step.partitionAccountThreadsMax";
+
 }
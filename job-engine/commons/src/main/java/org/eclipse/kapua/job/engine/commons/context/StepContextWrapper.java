@@ -27,6 +27,7 @@ import javax.xml.bind.JAXBException;
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
 import java.io.Serializable;
+import java.math.BigInteger;
 import java.util.Properties;
 
 public class StepContextWrapper {
@@ -54,6 +55,50 @@ public class StepContextWrapper {
         return stepNextIndexString != null ? Integer.parseInt(stepNextIndexString) : null;
     }
 
+    /**
+     * Gets the index of the partition of the step.
+     *
+     * @return The index of the partition or {@code null} if the step is not partitioned.
+     * @since 1.1.0
+     */
+    public Integer getPartitionIndex() {
+        String partitionIndexString = stepContext.getProperties().getProperty(StepContextPropertyNames.STEP_PARTITION_INDEX);
+        return !Strings.isNullOrEmpty(partitionIndexString) ? Integer.parseInt(partitionIndexString) : null;
+    }
+
+    /**
+     * Gets the lowest (inclusive) {@link org.eclipse.kapua.service.job.targets.JobTarget} id value processed by the partition of the step.
+     *
+     * @return The lowest id value or {@code null} if there is no lower bound.
+     * @since 1.1.0
+     */
+    public BigInteger getPartitionTargetIdFrom() {
+        String targetIdFromString = stepContext.getProperties().getProperty(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM);
+        return !Strings.isNullOrEmpty(targetIdFromString) ? new BigInteger(targetIdFromString) : null;
+    }
+
+    /**
+     * Gets the highest (exclusive) {@link org.eclipse.kapua.service.job.targets.JobTarget} id value processed by the partition of the step.
+     *
+     * @return The highest id value or {@code null} if there is no upper bound.
+     * @since 1.1.0
+     */
+    public BigInteger getPartitionTargetIdTo() {
+        String targetIdToString = stepContext.getProperties().getProperty(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO);
+        return !Strings.isNullOrEmpty(targetIdToString) ? new BigInteger(targetIdToString) : null;
+    }
+
+    /**
+     * Gets the maximum number of partitions of target steps processed at the same time for the account of the job.
+     *
+     * @return The maximum number of partitions or {@code null} if there is no limit.
+     * @since 1.1.0
+     */
+    public Integer getPartitionAccountThreadsMax() {
+        String accountThreadsMaxString = stepContext.getProperties().getProperty(StepContextPropertyNames.STEP_PARTITION_ACCOUNT_THREADS_MAX);
+        return !Strings.isNullOrEmpty(accountThreadsMaxString) ? Integer.parseInt(accountThreadsMaxString) : null;
+    }
+
     public <T> T getStepProperty(String stepPropertyName, Class<T> type) throws KapuaIllegalArgumentException {
         Properties jobContextProperties = stepContext.getProperties();
         String stepPropertyString = jobContextProperties.getProperty(stepPropertyName);
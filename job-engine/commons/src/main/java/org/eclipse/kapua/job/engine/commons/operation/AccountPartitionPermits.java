@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.job.engine.commons.operation;
+
+import org.eclipse.kapua.model.id.KapuaId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the number of partitions of target steps processed at the same time for each account, across all the jobs of the account running in this job engine.<br>
+ * The number of permits of an account is set by the first partition of the account, since it comes from the job engine settings.
+ *
+ * @since 1.1.0
+ */
+public class AccountPartitionPermits {
+
+    private static final Map<KapuaId, Semaphore> PERMITS = new ConcurrentHashMap<>();
+
+    private AccountPartitionPermits() {
+    }
+
+    /**
+     * Acquires a permit for the account, waiting until one is available.
+     *
+     * @param scopeId    The scope id of the account.
+     * @param permitsMax The maximum number of permits of the account.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @since 1.1.0
+     */
+    public static void acquire(KapuaId scopeId, int permitsMax) throws InterruptedException {
+        PERMITS.computeIfAbsent(scopeId, id -> new Semaphore(permitsMax, true)).acquire();
+    }
+
+    /**
+     * Releases a permit previously acquired with {@link #acquire(KapuaId, int)}.
+     *
+     * @param scopeId The scope id of the account.
+     * @since 1.1.0
+     */
+    public static void release(KapuaId scopeId) {
+        Semaphore permits = PERMITS.get(scopeId);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+}
@@ -11,12 +11,20 @@
  *******************************************************************************/
 package org.eclipse.kapua.job.engine.commons.operation;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria.SortOrder;
 import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.job.engine.commons.context.JobContextWrapper;
 import org.eclipse.kapua.job.engine.commons.context.StepContextWrapper;
 import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.predicate.AttributePredicate;
 import org.eclipse.kapua.service.job.operation.TargetReader;
 import org.eclipse.kapua.service.job.step.JobStepIndex;
@@ -35,12 +43,32 @@ import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.inject.Inject;
 import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Default {@link TargetReader} implementation.<br>
+ * The {@link JobTarget}s are read in pages of {@value #JOB_TARGET_PAGE_SIZE} items, so the targets of the job are never loaded all at once.<br>
+ * When the step is partitioned only the {@link JobTarget}s in the id range of the partition are read
+ * and the number of targets and the processing time of each target are reported per job, step and partition while the partition runs.<br>
+ * A partition waits for an {@link AccountPartitionPermits} permit in {@link #open(Serializable)} and releases it in {@link #close()},
+ * that jBatch calls also when the chunk (or the {@link #open(Serializable)} itself) fails.
+ *
+ * @since 1.0.0
+ */
 public class DefaultTargetReader extends AbstractItemReader implements TargetReader {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultTargetReader.class);
 
     private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
+    private static final MetricsService METRICS_SERVICE = MetricServiceFactory.getInstance();
+
+    private static final String METRIC_MODULE_NAME = "job_engine";
+    private static final String METRIC_COMPONENT_NAME = "step";
+
+    private static final int JOB_TARGET_PAGE_SIZE = 500;
+    private static final String JOB_TARGET_ID_VALUE = JobTargetAttributes.ENTITY_ID + ".eid";
 
     private final JobTargetFactory jobTargetFactory = LOCATOR.getFactory(JobTargetFactory.class);
     private final JobTargetService jobTargetService = LOCATOR.getService(JobTargetService.class);
@@ -54,12 +82,33 @@ public class DefaultTargetReader extends AbstractItemReader implements TargetRea
     protected JobTargetListResult jobTargets;
     protected int jobTargetIndex;
 
+    private JobTargetQuery jobTargetQuery;
+    private BigInteger lastJobTargetId;
+
+    private Integer partitionIndex;
+    private KapuaId permitScopeId;
+    private String[] partitionMetricNames;
+    private Counter partitionTargetCount;
+    private Timer partitionTargetLatency;
+    private long readCount;
+    private long openedOn;
+    private long lastReadOn;
+
     @Override
     public void open(Serializable arg0) throws Exception {
         JobContextWrapper jobContextWrapper = new JobContextWrapper(jobContext);
         StepContextWrapper stepContextWrapper = new StepContextWrapper(stepContext);
         LOG.info("JOB {} - Opening cursor...", jobContextWrapper.getJobId());
 
+        //
+        // Account partitions ceiling
+        partitionIndex = stepContextWrapper.getPartitionIndex();
+        Integer accountThreadsMax = stepContextWrapper.getPartitionAccountThreadsMax();
+        if (partitionIndex != null && accountThreadsMax != null) {
+            AccountPartitionPermits.acquire(jobContextWrapper.getScopeId(), accountThreadsMax);
+            permitScopeId = jobContextWrapper.getScopeId();
+        }
+
         //
         // Job Id and JobTarget status filtering
         AndPredicateImpl andPredicate = new AndPredicateImpl(
@@ -75,29 +124,118 @@ public class DefaultTargetReader extends AbstractItemReader implements TargetRea
         targetSublistFiltering(jobContextWrapper, andPredicate);
 
         //
-        // Query the targets
-        JobTargetQuery query = jobTargetFactory.newQuery(jobContextWrapper.getScopeId());
-        query.setPredicate(andPredicate);
+        // Filter partition targets
+        partitionFiltering(stepContextWrapper, andPredicate);
+
+        //
+        // Query the first page of targets
+        jobTargetQuery = jobTargetFactory.newQuery(jobContextWrapper.getScopeId());
+        jobTargetQuery.setPredicate(andPredicate);
+        jobTargetQuery.setLimit(JOB_TARGET_PAGE_SIZE);
 
-        jobTargets = KapuaSecurityUtils.doPrivileged(() -> jobTargetService.query(query));
+        lastJobTargetId = null;
+        readNextPage();
+
+        //
+        // Partition metrics
+        if (partitionIndex != null) {
+            String jobId = jobContextWrapper.getJobId().toCompactId();
+            String stepIndex = String.valueOf(stepContextWrapper.getStepIndex());
+            String partition = String.valueOf(partitionIndex);
+            partitionMetricNames = new String[] { "job", jobId, "step", stepIndex, "partition", partition, "targets" };
+            partitionTargetCount = METRICS_SERVICE.getCounter(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, partitionMetricName("count"));
+            partitionTargetLatency = METRICS_SERVICE.getTimer(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, partitionMetricName("latency"));
+        }
+        readCount = 0;
+        openedOn = System.nanoTime();
+        lastReadOn = openedOn;
 
         LOG.info("JOB {} - Opening cursor... Done!", jobContextWrapper.getJobId());
     }
 
+    @Override
+    public void close() throws Exception {
+        if (permitScopeId != null) {
+            AccountPartitionPermits.release(permitScopeId);
+            permitScopeId = null;
+        }
+
+        if (partitionIndex != null && partitionTargetCount != null) {
+            JobContextWrapper jobContextWrapper = new JobContextWrapper(jobContext);
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedOn));
+            LOG.info("JOB {} - Step {} - Partition {} read {} targets in {} ms ({} targets/s)",
+                    jobContextWrapper.getJobId(), stepContext.getStepName(), partitionIndex, readCount, elapsedMillis, readCount * 1000 / elapsedMillis);
+        }
+
+        // Keyed by job, so they must not pile up in the registry
+        if (partitionMetricNames != null) {
+            METRICS_SERVICE.removeMetric(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, partitionMetricName("count"));
+            METRICS_SERVICE.removeMetric(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, partitionMetricName("latency"));
+            partitionMetricNames = null;
+        }
+    }
+
+    private String[] partitionMetricName(String name) {
+        String[] metricName = Arrays.copyOf(partitionMetricNames, partitionMetricNames.length + 1);
+        metricName[partitionMetricNames.length] = name;
+        return metricName;
+    }
+
     @Override
     public Object readItem() throws Exception {
         JobContextWrapper jobContextWrapper = new JobContextWrapper(jobContext);
         LOG.info("JOB {} - Reading item...", jobContextWrapper.getJobId());
 
+        if (jobTargetIndex == jobTargets.getSize() && jobTargets.isLimitExceeded()) {
+            readNextPage();
+        }
+
+        if (partitionIndex != null && readCount > 0) {
+            // the previous target has been processed (and written, at the end of the chunk) before reading the next one
+            long readOn = System.nanoTime();
+            partitionTargetLatency.update(readOn - lastReadOn, TimeUnit.NANOSECONDS);
+            lastReadOn = readOn;
+        }
+
         JobTarget currentJobTarget = null;
         if (jobTargetIndex < jobTargets.getSize()) {
             currentJobTarget = jobTargets.getItem(jobTargetIndex++);
+            lastJobTargetId = currentJobTarget.getId().getId();
+
+            readCount++;
+            if (partitionIndex != null) {
+                partitionTargetCount.inc();
+            }
         }
 
         LOG.info("JOB {} - Reading item... Done!", jobContextWrapper.getJobId());
         return currentJobTarget;
     }
 
+    /**
+     * Reads the next page of {@link JobTarget}s.<br>
+     * The {@link JobTarget}s are sorted by id and the page starts after the last read {@link JobTarget} id instead of using an offset,
+     * so updating the {@link JobTarget}s already read (which may no longer match the filters) does not shift the following pages.
+     *
+     * @throws KapuaException
+     */
+    private void readNextPage() throws KapuaException {
+        JobTargetQuery pageQuery = jobTargetFactory.newQuery(jobTargetQuery.getScopeId());
+        pageQuery.setSortCriteria(new FieldSortCriteria(JOB_TARGET_ID_VALUE, SortOrder.ASCENDING));
+        pageQuery.setLimit(jobTargetQuery.getLimit());
+        if (lastJobTargetId != null) {
+            pageQuery.setPredicate(new AndPredicateImpl(
+                    jobTargetQuery.getPredicate(),
+                    new AttributePredicateImpl<>(JOB_TARGET_ID_VALUE, lastJobTargetId, AttributePredicate.Operator.GREATER_THAN)
+            ));
+        } else {
+            pageQuery.setPredicate(jobTargetQuery.getPredicate());
+        }
+
+        jobTargets = KapuaSecurityUtils.doPrivileged(() -> jobTargetService.query(pageQuery));
+        jobTargetIndex = 0;
+    }
+
     /**
      * This method apply {@link AttributePredicate}s according to the parameters contained into the {@link JobContextWrapper} and {@link StepContextWrapper}.
      * <p>
@@ -144,4 +282,26 @@ public class DefaultTargetReader extends AbstractItemReader implements TargetRea
         }
     }
 
+    /**
+     * This method apply {@link AttributePredicate}s according to the partition of the step contained into the {@link StepContextWrapper}.
+     * <p>
+     * When the step is partitioned only the {@link JobTarget}s with an id between {@link StepContextWrapper#getPartitionTargetIdFrom()} (inclusive)
+     * and {@link StepContextWrapper#getPartitionTargetIdTo()} (exclusive) are selected, so each {@link JobTarget} is processed by exactly one partition.
+     *
+     * @param stepContextWrapper The {@link StepContextWrapper} from which extract data
+     * @param andPredicate       The {@link org.eclipse.kapua.model.query.predicate.AndPredicate} where to apply {@link org.eclipse.kapua.model.query.predicate.QueryPredicate}
+     * @since 1.1.0
+     */
+    protected void partitionFiltering(StepContextWrapper stepContextWrapper, AndPredicateImpl andPredicate) {
+        BigInteger targetIdFrom = stepContextWrapper.getPartitionTargetIdFrom();
+        if (targetIdFrom != null) {
+            andPredicate.and(new AttributePredicateImpl<>(JOB_TARGET_ID_VALUE, targetIdFrom, AttributePredicate.Operator.GREATER_THAN_OR_EQUAL));
+        }
+
+        BigInteger targetIdTo = stepContextWrapper.getPartitionTargetIdTo();
+        if (targetIdTo != null) {
+            andPredicate.and(new AttributePredicateImpl<>(JOB_TARGET_ID_VALUE, targetIdTo, AttributePredicate.Operator.LESS_THAN));
+        }
+    }
+
 }
@@ -26,8 +26,15 @@ import javax.batch.api.chunk.AbstractItemWriter;
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Default {@link TargetWriter} implementation.<br>
+ * The {@link JobTarget}s of the chunk are updated with a single {@link JobTargetService#updateStatus(List)} call, which writes them in one transaction.
+ *
+ * @since 1.0.0
+ */
 public class DefaultTargetWriter extends AbstractItemWriter implements TargetWriter {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultTargetWriter.class);
@@ -48,14 +55,11 @@ public class DefaultTargetWriter extends AbstractItemWriter implements TargetWri
         StepContextWrapper stepContextWrapper = new StepContextWrapper(stepContext);
         LOG.info("JOB {} - Writing items...", jobContextWrapper.getJobId());
 
+        List<JobTarget> jobTargets = new ArrayList<>(items.size());
         for (Object item : items) {
-            JobTarget processedJobTarget = (JobTarget) item;
-
-            JobTarget jobTarget = KapuaSecurityUtils.doPrivileged(() -> JOB_TARGET_SERVICE.find(processedJobTarget.getScopeId(), processedJobTarget.getId()));
+            JobTarget jobTarget = (JobTarget) item;
 
             jobTarget.setStepIndex(stepContextWrapper.getStepIndex());
-            jobTarget.setStatus(processedJobTarget.getStatus());
-            jobTarget.setException(processedJobTarget.getException());
 
             if (JobTargetStatus.PROCESS_OK.equals(jobTarget.getStatus())) {
 
@@ -67,9 +71,11 @@ public class DefaultTargetWriter extends AbstractItemWriter implements TargetWri
                 }
             }
 
-            KapuaSecurityUtils.doPrivileged(() -> JOB_TARGET_SERVICE.update(jobTarget));
+            jobTargets.add(jobTarget);
         }
 
+        KapuaSecurityUtils.doPrivileged(() -> JOB_TARGET_SERVICE.updateStatus(jobTargets));
+
         LOG.info("JOB {} - Writing items... Done!", jobContextWrapper.getJobId());
     }
 
@@ -115,6 +115,10 @@ public class JbatchDriver {
      * <p>
      * It builds the XML jBatch job definition using the {@link JSLJob} model definition.
      * The generated XML is store in the {@link SystemUtils#getJavaIoTmpDir()} since the default configuration of jBatch requires a path name to start the jBatch job
+     * <p>
+     * The target steps are split in {@link KapuaJobEngineSettingKeys#JOB_ENGINE_STEP_PARTITION_COUNT} partitions processed in parallel,
+     * at most {@link KapuaJobEngineSettingKeys#JOB_ENGINE_STEP_PARTITION_THREADS_MAX} at the same time
+     * and at most {@link KapuaJobEngineSettingKeys#JOB_ENGINE_STEP_PARTITION_ACCOUNT_THREADS_MAX} at the same time for the account of the job.
      *
      * @param scopeId         The scopeId of the {@link Job}
      * @param jobId           The id of the {@link Job}
@@ -138,6 +142,10 @@ public class JbatchDriver {
             JobStepListResult jobSteps = JOB_STEP_SERVICE.query(jobStepQuery);
             jobSteps.sort(Comparator.comparing(JobStep::getStepIndex));
 
+            int partitionCount = JOB_ENGINE_SETTING.getInt(KapuaJobEngineSettingKeys.JOB_ENGINE_STEP_PARTITION_COUNT, 1);
+            int partitionThreads = Math.max(1, Math.min(partitionCount, JOB_ENGINE_SETTING.getInt(KapuaJobEngineSettingKeys.JOB_ENGINE_STEP_PARTITION_THREADS_MAX, partitionCount)));
+            int partitionAccountThreads = JOB_ENGINE_SETTING.getInt(KapuaJobEngineSettingKeys.JOB_ENGINE_STEP_PARTITION_ACCOUNT_THREADS_MAX, 0);
+
             List<ExecutionElement> jslExecutionElements = new ArrayList<>();
             Iterator<JobStep> jobStepIterator = jobSteps.getItems().iterator();
             while (jobStepIterator.hasNext()) {
@@ -145,12 +153,18 @@ public class JbatchDriver {
 
                 Step jslStep = new Step();
                 JobStepDefinition jobStepDefinition = STEP_DEFINITION_SERVICE.find(jobStep.getScopeId(), jobStep.getJobStepDefinitionId());
+                boolean partitioned = false;
                 switch (jobStepDefinition.getStepType()) {
                     case GENERIC:
                         jslStep.setBatchlet(JobDefinitionBuildUtils.buildGenericStep(jobStepDefinition));
                         break;
                     case TARGET:
                         jslStep.setChunk(JobDefinitionBuildUtils.buildChunkStep(jobStepDefinition));
+
+                        if (partitionCount > 1) {
+                            jslStep.setPartition(JobDefinitionBuildUtils.buildPartition(partitionCount, partitionThreads, partitionAccountThreads));
+                            partitioned = true;
+                        }
                         break;
                     default:
                         throw new KapuaIllegalArgumentException(jobStepDefinition.getStepType().name(), "jobStepDefinition.stepType");
@@ -162,7 +176,7 @@ public class JbatchDriver {
                     jslStep.setNextFromAttribute("step-" + (jobStep.getStepIndex() + 1));
                 }
 
-                jslStep.setProperties(JobDefinitionBuildUtils.buildStepProperties(jobStepDefinition, jobStep, jobStepIterator.hasNext()));
+                jslStep.setProperties(JobDefinitionBuildUtils.buildStepProperties(jobStepDefinition, jobStep, jobStepIterator.hasNext(), partitioned));
 
                 jslExecutionElements.add(jslStep);
             }
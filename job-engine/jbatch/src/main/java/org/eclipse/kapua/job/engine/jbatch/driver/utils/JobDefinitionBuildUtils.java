@@ -19,7 +19,11 @@ import com.ibm.jbatch.jsl.model.ItemWriter;
 import com.ibm.jbatch.jsl.model.JSLProperties;
 import com.ibm.jbatch.jsl.model.Listener;
 import com.ibm.jbatch.jsl.model.Listeners;
+import com.ibm.jbatch.jsl.model.Partition;
+import com.ibm.jbatch.jsl.model.PartitionPlan;
 import com.ibm.jbatch.jsl.model.Property;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.xml.XmlUtil;
 import org.eclipse.kapua.job.engine.JobStartOptions;
 import org.eclipse.kapua.job.engine.commons.context.JobContextPropertyNames;
@@ -34,6 +38,7 @@ import org.eclipse.kapua.service.job.step.definition.JobStepDefinition;
 import org.eclipse.kapua.service.job.step.definition.JobStepProperty;
 
 import javax.xml.bind.JAXBException;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -93,6 +98,21 @@ public class JobDefinitionBuildUtils {
     }
 
     public static JSLProperties buildStepProperties(JobStepDefinition jobStepDefinition, JobStep jobStep, boolean hasNext) {
+        return buildStepProperties(jobStepDefinition, jobStep, hasNext, false);
+    }
+
+    /**
+     * Builds the properties of the step.<br>
+     * When the step is partitioned the partition properties are resolved from the {@link PartitionPlan} built by {@link #buildPartition(int, int, int)}.
+     *
+     * @param jobStepDefinition The {@link JobStepDefinition} of the step.
+     * @param jobStep           The {@link JobStep}.
+     * @param hasNext           Whether or not the step is followed by another step.
+     * @param partitioned       Whether or not the step is partitioned.
+     * @return The step {@link JSLProperties}
+     * @since 1.1.0
+     */
+    public static JSLProperties buildStepProperties(JobStepDefinition jobStepDefinition, JobStep jobStep, boolean hasNext, boolean partitioned) {
         JSLProperties jslProperties = new JSLProperties();
         List<Property> jslPropertyList = jslProperties.getPropertyList();
 
@@ -108,11 +128,72 @@ public class JobDefinitionBuildUtils {
             jslPropertyList.add(jslStepNextIndexProperty);
         }
 
+        if (partitioned) {
+            jslPropertyList.add(buildPartitionPlanReference(StepContextPropertyNames.STEP_PARTITION_INDEX));
+            jslPropertyList.add(buildPartitionPlanReference(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM));
+            jslPropertyList.add(buildPartitionPlanReference(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO));
+            jslPropertyList.add(buildPartitionPlanReference(StepContextPropertyNames.STEP_PARTITION_ACCOUNT_THREADS_MAX));
+        }
+
         jslPropertyList.addAll(buildCustomStepProperties(jobStepDefinition, jobStep));
 
         return jslProperties;
     }
 
+    /**
+     * Builds the {@link Partition} of a target step.<br>
+     * The {@link org.eclipse.kapua.service.job.targets.JobTarget}s are split among the partitions by id range.
+     * Since the ids are randomly generated (see {@link SystemSettingKey#KAPUA_KEY_SIZE}), the partitions get about the same number of targets.
+     * The first and the last partitions have no lower and upper bound respectively, so each target is processed by exactly one partition.
+     *
+     * @param partitionCount    The number of partitions.
+     * @param threads           The maximum number of partitions processed at the same time.
+     * @param accountThreadsMax The maximum number of partitions processed at the same time for the account of the job, across all its running jobs (0 or less for no limit).
+     * @return The step {@link Partition}.
+     * @since 1.1.0
+     */
+    public static Partition buildPartition(int partitionCount, int threads, int accountThreadsMax) {
+        BigInteger idRange = BigInteger.ONE.shiftLeft(SystemSetting.getInstance().getInt(SystemSettingKey.KAPUA_KEY_SIZE)).divide(BigInteger.valueOf(partitionCount));
+
+        PartitionPlan partitionPlan = new PartitionPlan();
+        partitionPlan.setPartitions(String.valueOf(partitionCount));
+        partitionPlan.setThreads(String.valueOf(threads));
+
+        for (int i = 0; i < partitionCount; i++) {
+            JSLProperties partitionProperties = new JSLProperties();
+            partitionProperties.setPartition(String.valueOf(i));
+
+            List<Property> partitionPropertyList = partitionProperties.getPropertyList();
+            partitionPropertyList.add(buildProperty(StepContextPropertyNames.STEP_PARTITION_INDEX, String.valueOf(i)));
+            if (i > 0) {
+                partitionPropertyList.add(buildProperty(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM, idRange.multiply(BigInteger.valueOf(i)).toString()));
+            }
+            if (i < partitionCount - 1) {
+                partitionPropertyList.add(buildProperty(StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO, idRange.multiply(BigInteger.valueOf(i + 1L)).toString()));
+            }
+            if (accountThreadsMax > 0) {
+                partitionPropertyList.add(buildProperty(StepContextPropertyNames.STEP_PARTITION_ACCOUNT_THREADS_MAX, String.valueOf(accountThreadsMax)));
+            }
+
+            partitionPlan.getProperties().add(partitionProperties);
+        }
+
+        Partition partition = new Partition();
+        partition.setPlan(partitionPlan);
+        return partition;
+    }
+
+    private static Property buildPartitionPlanReference(String name) {
+        return buildProperty(name, "#{partitionPlan['" + name + "']}");
+    }
+
+    private static Property buildProperty(String name, String value) {
+        Property jslProperty = new Property();
+        jslProperty.setName(name);
+        jslProperty.setValue(value);
+        return jslProperty;
+    }
+
     public static Collection<Property> buildCustomStepProperties(JobStepDefinition jobStepDefinition, JobStep jobStep) {
 
         Map<String, Property> customStepProperties = new HashMap<>();
@@ -23,7 +23,13 @@ public enum KapuaJobEngineSettingKeys implements SettingKey {
 
     JOB_ENGINE_STOP_WAIT_CHECK_TIME_MAX("jobEngine.stop.wait.check.time.max"),
 
-    JOB_ENGINE_STOP_WAIT_CHECK_TIME_INTERVAL("jobEngine.stop.wait.check.time.interval");
+    JOB_ENGINE_STOP_WAIT_CHECK_TIME_INTERVAL("jobEngine.stop.wait.check.time.interval"),
+
+    JOB_ENGINE_STEP_PARTITION_COUNT("jobEngine.step.partition.count"),
+
+    JOB_ENGINE_STEP_PARTITION_THREADS_MAX("jobEngine.step.partition.threads.max"),
+
+    JOB_ENGINE_STEP_PARTITION_ACCOUNT_THREADS_MAX("jobEngine.step.partition.account.threads.max");
 
     private String key;
 
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.job.engine.jbatch.driver.utils;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import com.ibm.jbatch.jsl.model.JSLProperties;
+import com.ibm.jbatch.jsl.model.PartitionPlan;
+import com.ibm.jbatch.jsl.model.Property;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
+import org.eclipse.kapua.job.engine.commons.context.StepContextPropertyNames;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class JobDefinitionBuildUtilsTest {
+
+    private static final BigInteger ID_MAX = BigInteger.ONE.shiftLeft(SystemSetting.getInstance().getInt(SystemSettingKey.KAPUA_KEY_SIZE)).subtract(BigInteger.ONE);
+
+    @Test
+    public void testBuildPartitionPlan() {
+        PartitionPlan partitionPlan = JobDefinitionBuildUtils.buildPartition(4, 2, 3).getPlan();
+
+        Assert.assertEquals("4", partitionPlan.getPartitions());
+        Assert.assertEquals("2", partitionPlan.getThreads());
+        Assert.assertEquals(4, partitionPlan.getProperties().size());
+        for (int i = 0; i < 4; i++) {
+            JSLProperties partitionProperties = partitionPlan.getProperties().get(i);
+            Assert.assertEquals(String.valueOf(i), partitionProperties.getPartition());
+            Assert.assertEquals(String.valueOf(i), getProperty(partitionProperties, StepContextPropertyNames.STEP_PARTITION_INDEX));
+            Assert.assertEquals("3", getProperty(partitionProperties, StepContextPropertyNames.STEP_PARTITION_ACCOUNT_THREADS_MAX));
+        }
+    }
+
+    @Test
+    public void testBuildPartitionWithoutAccountLimit() {
+        PartitionPlan partitionPlan = JobDefinitionBuildUtils.buildPartition(2, 2, 0).getPlan();
+
+        for (JSLProperties partitionProperties : partitionPlan.getProperties()) {
+            Assert.assertNull(getProperty(partitionProperties, StepContextPropertyNames.STEP_PARTITION_ACCOUNT_THREADS_MAX));
+        }
+    }
+
+    @Test
+    public void testBuildPartitionIdRanges() {
+        int partitionCount = 3;
+        List<JSLProperties> partitions = JobDefinitionBuildUtils.buildPartition(partitionCount, partitionCount, 0).getPlan().getProperties();
+
+        // the first partition has no lower bound, the last one has no upper bound
+        Assert.assertNull(getProperty(partitions.get(0), StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM));
+        Assert.assertNull(getProperty(partitions.get(partitionCount - 1), StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO));
+
+        // the ranges are contiguous and of the same size
+        BigInteger idRange = ID_MAX.add(BigInteger.ONE).divide(BigInteger.valueOf(partitionCount));
+        for (int i = 0; i < partitionCount - 1; i++) {
+            BigInteger to = new BigInteger(getProperty(partitions.get(i), StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO));
+            Assert.assertEquals(idRange.multiply(BigInteger.valueOf(i + 1L)), to);
+            Assert.assertEquals(to, new BigInteger(getProperty(partitions.get(i + 1), StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM)));
+        }
+
+        // each id is in exactly one partition
+        BigInteger[] ids = new BigInteger[] {
+                BigInteger.ZERO,
+                BigInteger.ONE,
+                idRange.subtract(BigInteger.ONE),
+                idRange,
+                idRange.multiply(BigInteger.valueOf(2)).subtract(BigInteger.ONE),
+                idRange.multiply(BigInteger.valueOf(2)),
+                ID_MAX
+        };
+        for (BigInteger id : ids) {
+            int matches = 0;
+            for (JSLProperties partition : partitions) {
+                String from = getProperty(partition, StepContextPropertyNames.STEP_PARTITION_TARGET_ID_FROM);
+                String to = getProperty(partition, StepContextPropertyNames.STEP_PARTITION_TARGET_ID_TO);
+                if ((from == null || id.compareTo(new BigInteger(from)) >= 0) && (to == null || id.compareTo(new BigInteger(to)) < 0)) {
+                    matches++;
+                }
+            }
+            Assert.assertEquals("Partitions matching id " + id, 1, matches);
+        }
+    }
+
+    private static String getProperty(JSLProperties jslProperties, String name) {
+        for (Property property : jslProperties.getPropertyList()) {
+            if (property.getName().equals(name)) {
+                return property.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -25,19 +25,25 @@ import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonDatastore
 import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonKapuaDataMessage;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonMessageListResult;
 import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonMessageQuery;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.data.KapuaDataMessage;
 import org.eclipse.kapua.message.device.data.KapuaDataPayload;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataMessageImpl;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataPayloadImpl;
 import org.eclipse.kapua.model.type.ObjectValueConverter;
 import org.eclipse.kapua.service.KapuaService;
+import org.eclipse.kapua.service.datastore.MessageStoreService;
 import org.eclipse.kapua.service.datastore.internal.model.query.MessageQueryImpl;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.eclipse.kapua.service.datastore.model.query.SortField;
 import org.eclipse.kapua.service.datastore.model.query.XmlAdaptedSortField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
@@ -47,7 +53,19 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,7 +76,21 @@ import java.util.List;
 @Path("{scopeId}/data/messages")
 public class DataMessagesJson extends AbstractKapuaResource implements JsonSerializationFixed {
 
+    /**
+     * Newline delimited JSON media type (one JSON document per line)
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Last line of an export failed while streaming the messages
+     */
+    public static final String EXPORT_ERROR_MARKER = "{\"exportError\":\"The export failed, the exported messages are incomplete\"}";
+
     private static final DataMessages DATA_MESSAGES = new DataMessages();
+    private static final MessageStoreService MESSAGE_STORE_SERVICE = KapuaLocator.getInstance().getService(MessageStoreService.class);
+
+    @Context
+    private Providers providers;
 
     /**
      * Gets the {@link DatastoreMessage} list in the scope.
@@ -198,6 +230,40 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         return jsonResult;
     }
 
+    /**
+     * Exports the results with the given {@link MessageQuery} parameter as newline delimited JSON (one {@link JsonDatastoreMessage} per line).<br>
+     * The messages are streamed while they are fetched from the datastore (in pages of query limit size), so there is no limit to the number of exported messages.
+     * The query offset is ignored.<br>
+     * The query is validated, the permission checked and the first page fetched before the response is started, so these failures get the usual error response.
+     * A failure while streaming ends the response with the {@link #EXPORT_ERROR_MARKER} line and aborts the connection.
+     *
+     * @param scopeId The {@link ScopeId} in which to search results.
+     * @param query   The {@link MessageQuery} to used to filter results.
+     * @return The chunked response streaming all the messages matching the given {@link MessageQuery} parameter.
+     * @throws Exception Whenever something bad happens. See specific {@link KapuaService} exceptions.
+     * @since 1.1
+     */
+    @POST
+    @Path("_export")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ APPLICATION_NDJSON })
+    @ApiOperation(nickname = "dataMessageExport",
+            value = "Exports the DatastoreMessages",
+            notes = "Streams the DatastoreMessages matching the given DatastoreMessageQuery parameter as newline delimited JSON. The query limit is the datastore fetch size and the offset is ignored. " +
+                    "An export failed while streaming ends with the line " + EXPORT_ERROR_MARKER,
+            response = DatastoreMessage.class)
+    public Response exportJson(
+            @ApiParam(value = "The ScopeId in which to search results", required = true, defaultValue = DEFAULT_SCOPE_ID) @PathParam("scopeId") ScopeId scopeId,
+            @ApiParam(value = "The DatastoreMessageQuery to use to filter results", required = true) JsonMessageQuery query) throws Exception {
+        query.setScopeId(scopeId);
+        MessageQuery messageQuery = convertQuery(query);
+        MessageBodyWriter<JsonDatastoreMessage> jsonWriter = providers.getMessageBodyWriter(JsonDatastoreMessage.class, JsonDatastoreMessage.class, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE);
+
+        StorableCursor<DatastoreMessage> cursor = MESSAGE_STORE_SERVICE.scroll(messageQuery);
+        return Response.ok(new MessagesExportOutput(cursor, jsonWriter), APPLICATION_NDJSON).build();
+    }
+
     /**
      * Returns the DatastoreMessage specified by the "datastoreMessageId" path parameter.
      *
@@ -240,4 +306,60 @@ public class DataMessagesJson extends AbstractKapuaResource implements JsonSeria
         messageQuery.setSortFields(sortFields);
         return messageQuery;
     }
+
+    /**
+     * Writes the messages read from the cursor, one per line, closing the cursor at the end.
+     */
+    static class MessagesExportOutput implements StreamingOutput {
+
+        private static final Logger LOG = LoggerFactory.getLogger(MessagesExportOutput.class);
+
+        private final StorableCursor<DatastoreMessage> cursor;
+        private final MessageBodyWriter<JsonDatastoreMessage> jsonWriter;
+
+        MessagesExportOutput(StorableCursor<DatastoreMessage> cursor, MessageBodyWriter<JsonDatastoreMessage> jsonWriter) {
+            this.cursor = cursor;
+            this.jsonWriter = jsonWriter;
+        }
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+            // the single message writes must not close the response stream
+            OutputStream messageOutputStream = new FilterOutputStream(outputStream) {
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            try {
+                List<DatastoreMessage> messages;
+                while (!(messages = cursor.next()).isEmpty()) {
+                    for (DatastoreMessage message : messages) {
+                        jsonWriter.writeTo(new JsonDatastoreMessage(message), JsonDatastoreMessage.class, JsonDatastoreMessage.class, new Annotation[0],
+                                MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), messageOutputStream);
+                        outputStream.write('\n');
+                    }
+                }
+            } catch (KapuaException e) {
+                LOG.error("Messages export failed", e);
+                // the response status is already sent: mark the output as incomplete and abort the response
+                outputStream.write(EXPORT_ERROR_MARKER.getBytes(StandardCharsets.UTF_8));
+                outputStream.write('\n');
+                outputStream.flush();
+                throw new WebApplicationException(e);
+            } finally {
+                try {
+                    cursor.close();
+                } catch (KapuaException e) {
+                    LOG.warn("Cannot close the messages export cursor", e);
+                }
+            }
+        }
+    }
 }
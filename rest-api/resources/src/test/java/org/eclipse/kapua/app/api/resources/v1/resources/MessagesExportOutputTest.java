@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.app.api.resources.v1.resources;
+
+import org.eclipse.kapua.KapuaErrorCodes;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.app.api.resources.v1.resources.DataMessagesJson.MessagesExportOutput;
+import org.eclipse.kapua.app.api.resources.v1.resources.model.data.JsonDatastoreMessage;
+import org.eclipse.kapua.message.internal.device.data.KapuaDataPayloadImpl;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreException;
+import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class MessagesExportOutputTest {
+
+    private static final MessageBodyWriter<JsonDatastoreMessage> JSON_WRITER = new MessageBodyWriter<JsonDatastoreMessage>() {
+
+        @Override
+        public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return true;
+        }
+
+        @Override
+        public long getSize(JsonDatastoreMessage message, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(JsonDatastoreMessage message, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+            entityStream.write(("{\"datastoreId\":\"" + message.getDatastoreId() + "\"}").getBytes(StandardCharsets.UTF_8));
+            // like the JSON providers
+            entityStream.close();
+        }
+    };
+
+    @Test
+    public void testExport() throws Exception {
+        TestCursor cursor = new TestCursor(false, page("1", "2"), page("3"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        new MessagesExportOutput(cursor, JSON_WRITER).write(outputStream);
+
+        Assert.assertEquals(Arrays.asList("{\"datastoreId\":\"1\"}", "{\"datastoreId\":\"2\"}", "{\"datastoreId\":\"3\"}"), lines(outputStream));
+        Assert.assertTrue(cursor.closed);
+    }
+
+    @Test
+    public void testExportFailure() throws Exception {
+        TestCursor cursor = new TestCursor(true, page("1", "2"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try {
+            new MessagesExportOutput(cursor, JSON_WRITER).write(outputStream);
+            Assert.fail("The export should fail!");
+        } catch (WebApplicationException e) {
+            Assert.assertTrue(e.getCause() instanceof KapuaException);
+        }
+
+        // the exported messages are followed by the error marker
+        Assert.assertEquals(Arrays.asList("{\"datastoreId\":\"1\"}", "{\"datastoreId\":\"2\"}", DataMessagesJson.EXPORT_ERROR_MARKER), lines(outputStream));
+        Assert.assertTrue(cursor.closed);
+    }
+
+    private static List<String> lines(ByteArrayOutputStream outputStream) {
+        String output = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(output.endsWith("\n"));
+        return Arrays.asList(output.split("\n"));
+    }
+
+    private static List<DatastoreMessage> page(String... datastoreIds) {
+        List<DatastoreMessage> page = new ArrayList<>();
+        for (String datastoreId : datastoreIds) {
+            DatastoreMessageImpl message = new DatastoreMessageImpl();
+            message.setDatastoreId(new StorableIdImpl(datastoreId));
+            message.setPayload(new KapuaDataPayloadImpl());
+            page.add(message);
+        }
+        return page;
+    }
+
+    /**
+     * Cursor returning the given pages, then failing or returning an empty page
+     */
+    private static class TestCursor implements StorableCursor<DatastoreMessage> {
+
+        private final boolean fail;
+        private final List<List<DatastoreMessage>> pages;
+        private boolean closed;
+
+        @SafeVarargs
+        TestCursor(boolean fail, List<DatastoreMessage>... pages) {
+            this.fail = fail;
+            this.pages = new ArrayList<>(Arrays.asList(pages));
+        }
+
+        @Override
+        public List<DatastoreMessage> next() throws KapuaException {
+            if (!pages.isEmpty()) {
+                return pages.remove(0);
+            }
+            if (fail) {
+                throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, "Scroll context not found");
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.eclipse.kapua.commons.jpa.JdbcConnectionUrlResolvers;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.service.liquibase.KapuaLiquibaseClient;
+import org.eclipse.kapua.transport.mqtt.MqttRequestMultiplexer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,6 +79,11 @@ public class RestApiListener implements ServletContextListener {
         } catch (KapuaException e) {
             LOG.error("Cannot stop service modules: {}", e.getMessage(), e);
         }
+
+        // close the device request connections
+        LOG.info("Closing device request connections...");
+        MqttRequestMultiplexer.closeAll();
+        LOG.info("Closing device request connections... DONE");
     }
 
 }
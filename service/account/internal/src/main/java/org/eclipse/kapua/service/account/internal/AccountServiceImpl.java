@@ -23,6 +23,7 @@ import org.eclipse.kapua.KapuaMaxNumberOfItemsReachedException;
 import org.eclipse.kapua.commons.configuration.AbstractKapuaConfigurableResourceLimitedService;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.commons.setting.system.SystemSetting;
 import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
@@ -195,7 +196,7 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
 
         //
         // Do update
-        return entityManagerSession.onTransactedResult(em -> {
+        Account updatedAccount = entityManagerSession.onTransactedResult(em -> {
 
             //
             // Verify unchanged parent account ID and parent account path
@@ -212,6 +213,8 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
             // Update
             return AccountDAO.update(em, account);
         });
+        AccountCache.getInstance().invalidate(updatedAccount);
+        return updatedAccount;
     }
 
     @Override
@@ -235,7 +238,7 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
 
         //
         // Do delete
-        entityManagerSession.onTransactedAction(em -> {
+        Account deletedAccount = entityManagerSession.onTransactedResult(em -> {
             // Entity needs to be loaded in the context of the same EntityManger to be able to delete it afterwards
             Account accountx = AccountDAO.find(em, scopeId, accountId);
             if (accountx == null) {
@@ -253,7 +256,9 @@ public class AccountServiceImpl extends AbstractKapuaConfigurableResourceLimited
             }
 
             AccountDAO.delete(em, scopeId, accountId);
+            return accountx;
         });
+        AccountCache.getInstance().invalidate(deletedAccount);
     }
 
     @Override
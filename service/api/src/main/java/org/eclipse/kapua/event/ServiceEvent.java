@@ -11,13 +11,18 @@
  *******************************************************************************/
 package org.eclipse.kapua.event;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Date;
+import java.util.function.Supplier;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
@@ -104,6 +109,9 @@ public class ServiceEvent implements Serializable {
     @XmlElement(name = "inputs")
     private String inputs;
 
+    @XmlTransient
+    private transient Supplier<String> inputsSupplier;
+
     @XmlElement(name = "outputs")
     private String outputs;
 
@@ -281,6 +289,10 @@ public class ServiceEvent implements Serializable {
      * @return
      */
     public String getInputs() {
+        if (inputsSupplier != null) {
+            inputs = inputsSupplier.get();
+            inputsSupplier = null;
+        }
         return inputs;
     }
 
@@ -291,6 +303,19 @@ public class ServiceEvent implements Serializable {
      */
     public void setInputs(String inputs) {
         this.inputs = inputs;
+        this.inputsSupplier = null;
+    }
+
+    /**
+     * Set the supplier of the inputs.<br>
+     * The inputs are built only once, when they are read the first time (or the event is marshaled).
+     *
+     * @param inputsSupplier
+     * @since 1.1
+     */
+    public void setInputs(Supplier<String> inputsSupplier) {
+        this.inputs = null;
+        this.inputsSupplier = inputsSupplier;
     }
 
     /**
@@ -347,4 +372,17 @@ public class ServiceEvent implements Serializable {
         this.note = note;
     }
 
-}
\ No newline at end of file
+    /**
+     * JAXB callback: the marshaling reads the fields, so resolve the lazy inputs first
+     *
+     * @param marshaller
+     */
+    private void beforeMarshal(Marshaller marshaller) {
+        getInputs();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getInputs();
+        out.defaultWriteObject();
+    }
+}
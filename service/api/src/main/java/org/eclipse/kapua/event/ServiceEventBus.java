@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.kapua.event;
 
+import java.util.List;
+
 /**
  * Service event bus definition.
  *
@@ -27,6 +29,21 @@ public interface ServiceEventBus {
      */
     void publish(String address, ServiceEvent event) throws ServiceEventBusException;
 
+    /**
+     * Publish the events to the bus, in the list order.<br>
+     * The implementations may acknowledge the whole batch at once, so if an exception is thrown some of the events may have been published anyway.
+     *
+     * @param address address in which to publish the events
+     * @param events  events to publish
+     * @throws ServiceEventBusException
+     * @since 1.1
+     */
+    default void publish(String address, List<ServiceEvent> events) throws ServiceEventBusException {
+        for (ServiceEvent event : events) {
+            publish(address, event);
+        }
+    }
+
     /**
      * Subscribe for a specific address event
      *
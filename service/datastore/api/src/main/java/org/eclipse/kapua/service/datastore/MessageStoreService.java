@@ -18,6 +18,7 @@ import org.eclipse.kapua.service.KapuaService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
@@ -71,6 +72,18 @@ public interface MessageStoreService extends KapuaService, KapuaConfigurableServ
      */
     MessageListResult query(MessageQuery query) throws KapuaException;
 
+    /**
+     * Open a cursor over the messages objects matching the given query.<br>
+     * The messages are fetched from the datastore in pages of query limit size, so any number of messages can be read with bounded memory (the query offset is ignored).<br>
+     * The query is validated, the permission is checked and the first page is fetched when the cursor is opened, so no failure is deferred to the first {@link StorableCursor#next()} call.
+     *
+     * @param query
+     * @return the cursor (to be closed)
+     * @throws KapuaException
+     * @since 1.1
+     */
+    StorableCursor<DatastoreMessage> scroll(MessageQuery query) throws KapuaException;
+
     /**
      * Get messages count matching the given query
      *
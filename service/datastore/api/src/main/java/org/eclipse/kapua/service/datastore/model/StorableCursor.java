@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.model;
+
+import org.eclipse.kapua.KapuaException;
+
+import java.util.List;
+
+/**
+ * Cursor over the {@link Storable} objects matching a query, fetched one page at a time (the page size is the query limit).<br>
+ * The cursor must be closed to release the datastore resources bound to it.
+ *
+ * @param <S>
+ *            storable type
+ * @since 1.1
+ */
+public interface StorableCursor<S extends Storable> extends AutoCloseable {
+
+    /**
+     * Fetch the next page of storable objects matching the query
+     *
+     * @return the next page (an empty page if there are no more storable objects)
+     * @throws KapuaException
+     */
+    List<S> next() throws KapuaException;
+
+    /**
+     * Release the datastore resources bound to the cursor
+     *
+     * @throws KapuaException
+     */
+    @Override
+    void close() throws KapuaException;
+}
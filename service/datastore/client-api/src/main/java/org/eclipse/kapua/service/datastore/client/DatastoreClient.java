@@ -13,6 +13,8 @@ package org.eclipse.kapua.service.datastore.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -48,6 +50,19 @@ public interface DatastoreClient {
      */
     InsertResponse insert(InsertRequest insertRequest) throws ClientException;
 
+    /**
+     * Bulk insert.<br>
+     * The whole request is sent to the datastore in a single round trip. A failure of a single item doesn't fail the whole request,
+     * the outcome of every item is reported (in the same order of the request) by the returned response.<br>
+     * A failed item reports its failure description and status code (i.e. 409 if a record with the same id is already stored or 429 if the datastore rejected it because overloaded).
+     *
+     * @param bulkInsertRequest
+     * @return
+     * @throws ClientException
+     * @since 1.1
+     */
+    BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException;
+
     /**
      * Upsert
      *
@@ -88,6 +103,19 @@ public interface DatastoreClient {
      */
     <T> ResultList<T> query(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException;
 
+    /**
+     * Find by query criteria, fetching the results one page at a time through a scroll cursor (the query offset is ignored and the query limit is the page size).<br>
+     * If the query doesn't define a sort order the results are returned in index order (the cheapest one).
+     *
+     * @param typeDescriptor
+     * @param query
+     * @param clazz
+     * @return the cursor (to be closed)
+     * @throws ClientException
+     * @since 1.1
+     */
+    <T> ScrollCursor<T> scroll(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException;
+
     /**
      * Count by query criteria
      *
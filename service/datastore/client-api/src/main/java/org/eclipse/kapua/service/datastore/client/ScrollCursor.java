@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.client;
+
+import org.eclipse.kapua.service.datastore.client.model.ResultList;
+
+/**
+ * Cursor over the results of a scrolled query (see {@link DatastoreClient#scroll(org.eclipse.kapua.service.datastore.client.model.TypeDescriptor, Object, Class)}).<br>
+ * The results are fetched one page at a time (the page size is the query limit), so the memory needed doesn't depend on the number of the matching results.<br>
+ * The cursor must be closed to release the datastore resources bound to it.
+ *
+ * @param <T>
+ *            result object type
+ * @since 1.1
+ */
+public interface ScrollCursor<T> extends AutoCloseable {
+
+    /**
+     * Fetch the next page of results
+     *
+     * @return the next page of results (an empty page if there are no more results)
+     * @throws ClientException
+     */
+    ResultList<T> next() throws ClientException;
+
+    /**
+     * Release the datastore resources bound to the cursor
+     *
+     * @throws ClientException
+     */
+    @Override
+    void close() throws ClientException;
+}
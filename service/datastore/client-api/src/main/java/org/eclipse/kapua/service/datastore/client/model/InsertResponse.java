@@ -14,6 +14,7 @@ package org.eclipse.kapua.service.datastore.client.model;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
 /**
@@ -25,6 +26,16 @@ public class InsertResponse extends Response {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Result description (set only for a failed bulk insert item)
+     */
+    private String description;
+
+    /**
+     * Result status code, with the http status codes semantic (set only for a failed bulk insert item)
+     */
+    private int status;
+
     public InsertResponse() {
         super(null, null);
     }
@@ -41,4 +52,66 @@ public class InsertResponse extends Response {
         super(id, typeDescriptor);
     }
 
+    /**
+     * Negative result constructor (result false)
+     * 
+     * @param id
+     *            the record id
+     * @param typeDescriptor
+     *            index/type descriptor
+     * @param description
+     *            the failure description
+     * @param status
+     *            the failure status code (i.e. 409 if a record with the same id is already stored)
+     * @since 1.1
+     */
+    public InsertResponse(String id, TypeDescriptor typeDescriptor, String description, int status) {
+        this(id, typeDescriptor);
+        setResult(false);
+        this.description = description;
+        this.status = status;
+    }
+
+    /**
+     * Get the insert description (may be an error condition)
+     * 
+     * @return
+     * @since 1.1
+     */
+    @XmlTransient
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Set the insert description (may be an error condition)
+     * 
+     * @param description
+     * @since 1.1
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Get the insert status code (set only for a failed bulk insert item)
+     * 
+     * @return
+     * @since 1.1
+     */
+    @XmlTransient
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Set the insert status code
+     * 
+     * @param status
+     * @since 1.1
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
 }
@@ -36,6 +36,9 @@ import org.eclipse.kapua.service.datastore.client.ClientUndefinedException;
 import org.eclipse.kapua.service.datastore.client.ModelContext;
 import org.eclipse.kapua.service.datastore.client.QueryConverter;
 import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.client.ScrollCursor;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -86,12 +89,18 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
     private static final String KEY_DOC_INDEX = "_index";
     private static final String KEY_DOC_TYPE = "_type";
 
+    private static final String KEY_ERROR = "error";
+    private static final String KEY_INDEX = "index";
     private static final String KEY_ITEMS = "items";
     private static final String KEY_RESULT = "result";
     private static final String KEY_STATUS = "status";
     private static final String KEY_UPDATE = "update";
 
     private static final String KEY_HITS = "hits";
+    private static final String KEY_SCROLL = "scroll";
+    private static final String KEY_SCROLL_ID = "scroll_id";
+    private static final String KEY_SCROLL_ID_RESPONSE = "_scroll_id";
+    private static final String DOC = "_doc";
     private static final String KEY_TOTAL = "total";
 
     private static final ObjectMapper MAPPER;
@@ -109,6 +118,7 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
     private static final Random RANDOM = new Random();
     private static final int MAX_RETRY_ATTEMPT = ClientSettings.getInstance().getInt(ClientSettingsKey.ELASTICSEARCH_REST_TIMEOUT_MAX_RETRY, 3);
     private static final long MAX_RETRY_WAIT_TIME = ClientSettings.getInstance().getLong(ClientSettingsKey.ELASTICSEARCH_REST_TIMEOUT_MAX_WAIT, 2500);
+    private static final String SCROLL_TIMEOUT = ClientSettings.getInstance().getLong(ClientSettingsKey.SCROLL_TIMEOUT, 60000) + "ms";
 
     private static RestDatastoreClient instance;
 
@@ -264,6 +274,87 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
         }
     }
 
+    @Override
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        checkClient();
+        StringBuilder bulkOperation = new StringBuilder();
+        for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+            Map<String, Object> storableMap = modelContext.marshal(insertRequest.getStorable());
+            bulkOperation.append("{ \"index\": {");
+            if (insertRequest.getId() != null) {
+                bulkOperation.append("\"_id\": \"")
+                        .append(insertRequest.getId())
+                        .append("\", \"_version\": 1, \"_version_type\": \"external\", ");
+            }
+            bulkOperation.append("\"_type\": \"")
+                    .append(insertRequest.getTypeDescriptor().getType())
+                    .append("\", \"_index\": \"")
+                    .append(insertRequest.getTypeDescriptor().getIndex())
+                    .append("\"}}\n");
+            try {
+                bulkOperation.append(MAPPER.writeValueAsString(storableMap));
+            } catch (IOException e) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+            }
+            bulkOperation.append('\n');
+        }
+        Response insertResponse = restCallTimeoutHandler(new Callable<Response>() {
+
+            @Override
+            public Response call() throws Exception {
+                return esClientProvider.getClient().performRequest(
+                        POST_ACTION,
+                        getBulkPath(),
+                        Collections.<String, String>emptyMap(),
+                        EntityBuilder.create().setText(bulkOperation.toString()).build(),
+                        new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString()));
+            }
+
+        }, "multi-index", "INSERT BULK");
+        if (isRequestSuccessful(insertResponse)) {
+            BulkInsertResponse bulkResponse = new BulkInsertResponse();
+            JsonNode responseNode = null;
+            try {
+                responseNode = MAPPER.readTree(EntityUtils.toString(insertResponse.getEntity()));
+            } catch (IOException e) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+            }
+            ArrayNode items = (ArrayNode) responseNode.get(KEY_ITEMS);
+            for (JsonNode item : items) {
+                JsonNode jsonNode = item.get(KEY_INDEX);
+                if (jsonNode != null) {
+                    JsonNode idNode = jsonNode.get(KEY_DOC_ID);
+                    String id = null;
+                    if (idNode != null) {
+                        id = idNode.asText();
+                    }
+                    String indexName = jsonNode.get(KEY_DOC_INDEX).asText();
+                    String typeName = jsonNode.get(KEY_DOC_TYPE).asText();
+                    int responseCode = jsonNode.get(KEY_STATUS).asInt();
+                    if (!isRequestSuccessful(responseCode)) {
+                        JsonNode failureNode = jsonNode.get(KEY_ERROR);
+                        String failureMessage = MSG_EMPTY_ERROR;
+                        if (failureNode != null) {
+                            failureMessage = failureNode.toString();
+                        }
+                        bulkResponse.add(new InsertResponse(id, new TypeDescriptor(indexName, typeName), failureMessage, responseCode));
+                        logger.info("Insert failed [{}, {}, {}]", indexName, typeName, failureMessage);
+                        continue;
+                    }
+                    InsertResponse itemResponse = new InsertResponse(id, new TypeDescriptor(indexName, typeName));
+                    itemResponse.setResult(true);
+                    bulkResponse.add(itemResponse);
+                } else {
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Unexpected action response");
+                }
+            }
+            return bulkResponse;
+        } else {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                    (insertResponse != null && insertResponse.getStatusLine() != null) ? insertResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
+        }
+    }
+
     @Override
     public UpdateResponse upsert(UpdateRequest updateRequest) throws ClientException {
         checkClient();
@@ -404,8 +495,6 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
         JsonNode queryMap = queryConverter.convertQuery(query);
         Object queryFetchStyle = queryConverter.getFetchStyle(query);
         logger.debug("Query - converted query: '{}'", queryMap);
-        long totalCount = 0;
-        ArrayNode resultsNode = null;
         Response queryResponse = restCallTimeoutHandler(new Callable<Response>() {
 
             @Override
@@ -426,30 +515,50 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
             } catch (IOException e) {
                 throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
             }
-            JsonNode hitsNode = responseNode.get(KEY_HITS);
-            totalCount = hitsNode.get(KEY_TOTAL).asInt();
-            if (totalCount > Integer.MAX_VALUE) {
-                throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Total hits exceeds integer max value");
-            }
-            resultsNode = ((ArrayNode) hitsNode.get(KEY_HITS));
+            return toResultList(responseNode, queryFetchStyle, clazz);
         } else if (queryResponse != null) {
             throw new ClientException(ClientErrorCodes.ACTION_ERROR,
                     (queryResponse.getStatusLine() != null) ? queryResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
         }
-        ResultList<T> resultList = new ResultList<>(totalCount);
-        if (resultsNode != null && resultsNode.size() > 0) {
-            for (JsonNode result : resultsNode) {
-                Map<String, Object> object = MAPPER.convertValue(result.get(SchemaKeys.KEY_SOURCE), Map.class);
-                String id = result.get(KEY_DOC_ID).asText();
-                String index = result.get(KEY_DOC_INDEX).asText();
-                String type = result.get(KEY_DOC_TYPE).asText();
-                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(index, type));
-                object.put(ModelContext.DATASTORE_ID_KEY, id);
-                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
-                resultList.add(modelContext.unmarshal(clazz, object));
+        return new ResultList<>(0);
+    }
+
+    @Override
+    public <T> ScrollCursor<T> scroll(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
+        checkClient();
+        ObjectNode queryMap = (ObjectNode) queryConverter.convertQuery(query);
+        // the offset is not allowed in the scroll context and the index order is the cheapest one
+        queryMap.remove(SchemaKeys.KEY_FROM);
+        JsonNode sortNode = queryMap.path(SchemaKeys.KEY_SORT);
+        if (!sortNode.isArray() || sortNode.size() == 0) {
+            queryMap.putArray(SchemaKeys.KEY_SORT).add(DOC);
+        }
+        Object queryFetchStyle = queryConverter.getFetchStyle(query);
+        logger.debug("Scroll - converted query: '{}'", queryMap);
+        Response scrollResponse = restCallTimeoutHandler(new Callable<Response>() {
+
+            @Override
+            public Response call() throws Exception {
+                try {
+                    return esClientProvider.getClient().performRequest(
+                            POST_ACTION,
+                            getSearchPath(typeDescriptor),
+                            Collections.singletonMap(KEY_SCROLL, SCROLL_TIMEOUT),
+                            EntityBuilder.create().setText(MAPPER.writeValueAsString(queryMap)).build(),
+                            new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString()));
+                } catch (ResponseException re) {
+                    // the missing index must be told apart from the other failures (that aren't ignored like in the query)
+                    return re.getResponse();
+                }
             }
+
+        }, typeDescriptor.getIndex(), "SCROLL");
+        if (scrollResponse != null && scrollResponse.getStatusLine() != null && scrollResponse.getStatusLine().getStatusCode() == 404) {
+            // same as the transport client: no results from a missing index
+            logger.warn("Cannot find index '{}'", typeDescriptor.getIndex());
+            return new RestScrollCursor<>(null, queryFetchStyle, clazz);
         }
-        return resultList;
+        return new RestScrollCursor<>(readScrollResponse(scrollResponse), queryFetchStyle, clazz);
     }
 
     @Override
@@ -790,6 +899,43 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
         return (200 <= responseCode && responseCode <= 299);
     }
 
+    private JsonNode readScrollResponse(Response scrollResponse) throws ClientException {
+        if (isRequestSuccessful(scrollResponse)) {
+            try {
+                return MAPPER.readTree(EntityUtils.toString(scrollResponse.getEntity()));
+            } catch (IOException e) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e);
+            }
+        } else if (scrollResponse != null) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                    (scrollResponse.getStatusLine() != null) ? scrollResponse.getStatusLine().getReasonPhrase() : CLIENT_GENERIC_ERROR_MSG);
+        }
+        throw new ClientException(ClientErrorCodes.ACTION_ERROR, CLIENT_GENERIC_ERROR_MSG);
+    }
+
+    private <T> ResultList<T> toResultList(JsonNode responseNode, Object queryFetchStyle, Class<T> clazz) throws ClientException {
+        JsonNode hitsNode = responseNode.get(KEY_HITS);
+        long totalCount = hitsNode.get(KEY_TOTAL).asLong();
+        if (totalCount > Integer.MAX_VALUE) {
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Total hits exceeds integer max value");
+        }
+        ArrayNode resultsNode = ((ArrayNode) hitsNode.get(KEY_HITS));
+        ResultList<T> resultList = new ResultList<>(totalCount);
+        if (resultsNode != null && resultsNode.size() > 0) {
+            for (JsonNode result : resultsNode) {
+                Map<String, Object> object = MAPPER.convertValue(result.get(SchemaKeys.KEY_SOURCE), Map.class);
+                String id = result.get(KEY_DOC_ID).asText();
+                String index = result.get(KEY_DOC_INDEX).asText();
+                String type = result.get(KEY_DOC_TYPE).asText();
+                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(index, type));
+                object.put(ModelContext.DATASTORE_ID_KEY, id);
+                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
+                resultList.add(modelContext.unmarshal(clazz, object));
+            }
+        }
+        return resultList;
+    }
+
     private String getRefreshAllIndexesPath() {
         return "/_all/_refresh";
     }
@@ -838,10 +984,102 @@ public class RestDatastoreClient implements org.eclipse.kapua.service.datastore.
         return String.format("/%s/%s/_search", typeDescriptor.getIndex(), typeDescriptor.getType());
     }
 
+    private String getSearchScrollPath() {
+        return "/_search/scroll";
+    }
+
     private void checkClient() throws ClientUndefinedException {
         if (esClientProvider == null || esClientProvider.getClient() == null) {
             throw new ClientUndefinedException(CLIENT_UNDEFINED_MSG);
         }
     }
 
+
+    /**
+     * Scroll cursor backed by the Elasticsearch scroll API
+     *
+     * @param <T>
+     */
+    private class RestScrollCursor<T> implements ScrollCursor<T> {
+
+        private JsonNode responseNode;
+        private final Object queryFetchStyle;
+        private final Class<T> clazz;
+        private String scrollId;
+        private boolean firstPage = true;
+
+        RestScrollCursor(JsonNode responseNode, Object queryFetchStyle, Class<T> clazz) {
+            this.responseNode = responseNode;
+            this.queryFetchStyle = queryFetchStyle;
+            this.clazz = clazz;
+            scrollId = responseNode != null ? responseNode.path(KEY_SCROLL_ID_RESPONSE).asText(null) : null;
+        }
+
+        @Override
+        public ResultList<T> next() throws ClientException {
+            if (responseNode == null) {
+                return new ResultList<>(0);
+            }
+            if (firstPage) {
+                firstPage = false;
+            } else {
+                checkClient();
+                ObjectNode scrollRequest = MAPPER.createObjectNode()
+                        .put(KEY_SCROLL, SCROLL_TIMEOUT)
+                        .put(KEY_SCROLL_ID, scrollId);
+                Response scrollResponse = restCallTimeoutHandler(new Callable<Response>() {
+
+                    @Override
+                    public Response call() throws Exception {
+                        try {
+                            return esClientProvider.getClient().performRequest(
+                                    POST_ACTION,
+                                    getSearchScrollPath(),
+                                    Collections.<String, String>emptyMap(),
+                                    EntityBuilder.create().setText(MAPPER.writeValueAsString(scrollRequest)).build(),
+                                    new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString()));
+                        } catch (ResponseException re) {
+                            return re.getResponse();
+                        }
+                    }
+
+                }, INDEX_ALL, "SCROLL");
+                if (scrollResponse != null && scrollResponse.getStatusLine() != null && scrollResponse.getStatusLine().getStatusCode() == 404) {
+                    // scroll context expired (or index deleted meanwhile)
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Scroll context not found");
+                }
+                responseNode = readScrollResponse(scrollResponse);
+                scrollId = responseNode.path(KEY_SCROLL_ID_RESPONSE).asText(scrollId);
+            }
+            ResultList<T> result = toResultList(responseNode, queryFetchStyle, clazz);
+            if (result.getResult().isEmpty()) {
+                close();
+                responseNode = null;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws ClientException {
+            if (scrollId != null) {
+                ObjectNode clearScrollRequest = MAPPER.createObjectNode();
+                clearScrollRequest.putArray(KEY_SCROLL_ID).add(scrollId);
+                scrollId = null;
+                checkClient();
+                restCallTimeoutHandler(new Callable<Response>() {
+
+                    @Override
+                    public Response call() throws Exception {
+                        return esClientProvider.getClient().performRequest(
+                                DELETE_ACTION,
+                                getSearchScrollPath(),
+                                Collections.<String, String>emptyMap(),
+                                EntityBuilder.create().setText(MAPPER.writeValueAsString(clearScrollRequest)).build(),
+                                new BasicHeader("Content-Type", ContentType.APPLICATION_JSON.toString()));
+                    }
+
+                }, INDEX_ALL, "CLEAR SCROLL");
+            }
+        }
+    }
 }
@@ -25,6 +25,9 @@ import org.eclipse.kapua.service.datastore.client.ClientUndefinedException;
 import org.eclipse.kapua.service.datastore.client.ModelContext;
 import org.eclipse.kapua.service.datastore.client.QueryConverter;
 import org.eclipse.kapua.service.datastore.client.SchemaKeys;
+import org.eclipse.kapua.service.datastore.client.ScrollCursor;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.BulkUpdateResponse;
 import org.eclipse.kapua.service.datastore.client.model.IndexRequest;
@@ -35,6 +38,7 @@ import org.eclipse.kapua.service.datastore.client.model.ResultList;
 import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.client.model.UpdateRequest;
 import org.eclipse.kapua.service.datastore.client.model.UpdateResponse;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexAction;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
@@ -221,6 +225,42 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         return new InsertResponse(response.getId(), insertRequest.getTypeDescriptor());
     }
 
+    @Override
+    public BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException {
+        checkClient();
+        BulkRequest bulkRequest = new BulkRequest();
+        for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+            Map<String, Object> storableMap = modelContext.marshal(insertRequest.getStorable());
+            logger.debug("Bulk insert - converted object: '{}'", storableMap);
+            org.elasticsearch.action.index.IndexRequest idxRequest = new org.elasticsearch.action.index.IndexRequest(insertRequest.getTypeDescriptor().getIndex(), insertRequest.getTypeDescriptor().getType()).source(storableMap);
+            if (insertRequest.getId() != null) {
+                idxRequest.id(insertRequest.getId()).version(1).versionType(VersionType.EXTERNAL);
+            }
+            bulkRequest.add(idxRequest);
+        }
+
+        BulkResponse bulkResponse = esClientProvider.getClient().bulk(bulkRequest).actionGet(getQueryTimeout());
+
+        BulkInsertResponse response = new BulkInsertResponse();
+        BulkItemResponse[] itemResponses = bulkResponse.getItems();
+        if (itemResponses != null) {
+            for (BulkItemResponse bulkItemResponse : itemResponses) {
+                String indexName = bulkItemResponse.getIndex();
+                String typeName = bulkItemResponse.getType();
+                if (bulkItemResponse.isFailed()) {
+                    String failureMessage = bulkItemResponse.getFailureMessage();
+                    response.add(new InsertResponse(bulkItemResponse.getId(), new TypeDescriptor(indexName, typeName), failureMessage, bulkItemResponse.getFailure().getStatus().getStatus()));
+                    logger.info("Insert failed [{}, {}, {}]", indexName, typeName, failureMessage);
+                    continue;
+                }
+                InsertResponse insertResponse = new InsertResponse(bulkItemResponse.getResponse().getId(), new TypeDescriptor(indexName, typeName));
+                insertResponse.setResult(true);
+                response.add(insertResponse);
+            }
+        }
+        return response;
+    }
+
     @Override
     public UpdateResponse upsert(UpdateRequest upsertRequest) throws ClientException {
         checkClient();
@@ -292,7 +332,7 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         ObjectNode fetchSourceFields = (ObjectNode) queryMap.path(SchemaKeys.KEY_SOURCE);
         String[] includesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_INCLUDES));
         String[] excludesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_EXCLUDES));
-        SearchRequestBuilder searchReqBuilder = esClientProvider.getClient().prepareSearch(typeDescriptor.getIndex());
+        SearchRequestBuilder searchReqBuilder = esClientProvider.getClient().prepareSearch(getIndexes(typeDescriptor));
         searchReqBuilder.setTypes(typeDescriptor.getType())
                 .setSource(toSearchSourceBuilder(queryMap))
                 .setFetchSource(includesFields, excludesFields);
@@ -315,17 +355,34 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
             logger.warn("Generic search error {}", spee.getMessage(), spee);
         }
 
-        ResultList<T> result = new ResultList<T>(totalCount);
-        if (searchHits != null) {
-            for (SearchHit searchHit : searchHits) {
-                Map<String, Object> object = searchHit.getSource();
-                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(searchHit.getIndex(), searchHit.getType()));
-                object.put(ModelContext.DATASTORE_ID_KEY, searchHit.getId());
-                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
-                result.add(modelContext.unmarshal(clazz, object));
-            }
+        return toResultList(searchHits, totalCount, queryFetchStyle, clazz);
+    }
+
+    @Override
+    public <T> ScrollCursor<T> scroll(TypeDescriptor typeDescriptor, Object query, Class<T> clazz) throws ClientException {
+        checkClient();
+        ObjectNode queryMap = toScrollQuery(queryConverter.convertQuery(query));
+        Object queryFetchStyle = queryConverter.getFetchStyle(query);
+        logger.debug("Scroll - converted query: '{}'", queryMap);
+        ObjectNode fetchSourceFields = (ObjectNode) queryMap.path(SchemaKeys.KEY_SOURCE);
+        String[] includesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_INCLUDES));
+        String[] excludesFields = toIncludedExcludedFields(fetchSourceFields.path(SchemaKeys.KEY_EXCLUDES));
+        SearchResponse response = null;
+        try {
+            response = esClientProvider.getClient().prepareSearch(getIndexes(typeDescriptor))
+                    .setTypes(typeDescriptor.getType())
+                    .setSource(toSearchSourceBuilder(queryMap))
+                    .setFetchSource(includesFields, excludesFields)
+                    .setScroll(getScrollTimeout())
+                    .get(getQueryTimeout());
+        } catch (IndexNotFoundException infe) {
+            // same as the rest client: no results from a missing index
+            logger.warn("Cannot find index '{}'", typeDescriptor.getIndex());
+        } catch (ElasticsearchException ee) {
+            // unlike the query, the search errors aren't ignored since they would look like an empty result
+            throw new ClientException(ClientErrorCodes.ACTION_ERROR, ee);
         }
-        return result;
+        return new TransportScrollCursor<>(response, queryFetchStyle, clazz);
     }
 
     @Override
@@ -333,7 +390,7 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         checkClient();
         // TODO check for fetch none
         JsonNode queryMap = queryConverter.convertQuery(query);
-        SearchRequestBuilder searchReqBuilder = esClientProvider.getClient().prepareSearch(typeDescriptor.getIndex());
+        SearchRequestBuilder searchReqBuilder = esClientProvider.getClient().prepareSearch(getIndexes(typeDescriptor));
         SearchHits searchHits = null;
         try {
             SearchResponse response = searchReqBuilder.setTypes(typeDescriptor.getType())
@@ -378,7 +435,7 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         SearchResponse scrollResponse = null;
         try {
             // delete by query API is deprecated, scroll with bulk delete must be used
-            scrollResponse = esClientProvider.getClient().prepareSearch(typeDescriptor.getIndex())
+            scrollResponse = esClientProvider.getClient().prepareSearch(getIndexes(typeDescriptor))
                     .setTypes(typeDescriptor.getType())
                     .setFetchSource(false)
                     .addSort(DOC, SortOrder.ASC)
@@ -484,6 +541,16 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         }
     }
 
+    /**
+     * Get the searched index expressions (the type descriptor index may be a comma separated list of index names or patterns as for the REST API)
+     *
+     * @param typeDescriptor
+     * @return
+     */
+    private static String[] getIndexes(TypeDescriptor typeDescriptor) {
+        return typeDescriptor.getIndex().split(",");
+    }
+
     private String[] toIncludedExcludedFields(JsonNode queryMap) throws ClientException {
         if (queryMap instanceof ArrayNode) {
             ArrayNode arrayNode = (ArrayNode) queryMap;
@@ -572,6 +639,36 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         }
     }
 
+    /**
+     * Adapt the converted query to the scroll context (the offset is not allowed and the index order is used if no sort order is defined)
+     *
+     * @param queryMap
+     * @return
+     */
+    private ObjectNode toScrollQuery(JsonNode queryMap) {
+        ObjectNode scrollQueryMap = (ObjectNode) queryMap;
+        scrollQueryMap.remove(SchemaKeys.KEY_FROM);
+        JsonNode sortNode = scrollQueryMap.path(SchemaKeys.KEY_SORT);
+        if (!sortNode.isArray() || sortNode.size() == 0) {
+            scrollQueryMap.putArray(SchemaKeys.KEY_SORT).add(DOC);
+        }
+        return scrollQueryMap;
+    }
+
+    private <T> ResultList<T> toResultList(SearchHit[] searchHits, long totalCount, Object queryFetchStyle, Class<T> clazz) throws ClientException {
+        ResultList<T> result = new ResultList<T>(totalCount);
+        if (searchHits != null) {
+            for (SearchHit searchHit : searchHits) {
+                Map<String, Object> object = searchHit.getSource();
+                object.put(ModelContext.TYPE_DESCRIPTOR_KEY, new TypeDescriptor(searchHit.getIndex(), searchHit.getType()));
+                object.put(ModelContext.DATASTORE_ID_KEY, searchHit.getId());
+                object.put(QueryConverter.QUERY_FETCH_STYLE_KEY, queryFetchStyle);
+                result.add(modelContext.unmarshal(clazz, object));
+            }
+        }
+        return result;
+    }
+
     /**
      * Get the scroll timeout (default value)
      * 
@@ -590,4 +687,71 @@ public class TransportDatastoreClient implements org.eclipse.kapua.service.datas
         return TimeValue.timeValueMillis(ClientSettings.getInstance().getLong(ClientSettingsKey.QUERY_TIMEOUT, 15000));
     }
 
+
+    /**
+     * Scroll cursor backed by the Elasticsearch scroll API
+     *
+     * @param <T>
+     */
+    private class TransportScrollCursor<T> implements ScrollCursor<T> {
+
+        private SearchResponse response;
+        private final Object queryFetchStyle;
+        private final Class<T> clazz;
+        private String scrollId;
+        private boolean firstPage = true;
+
+        TransportScrollCursor(SearchResponse response, Object queryFetchStyle, Class<T> clazz) {
+            this.response = response;
+            this.queryFetchStyle = queryFetchStyle;
+            this.clazz = clazz;
+            scrollId = response != null ? response.getScrollId() : null;
+        }
+
+        @Override
+        public ResultList<T> next() throws ClientException {
+            if (response == null) {
+                return new ResultList<>(0);
+            }
+            if (firstPage) {
+                firstPage = false;
+            } else {
+                checkClient();
+                try {
+                    response = esClientProvider.getClient().prepareSearchScroll(scrollId)
+                            .setScroll(getScrollTimeout())
+                            .execute()
+                            .actionGet(getQueryTimeout());
+                } catch (ElasticsearchException ee) {
+                    // i.e. scroll context expired
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, ee);
+                }
+                scrollId = response.getScrollId();
+            }
+            SearchHit[] searchHits = response.getHits().getHits();
+            ResultList<T> result = toResultList(searchHits, response.getHits().getTotalHits(), queryFetchStyle, clazz);
+            if (searchHits.length == 0) {
+                close();
+                response = null;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws ClientException {
+            if (scrollId != null) {
+                String scrollIdToClear = scrollId;
+                scrollId = null;
+                checkClient();
+                try {
+                    esClientProvider.getClient().prepareClearScroll()
+                            .addScrollId(scrollIdToClear)
+                            .execute()
+                            .actionGet(getQueryTimeout());
+                } catch (ElasticsearchException ee) {
+                    throw new ClientException(ClientErrorCodes.ACTION_ERROR, ee);
+                }
+            }
+        }
+    }
 }
@@ -12,10 +12,9 @@
 package org.eclipse.kapua.service.datastore.internal;
 
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageInfo;
@@ -28,18 +27,18 @@ import org.eclipse.kapua.service.datastore.internal.mediator.MessageStoreConfigu
  */
 public class ConfigurationProviderImpl implements ConfigurationProvider {
 
-    private AccountService accountService;
+    private AccountCache accountCache;
     private KapuaConfigurableService configurableService;
 
     /**
      * Construct the configuration provider with the provided parameters
      * 
      * @param configurableService
-     * @param accountService
+     * @param accountCache
      */
     public ConfigurationProviderImpl(KapuaConfigurableService configurableService,
-            AccountService accountService) {
-        this.accountService = accountService;
+            AccountCache accountCache) {
+        this.accountCache = accountCache;
         this.configurableService = configurableService;
     }
 
@@ -61,7 +60,7 @@ public class ConfigurationProviderImpl implements ConfigurationProvider {
         Account account = null;
         if (scopeId != null) {
             try {
-                account = KapuaSecurityUtils.doPrivileged(() -> accountService.find(scopeId));
+                account = accountCache.findById(scopeId);
             } catch (Exception exc) {
                 throw new ConfigurationException("Cannot get account information", exc);
             }
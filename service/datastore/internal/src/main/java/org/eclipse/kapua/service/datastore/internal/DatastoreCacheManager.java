@@ -11,14 +11,18 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.datastore.internal;
 
-import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 
 /**
  * Datastore cache manager.<br>
- * It keeps informations about channels, metrics and clients to speed up the store operation and avoid time consuming unnecessary operations.
+ * It keeps informations about channels, metrics and clients to speed up the store operation and avoid time consuming unnecessary operations.<br>
+ * The caches are created through the {@link CacheProviders} (so they can be configured by name: datastore.channels, datastore.metrics, datastore.metrics.warmup, datastore.clients and datastore.metadata).
  * 
  * @since 1.0.0
  */
@@ -26,10 +30,11 @@ public class DatastoreCacheManager {
 
     private static final DatastoreCacheManager INSTANCE = new DatastoreCacheManager();
 
-    private final LocalCache<String, Metadata> schemaCache;
-    private final LocalCache<String, Boolean> channelsCache;
-    private final LocalCache<String, Boolean> metricsCache;
-    private final LocalCache<String, Boolean> clientsCache;
+    private final Cache<String, Metadata> schemaCache;
+    private final Cache<String, Boolean> channelsCache;
+    private final Cache<String, Boolean> metricsCache;
+    private final Cache<KapuaId, Boolean> metricsWarmUpCache;
+    private final Cache<String, Boolean> clientsCache;
 
     private DatastoreCacheManager() {
         DatastoreSettings config = DatastoreSettings.getInstance();
@@ -39,10 +44,11 @@ public class DatastoreCacheManager {
 
         // TODO set expiration to happen frequently because the reset cache method will not get
         // called from service clients any more
-        channelsCache = new LocalCache<>(sizeMax, expireAfter, false);
-        metricsCache = new LocalCache<>(sizeMax, expireAfter, false);
-        clientsCache = new LocalCache<>(sizeMax, expireAfter, false);
-        schemaCache = new LocalCache<>(sizeMaxMetadata, null);
+        channelsCache = CacheProviders.newCache("datastore.channels", new CacheConfiguration<>(sizeMax, expireAfter), false);
+        metricsCache = CacheProviders.newCache("datastore.metrics", new CacheConfiguration<>(sizeMax, expireAfter), false);
+        metricsWarmUpCache = CacheProviders.newCache("datastore.metrics.warmup", new CacheConfiguration<>(sizeMax, expireAfter), false);
+        clientsCache = CacheProviders.newCache("datastore.clients", new CacheConfiguration<>(sizeMax, expireAfter), false);
+        schemaCache = CacheProviders.newCache("datastore.metadata", new CacheConfiguration<>(sizeMaxMetadata, null), null);
     }
 
     /**
@@ -63,7 +69,7 @@ public class DatastoreCacheManager {
      * 
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getChannelsCache() {
+    public Cache<String, Boolean> getChannelsCache() {
         return channelsCache;
     }
 
@@ -74,10 +80,21 @@ public class DatastoreCacheManager {
      * 
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getMetricsCache() {
+    public Cache<String, Boolean> getMetricsCache() {
         return metricsCache;
     }
 
+    /**
+     * Get the scopes whose metrics informations cache was warmed up (they expire with the preloaded metrics informations)
+     * 
+     * @return
+     * 
+     * @since 1.1.0
+     */
+    public Cache<KapuaId, Boolean> getMetricsWarmUpCache() {
+        return metricsWarmUpCache;
+    }
+
     /**
      * Get the clients informations cache
      * 
@@ -85,7 +102,7 @@ public class DatastoreCacheManager {
      * 
      * @since 1.0.0
      */
-    public LocalCache<String, Boolean> getClientsCache() {
+    public Cache<String, Boolean> getClientsCache() {
         return clientsCache;
     }
 
@@ -96,7 +113,7 @@ public class DatastoreCacheManager {
      * 
      * @since 1.0.0
      */
-    public LocalCache<String, Metadata> getMetadataCache() {
+    public Cache<String, Metadata> getMetadataCache() {
         return schemaCache;
     }
 }
@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.service.datastore.client.ClientCommunicationException;
+import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.DatastoreClient;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.datastore.client.model.InsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.InsertResponse;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Message bulk insert stage.<br>
+ * The insert requests are collected in a per index batch and sent to the datastore with a single {@link DatastoreClient#insert(BulkInsertRequest)} call
+ * as soon as the batch reaches the configured maximum size or estimated bytes, or when its linger time is elapsed.<br>
+ * <br>
+ * The stage doesn't own any thread: the batch is flushed by the caller that fills it up or, once the linger time is elapsed, by the first caller still waiting for it.
+ * Since every caller waits for the acknowledgement of its own message the number of pending messages is bounded by the number of the concurrent callers.<br>
+ * The outcome of every single message is reported to its caller, so a failure can be handled (and routed to the proper error queue) on a per message basis:
+ * <ul>
+ * <li>a message rejected by an overloaded datastore (status 429 or 503) fails with a {@link ClientCommunicationException}, so it is retried like the other communication failures</li>
+ * <li>any other rejected message fails with a {@link ClientException}</li>
+ * </ul>
+ * <b>Retries</b><br>
+ * A retried message keeps its datastore id and the messages are indexed with a fixed external version, so the datastore never stores the same message twice.<br>
+ * Since a retry may be caused by a lost acknowledgement of a message actually stored (i.e. an acknowledgement timeout) the version conflict (status 409) reported for an already stored id
+ * isn't a failure: the message is acknowledged as stored.
+ *
+ * @since 1.1
+ */
+final class MessageBulkInserter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageBulkInserter.class);
+
+    private static final String METRIC_COMPONENT_NAME = "datastore";
+
+    private static final int STATUS_CONFLICT = 409;
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+    private final DatastoreClient client;
+
+    private final int maxSize;
+    private final long maxBytes;
+    private final long lingerMillis;
+    private final long ackTimeoutMillis;
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private final Counter metricBulkCount;
+    private final Counter metricBulkErrorCount;
+    private final Histogram metricBulkSize;
+
+    /**
+     * Constructs the bulk insert stage reading its thresholds from the {@link DatastoreSettings}
+     *
+     * @param client
+     */
+    MessageBulkInserter(DatastoreClient client) {
+        this(client,
+                DatastoreSettings.getInstance().getInt(DatastoreSettingKey.CONFIG_INGESTION_BULK_SIZE_MAXIMUM, 500),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingKey.CONFIG_INGESTION_BULK_BYTES_MAXIMUM, 5L * 1024 * 1024),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingKey.CONFIG_INGESTION_BULK_LINGER, 50L),
+                DatastoreSettings.getInstance().getLong(DatastoreSettingKey.CONFIG_INGESTION_BULK_ACK_TIMEOUT, 30000L));
+    }
+
+    /**
+     * Constructs the bulk insert stage with the given thresholds
+     *
+     * @param client
+     * @param maxSize
+     *            the maximum number of messages of a batch
+     * @param maxBytes
+     *            the maximum estimated bytes of a batch
+     * @param lingerMillis
+     *            the maximum time a message waits for its batch to be filled up
+     * @param ackTimeoutMillis
+     *            the maximum time a message waits for its acknowledgement
+     */
+    MessageBulkInserter(DatastoreClient client, int maxSize, long maxBytes, long lingerMillis, long ackTimeoutMillis) {
+        this.client = client;
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+        this.lingerMillis = lingerMillis;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+
+        MetricsService metricService = MetricServiceFactory.getInstance();
+        metricBulkCount = metricService.getCounter(METRIC_COMPONENT_NAME, "datastore", "store", "bulk", "count");
+        metricBulkErrorCount = metricService.getCounter(METRIC_COMPONENT_NAME, "datastore", "store", "bulk", "error", "count");
+        metricBulkSize = metricService.getHistogram(METRIC_COMPONENT_NAME, "datastore", "store", "bulk", "size");
+    }
+
+    /**
+     * Add the insert request to the batch of its index and wait for its acknowledgement
+     *
+     * @param insertRequest
+     * @param estimatedBytes
+     *            the estimated size of the storable object
+     * @return the insert response of the request
+     * @throws ClientCommunicationException
+     *             if the acknowledgement doesn't arrive in time, the datastore cannot be reached or it rejected the request because overloaded
+     * @throws ClientException
+     *             if the datastore refused the request
+     */
+    InsertResponse insert(InsertRequest insertRequest, long estimatedBytes) throws ClientException {
+        String indexName = insertRequest.getTypeDescriptor().getIndex();
+        PendingInsert pendingInsert = new PendingInsert(insertRequest);
+
+        Batch batch;
+        Batch fullBatch = null;
+        synchronized (batches) {
+            batch = batches.get(indexName);
+            if (batch == null) {
+                batch = new Batch(indexName);
+                batches.put(indexName, batch);
+            }
+            batch.add(pendingInsert, estimatedBytes);
+            if (batch.size() >= maxSize || batch.getBytes() >= maxBytes) {
+                batches.remove(indexName);
+                fullBatch = batch;
+            }
+        }
+
+        if (fullBatch != null) {
+            flush(fullBatch);
+        } else if (!pendingInsert.await(lingerMillis) && claim(batch)) {
+            flush(batch);
+        }
+        return pendingInsert.get(ackTimeoutMillis);
+    }
+
+    /**
+     * Detach the batch, if nobody else already did it, so the caller becomes responsible for its flush
+     *
+     * @param batch
+     * @return
+     */
+    private boolean claim(Batch batch) {
+        synchronized (batches) {
+            if (batches.get(batch.getIndexName()) == batch) {
+                batches.remove(batch.getIndexName());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void flush(Batch batch) {
+        List<PendingInsert> pendingInserts = batch.getPendingInserts();
+        BulkInsertRequest bulkInsertRequest = new BulkInsertRequest();
+        for (PendingInsert pendingInsert : pendingInserts) {
+            bulkInsertRequest.add(pendingInsert.getRequest());
+        }
+        metricBulkCount.inc();
+        metricBulkSize.update(pendingInserts.size());
+        logger.debug("Flushing bulk insert of {} messages ({} estimated bytes) on index '{}'", pendingInserts.size(), batch.getBytes(), batch.getIndexName());
+        try {
+            BulkInsertResponse bulkInsertResponse = client.insert(bulkInsertRequest);
+            List<InsertResponse> insertResponses = bulkInsertResponse.getResponse();
+            if (insertResponses.size() != pendingInserts.size()) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR,
+                        String.format("Unexpected bulk insert response size! Expected %d but was %d", pendingInserts.size(), insertResponses.size()));
+            }
+            for (int i = 0; i < pendingInserts.size(); i++) {
+                complete(pendingInserts.get(i), insertResponses.get(i));
+            }
+        } catch (Exception e) {
+            metricBulkErrorCount.inc();
+            logger.warn("Bulk insert on index '{}' failed", batch.getIndexName(), e);
+            for (PendingInsert pendingInsert : pendingInserts) {
+                pendingInsert.fail(e);
+            }
+        }
+    }
+
+    private static void complete(PendingInsert pendingInsert, InsertResponse insertResponse) {
+        if (insertResponse.isResult()) {
+            pendingInsert.complete(insertResponse);
+            return;
+        }
+        switch (insertResponse.getStatus()) {
+        case STATUS_CONFLICT:
+            // the message was already stored by a previous attempt
+            logger.debug("Message '{}' already stored on index '{}'", pendingInsert.getRequest().getId(), insertResponse.getTypeDescriptor().getIndex());
+            InsertResponse storedResponse = new InsertResponse(pendingInsert.getRequest().getId(), insertResponse.getTypeDescriptor());
+            storedResponse.setResult(true);
+            pendingInsert.complete(storedResponse);
+            break;
+        case STATUS_TOO_MANY_REQUESTS:
+        case STATUS_SERVICE_UNAVAILABLE:
+            pendingInsert.fail(new ClientCommunicationException("Bulk insert item rejected",
+                    new ClientException(ClientErrorCodes.ACTION_ERROR, insertResponse.getDescription())));
+            break;
+        default:
+            pendingInsert.fail(new ClientException(ClientErrorCodes.ACTION_ERROR, insertResponse.getDescription()));
+        }
+    }
+
+    /**
+     * Messages waiting to be flushed on the same index
+     */
+    private static class Batch {
+
+        private final String indexName;
+        private final List<PendingInsert> pendingInserts = new ArrayList<>();
+        private long bytes;
+
+        Batch(String indexName) {
+            this.indexName = indexName;
+        }
+
+        void add(PendingInsert pendingInsert, long estimatedBytes) {
+            pendingInserts.add(pendingInsert);
+            bytes += estimatedBytes;
+        }
+
+        String getIndexName() {
+            return indexName;
+        }
+
+        List<PendingInsert> getPendingInserts() {
+            return pendingInserts;
+        }
+
+        int size() {
+            return pendingInserts.size();
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Insert request waiting for its acknowledgement
+     */
+    private static class PendingInsert {
+
+        private final InsertRequest request;
+        private final CompletableFuture<InsertResponse> response = new CompletableFuture<>();
+
+        PendingInsert(InsertRequest request) {
+            this.request = request;
+        }
+
+        InsertRequest getRequest() {
+            return request;
+        }
+
+        void complete(InsertResponse insertResponse) {
+            response.complete(insertResponse);
+        }
+
+        void fail(Throwable t) {
+            response.completeExceptionally(t);
+        }
+
+        /**
+         * Wait for the acknowledgement at most for the given time
+         *
+         * @param timeoutMillis
+         * @return true if the acknowledgement (positive or negative) arrived
+         */
+        boolean await(long timeoutMillis) {
+            try {
+                response.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return response.isDone();
+            } catch (ExecutionException e) {
+                // the failure will be reported by get
+            }
+            return true;
+        }
+
+        InsertResponse get(long timeoutMillis) throws ClientException {
+            try {
+                return response.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ClientException) {
+                    throw (ClientException) e.getCause();
+                }
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, e.getCause());
+            } catch (TimeoutException e) {
+                throw new ClientCommunicationException("Bulk insert acknowledgement timeout", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientCommunicationException("Bulk insert acknowledgement interrupted", e);
+            }
+        }
+    }
+}
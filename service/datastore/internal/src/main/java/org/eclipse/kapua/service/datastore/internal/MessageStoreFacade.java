@@ -13,13 +13,15 @@ package org.eclipse.kapua.service.datastore.internal;
 
 import com.codahale.metrics.Counter;
 
+import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaIllegalArgumentException;
-import org.eclipse.kapua.commons.cache.LocalCache;
+import org.eclipse.kapua.commons.cache.Cache;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
 import org.eclipse.kapua.message.KapuaMessage;
+import org.eclipse.kapua.message.KapuaPayload;
 import org.eclipse.kapua.message.device.data.KapuaDataChannel;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
 import org.eclipse.kapua.model.id.KapuaId;
@@ -35,6 +37,7 @@ import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
 import org.eclipse.kapua.service.datastore.internal.client.DatastoreClientFactory;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreChannel;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreErrorCodes;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreUtils;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageField;
 import org.eclipse.kapua.service.datastore.internal.mediator.MessageInfo;
@@ -44,6 +47,7 @@ import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
 import org.eclipse.kapua.service.datastore.internal.model.DataIndexBy;
 import org.eclipse.kapua.service.datastore.internal.model.DatastoreMessageImpl;
 import org.eclipse.kapua.service.datastore.internal.model.MessageListResultImpl;
+import org.eclipse.kapua.service.datastore.internal.model.StorableCursorImpl;
 import org.eclipse.kapua.service.datastore.internal.model.StorableIdImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelInfoQueryImpl;
 import org.eclipse.kapua.service.datastore.internal.model.query.ChannelMatchPredicateImpl;
@@ -57,18 +61,25 @@ import org.eclipse.kapua.service.datastore.internal.schema.MessageSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.model.ChannelInfo;
 import org.eclipse.kapua.service.datastore.model.ClientInfo;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
 import org.eclipse.kapua.service.datastore.model.StorableId;
+import org.eclipse.kapua.service.datastore.model.query.AndPredicate;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
+import org.eclipse.kapua.service.datastore.model.query.RangePredicate;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
+import org.eclipse.kapua.service.datastore.model.query.StorablePredicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -89,9 +100,19 @@ public final class MessageStoreFacade {
 
     private static final String METRIC_COMPONENT_NAME = "datastore";
 
+    /**
+     * Fixed overhead of a stored message used to estimate the bulk insert size
+     */
+    private static final int MESSAGE_ESTIMATED_BYTES = 512;
+    /**
+     * Per metric overhead of a stored message used to estimate the bulk insert size
+     */
+    private static final int METRIC_ESTIMATED_BYTES = 64;
+
     private final MessageStoreMediator mediator;
     private final ConfigurationProvider configProvider;
     private DatastoreClient client;
+    private MessageBulkInserter bulkInserter;
 
     /**
      * Constructs the message store facade
@@ -105,6 +126,9 @@ public final class MessageStoreFacade {
         configProvider = confProvider;
         this.mediator = mediator;
         client = DatastoreClientFactory.getInstance();
+        if (DatastoreSettings.getInstance().getBoolean(DatastoreSettingKey.CONFIG_INGESTION_BULK_ENABLED, false)) {
+            bulkInserter = new MessageBulkInserter(client);
+        }
         MetricsService metricService = MetricServiceFactory.getInstance();
         metricMessagesAlreadyInTheDatastoreCount = metricService.getCounter(METRIC_COMPONENT_NAME, "datastore", "store", "messages", "already_in_the_datastore", "count");
     }
@@ -187,7 +211,12 @@ public final class MessageStoreFacade {
         }
         mediator.onUpdatedMappings(message.getScopeId(), indexedOn, metrics);
 
-        InsertResponse insertResponse = client.insert(insertRequest);
+        InsertResponse insertResponse;
+        if (bulkInserter != null) {
+            insertResponse = bulkInserter.insert(insertRequest, estimateSize(message));
+        } else {
+            insertResponse = client.insert(insertRequest);
+        }
         messageToStore.setDatastoreId(new StorableIdImpl(insertResponse.getId()));
 
         mediator.onAfterMessageStore(messageInfo, messageToStore);
@@ -288,11 +317,41 @@ public final class MessageStoreFacade {
             return new MessageListResultImpl();
         }
 
-        String dataIndexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String dataIndexName = getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
         return new MessageListResultImpl(client.query(typeDescriptor, query, DatastoreMessage.class));
     }
 
+    /**
+     * Open a cursor over the messages matching the given query.<br>
+     * The messages are fetched through a datastore scroll cursor in pages of query limit size (the query offset is ignored).
+     * The first page is fetched before returning the cursor, while a missing data index gives an empty cursor.
+     *
+     * @param query
+     * @return the cursor (to be closed)
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws ClientException
+     * @since 1.1
+     */
+    public StorableCursor<DatastoreMessage> scroll(MessageQuery query)
+            throws KapuaIllegalArgumentException, ConfigurationException, ClientException {
+        ArgumentValidator.notNull(query, "query");
+        ArgumentValidator.notNull(query.getScopeId(), "query.scopeId");
+
+        MessageStoreConfiguration accountServicePlan = configProvider.getConfiguration(query.getScopeId());
+        long ttl = accountServicePlan.getDataTimeToLiveMilliseconds();
+
+        if (!accountServicePlan.getDataStorageEnabled() || ttl == MessageStoreConfiguration.DISABLED) {
+            logger.debug("Storage not enabled for account {}, returning no messages", query.getScopeId());
+            return StorableCursorImpl.empty();
+        }
+
+        String dataIndexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        TypeDescriptor typeDescriptor = new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME);
+        return StorableCursorImpl.open(client.scroll(typeDescriptor, query, DatastoreMessage.class));
+    }
+
     /**
      * Get messages count matching the given query
      *
@@ -318,7 +377,7 @@ public final class MessageStoreFacade {
             return 0;
         }
 
-        String indexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String indexName = getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
         return client.count(typeDescriptor, query);
     }
@@ -349,7 +408,7 @@ public final class MessageStoreFacade {
             return;
         }
 
-        String indexName = SchemaUtil.getDataIndexName(query.getScopeId());
+        String indexName = getDataIndexName(query);
         TypeDescriptor typeDescriptor = new TypeDescriptor(indexName, MessageSchema.MESSAGE_TYPE_NAME);
         client.deleteByQuery(typeDescriptor, query);
     }
@@ -396,7 +455,7 @@ public final class MessageStoreFacade {
             ResultList<MetricInfo> metrics = client.query(typeDescriptor, metricQuery, MetricInfo.class);
 
             totalHits = metrics.getTotalCount();
-            LocalCache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
+            Cache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
             long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
             for (int i = 0; i < toBeProcessed; i++) {
@@ -429,7 +488,7 @@ public final class MessageStoreFacade {
             ResultList<ChannelInfo> channels = client.query(typeDescriptor, channelQuery, ChannelInfo.class);
 
             totalHits = channels.getTotalCount();
-            LocalCache<String, Boolean> channelsCache = DatastoreCacheManager.getInstance().getChannelsCache();
+            Cache<String, Boolean> channelsCache = DatastoreCacheManager.getInstance().getChannelsCache();
             long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
             for (int i = 0; i < toBeProcessed; i++) {
@@ -463,7 +522,7 @@ public final class MessageStoreFacade {
                 ResultList<ClientInfo> clients = client.query(typeDescriptor, clientInfoQuery, ClientInfo.class);
 
                 totalHits = clients.getTotalCount();
-                LocalCache<String, Boolean> clientsCache = DatastoreCacheManager.getInstance().getClientsCache();
+                Cache<String, Boolean> clientsCache = DatastoreCacheManager.getInstance().getClientsCache();
                 long toBeProcessed = totalHits > pageSize ? pageSize : totalHits;
 
                 for (int i = 0; i < toBeProcessed; i++) {
@@ -537,6 +596,83 @@ public final class MessageStoreFacade {
         return datastoreMessage;
     }
 
+    /**
+     * Estimate the size of the stored message (used to bound the bulk insert size)
+     *
+     * @param message
+     * @return
+     */
+    private long estimateSize(KapuaMessage<?, ?> message) {
+        long estimatedSize = MESSAGE_ESTIMATED_BYTES;
+        KapuaPayload payload = message.getPayload();
+        if (payload != null) {
+            if (payload.getBody() != null) {
+                estimatedSize += payload.getBody().length;
+            }
+            if (payload.getMetrics() != null) {
+                estimatedSize += (long) payload.getMetrics().size() * METRIC_ESTIMATED_BYTES;
+            }
+        }
+        return estimatedSize;
+    }
+
+    /**
+     * Get the data index name for the query, restricted to the indexes covering its timestamp range (if any)
+     *
+     * @param query
+     * @return
+     * @throws ClientException
+     */
+    private static String getDataIndexName(MessageQuery query) throws ClientException {
+        Long[] timestampWindow = new Long[2];
+        narrowTimestampWindow(query.getPredicate(), timestampWindow);
+        DatastoreSettings settings = DatastoreSettings.getInstance();
+        String indexingWindowOption = settings.getString(DatastoreSettingKey.INDEXING_WINDOW_OPTION, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK);
+        int maxIndexes = settings.getInt(DatastoreSettingKey.CONFIG_QUERY_INDEX_PRUNING_MAXIMUM, 64);
+        try {
+            return DatastoreUtils.getDataIndexName(query.getScopeId(), timestampWindow[0], timestampWindow[1], indexingWindowOption, maxIndexes);
+        } catch (KapuaException kaex) {
+            throw new ClientException(DatastoreErrorCodes.CONFIGURATION_ERROR, "Error while generating index name", kaex);
+        }
+    }
+
+    /**
+     * Narrow the timestamp window (start and end epoch millis) with the timestamp range predicates that must be matched by every message
+     * (the predicate itself or the operands of an 'and' predicate)
+     *
+     * @param predicate
+     * @param timestampWindow
+     */
+    private static void narrowTimestampWindow(StorablePredicate predicate, Long[] timestampWindow) {
+        if (predicate instanceof AndPredicate) {
+            for (StorablePredicate andPredicate : ((AndPredicate) predicate).getPredicates()) {
+                narrowTimestampWindow(andPredicate, timestampWindow);
+            }
+        } else if (predicate instanceof RangePredicate && MessageField.TIMESTAMP.field().equals(((RangePredicate) predicate).getField())) {
+            RangePredicate rangePredicate = (RangePredicate) predicate;
+            Long start = toEpochMillis(rangePredicate.getMinValue());
+            if (start != null && (timestampWindow[0] == null || start > timestampWindow[0])) {
+                timestampWindow[0] = start;
+            }
+            Long end = toEpochMillis(rangePredicate.getMaxValue());
+            if (end != null && (timestampWindow[1] == null || end < timestampWindow[1])) {
+                timestampWindow[1] = end;
+            }
+        }
+    }
+
+    private static Long toEpochMillis(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        } else if (value instanceof Long || value instanceof Integer) {
+            return ((Number) value).longValue();
+        }
+        // unknown bound (i.e. date math expression), so the window is left open
+        return null;
+    }
+
     private List<String> getDataIndexesByAccount(KapuaId scopeId) throws ClientException {
         List<String> result = new ArrayList<>();
         result.addAll(Arrays.asList(client.findIndexes(new IndexRequest(scopeId.toStringId() + "-*")).getIndexes()));
@@ -20,6 +20,7 @@ import org.eclipse.kapua.KapuaIllegalArgumentException;
 import org.eclipse.kapua.commons.configuration.AbstractKapuaConfigurableService;
 import org.eclipse.kapua.commons.metric.MetricServiceFactory;
 import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.locator.KapuaProvider;
@@ -33,6 +34,7 @@ import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 import org.eclipse.kapua.service.datastore.DatastoreDomains;
 import org.eclipse.kapua.service.datastore.MessageStoreService;
 import org.eclipse.kapua.service.datastore.client.ClientCommunicationException;
+import org.eclipse.kapua.service.datastore.client.ClientException;
 import org.eclipse.kapua.service.datastore.client.ClientUnavailableException;
 import org.eclipse.kapua.service.datastore.internal.mediator.ConfigurationException;
 import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreCommunicationException;
@@ -42,6 +44,7 @@ import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
 import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
 import org.eclipse.kapua.service.datastore.model.MessageListResult;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MessageQuery;
 import org.eclipse.kapua.service.datastore.model.query.StorableFetchStyle;
@@ -86,7 +89,7 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
      */
     public MessageStoreServiceImpl() throws ClientUnavailableException {
         super(MessageStoreService.class.getName(), DatastoreDomains.DATASTORE_DOMAIN, DatastoreEntityManagerFactory.getInstance());
-        ConfigurationProviderImpl configurationProvider = new ConfigurationProviderImpl(this, accountService);
+        ConfigurationProviderImpl configurationProvider = new ConfigurationProviderImpl(this, AccountCache.getInstance());
         messageStoreFacade = new MessageStoreFacade(configurationProvider, DatastoreMediator.getInstance());
         DatastoreMediator.getInstance().setMessageStoreFacade(messageStoreFacade);
         // data message
@@ -197,6 +200,22 @@ public class MessageStoreServiceImpl extends AbstractKapuaConfigurableService im
         }
     }
 
+    @Override
+    public StorableCursor<DatastoreMessage> scroll(MessageQuery query)
+            throws KapuaException {
+        checkDataAccess(query.getScopeId(), Actions.read);
+        try {
+            return messageStoreFacade.scroll(query);
+        } catch (ClientException e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        } catch (KapuaException e) {
+            // invalid query
+            throw e;
+        } catch (Exception e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        }
+    }
+
     @Override
     public long count(MessageQuery query)
             throws KapuaException {
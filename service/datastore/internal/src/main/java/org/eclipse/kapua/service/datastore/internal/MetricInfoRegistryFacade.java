@@ -12,6 +12,7 @@
 package org.eclipse.kapua.service.datastore.internal;
 
 import org.eclipse.kapua.KapuaIllegalArgumentException;
+import org.eclipse.kapua.commons.cache.Cache;
 import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.service.datastore.client.ClientException;
@@ -38,13 +39,24 @@ import org.eclipse.kapua.service.datastore.internal.model.query.MetricInfoQueryI
 import org.eclipse.kapua.service.datastore.internal.schema.MetricInfoSchema;
 import org.eclipse.kapua.service.datastore.internal.schema.Metadata;
 import org.eclipse.kapua.service.datastore.internal.schema.SchemaUtil;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettingKey;
+import org.eclipse.kapua.service.datastore.internal.setting.DatastoreSettings;
 import org.eclipse.kapua.service.datastore.model.MetricInfo;
 import org.eclipse.kapua.service.datastore.model.MetricInfoListResult;
 import org.eclipse.kapua.service.datastore.model.StorableId;
 import org.eclipse.kapua.service.datastore.model.query.MetricInfoQuery;
+import org.eclipse.kapua.service.datastore.model.query.SortField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Metric information registry facade
  *
@@ -58,6 +70,13 @@ public class MetricInfoRegistryFacade {
     private final ConfigurationProvider configProvider;
     private DatastoreClient client;
 
+    /**
+     * The warm up can't load more than this fraction of the metrics cache, so a new scope doesn't evict the entries of the others
+     */
+    private static final int WARM_UP_CACHE_FRACTION = 10;
+
+    private final int warmUpSize;
+
     /**
      * Constructs the metric info registry facade
      *
@@ -71,6 +90,14 @@ public class MetricInfoRegistryFacade {
         this.configProvider = configProvider;
         this.mediator = mediator;
         client = DatastoreClientFactory.getInstance();
+        DatastoreSettings config = DatastoreSettings.getInstance();
+        int configuredWarmUpSize = config.getInt(DatastoreSettingKey.CONFIG_CACHE_METRICS_WARMUP_SIZE, 0);
+        int maxWarmUpSize = config.getInt(DatastoreSettingKey.CONFIG_CACHE_LOCAL_SIZE_MAXIMUM) / WARM_UP_CACHE_FRACTION;
+        if (configuredWarmUpSize > maxWarmUpSize) {
+            logger.warn("Metrics cache warm up size {} exceeds the 1/{} of the cache size, reduced to {}", configuredWarmUpSize, WARM_UP_CACHE_FRACTION, maxWarmUpSize);
+            configuredWarmUpSize = maxWarmUpSize;
+        }
+        warmUpSize = configuredWarmUpSize;
     }
 
     /**
@@ -133,19 +160,32 @@ public class MetricInfoRegistryFacade {
             ClientException {
         ArgumentValidator.notNull(metricInfos, "metricInfos");
 
-        BulkUpdateRequest bulkRequest = new BulkUpdateRequest();
-        boolean performUpdate = false;
-        // Create a bulk request
+        Cache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
+
+        // Collect the metrics missing from the cache (grouped by scope)
+        Map<KapuaId, Map<String, MetricInfo>> missingMetricInfos = new LinkedHashMap<>();
         for (MetricInfo metricInfo : metricInfos) {
             String metricInfoId = MetricInfoField.getOrDeriveId(metricInfo.getId(), metricInfo);
-            // fix #REPLACE_ISSUE_NUMBER
-            if (!DatastoreCacheManager.getInstance().getMetricsCache().get(metricInfoId)) {
-                StorableId storableId = new StorableIdImpl(metricInfoId);
-                MetricInfo storedField = find(metricInfo.getScopeId(), storableId);
-                if (storedField != null) {
-                    DatastoreCacheManager.getInstance().getMetricsCache().put(metricInfoId, true);
+            if (!metricsCache.get(metricInfoId)) {
+                if (warmUp(metricInfo.getScopeId()) && metricsCache.get(metricInfoId)) {
+                    continue;
+                }
+                missingMetricInfos.computeIfAbsent(metricInfo.getScopeId(), scopeId -> new LinkedHashMap<>()).put(metricInfoId, metricInfo);
+            }
+        }
+
+        BulkUpdateRequest bulkRequest = new BulkUpdateRequest();
+        boolean performUpdate = false;
+        // Look up all the missing metrics of a scope with a single request and create a bulk request for the ones not yet stored
+        for (Map.Entry<KapuaId, Map<String, MetricInfo>> scopeEntry : missingMetricInfos.entrySet()) {
+            Set<String> storedIds = findIds(scopeEntry.getKey(), scopeEntry.getValue().keySet());
+            for (Map.Entry<String, MetricInfo> metricInfoEntry : scopeEntry.getValue().entrySet()) {
+                String metricInfoId = metricInfoEntry.getKey();
+                if (storedIds.contains(metricInfoId)) {
+                    metricsCache.put(metricInfoId, true);
                     continue;
                 }
+                MetricInfo metricInfo = metricInfoEntry.getValue();
                 performUpdate = true;
                 Metadata metadata = mediator.getMetadata(metricInfo.getScopeId(), metricInfo.getFirstMessageOn().getTime());
                 bulkRequest.add(
@@ -174,19 +214,88 @@ public class MetricInfoRegistryFacade {
                     logger.debug(String.format("Upsert on channel metric succesfully executed [%s.%s, %s]",
                             index, type, id));
 
-                    if (id == null || DatastoreCacheManager.getInstance().getMetricsCache().get(id)) {
+                    if (id == null || metricsCache.get(id)) {
                         continue;
                     }
 
                     // Update cache if channel metric update is completed
                     // successfully
-                    DatastoreCacheManager.getInstance().getMetricsCache().put(id, true);
+                    metricsCache.put(id, true);
                 }
             }
         }
         return upsertResponse;
     }
 
+    /**
+     * Find which of the given metric information identifiers are already stored (with a single request)
+     *
+     * @param scopeId
+     * @param ids
+     * @return the stored identifiers
+     * @throws KapuaIllegalArgumentException
+     * @throws ConfigurationException
+     * @throws QueryMappingException
+     * @throws ClientException
+     */
+    private Set<String> findIds(KapuaId scopeId, Collection<String> ids)
+            throws KapuaIllegalArgumentException,
+            ConfigurationException,
+            QueryMappingException,
+            ClientException {
+        IdsPredicateImpl idsPredicate = new IdsPredicateImpl(MetricInfoSchema.METRIC_TYPE_NAME);
+        for (String id : ids) {
+            idsPredicate.addValue(new StorableIdImpl(id));
+        }
+
+        MetricInfoQueryImpl idsQuery = new MetricInfoQueryImpl(scopeId);
+        idsQuery.setLimit(ids.size());
+        idsQuery.setPredicate(idsPredicate);
+
+        Set<String> storedIds = new HashSet<>();
+        for (MetricInfo metricInfo : query(idsQuery).getItems()) {
+            storedIds.add(metricInfo.getId().toString());
+        }
+        return storedIds;
+    }
+
+    /**
+     * Preload the metrics cache with the most recent metric information identifiers of the scope (just once per scope until the preloaded entries expire).<br>
+     * This avoids looking up every metric again after a restart. A failure doesn't stop the store operation since the metrics will be looked up anyway.
+     *
+     * @param scopeId
+     * @return true if the cache was warmed up by this call
+     */
+    private boolean warmUp(KapuaId scopeId) {
+        if (warmUpSize <= 0) {
+            return false;
+        }
+        Cache<KapuaId, Boolean> metricsWarmUpCache = DatastoreCacheManager.getInstance().getMetricsWarmUpCache();
+        if (metricsWarmUpCache.get(scopeId)) {
+            return false;
+        }
+        metricsWarmUpCache.put(scopeId, true);
+        try {
+            List<SortField> sort = new ArrayList<>();
+            sort.add(SortField.descending(MetricInfoSchema.METRIC_MTR_TIMESTAMP_FULL));
+
+            MetricInfoQueryImpl recentQuery = new MetricInfoQueryImpl(scopeId);
+            recentQuery.setLimit(warmUpSize);
+            recentQuery.setSortFields(sort);
+
+            Cache<String, Boolean> metricsCache = DatastoreCacheManager.getInstance().getMetricsCache();
+            List<MetricInfo> recentMetricInfos = query(recentQuery).getItems();
+            for (MetricInfo metricInfo : recentMetricInfos) {
+                metricsCache.put(metricInfo.getId().toString(), true);
+            }
+            logger.debug("Metrics cache warmed up with {} entries for scope {}", recentMetricInfos.size(), scopeId);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Cannot warm up the metrics cache for scope {}", scopeId, e);
+            return false;
+        }
+    }
+
     /**
      * Delete metric information by identifier.<br>
      * <b>Be careful using this function since it doesn't guarantee the datastore consistency.<br>
@@ -14,8 +14,6 @@ package org.eclipse.kapua.service.datastore.internal.mediator;
 
 import javax.validation.constraints.NotNull;
 
-import com.google.common.hash.Hashing;
-
 import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.util.KapuaDateUtils;
@@ -29,7 +27,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -43,9 +40,11 @@ import java.time.temporal.TemporalAccessor;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -57,6 +56,8 @@ public class DatastoreUtils {
 
     private static final Logger LOG = LoggerFactory.getLogger(DatastoreUtils.class);
     private static final MessageStoreService MESSAGE_STORE_SERVICE = KapuaLocator.getInstance().getService(MessageStoreService.class);
+    private static final RegistryIdHasher REGISTRY_ID_HASHER = new RegistryIdHasher(RegistryIdHasher.Algorithm.fromSettingValue(
+            DatastoreSettings.getInstance().getString(DatastoreSettingKey.CONFIG_REGISTRY_ID_HASH_ALGORITHM, "sha256")));
 
     private DatastoreUtils() {
     }
@@ -120,24 +121,14 @@ public class DatastoreUtils {
             .withZone(KapuaDateUtils.getTimeZone());
 
     /**
-     * Return the hash code for the provided components (typically components are a sequence of account - client id - channel ...)
+     * Return the hash code for the provided components (typically components are a sequence of account - client id - channel ...)<br>
+     * The hash algorithm is defined by the {@link DatastoreSettingKey#CONFIG_REGISTRY_ID_HASH_ALGORITHM} setting.
      *
      * @param components
      * @return
      */
     public static String getHashCode(String... components) {
-        String concatString = "";
-        for (String str : components) {
-            concatString = concatString.concat(str);
-        }
-
-        byte[] hashCode = Hashing.sha256()
-                .hashString(concatString, StandardCharsets.UTF_8)
-                .asBytes();
-
-        // ES 5.2 FIX
-        // return Base64.encodeBytes(hashCode);
-        return Base64.getEncoder().encodeToString(hashCode);
+        return REGISTRY_ID_HASHER.hash(components);
     }
 
     private static String normalizeIndexName(String name) {
@@ -291,6 +282,60 @@ public class DatastoreUtils {
         return sb.toString();
     }
 
+    /**
+     * Get the data index name (as comma separated index patterns) covering the given timestamp window.<br>
+     * The patterns are built for the given indexing window and, if they are more than the maximum, for the coarser ones: the day indexes
+     * are named after their week index and the hour indexes after their day index so a coarser pattern matches the finer indexes too.<br>
+     * If the window is open or the patterns are still more than the maximum the account data index name ({@link #getDataIndexName(KapuaId)}) is returned.
+     *
+     * @param scopeId
+     * @param windowStart
+     *            the window start (epoch millis, inclusive) or null
+     * @param windowEnd
+     *            the window end (epoch millis, inclusive) or null
+     * @param indexingWindowOption
+     * @param maxIndexes
+     *            the maximum number of index patterns
+     * @return
+     * @throws KapuaException
+     * @since 1.1
+     */
+    public static String getDataIndexName(KapuaId scopeId, Long windowStart, Long windowEnd, String indexingWindowOption, int maxIndexes) throws KapuaException {
+        if (windowStart == null || windowEnd == null || windowStart > windowEnd || maxIndexes <= 0) {
+            return getDataIndexName(scopeId);
+        }
+        List<String> windowOptions;
+        switch (indexingWindowOption) {
+            default:
+            case INDEXING_WINDOW_OPTION_WEEK:
+                windowOptions = Collections.singletonList(INDEXING_WINDOW_OPTION_WEEK);
+                break;
+            case INDEXING_WINDOW_OPTION_DAY:
+                windowOptions = Arrays.asList(INDEXING_WINDOW_OPTION_DAY, INDEXING_WINDOW_OPTION_WEEK);
+                break;
+            case INDEXING_WINDOW_OPTION_HOUR:
+                windowOptions = Arrays.asList(INDEXING_WINDOW_OPTION_HOUR, INDEXING_WINDOW_OPTION_DAY, INDEXING_WINDOW_OPTION_WEEK);
+                break;
+        }
+        for (String windowOption : windowOptions) {
+            // the week indexes are walked day by day too, so the week numbering is left to the formatter
+            long step = INDEXING_WINDOW_OPTION_HOUR.equals(windowOption) ? ChronoUnit.HOURS.getDuration().toMillis() : ChronoUnit.DAYS.getDuration().toMillis();
+            Set<String> indexNames = new LinkedHashSet<>();
+            long time = windowStart;
+            while (indexNames.size() <= maxIndexes) {
+                indexNames.add(getDataIndexName(scopeId, time, windowOption) + '*');
+                if (time == windowEnd) {
+                    break;
+                }
+                time = windowEnd - time > step ? time + step : windowEnd;
+            }
+            if (indexNames.size() <= maxIndexes) {
+                return String.join(",", indexNames);
+            }
+        }
+        return getDataIndexName(scopeId);
+    }
+
     /**
      * Get the Kapua index name for the specified base name
      *
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.mediator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Registry identifier hasher.<br>
+ * The components are encoded (UTF-8) one after the other in a per thread buffer and hashed as a whole, so no intermediate string is built.<br>
+ * The identifier produced by the {@link Algorithm#SHA_256} algorithm is the same produced by hashing the concatenated components.
+ *
+ * @since 1.1
+ */
+final class RegistryIdHasher {
+
+    /**
+     * Hash algorithms
+     */
+    enum Algorithm {
+        /**
+         * SHA-256 (256 bits)
+         */
+        SHA_256("sha256", 32),
+        /**
+         * Murmur3 (128 bits, non cryptographic)
+         */
+        MURMUR3_128("murmur3_128", 16);
+
+        private final String settingValue;
+        private final int hashLength;
+
+        private Algorithm(String settingValue, int hashLength) {
+            this.settingValue = settingValue;
+            this.hashLength = hashLength;
+        }
+
+        /**
+         * Get the algorithm by its setting value
+         *
+         * @param settingValue
+         * @return
+         * @throws IllegalArgumentException
+         *             if no algorithm matches the setting value
+         */
+        static Algorithm fromSettingValue(String settingValue) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.settingValue.equalsIgnoreCase(settingValue)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Unknown registry id hash algorithm '%s'", settingValue));
+        }
+    }
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final HashFunction MURMUR3_128 = Hashing.murmur3_128();
+
+    private final Algorithm algorithm;
+    private final ThreadLocal<State> state;
+
+    /**
+     * Constructs the hasher for the given algorithm
+     *
+     * @param algorithm
+     */
+    RegistryIdHasher(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        state = ThreadLocal.withInitial(() -> new State(algorithm));
+    }
+
+    /**
+     * Return the Base64 encoded hash of the provided components
+     *
+     * @param components
+     * @return
+     */
+    String hash(String... components) {
+        State currentState = state.get();
+        int length = 0;
+        for (String component : components) {
+            length = currentState.encode(component, length);
+        }
+        length = currentState.endEncoding(length);
+
+        byte[] hashCode = currentState.hashCode;
+        if (algorithm == Algorithm.SHA_256) {
+            MessageDigest digest = currentState.digest;
+            digest.update(currentState.buffer, 0, length);
+            try {
+                digest.digest(hashCode, 0, hashCode.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            MURMUR3_128.hashBytes(currentState.buffer, 0, length).writeBytesTo(hashCode, 0, hashCode.length);
+        }
+
+        int encodedLength = Base64.getEncoder().encode(hashCode, currentState.encodedHashCode);
+        return new String(currentState.encodedHashCode, 0, encodedLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Per thread hasher state
+     */
+    private static class State {
+
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private final MessageDigest digest;
+        private final byte[] hashCode;
+        private final byte[] encodedHashCode;
+        private char pendingHighSurrogate;
+
+        State(Algorithm algorithm) {
+            if (algorithm == Algorithm.SHA_256) {
+                try {
+                    digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                digest = null;
+            }
+            hashCode = new byte[algorithm.hashLength];
+            encodedHashCode = new byte[4 * ((algorithm.hashLength + 2) / 3)];
+        }
+
+        /**
+         * Append the UTF-8 encoding of the component to the buffer (malformed surrogates are replaced by '?' as {@link String#getBytes(java.nio.charset.Charset)} does).<br>
+         * A high surrogate ending the component is kept pending since it may be paired with a low surrogate starting the next one.
+         *
+         * @param component
+         * @param offset
+         *            the current buffer length
+         * @return the new buffer length
+         */
+        int encode(String component, int offset) {
+            int componentLength = component.length();
+            ensureCapacity(offset + 3 * componentLength + 4);
+            byte[] buf = buffer;
+            int pos = offset;
+            int i = 0;
+            if (pendingHighSurrogate != 0) {
+                if (componentLength > 0 && Character.isLowSurrogate(component.charAt(0))) {
+                    pos = encodeCodePoint(Character.toCodePoint(pendingHighSurrogate, component.charAt(0)), pos);
+                    i++;
+                    pendingHighSurrogate = 0;
+                } else if (componentLength > 0) {
+                    buf[pos++] = (byte) '?';
+                    pendingHighSurrogate = 0;
+                } else {
+                    return pos;
+                }
+            }
+            for (; i < componentLength; i++) {
+                char c = component.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xc0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < componentLength && Character.isLowSurrogate(component.charAt(i + 1))) {
+                        pos = encodeCodePoint(Character.toCodePoint(c, component.charAt(++i)), pos);
+                    } else if (Character.isHighSurrogate(c) && i + 1 == componentLength) {
+                        pendingHighSurrogate = c;
+                    } else {
+                        buf[pos++] = (byte) '?';
+                    }
+                } else {
+                    buf[pos++] = (byte) (0xe0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return pos;
+        }
+
+        /**
+         * Complete the encoding (replacing the pending high surrogate, if any)
+         *
+         * @param offset
+         *            the current buffer length
+         * @return the final buffer length
+         */
+        int endEncoding(int offset) {
+            if (pendingHighSurrogate == 0) {
+                return offset;
+            }
+            pendingHighSurrogate = 0;
+            ensureCapacity(offset + 1);
+            buffer[offset] = (byte) '?';
+            return offset + 1;
+        }
+
+        private int encodeCodePoint(int codePoint, int offset) {
+            byte[] buf = buffer;
+            buf[offset] = (byte) (0xf0 | (codePoint >> 18));
+            buf[offset + 1] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buf[offset + 2] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buf[offset + 3] = (byte) (0x80 | (codePoint & 0x3f));
+            return offset + 4;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (buffer.length < capacity) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+            }
+        }
+    }
+}
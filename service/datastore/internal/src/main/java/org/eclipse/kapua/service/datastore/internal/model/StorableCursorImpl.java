@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.KapuaErrorCodes;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.ScrollCursor;
+import org.eclipse.kapua.service.datastore.internal.mediator.DatastoreException;
+import org.eclipse.kapua.service.datastore.model.Storable;
+import org.eclipse.kapua.service.datastore.model.StorableCursor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Storable cursor implementation backed by a datastore client {@link ScrollCursor}.<br>
+ * The first page is fetched when the cursor is opened, so the failures of the query (i.e. a malformed query) are raised by {@link #open(ScrollCursor)}.
+ *
+ * @param <S>
+ *            storable type
+ * @since 1.1
+ */
+public class StorableCursorImpl<S extends Storable> implements StorableCursor<S> {
+
+    private final ScrollCursor<S> scrollCursor;
+    private List<S> firstPage;
+
+    private StorableCursorImpl(ScrollCursor<S> scrollCursor, List<S> firstPage) {
+        this.scrollCursor = scrollCursor;
+        this.firstPage = firstPage;
+    }
+
+    /**
+     * Open the cursor fetching the first page from the datastore client cursor.<br>
+     * The datastore client cursor is closed if the first page cannot be fetched.
+     *
+     * @param scrollCursor
+     * @return
+     * @throws ClientException
+     */
+    public static <S extends Storable> StorableCursorImpl<S> open(ScrollCursor<S> scrollCursor) throws ClientException {
+        List<S> firstPage;
+        try {
+            firstPage = scrollCursor.next().getResult();
+        } catch (ClientException | RuntimeException e) {
+            try {
+                scrollCursor.close();
+            } catch (ClientException | RuntimeException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+        return new StorableCursorImpl<>(scrollCursor, firstPage);
+    }
+
+    /**
+     * Get a cursor without storable objects
+     *
+     * @return
+     */
+    public static <S extends Storable> StorableCursorImpl<S> empty() {
+        return new StorableCursorImpl<>(null, Collections.<S>emptyList());
+    }
+
+    @Override
+    public List<S> next() throws KapuaException {
+        if (firstPage != null) {
+            List<S> page = firstPage;
+            firstPage = null;
+            return page;
+        }
+        if (scrollCursor == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return scrollCursor.next().getResult();
+        } catch (ClientException e) {
+            throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+        }
+    }
+
+    @Override
+    public void close() throws KapuaException {
+        if (scrollCursor != null) {
+            try {
+                scrollCursor.close();
+            } catch (ClientException e) {
+                throw new DatastoreException(KapuaErrorCodes.INTERNAL_ERROR, e);
+            }
+        }
+    }
+}
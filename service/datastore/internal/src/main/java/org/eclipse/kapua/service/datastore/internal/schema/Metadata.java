@@ -13,6 +13,7 @@ package org.eclipse.kapua.service.datastore.internal.schema;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.kapua.service.datastore.internal.mediator.Metric;
 
@@ -35,6 +36,11 @@ public class Metadata {
     private Map<String, Metric> messageMappingsCache;
     //
 
+    // Mappings waiting to be sent (guarded by the pending mappings map itself)
+    // and lock serializing the put mapping requests on the data index
+    private final Map<String, Metric> pendingMessageMappings = new HashMap<>();
+    private final Object messageMappingsLock = new Object();
+
     /**
      * Get the mappings cache
      * 
@@ -48,11 +54,29 @@ public class Metadata {
      * Contruct metadata
      */
     public Metadata(String dataIndexName, String registryIndexName) {
-        messageMappingsCache = new HashMap<String, Metric>(100);
+        messageMappingsCache = new ConcurrentHashMap<String, Metric>(100);
         this.dataIndexName = dataIndexName;
         this.registryIndexName = registryIndexName;
     }
 
+    /**
+     * Get the mappings waiting to be sent to the data index
+     *
+     * @return
+     */
+    Map<String, Metric> getPendingMessageMappings() {
+        return pendingMessageMappings;
+    }
+
+    /**
+     * Get the lock serializing the mappings updates of the data index
+     *
+     * @return
+     */
+    Object getMessageMappingsLock() {
+        return messageMappingsLock;
+    }
+
     /**
      * Get the Elasticsearch data index name
      * 
@@ -37,6 +37,9 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Datastore schema creation/update
@@ -47,6 +50,10 @@ public class Schema {
 
     private static final Logger LOG = LoggerFactory.getLogger(Schema.class);
 
+    // In flight index synchronizations, keyed by index name (the first caller synchronizes the index, the others wait for its outcome)
+    private static final Map<String, CompletableFuture<Metadata>> DATA_INDEX_SYNCHS = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Boolean>> REGISTRY_INDEX_SYNCHS = new ConcurrentHashMap<>();
+
     /**
      * Construct the Elasticsearch schema
      */
@@ -76,36 +83,36 @@ public class Schema {
             return currentMetadata;
         }
 
-        LOG.debug("Before entering updating metadata");
-        synchronized (Schema.class) {
-            LOG.debug("Entered updating metadata");
-            DatastoreClient datastoreClient = DatastoreClientFactory.getInstance();
-            // Check existence of the data index
-            IndexResponse dataIndexExistsResponse = datastoreClient.isIndexExists(new IndexRequest(dataIndexName));
-            if (!dataIndexExistsResponse.isIndexExists()) {
-                datastoreClient.createIndex(dataIndexName, getMappingSchema(dataIndexName));
-                LOG.info("Data index created: " + dataIndexName);
-            }
+        // Only the indexes involved are synchronized, so the index rollover of an account doesn't stall the others
+        return singleFlight(DATA_INDEX_SYNCHS, dataIndexName, () -> synchDataIndex(scopeId, dataIndexName));
+    }
 
-            boolean enableAllField = false;
-            boolean enableSourceField = true;
+    private Metadata synchDataIndex(KapuaId scopeId, String dataIndexName) throws ClientException {
+        // the metadata could have been cached by a synchronization completed in the meantime
+        Metadata currentMetadata = DatastoreCacheManager.getInstance().getMetadataCache().get(dataIndexName);
+        if (currentMetadata != null) {
+            return currentMetadata;
+        }
 
-            datastoreClient.putMapping(new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME), MessageSchema.getMesageTypeSchema(enableAllField, enableSourceField));
-            // Check existence of the kapua internal index
-            String registryIndexName = DatastoreUtils.getRegistryIndexName(scopeId);
-            IndexResponse registryIndexExistsResponse = datastoreClient.isIndexExists(new IndexRequest(registryIndexName));
-            if (!registryIndexExistsResponse.isIndexExists()) {
-                datastoreClient.createIndex(registryIndexName, getMappingSchema(registryIndexName));
-                LOG.info("Metadata index created: " + registryIndexExistsResponse);
+        LOG.debug("Entered updating metadata");
+        DatastoreClient datastoreClient = DatastoreClientFactory.getInstance();
+        // Check existence of the data index
+        IndexResponse dataIndexExistsResponse = datastoreClient.isIndexExists(new IndexRequest(dataIndexName));
+        if (!dataIndexExistsResponse.isIndexExists()) {
+            datastoreClient.createIndex(dataIndexName, getMappingSchema(dataIndexName));
+            LOG.info("Data index created: " + dataIndexName);
+        }
 
-                datastoreClient.putMapping(new TypeDescriptor(registryIndexName, ChannelInfoSchema.CHANNEL_TYPE_NAME), ChannelInfoSchema.getChannelTypeSchema(enableAllField, enableSourceField));
-                datastoreClient.putMapping(new TypeDescriptor(registryIndexName, MetricInfoSchema.METRIC_TYPE_NAME), MetricInfoSchema.getMetricTypeSchema(enableAllField, enableSourceField));
-                datastoreClient.putMapping(new TypeDescriptor(registryIndexName, ClientInfoSchema.CLIENT_TYPE_NAME), ClientInfoSchema.getClientTypeSchema(enableAllField, enableSourceField));
-            }
+        boolean enableAllField = false;
+        boolean enableSourceField = true;
 
-            currentMetadata = new Metadata(dataIndexName, registryIndexName);
-            LOG.debug("Leaving updating metadata");
-        }
+        datastoreClient.putMapping(new TypeDescriptor(dataIndexName, MessageSchema.MESSAGE_TYPE_NAME), MessageSchema.getMesageTypeSchema(enableAllField, enableSourceField));
+        // Check existence of the kapua internal index (shared by all the data indexes of the scope)
+        String registryIndexName = DatastoreUtils.getRegistryIndexName(scopeId);
+        singleFlight(REGISTRY_INDEX_SYNCHS, registryIndexName, () -> synchRegistryIndex(registryIndexName, enableAllField, enableSourceField));
+
+        currentMetadata = new Metadata(dataIndexName, registryIndexName);
+        LOG.debug("Leaving updating metadata");
 
         // Current metadata can only increase the custom mappings
         // other fields does not change within the same account id
@@ -116,8 +123,64 @@ public class Schema {
         return currentMetadata;
     }
 
+    private Boolean synchRegistryIndex(String registryIndexName, boolean enableAllField, boolean enableSourceField) throws ClientException {
+        DatastoreClient datastoreClient = DatastoreClientFactory.getInstance();
+        IndexResponse registryIndexExistsResponse = datastoreClient.isIndexExists(new IndexRequest(registryIndexName));
+        if (!registryIndexExistsResponse.isIndexExists()) {
+            datastoreClient.createIndex(registryIndexName, getMappingSchema(registryIndexName));
+            LOG.info("Metadata index created: " + registryIndexExistsResponse);
+
+            datastoreClient.putMapping(new TypeDescriptor(registryIndexName, ChannelInfoSchema.CHANNEL_TYPE_NAME), ChannelInfoSchema.getChannelTypeSchema(enableAllField, enableSourceField));
+            datastoreClient.putMapping(new TypeDescriptor(registryIndexName, MetricInfoSchema.METRIC_TYPE_NAME), MetricInfoSchema.getMetricTypeSchema(enableAllField, enableSourceField));
+            datastoreClient.putMapping(new TypeDescriptor(registryIndexName, ClientInfoSchema.CLIENT_TYPE_NAME), ClientInfoSchema.getClientTypeSchema(enableAllField, enableSourceField));
+            return true;
+        }
+        return false;
+    }
+
     /**
-     * Update metric mappings
+     * Execute the action only once for all the concurrent callers asking for the same key. The callers arriving while the action is running wait for its outcome.<br>
+     * Any failure of the action is reported to all the callers as {@link ClientException}.
+     *
+     * @param inFlight
+     * @param key
+     * @param action
+     * @return
+     * @throws ClientException
+     */
+    private static <T> T singleFlight(Map<String, CompletableFuture<T>> inFlight, String key, SchemaAction<T> action) throws ClientException {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> runningFuture = inFlight.putIfAbsent(key, future);
+        if (runningFuture == null) {
+            try {
+                future.complete(action.execute());
+            } catch (Throwable t) {
+                // whatever the failure the waiting callers must be released
+                future.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, future);
+            }
+        } else {
+            future = runningFuture;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(DatastoreErrorCodes.INTERNAL_ERROR, "Interrupted while synchronizing the index " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ClientException) {
+                throw (ClientException) e.getCause();
+            }
+            throw new ClientException(DatastoreErrorCodes.INTERNAL_ERROR, "Error while synchronizing the index " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Update metric mappings.<br>
+     * The mappings have to be in place before the message is stored, so the caller waits for them. Anyway the concurrent updates of the same data index are merged:
+     * the caller sending the put mapping request sends also the mappings added by the callers waiting for it.
      *
      * @param scopeId
      * @param time
@@ -137,21 +200,39 @@ public class Schema {
             throw new ClientException(DatastoreErrorCodes.CONFIGURATION_ERROR, "Error while generating index name", kaex);
         }
         Metadata currentMetadata = DatastoreCacheManager.getInstance().getMetadataCache().get(newIndex);
+        if (currentMetadata == null) {
+            // evicted from the cache in the meantime
+            currentMetadata = synch(scopeId, time);
+        }
 
-        ObjectNode metricsMapping = null;
-        Map<String, Metric> diffs = null;
+        // Update mappings only if a metric is new (not in cache)
+        Map<String, Metric> diffs = getMessageMappingDiffs(currentMetadata, metrics);
+        if (diffs == null || diffs.isEmpty()) {
+            return;
+        }
+        Map<String, Metric> pendingMappings = currentMetadata.getPendingMessageMappings();
+        synchronized (pendingMappings) {
+            pendingMappings.putAll(diffs);
+        }
 
-        synchronized (Schema.class) {
-            // Update mappings only if a metric is new (not in cache)
-            diffs = getMessageMappingDiffs(currentMetadata, metrics);
-            if (diffs == null || diffs.isEmpty()) {
+        synchronized (currentMetadata.getMessageMappingsLock()) {
+            Map<String, Metric> batch;
+            synchronized (pendingMappings) {
+                batch = new HashMap<>(pendingMappings);
+                pendingMappings.clear();
+            }
+            // the mappings of this caller could have been already sent (or lost because of a failure) by a previous request
+            batch.putAll(diffs);
+            batch.keySet().removeAll(currentMetadata.getMessageMappingsCache().keySet());
+            if (batch.isEmpty()) {
                 return;
             }
-            metricsMapping = getNewMessageMappingsBuilder(diffs);
-        }
 
-        LOG.trace("Sending dynamic message mappings: " + metricsMapping);
-        DatastoreClientFactory.getInstance().putMapping(new TypeDescriptor(currentMetadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME), metricsMapping);
+            ObjectNode metricsMapping = getNewMessageMappingsBuilder(batch);
+            LOG.trace("Sending dynamic message mappings: " + metricsMapping);
+            DatastoreClientFactory.getInstance().putMapping(new TypeDescriptor(currentMetadata.getDataIndexName(), MessageSchema.MESSAGE_TYPE_NAME), metricsMapping);
+            currentMetadata.getMessageMappingsCache().putAll(batch);
+        }
     }
 
     private ObjectNode getNewMessageMappingsBuilder(Map<String, Metric> esMetrics) throws DatamodelMappingException {
@@ -210,7 +291,6 @@ public class Schema {
                 if (diffs == null) {
                     diffs = new HashMap<>(100);
                 }
-                currentMetadata.getMessageMappingsCache().put(esMetric.getKey(), esMetric.getValue());
                 diffs.put(esMetric.getKey(), esMetric.getValue());
             }
         }
@@ -218,6 +298,17 @@ public class Schema {
         return diffs;
     }
 
+    /**
+     * Schema action executed by a single caller
+     *
+     * @param <T>
+     */
+    @FunctionalInterface
+    private interface SchemaAction<T> {
+
+        T execute() throws ClientException;
+    }
+
     private ObjectNode getMappingSchema(String idxName) throws DatamodelMappingException {
         String idxRefreshInterval = String.format("%ss", DatastoreSettings.getInstance().getLong(DatastoreSettingKey.INDEX_REFRESH_INTERVAL));
         Integer idxShardNumber = DatastoreSettings.getInstance().getInt(DatastoreSettingKey.INDEX_SHARD_NUMBER, 1);
@@ -38,6 +38,15 @@ public enum DatastoreSettingKey implements SettingKey {
      * Metadata cache maximum size
      */
     CONFIG_CACHE_METADATA_LOCAL_SIZE_MAXIMUM("datastore.cache.metadata.local.size.maximum"),
+    /**
+     * Number of the most recent metric registry entries preloaded in the metrics cache (per scope) before the first lookup (0 to disable the warm up).<br>
+     * It is capped to the 1/10 of {@link #CONFIG_CACHE_LOCAL_SIZE_MAXIMUM}
+     */
+    CONFIG_CACHE_METRICS_WARMUP_SIZE("datastore.cache.metrics.warmup.size"),
+    /**
+     * Hash algorithm used to derive the registry (client, channel and metric info) identifiers
+     */
+    CONFIG_REGISTRY_ID_HASH_ALGORITHM("datastore.registry.id.hash.algorithm"),
     /**
      * Enable datastore timing profile
      */
@@ -69,7 +78,31 @@ public enum DatastoreSettingKey implements SettingKey {
     /**
      * Elasticsearch index width. Allowed values: "week", "day", "hour"
      */
-    INDEXING_WINDOW_OPTION("datastore.index.window");
+    INDEXING_WINDOW_OPTION("datastore.index.window"),
+    /**
+     * Enable the bulk insert of the stored messages
+     */
+    CONFIG_INGESTION_BULK_ENABLED("datastore.ingestion.bulk.enabled"),
+    /**
+     * Maximum number of messages of a single bulk insert
+     */
+    CONFIG_INGESTION_BULK_SIZE_MAXIMUM("datastore.ingestion.bulk.size.maximum"),
+    /**
+     * Maximum estimated size (in bytes) of a single bulk insert
+     */
+    CONFIG_INGESTION_BULK_BYTES_MAXIMUM("datastore.ingestion.bulk.bytes.maximum"),
+    /**
+     * Maximum time (in milliseconds) a message waits for its bulk insert to be filled up
+     */
+    CONFIG_INGESTION_BULK_LINGER("datastore.ingestion.bulk.linger"),
+    /**
+     * Maximum time (in milliseconds) a message waits for its bulk insert acknowledgement
+     */
+    CONFIG_INGESTION_BULK_ACK_TIMEOUT("datastore.ingestion.bulk.ack.timeout"),
+    /**
+     * Maximum number of index patterns a message query on a timestamp range is restricted to (0 to always query all the account indexes)
+     */
+    CONFIG_QUERY_INDEX_PRUNING_MAXIMUM("datastore.query.index_pruning.maximum");
 
     private String key;
 
@@ -120,6 +120,26 @@ public class IndexCalculatorTest extends AbstractMessageStoreServiceTest {
         assertEquals("1-2017-01-02-12", hourIndexName);     // Index Hour is UTC!
     }
 
+    @Test
+    public void dataIndexNameByScopeIdAndTimestampWindow() throws KapuaException, ParseException {
+        long start = sdf.parse("02/01/2017 13:12 +0100").getTime();
+
+        // Index by Week
+        long end = sdf.parse("10/01/2017 13:12 +0100").getTime();
+        assertEquals("1-2017-01*,1-2017-02*", DatastoreUtils.getDataIndexName(KapuaId.ONE, start, end, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 64));
+
+        // Index by Hour
+        end = sdf.parse("02/01/2017 15:30 +0100").getTime();
+        assertEquals("1-2017-01-02-12*,1-2017-01-02-13*,1-2017-01-02-14*", DatastoreUtils.getDataIndexName(KapuaId.ONE, start, end, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 64));
+
+        // Too many hour indexes, coarsened to the day
+        assertEquals("1-2017-01-02*", DatastoreUtils.getDataIndexName(KapuaId.ONE, start, end, DatastoreUtils.INDEXING_WINDOW_OPTION_HOUR, 2));
+
+        // Open window or pruning disabled
+        assertEquals("1-*", DatastoreUtils.getDataIndexName(KapuaId.ONE, start, null, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 64));
+        assertEquals("1-*", DatastoreUtils.getDataIndexName(KapuaId.ONE, start, end, DatastoreUtils.INDEXING_WINDOW_OPTION_WEEK, 0));
+    }
+
     @Test
     public void registryIndexNameByScopeId() {
         assertEquals(".1", DatastoreUtils.getRegistryIndexName(KapuaId.ONE));
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal;
+
+import org.eclipse.kapua.service.datastore.client.ClientCommunicationException;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.DatastoreClient;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.BulkInsertResponse;
+import org.eclipse.kapua.service.datastore.client.model.InsertRequest;
+import org.eclipse.kapua.service.datastore.client.model.InsertResponse;
+import org.eclipse.kapua.service.datastore.client.model.TypeDescriptor;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Category(JUnitTests.class)
+public class MessageBulkInserterTest {
+
+    private static final TypeDescriptor TYPE_DESCRIPTOR = new TypeDescriptor("1-2018-01", "message");
+
+    private TestDatastore datastore;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        datastore = new TestDatastore();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchFlushedWhenFull() throws Exception {
+        // the linger time is longer than the test, so the batch is flushed by the caller filling it up
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 3, Long.MAX_VALUE, 60000L, 60000L);
+
+        List<Future<InsertResponse>> responses = insertConcurrently(bulkInserter, "1", "2", "3");
+
+        for (int i = 0; i < responses.size(); i++) {
+            InsertResponse insertResponse = responses.get(i).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(insertResponse.isResult());
+            Assert.assertEquals(String.valueOf(i + 1), insertResponse.getId());
+        }
+        Assert.assertEquals(1, datastore.bulkSizes.size());
+        Assert.assertEquals(3, datastore.bulkSizes.get(0).intValue());
+    }
+
+    @Test
+    public void testBatchFlushedAfterLinger() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 100, Long.MAX_VALUE, 10L, 60000L);
+
+        InsertResponse insertResponse = bulkInserter.insert(newInsertRequest("1"), 100);
+
+        Assert.assertTrue(insertResponse.isResult());
+        Assert.assertEquals(1, datastore.bulkSizes.size());
+        Assert.assertTrue(datastore.stored.contains("1"));
+    }
+
+    @Test
+    public void testPartialFailure() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 3, Long.MAX_VALUE, 60000L, 60000L);
+        datastore.itemFailures.put("2", 400);
+
+        List<Future<InsertResponse>> responses = insertConcurrently(bulkInserter, "1", "2", "3");
+
+        // only the refused message fails, the others of the same bulk are stored
+        Assert.assertTrue(responses.get(0).get(10, TimeUnit.SECONDS).isResult());
+        Assert.assertTrue(responses.get(2).get(10, TimeUnit.SECONDS).isResult());
+        try {
+            responses.get(1).get(10, TimeUnit.SECONDS);
+            Assert.fail("The refused message should fail!");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ClientException);
+            Assert.assertFalse(e.getCause() instanceof ClientCommunicationException);
+        }
+        Assert.assertEquals(1, datastore.bulkSizes.size());
+        Assert.assertEquals(2, datastore.stored.size());
+    }
+
+    @Test
+    public void testWholeBulkFailure() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 2, Long.MAX_VALUE, 60000L, 60000L);
+        datastore.bulkFailure = new ClientCommunicationException("Datastore unreachable", null);
+
+        List<Future<InsertResponse>> responses = insertConcurrently(bulkInserter, "1", "2");
+
+        for (Future<InsertResponse> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                Assert.fail("The bulk failure should be reported to every message!");
+            } catch (ExecutionException e) {
+                Assert.assertSame(datastore.bulkFailure, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedMessageIsRetriable() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 1, Long.MAX_VALUE, 60000L, 60000L);
+        datastore.itemFailures.put("1", 429);
+
+        try {
+            bulkInserter.insert(newInsertRequest("1"), 100);
+            Assert.fail("The rejected message should fail!");
+        } catch (ClientCommunicationException e) {
+            // the message is routed to the communication error queue and retried
+        }
+        Assert.assertTrue(datastore.stored.isEmpty());
+
+        Assert.assertTrue(bulkInserter.insert(newInsertRequest("1"), 100).isResult());
+        Assert.assertTrue(datastore.stored.contains("1"));
+    }
+
+    @Test
+    public void testRetryOfStoredMessage() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 1, Long.MAX_VALUE, 60000L, 60000L);
+        // the datastore stores the message but the acknowledgement is lost
+        datastore.failAfterStore = true;
+
+        try {
+            bulkInserter.insert(newInsertRequest("1"), 100);
+            Assert.fail("The lost acknowledgement should fail the message!");
+        } catch (ClientCommunicationException e) {
+            // the message is routed to the communication error queue and retried with the same id
+        }
+        datastore.failAfterStore = false;
+
+        InsertResponse insertResponse = bulkInserter.insert(newInsertRequest("1"), 100);
+
+        // the version conflict of the already stored message isn't a failure and the message isn't stored twice
+        Assert.assertTrue(insertResponse.isResult());
+        Assert.assertEquals("1", insertResponse.getId());
+        Assert.assertEquals(1, datastore.stored.size());
+        Assert.assertEquals(2, datastore.bulkSizes.size());
+    }
+
+    @Test
+    public void testAcknowledgementTimeout() throws Exception {
+        MessageBulkInserter bulkInserter = new MessageBulkInserter(datastore.client(), 2, Long.MAX_VALUE, 300L, 50L);
+        datastore.delayMillis = 1000L;
+
+        // the second message fills up the batch, so its caller flushes the slow bulk while the first caller waits for the acknowledgement
+        Future<InsertResponse> first = executor.submit(() -> bulkInserter.insert(newInsertRequest("1"), 100));
+        Thread.sleep(50L);
+        Future<InsertResponse> second = executor.submit(() -> bulkInserter.insert(newInsertRequest("2"), 100));
+
+        try {
+            first.get(10, TimeUnit.SECONDS);
+            Assert.fail("The first message should time out!");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ClientCommunicationException);
+        }
+        Assert.assertTrue(second.get(10, TimeUnit.SECONDS).isResult());
+        Assert.assertTrue(datastore.stored.contains("1"));
+
+        // the retry of the timed out message is acknowledged without storing it twice
+        datastore.delayMillis = 0L;
+        MessageBulkInserter retryBulkInserter = new MessageBulkInserter(datastore.client(), 1, Long.MAX_VALUE, 60000L, 60000L);
+        Assert.assertTrue(retryBulkInserter.insert(newInsertRequest("1"), 100).isResult());
+        Assert.assertEquals(2, datastore.stored.size());
+    }
+
+    private List<Future<InsertResponse>> insertConcurrently(MessageBulkInserter bulkInserter, String... ids) {
+        List<Future<InsertResponse>> responses = new ArrayList<>();
+        for (String id : ids) {
+            responses.add(executor.submit(() -> bulkInserter.insert(newInsertRequest(id), 100)));
+        }
+        return responses;
+    }
+
+    private static InsertRequest newInsertRequest(String id) {
+        return new InsertRequest(id, TYPE_DESCRIPTOR, new HashMap<String, Object>());
+    }
+
+    /**
+     * Datastore indexing the messages like the datastore clients do (fixed external version), so an already stored id is reported as a version conflict
+     */
+    private static class TestDatastore {
+
+        private final Set<String> stored = new HashSet<>();
+        private final Map<String, Integer> itemFailures = new HashMap<>();
+        private final List<Integer> bulkSizes = new ArrayList<>();
+        private volatile ClientException bulkFailure;
+        private volatile boolean failAfterStore;
+        private volatile long delayMillis;
+
+        DatastoreClient client() {
+            return (DatastoreClient) Proxy.newProxyInstance(DatastoreClient.class.getClassLoader(), new Class<?>[] { DatastoreClient.class }, (proxy, method, args) -> {
+                if ("insert".equals(method.getName()) && args[0] instanceof BulkInsertRequest) {
+                    return insert((BulkInsertRequest) args[0]);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private synchronized BulkInsertResponse insert(BulkInsertRequest bulkInsertRequest) throws ClientException, InterruptedException {
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            bulkSizes.add(bulkInsertRequest.getRequest().size());
+            if (bulkFailure != null) {
+                throw bulkFailure;
+            }
+            BulkInsertResponse bulkInsertResponse = new BulkInsertResponse();
+            for (InsertRequest insertRequest : bulkInsertRequest.getRequest()) {
+                String id = insertRequest.getId();
+                Integer failureStatus = itemFailures.remove(id);
+                if (failureStatus != null) {
+                    bulkInsertResponse.add(new InsertResponse(id, insertRequest.getTypeDescriptor(), "failure " + failureStatus, failureStatus));
+                } else if (!stored.add(id)) {
+                    bulkInsertResponse.add(new InsertResponse(id, insertRequest.getTypeDescriptor(), "version conflict", 409));
+                } else {
+                    InsertResponse insertResponse = new InsertResponse(id, insertRequest.getTypeDescriptor());
+                    insertResponse.setResult(true);
+                    bulkInsertResponse.add(insertResponse);
+                }
+            }
+            if (failAfterStore) {
+                throw new ClientCommunicationException("Bulk insert timeout", null);
+            }
+            return bulkInsertResponse;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.mediator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kapua.service.datastore.internal.mediator.RegistryIdHasher.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Registry id derivation benchmark (the string concatenation + SHA-256 implementation compared to the {@link RegistryIdHasher} algorithms).<br>
+ * Run it through the {@link #main(String[])} method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegistryIdHasherBenchmark {
+
+    private final String[] components = new String[] { "AQ", "device-0001", "telemetry/building-1/floor-2/room-3", "temperature.dbl" };
+
+    private final RegistryIdHasher sha256Hasher = new RegistryIdHasher(Algorithm.SHA_256);
+    private final RegistryIdHasher murmur3Hasher = new RegistryIdHasher(Algorithm.MURMUR3_128);
+
+    @Benchmark
+    public String concatSha256() {
+        String concatString = "";
+        for (String str : components) {
+            concatString = concatString.concat(str);
+        }
+        return Base64.getEncoder().encodeToString(Hashing.sha256().hashString(concatString, StandardCharsets.UTF_8).asBytes());
+    }
+
+    @Benchmark
+    public String hasherSha256() {
+        return sha256Hasher.hash(components);
+    }
+
+    @Benchmark
+    public String hasherMurmur3128() {
+        return murmur3Hasher.hash(components);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RegistryIdHasherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
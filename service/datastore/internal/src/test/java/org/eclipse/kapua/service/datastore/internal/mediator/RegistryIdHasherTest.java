@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.mediator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.eclipse.kapua.service.datastore.internal.mediator.RegistryIdHasher.Algorithm;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.common.hash.Hashing;
+
+@Category(JUnitTests.class)
+public class RegistryIdHasherTest {
+
+    private static final String[][] COMPONENTS = new String[][] {
+            { "AQ", "client-1", "topic/a/b", "temperature.dbl" },
+            { "AQ", "", "" },
+            { "AQ", "clïent-ü", "tøpic/€", "m😀" },
+            { "AQ", "broken\uD83D", "\uDE00surrogate" },
+            { "AQ", new String(new char[1000]).replace('\0', 'x') } };
+
+    @Test
+    public void testSha256MatchesConcatenatedComponents() {
+        RegistryIdHasher hasher = new RegistryIdHasher(Algorithm.SHA_256);
+        for (String[] components : COMPONENTS) {
+            String concatString = String.join("", components);
+            String expected = Base64.getEncoder().encodeToString(Hashing.sha256().hashString(concatString, StandardCharsets.UTF_8).asBytes());
+            Assert.assertEquals(expected, hasher.hash(components));
+        }
+    }
+
+    @Test
+    public void testMurmur3MatchesConcatenatedComponents() {
+        RegistryIdHasher hasher = new RegistryIdHasher(Algorithm.MURMUR3_128);
+        for (String[] components : COMPONENTS) {
+            String concatString = String.join("", components);
+            String expected = Base64.getEncoder().encodeToString(Hashing.murmur3_128().hashBytes(concatString.getBytes(StandardCharsets.UTF_8)).asBytes());
+            Assert.assertEquals(expected, hasher.hash(components));
+        }
+    }
+
+    @Test
+    public void testAlgorithmFromSettingValue() {
+        Assert.assertEquals(Algorithm.SHA_256, Algorithm.fromSettingValue("sha256"));
+        Assert.assertEquals(Algorithm.MURMUR3_128, Algorithm.fromSettingValue("MURMUR3_128"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAlgorithm() {
+        Algorithm.fromSettingValue("md5");
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.datastore.internal.model;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.service.datastore.client.ClientErrorCodes;
+import org.eclipse.kapua.service.datastore.client.ClientException;
+import org.eclipse.kapua.service.datastore.client.ScrollCursor;
+import org.eclipse.kapua.service.datastore.client.model.ResultList;
+import org.eclipse.kapua.service.datastore.model.DatastoreMessage;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(JUnitTests.class)
+public class StorableCursorImplTest {
+
+    @Test
+    public void testFirstPageFetchedOnOpen() throws Exception {
+        TestScrollCursor scrollCursor = new TestScrollCursor(3, Integer.MAX_VALUE, 5);
+
+        StorableCursorImpl<DatastoreMessage> cursor = StorableCursorImpl.open(scrollCursor);
+        Assert.assertEquals(1, scrollCursor.fetchedPages);
+
+        // the first page isn't fetched again
+        Assert.assertEquals(ids(0, 3), ids(cursor.next()));
+        Assert.assertEquals(1, scrollCursor.fetchedPages);
+        cursor.close();
+    }
+
+    @Test
+    public void testAllPagesRead() throws Exception {
+        TestScrollCursor scrollCursor = new TestScrollCursor(3, Integer.MAX_VALUE, 8);
+
+        List<String> readIds = new ArrayList<>();
+        try (StorableCursorImpl<DatastoreMessage> cursor = StorableCursorImpl.open(scrollCursor)) {
+            List<DatastoreMessage> page;
+            while (!(page = cursor.next()).isEmpty()) {
+                Assert.assertTrue(page.size() <= 3);
+                readIds.addAll(ids(page));
+            }
+            // no more pages after the last one
+            Assert.assertTrue(cursor.next().isEmpty());
+        }
+
+        Assert.assertEquals(ids(0, 8), readIds);
+        Assert.assertTrue(scrollCursor.closed);
+    }
+
+    @Test
+    public void testOpenFailureClosesCursor() {
+        TestScrollCursor scrollCursor = new TestScrollCursor(3, 0, 8);
+
+        try {
+            StorableCursorImpl.open(scrollCursor);
+            Assert.fail("The open should fail!");
+        } catch (ClientException e) {
+            Assert.assertTrue(scrollCursor.closed);
+        }
+    }
+
+    @Test
+    public void testNextFailure() throws Exception {
+        TestScrollCursor scrollCursor = new TestScrollCursor(3, 1, 8);
+
+        StorableCursorImpl<DatastoreMessage> cursor = StorableCursorImpl.open(scrollCursor);
+        cursor.next();
+        try {
+            cursor.next();
+            Assert.fail("The next page fetch should fail!");
+        } catch (KapuaException e) {
+            Assert.assertTrue(e.getCause() instanceof ClientException);
+        }
+        cursor.close();
+        Assert.assertTrue(scrollCursor.closed);
+    }
+
+    @Test
+    public void testEmptyCursor() throws Exception {
+        try (StorableCursorImpl<DatastoreMessage> cursor = StorableCursorImpl.empty()) {
+            Assert.assertTrue(cursor.next().isEmpty());
+            Assert.assertTrue(cursor.next().isEmpty());
+        }
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(String.valueOf(i));
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<DatastoreMessage> messages) {
+        List<String> ids = new ArrayList<>();
+        for (DatastoreMessage message : messages) {
+            ids.add(message.getDatastoreId().toString());
+        }
+        return ids;
+    }
+
+    /**
+     * Scroll cursor over the given number of messages, failing after the given number of fetched pages
+     */
+    private static class TestScrollCursor implements ScrollCursor<DatastoreMessage> {
+
+        private final int pageSize;
+        private final int failAfterPages;
+        private final int messagesCount;
+        private int fetchedPages;
+        private int position;
+        private boolean closed;
+
+        TestScrollCursor(int pageSize, int failAfterPages, int messagesCount) {
+            this.pageSize = pageSize;
+            this.failAfterPages = failAfterPages;
+            this.messagesCount = messagesCount;
+        }
+
+        @Override
+        public ResultList<DatastoreMessage> next() throws ClientException {
+            if (closed) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Scroll context not found");
+            }
+            if (fetchedPages == failAfterPages) {
+                throw new ClientException(ClientErrorCodes.ACTION_ERROR, "Search failed");
+            }
+            fetchedPages++;
+            ResultList<DatastoreMessage> page = new ResultList<>(messagesCount);
+            for (int i = 0; i < pageSize && position < messagesCount; i++, position++) {
+                DatastoreMessageImpl message = new DatastoreMessageImpl();
+                message.setDatastoreId(new StorableIdImpl(String.valueOf(position)));
+                page.add(message);
+            }
+            return page;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
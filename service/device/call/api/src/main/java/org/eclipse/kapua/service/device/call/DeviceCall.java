@@ -16,6 +16,8 @@ import org.eclipse.kapua.service.device.call.message.DeviceMessage;
 import org.eclipse.kapua.service.device.call.message.app.request.DeviceRequestMessage;
 import org.eclipse.kapua.service.device.call.message.app.response.DeviceResponseMessage;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Device call definition.
  *
@@ -85,6 +87,18 @@ public interface DeviceCall<RQ extends DeviceRequestMessage, RS extends DeviceRe
      */
     RS options(RQ requestMessage, Long timeout) throws KapuaException;
 
+    /**
+     * Sends the request without blocking while waiting for the response.<br>
+     * The command to execute is the method of the request channel.
+     *
+     * @param requestMessage
+     * @param timeout
+     * @return the {@link CompletableFuture} completed with the response, or exceptionally if the request fails or times out
+     * @throws KapuaException if the request cannot be sent
+     * @since 1.1.0
+     */
+    CompletableFuture<RS> sendAsync(RQ requestMessage, Long timeout) throws KapuaException;
+
     /**
      * Get the device base message type
      *
@@ -13,10 +13,9 @@
 package org.eclipse.kapua.service.device.call.kura;
 
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.DeviceCall;
 import org.eclipse.kapua.service.device.call.kura.exception.KuraMqttDeviceCallErrorCodes;
 import org.eclipse.kapua.service.device.call.kura.exception.KuraMqttDeviceCallException;
@@ -35,7 +34,10 @@ import org.eclipse.kapua.transport.message.TransportMessage;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * {@link DeviceCall} {@link Kura} implementation.
@@ -79,16 +81,36 @@ public class KuraDeviceCallImpl implements DeviceCall<KuraRequestMessage, KuraRe
         return send(requestMessage, timeout);
     }
 
-    @SuppressWarnings({ "unchecked" })
     private KuraResponseMessage send(KuraRequestMessage requestMessage, Long timeout)
             throws KuraMqttDeviceCallException {
+        CompletableFuture<KuraResponseMessage> response = sendAsync(requestMessage, timeout);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new KuraMqttDeviceCallException(KuraMqttDeviceCallErrorCodes.CLIENT_SEND_ERROR, e);
+        } catch (ExecutionException e) {
+            throw new KuraMqttDeviceCallException(KuraMqttDeviceCallErrorCodes.CLIENT_SEND_ERROR, e.getCause());
+        }
+    }
+
+    /**
+     * Sends the request through the transport of the broker node the device is connected to.<br>
+     * The requests waiting for a response share the connection to the broker node, so neither a transport client nor a thread is held while waiting.
+     * The response is translated by the transport thread which received it, so the long running dependent actions should use the asynchronous variants.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<KuraResponseMessage> sendAsync(KuraRequestMessage requestMessage, Long timeout)
+            throws KuraMqttDeviceCallException {
         KapuaLocator locator = KapuaLocator.getInstance();
         DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        AccountService accountService = locator.getService(AccountService.class);
-        KuraResponseMessage response = null;
         TransportFacade transportFacade = null;
         try {
-            Account account = KapuaSecurityUtils.doPrivileged(() -> accountService.findByName(requestMessage.getChannel().getScope()));
+            Account account = AccountCache.getInstance().findByName(requestMessage.getChannel().getScope());
             Device device = deviceRegistryService.findByClientId(account.getId(), requestMessage.getChannel().getClientId());
             String serverIp = device.getConnection().getServerIp();
 
@@ -108,9 +130,7 @@ public class KuraDeviceCallImpl implements DeviceCall<KuraRequestMessage, KuraRe
             KuraRequestChannel requestChannel = requestMessage.getChannel();
             KuraRequestPayload requestPayload = requestMessage.getPayload();
             if (timeout != null) {
-                // FIXME: create an utilty class to use the same synchronized random instance to avoid duplicates
-                Random r = new Random();
-                String requestId = String.valueOf(r.nextLong());
+                String requestId = String.valueOf(ThreadLocalRandom.current().nextLong());
 
                 requestChannel.setRequestId(requestId);
                 requestChannel.setRequesterClientId(transportFacade.getClientId());
@@ -126,10 +146,22 @@ public class KuraDeviceCallImpl implements DeviceCall<KuraRequestMessage, KuraRe
                 requestMessage.setTimestamp(new Date());
 
                 // Send
-                TransportMessage transportResponseMessage = transportFacade.sendSync((TransportMessage) translatorKuraTransport.translate(requestMessage), timeout);
+                TransportMessage transportRequestMessage = (TransportMessage) translatorKuraTransport.translate(requestMessage);
+                if (timeout == null) {
+                    transportFacade.sendAsync(transportRequestMessage);
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                CompletableFuture<TransportMessage> transportResponseMessage = transportFacade.sendRequest(transportRequestMessage, timeout);
 
                 // Translate response
-                response = (KuraResponseMessage) translatorTransportKura.translate(transportResponseMessage);
+                return transportResponseMessage.thenApply(transportMessage -> {
+                    try {
+                        return (KuraResponseMessage) translatorTransportKura.translate(transportMessage);
+                    } catch (KapuaException e) {
+                        throw new CompletionException(e);
+                    }
+                });
             } catch (KapuaException e) {
                 throw new KuraMqttDeviceCallException(KuraMqttDeviceCallErrorCodes.CLIENT_SEND_ERROR, e);
             }
@@ -140,8 +172,6 @@ public class KuraDeviceCallImpl implements DeviceCall<KuraRequestMessage, KuraRe
                 transportFacade.clean();
             }
         }
-
-        return response;
     }
 
     @Override
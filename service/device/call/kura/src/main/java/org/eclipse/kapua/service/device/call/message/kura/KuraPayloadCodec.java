@@ -0,0 +1,736 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.call.message.kura;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UninitializedMessageException;
+import com.google.protobuf.WireFormat;
+import org.eclipse.kapua.message.internal.MessageErrorCodes;
+import org.eclipse.kapua.message.internal.MessageException;
+import org.eclipse.kapua.service.device.call.message.DevicePosition;
+import org.eclipse.kapua.service.device.call.message.kura.proto.KuraPayloadProto;
+import org.eclipse.kapua.service.device.call.message.kura.utils.GZIPUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * {@link KuraPayload} protobuf codec.<br>
+ * <br>
+ * The payload is read straight from the received bytes with a {@link CodedInputStream}, without building the {@link KuraPayloadProto.KuraPayload} object graph.
+ * GZIP compressed payloads are inflated by a per thread {@link Inflater} into a per thread reused buffer.
+ * The metrics are validated while reading (as the generated parser does) but they are materialized only when {@link KuraPayload#getMetrics()} is first called.<br>
+ * <br>
+ * The payload is written straight into a byte array of the exact size, with the same encoding of {@link KuraPayloadProto.KuraPayload#toByteArray()}.
+ *
+ * @since 1.1
+ */
+final class KuraPayloadCodec {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KuraPayloadCodec.class);
+
+    private static final int TIMESTAMP_TAG = tag(KuraPayloadProto.KuraPayload.TIMESTAMP_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_TAG = tag(KuraPayloadProto.KuraPayload.POSITION_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_TAG = tag(KuraPayloadProto.KuraPayload.METRIC_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int BODY_TAG = tag(KuraPayloadProto.KuraPayload.BODY_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private static final int POSITION_LATITUDE_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.LATITUDE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_LONGITUDE_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.LONGITUDE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_ALTITUDE_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.ALTITUDE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_PRECISION_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.PRECISION_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_HEADING_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.HEADING_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_SPEED_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.SPEED_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_TIMESTAMP_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.TIMESTAMP_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_SATELLITES_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.SATELLITES_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_STATUS_TAG = tag(KuraPayloadProto.KuraPayload.KuraPosition.STATUS_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+
+    private static final int METRIC_NAME_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.NAME_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_TYPE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.TYPE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_DOUBLE_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.DOUBLE_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED64);
+    private static final int METRIC_FLOAT_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.FLOAT_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED32);
+    private static final int METRIC_LONG_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.LONG_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_INT_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.INT_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_BOOL_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.BOOL_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_STRING_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.STRING_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_BYTES_VALUE_TAG = tag(KuraPayloadProto.KuraPayload.KuraMetric.BYTES_VALUE_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private static final ThreadLocal<Inflation> INFLATION = ThreadLocal.withInitial(Inflation::new);
+
+    private KuraPayloadCodec() {
+    }
+
+    /**
+     * Read the payload from the protobuf encoded (and optionally GZIP compressed) bytes.<br>
+     * If the bytes are not compressed the not yet materialized metrics refer to them, so they must not be modified.
+     *
+     * @param bytes
+     * @param payload
+     * @throws MessageException
+     *             with {@link MessageErrorCodes#INVALID_MESSAGE} if the bytes are not a valid payload
+     */
+    static void decode(byte[] bytes, KuraPayload payload) throws MessageException {
+        if (GZIPUtils.isCompressed(bytes)) {
+            Inflation inflation = INFLATION.get();
+            try {
+                int length = inflation.inflate(bytes);
+                decode(inflation.buffer, length, true, payload);
+            } catch (IOException ioe) {
+                throw new MessageException(MessageErrorCodes.INVALID_MESSAGE, ioe, (Object[]) null);
+            } finally {
+                inflation.release();
+            }
+        } else {
+            try {
+                decode(bytes, bytes.length, false, payload);
+            } catch (IOException ioe) {
+                throw new MessageException(MessageErrorCodes.INVALID_MESSAGE, ioe, (Object[]) null);
+            }
+        }
+    }
+
+    /**
+     * Write the payload.
+     *
+     * @param payload
+     * @return the protobuf encoded payload
+     */
+    static byte[] encode(KuraPayload payload) {
+        Date timestamp = payload.getTimestamp();
+        DevicePosition position = payload.getPosition();
+        Map<String, Object> metrics = payload.getMetrics();
+        byte[] body = payload.getBody();
+
+        int size = 0;
+        if (timestamp != null) {
+            size += CodedOutputStream.computeInt64Size(KuraPayloadProto.KuraPayload.TIMESTAMP_FIELD_NUMBER, timestamp.getTime());
+        }
+
+        int positionSize = 0;
+        if (position != null) {
+            positionSize = computePositionSize(position);
+            size += CodedOutputStream.computeTagSize(KuraPayloadProto.KuraPayload.POSITION_FIELD_NUMBER) + CodedOutputStream.computeRawVarint32Size(positionSize) + positionSize;
+        }
+
+        String[] metricNames = new String[metrics.size()];
+        Object[] metricValues = new Object[metrics.size()];
+        int[] metricTypes = new int[metrics.size()];
+        int[] metricSizes = new int[metrics.size()];
+        int metricCount = 0;
+        for (Map.Entry<String, Object> metric : metrics.entrySet()) {
+            Object value = metric.getValue();
+            if (value != null) {
+                int type = getMetricType(metric.getKey(), value);
+                int metricSize = CodedOutputStream.computeStringSize(KuraPayloadProto.KuraPayload.KuraMetric.NAME_FIELD_NUMBER, metric.getKey()) +
+                        CodedOutputStream.computeEnumSize(KuraPayloadProto.KuraPayload.KuraMetric.TYPE_FIELD_NUMBER, type) +
+                        computeMetricValueSize(type, value);
+
+                metricNames[metricCount] = metric.getKey();
+                metricValues[metricCount] = value;
+                metricTypes[metricCount] = type;
+                metricSizes[metricCount] = metricSize;
+                metricCount++;
+
+                size += CodedOutputStream.computeTagSize(KuraPayloadProto.KuraPayload.METRIC_FIELD_NUMBER) + CodedOutputStream.computeRawVarint32Size(metricSize) + metricSize;
+            }
+        }
+
+        if (body != null) {
+            size += CodedOutputStream.computeByteArraySize(KuraPayloadProto.KuraPayload.BODY_FIELD_NUMBER, body);
+        }
+
+        byte[] bytes = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            if (timestamp != null) {
+                output.writeInt64(KuraPayloadProto.KuraPayload.TIMESTAMP_FIELD_NUMBER, timestamp.getTime());
+            }
+            if (position != null) {
+                output.writeTag(KuraPayloadProto.KuraPayload.POSITION_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeRawVarint32(positionSize);
+                writePosition(output, position);
+            }
+            for (int i = 0; i < metricCount; i++) {
+                output.writeTag(KuraPayloadProto.KuraPayload.METRIC_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeRawVarint32(metricSizes[i]);
+                output.writeString(KuraPayloadProto.KuraPayload.KuraMetric.NAME_FIELD_NUMBER, metricNames[i]);
+                output.writeEnum(KuraPayloadProto.KuraPayload.KuraMetric.TYPE_FIELD_NUMBER, metricTypes[i]);
+                writeMetricValue(output, metricTypes[i], metricValues[i]);
+            }
+            if (body != null) {
+                output.writeByteArray(KuraPayloadProto.KuraPayload.BODY_FIELD_NUMBER, body);
+            }
+        } catch (IOException ioe) {
+            // Cannot happen writing to a byte array of the computed size
+            throw new IllegalStateException("Serializing to a byte array threw an IOException (should never happen)", ioe);
+        }
+        output.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    /**
+     * Materialize the metrics read by {@link #decode(byte[], KuraPayload)}
+     *
+     * @param encodedMetrics
+     * @param metrics
+     *            the map where the metrics are put
+     */
+    static void decodeMetrics(EncodedMetrics encodedMetrics, Map<String, Object> metrics) {
+        for (int i = 0; i < encodedMetrics.count; i++) {
+            CodedInputStream input = CodedInputStream.newInstance(encodedMetrics.source, encodedMetrics.offsets[i], encodedMetrics.lengths[i]);
+            try {
+                readMetric(input, metrics);
+            } catch (IOException ioe) {
+                // Cannot happen since the metric has already been validated by the decode
+                LOG.warn("During deserialization, ignoring invalid metric", ioe);
+            }
+        }
+    }
+
+    //
+    // Private methods
+    //
+
+    private static void decode(byte[] bytes, int length, boolean pooled, KuraPayload payload) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(bytes, 0, length);
+
+        Long timestamp = null;
+        PositionFields position = null;
+        EncodedMetrics metrics = null;
+        byte[] body = null;
+
+        boolean done = false;
+        while (!done) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                done = true;
+            } else if (tag == TIMESTAMP_TAG) {
+                timestamp = input.readInt64();
+            } else if (tag == POSITION_TAG) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                position = readPosition(input, position != null ? position : new PositionFields());
+                input.checkLastTagWas(0);
+                input.popLimit(limit);
+            } else if (tag == METRIC_TAG) {
+                int metricLength = input.readRawVarint32();
+                int metricOffset = input.getTotalBytesRead();
+                int limit = input.pushLimit(metricLength);
+                validateMetric(input);
+                input.checkLastTagWas(0);
+                input.popLimit(limit);
+                if (metrics == null) {
+                    metrics = new EncodedMetrics(bytes);
+                }
+                metrics.add(metricOffset, metricLength);
+            } else if (tag == BODY_TAG) {
+                body = input.readByteArray();
+            } else if (!input.skipField(tag)) {
+                done = true;
+            }
+        }
+
+        if (position != null && (position.latitude == null || position.longitude == null)) {
+            throw new InvalidProtocolBufferException("Message missing required fields: position.latitude, position.longitude");
+        }
+
+        //
+        // Set the payload
+        if (timestamp != null) {
+            payload.timestamp = new Date(timestamp);
+        }
+        if (position != null) {
+            payload.position = position.toDevicePosition(payload.position);
+        }
+        if (metrics != null) {
+            payload.setEncodedMetrics(pooled ? metrics.copy() : metrics);
+        }
+        if (body != null) {
+            payload.body = body;
+        }
+    }
+
+    private static PositionFields readPosition(CodedInputStream input, PositionFields position) throws IOException {
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                return position;
+            } else if (tag == POSITION_LATITUDE_TAG) {
+                position.latitude = input.readDouble();
+            } else if (tag == POSITION_LONGITUDE_TAG) {
+                position.longitude = input.readDouble();
+            } else if (tag == POSITION_ALTITUDE_TAG) {
+                position.altitude = input.readDouble();
+            } else if (tag == POSITION_PRECISION_TAG) {
+                position.precision = input.readDouble();
+            } else if (tag == POSITION_HEADING_TAG) {
+                position.heading = input.readDouble();
+            } else if (tag == POSITION_SPEED_TAG) {
+                position.speed = input.readDouble();
+            } else if (tag == POSITION_TIMESTAMP_TAG) {
+                position.timestamp = input.readInt64();
+            } else if (tag == POSITION_SATELLITES_TAG) {
+                position.satellites = input.readInt32();
+            } else if (tag == POSITION_STATUS_TAG) {
+                position.status = input.readInt32();
+            } else if (!input.skipField(tag)) {
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Check the metric without materializing the name and the value
+     */
+    private static void validateMetric(CodedInputStream input) throws IOException {
+        boolean hasName = false;
+        boolean hasType = false;
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            } else if (tag == METRIC_NAME_TAG) {
+                input.skipField(tag);
+                hasName = true;
+            } else if (tag == METRIC_TYPE_TAG) {
+                // as the generated parser, an unknown type is ignored
+                hasType |= KuraPayloadProto.KuraPayload.KuraMetric.ValueType.valueOf(input.readEnum()) != null;
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+        if (!hasName || !hasType) {
+            throw new InvalidProtocolBufferException("Message missing required fields: metric.name, metric.type");
+        }
+    }
+
+    private static void readMetric(CodedInputStream input, Map<String, Object> metrics) throws IOException {
+        String name = null;
+        KuraPayloadProto.KuraPayload.KuraMetric.ValueType type = null;
+        Object doubleValue = null;
+        Object floatValue = null;
+        Object longValue = null;
+        Object intValue = null;
+        Object boolValue = null;
+        Object stringValue = null;
+        Object bytesValue = null;
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            } else if (tag == METRIC_NAME_TAG) {
+                name = input.readString();
+            } else if (tag == METRIC_TYPE_TAG) {
+                KuraPayloadProto.KuraPayload.KuraMetric.ValueType readType = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.valueOf(input.readEnum());
+                type = readType != null ? readType : type;
+            } else if (tag == METRIC_DOUBLE_VALUE_TAG) {
+                doubleValue = input.readDouble();
+            } else if (tag == METRIC_FLOAT_VALUE_TAG) {
+                floatValue = input.readFloat();
+            } else if (tag == METRIC_LONG_VALUE_TAG) {
+                longValue = input.readInt64();
+            } else if (tag == METRIC_INT_VALUE_TAG) {
+                intValue = input.readInt32();
+            } else if (tag == METRIC_BOOL_VALUE_TAG) {
+                boolValue = input.readBool();
+            } else if (tag == METRIC_STRING_VALUE_TAG) {
+                stringValue = input.readString();
+            } else if (tag == METRIC_BYTES_VALUE_TAG) {
+                bytesValue = input.readByteArray();
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+
+        if (type == null) {
+            // Cannot happen since the metric has already been validated by the decode
+            return;
+        }
+
+        //
+        // The missing value is the default value of the type
+        Object value;
+        switch (type) {
+        case DOUBLE:
+            value = doubleValue != null ? doubleValue : 0d;
+            break;
+        case FLOAT:
+            value = floatValue != null ? floatValue : 0f;
+            break;
+        case INT64:
+            value = longValue != null ? longValue : 0L;
+            break;
+        case INT32:
+            value = intValue != null ? intValue : 0;
+            break;
+        case BOOL:
+            value = boolValue != null ? boolValue : Boolean.FALSE;
+            break;
+        case STRING:
+            value = stringValue != null ? stringValue : "";
+            break;
+        case BYTES:
+            value = bytesValue != null ? bytesValue : new byte[0];
+            break;
+        default:
+            LOG.warn("During deserialization, ignoring metric named: {}. Unrecognized value type: {}", name, type);
+            return;
+        }
+        metrics.put(name, value);
+    }
+
+    private static int getMetricType(String name, Object value) {
+        KuraPayloadProto.KuraPayload.KuraMetric.ValueType type;
+        if (value instanceof String) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.STRING;
+        } else if (value instanceof Double) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.DOUBLE;
+        } else if (value instanceof Integer) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.INT32;
+        } else if (value instanceof Float) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.FLOAT;
+        } else if (value instanceof Long) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.INT64;
+        } else if (value instanceof Boolean) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.BOOL;
+        } else if (value instanceof byte[]) {
+            type = KuraPayloadProto.KuraPayload.KuraMetric.ValueType.BYTES;
+        } else {
+            LOG.error("During serialization, ignoring metric named: {}. Unrecognized value type: {}.", name, value.getClass().getName());
+            throw new RuntimeException(new MessageException(MessageErrorCodes.INVALID_METRIC_TYPE, null, value.getClass().getName()));
+        }
+        return type.getNumber();
+    }
+
+    private static int computeMetricValueSize(int type, Object value) {
+        switch (KuraPayloadProto.KuraPayload.KuraMetric.ValueType.valueOf(type)) {
+        case DOUBLE:
+            return CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraMetric.DOUBLE_VALUE_FIELD_NUMBER, (Double) value);
+        case FLOAT:
+            return CodedOutputStream.computeFloatSize(KuraPayloadProto.KuraPayload.KuraMetric.FLOAT_VALUE_FIELD_NUMBER, (Float) value);
+        case INT64:
+            return CodedOutputStream.computeInt64Size(KuraPayloadProto.KuraPayload.KuraMetric.LONG_VALUE_FIELD_NUMBER, (Long) value);
+        case INT32:
+            return CodedOutputStream.computeInt32Size(KuraPayloadProto.KuraPayload.KuraMetric.INT_VALUE_FIELD_NUMBER, (Integer) value);
+        case BOOL:
+            return CodedOutputStream.computeBoolSize(KuraPayloadProto.KuraPayload.KuraMetric.BOOL_VALUE_FIELD_NUMBER, (Boolean) value);
+        case STRING:
+            return CodedOutputStream.computeStringSize(KuraPayloadProto.KuraPayload.KuraMetric.STRING_VALUE_FIELD_NUMBER, (String) value);
+        default:
+            return CodedOutputStream.computeByteArraySize(KuraPayloadProto.KuraPayload.KuraMetric.BYTES_VALUE_FIELD_NUMBER, (byte[]) value);
+        }
+    }
+
+    private static void writeMetricValue(CodedOutputStream output, int type, Object value) throws IOException {
+        switch (KuraPayloadProto.KuraPayload.KuraMetric.ValueType.valueOf(type)) {
+        case DOUBLE:
+            output.writeDouble(KuraPayloadProto.KuraPayload.KuraMetric.DOUBLE_VALUE_FIELD_NUMBER, (Double) value);
+            break;
+        case FLOAT:
+            output.writeFloat(KuraPayloadProto.KuraPayload.KuraMetric.FLOAT_VALUE_FIELD_NUMBER, (Float) value);
+            break;
+        case INT64:
+            output.writeInt64(KuraPayloadProto.KuraPayload.KuraMetric.LONG_VALUE_FIELD_NUMBER, (Long) value);
+            break;
+        case INT32:
+            output.writeInt32(KuraPayloadProto.KuraPayload.KuraMetric.INT_VALUE_FIELD_NUMBER, (Integer) value);
+            break;
+        case BOOL:
+            output.writeBool(KuraPayloadProto.KuraPayload.KuraMetric.BOOL_VALUE_FIELD_NUMBER, (Boolean) value);
+            break;
+        case STRING:
+            output.writeString(KuraPayloadProto.KuraPayload.KuraMetric.STRING_VALUE_FIELD_NUMBER, (String) value);
+            break;
+        default:
+            output.writeByteArray(KuraPayloadProto.KuraPayload.KuraMetric.BYTES_VALUE_FIELD_NUMBER, (byte[]) value);
+            break;
+        }
+    }
+
+    private static int computePositionSize(DevicePosition position) {
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            throw new UninitializedMessageException(Arrays.asList("latitude", "longitude"));
+        }
+
+        int size = CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.LATITUDE_FIELD_NUMBER, position.getLatitude()) +
+                CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.LONGITUDE_FIELD_NUMBER, position.getLongitude());
+        if (position.getAltitude() != null) {
+            size += CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.ALTITUDE_FIELD_NUMBER, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            size += CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.PRECISION_FIELD_NUMBER, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            size += CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.HEADING_FIELD_NUMBER, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            size += CodedOutputStream.computeDoubleSize(KuraPayloadProto.KuraPayload.KuraPosition.SPEED_FIELD_NUMBER, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            size += CodedOutputStream.computeInt64Size(KuraPayloadProto.KuraPayload.KuraPosition.TIMESTAMP_FIELD_NUMBER, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            size += CodedOutputStream.computeInt32Size(KuraPayloadProto.KuraPayload.KuraPosition.SATELLITES_FIELD_NUMBER, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            size += CodedOutputStream.computeInt32Size(KuraPayloadProto.KuraPayload.KuraPosition.STATUS_FIELD_NUMBER, position.getStatus());
+        }
+        return size;
+    }
+
+    private static void writePosition(CodedOutputStream output, DevicePosition position) throws IOException {
+        output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.LATITUDE_FIELD_NUMBER, position.getLatitude());
+        output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.LONGITUDE_FIELD_NUMBER, position.getLongitude());
+        if (position.getAltitude() != null) {
+            output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.ALTITUDE_FIELD_NUMBER, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.PRECISION_FIELD_NUMBER, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.HEADING_FIELD_NUMBER, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            output.writeDouble(KuraPayloadProto.KuraPayload.KuraPosition.SPEED_FIELD_NUMBER, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            output.writeInt64(KuraPayloadProto.KuraPayload.KuraPosition.TIMESTAMP_FIELD_NUMBER, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            output.writeInt32(KuraPayloadProto.KuraPayload.KuraPosition.SATELLITES_FIELD_NUMBER, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            output.writeInt32(KuraPayloadProto.KuraPayload.KuraPosition.STATUS_FIELD_NUMBER, position.getStatus());
+        }
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return fieldNumber << 3 | wireType;
+    }
+
+    /**
+     * Metrics not yet materialized: the offsets and the lengths of the encoded metrics in the source bytes
+     */
+    static class EncodedMetrics {
+
+        private final byte[] source;
+        private int[] offsets = new int[16];
+        private int[] lengths = new int[16];
+        private int count;
+
+        private EncodedMetrics(byte[] source) {
+            this.source = source;
+        }
+
+        private void add(int offset, int length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        /**
+         * Copy the encoded metrics out of the source bytes (that will be reused)
+         */
+        private EncodedMetrics copy() {
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                size += lengths[i];
+            }
+            EncodedMetrics copy = new EncodedMetrics(new byte[size]);
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(source, offsets[i], copy.source, offset, lengths[i]);
+                copy.add(offset, lengths[i]);
+                offset += lengths[i];
+            }
+            return copy;
+        }
+    }
+
+    private static class PositionFields {
+
+        private Double latitude;
+        private Double longitude;
+        private Double altitude;
+        private Double precision;
+        private Double heading;
+        private Double speed;
+        private Long timestamp;
+        private Integer satellites;
+        private Integer status;
+
+        private DevicePosition toDevicePosition(DevicePosition devicePosition) {
+            if (devicePosition == null) {
+                devicePosition = new KuraPosition();
+            }
+            devicePosition.setLatitude(latitude);
+            devicePosition.setLongitude(longitude);
+            if (altitude != null) {
+                devicePosition.setAltitude(altitude);
+            }
+            if (precision != null) {
+                devicePosition.setPrecision(precision);
+            }
+            if (heading != null) {
+                devicePosition.setHeading(heading);
+            }
+            if (speed != null) {
+                devicePosition.setSpeed(speed);
+            }
+            if (timestamp != null) {
+                devicePosition.setTimestamp(new Date(timestamp));
+            }
+            if (satellites != null) {
+                devicePosition.setSatellites(satellites);
+            }
+            if (status != null) {
+                devicePosition.setStatus(status);
+            }
+            return devicePosition;
+        }
+    }
+
+    /**
+     * Per thread GZIP inflation state: the {@link Inflater} and the buffer are reused by the next decode of the same thread
+     */
+    private static class Inflation {
+
+        private static final int BUFFER_SIZE_INITIAL = 8 * 1024;
+        private static final int BUFFER_SIZE_MAX_POOLED = 1024 * 1024;
+
+        private static final int GZIP_HEADER_SIZE = 10;
+        private static final int GZIP_TRAILER_SIZE = 8;
+        private static final int GZIP_DEFLATE = 8;
+        private static final int GZIP_FLAG_HCRC = 2;
+        private static final int GZIP_FLAG_EXTRA = 4;
+        private static final int GZIP_FLAG_NAME = 8;
+        private static final int GZIP_FLAG_COMMENT = 16;
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[BUFFER_SIZE_INITIAL];
+
+        /**
+         * Inflate the GZIP members of the source into the buffer
+         *
+         * @return the inflated length
+         */
+        private int inflate(byte[] source) throws IOException {
+            int length = 0;
+            int position = 0;
+            do {
+                position = readHeader(source, position);
+
+                inflater.reset();
+                inflater.setInput(source, position, source.length - position);
+                crc.reset();
+                int memberStart = length;
+                while (!inflater.finished()) {
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int inflated;
+                    try {
+                        inflated = inflater.inflate(buffer, length, buffer.length - length);
+                    } catch (DataFormatException dfe) {
+                        throw new ZipException(dfe.getMessage());
+                    }
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                    length += inflated;
+                }
+                crc.update(buffer, memberStart, length - memberStart);
+
+                position = source.length - inflater.getRemaining();
+                if (source.length - position < GZIP_TRAILER_SIZE) {
+                    throw new EOFException("Unexpected end of GZIP input stream");
+                }
+                if (readInt(source, position) != (int) crc.getValue() || readInt(source, position + 4) != length - memberStart) {
+                    throw new ZipException("Corrupt GZIP trailer");
+                }
+                position += GZIP_TRAILER_SIZE;
+            } while (GZIPUtils.isCompressed(source, position));
+            return length;
+        }
+
+        /**
+         * Do not keep a buffer grown too much by a large payload
+         */
+        private void release() {
+            if (buffer.length > BUFFER_SIZE_MAX_POOLED) {
+                buffer = new byte[BUFFER_SIZE_INITIAL];
+            }
+        }
+
+        private static int readHeader(byte[] source, int position) throws IOException {
+            if (source.length - position < GZIP_HEADER_SIZE) {
+                throw new EOFException("Unexpected end of GZIP input stream");
+            }
+            if ((source[position + 2] & 0xff) != GZIP_DEFLATE) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = source[position + 3] & 0xff;
+            position += GZIP_HEADER_SIZE;
+            if ((flags & GZIP_FLAG_EXTRA) != 0) {
+                checkAvailable(source, position, 2);
+                position += 2 + ((source[position] & 0xff) | (source[position + 1] & 0xff) << 8);
+            }
+            if ((flags & GZIP_FLAG_NAME) != 0) {
+                position = skipZeroTerminated(source, position);
+            }
+            if ((flags & GZIP_FLAG_COMMENT) != 0) {
+                position = skipZeroTerminated(source, position);
+            }
+            if ((flags & GZIP_FLAG_HCRC) != 0) {
+                position += 2;
+            }
+            checkAvailable(source, position, 0);
+            return position;
+        }
+
+        private static int skipZeroTerminated(byte[] source, int position) throws EOFException {
+            while (true) {
+                checkAvailable(source, position, 1);
+                if (source[position++] == 0) {
+                    return position;
+                }
+            }
+        }
+
+        private static void checkAvailable(byte[] source, int position, int length) throws EOFException {
+            if (position + length > source.length) {
+                throw new EOFException("Unexpected end of GZIP input stream");
+            }
+        }
+
+        private static int readInt(byte[] source, int position) {
+            return (source[position] & 0xff) |
+                    (source[position + 1] & 0xff) << 8 |
+                    (source[position + 2] & 0xff) << 16 |
+                    (source[position + 3] & 0xff) << 24;
+        }
+    }
+}
@@ -39,10 +39,22 @@ public class GZIPUtils {
      * @return {@code true} if the data is compressed, {@code false} otherwise.
      */
     public static boolean isCompressed(byte[] bytes) {
-        if (bytes == null || bytes.length < 2) {
+        return isCompressed(bytes, 0);
+    }
+
+    /**
+     * Check if the byte array, starting from the given offset, represents compressed data
+     *
+     * @param bytes  The input data to check
+     * @param offset The offset of the data to check
+     * @return {@code true} if the data is compressed, {@code false} otherwise.
+     * @since 1.1
+     */
+    public static boolean isCompressed(byte[] bytes, int offset) {
+        if (bytes == null || bytes.length - offset < 2) {
             return false;
         } else {
-            return bytes[0] == (byte) GZIPInputStream.GZIP_MAGIC && bytes[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+            return bytes[offset] == (byte) GZIPInputStream.GZIP_MAGIC && bytes[offset + 1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
         }
     }
 
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.call.message.kura;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.service.device.call.message.kura.proto.KuraPayloadProto;
+import org.eclipse.kapua.service.device.call.message.kura.utils.GZIPUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.ByteString;
+
+/**
+ * {@link KuraPayloadCodec} benchmark, compared with the generated protobuf code.<br>
+ * The small payload is a telemetry message with a few metrics, the large one is a birth-like message with many metrics and a body.
+ * Run with the {@code -prof gc} option to compare the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KuraPayloadCodecBenchmark {
+
+    @Param({ "small", "large" })
+    private String size;
+
+    @Param({ "false", "true" })
+    private boolean compressed;
+
+    private KuraPayload kuraPayload;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        int metricCount = "small".equals(size) ? 5 : 200;
+        int bodySize = "small".equals(size) ? 0 : 16 * 1024;
+
+        KuraPosition position = new KuraPosition();
+        position.setLatitude(45.5);
+        position.setLongitude(13.1);
+        position.setTimestamp(new Date());
+
+        kuraPayload = new KuraPayload();
+        kuraPayload.setTimestamp(new Date());
+        kuraPayload.setPosition(position);
+        for (int i = 0; i < metricCount; i++) {
+            switch (i % 4) {
+            case 0:
+                kuraPayload.getMetrics().put("metric_" + i, "value_" + i);
+                break;
+            case 1:
+                kuraPayload.getMetrics().put("metric_" + i, i * 1.5d);
+                break;
+            case 2:
+                kuraPayload.getMetrics().put("metric_" + i, (long) i);
+                break;
+            default:
+                kuraPayload.getMetrics().put("metric_" + i, i % 2 == 0);
+                break;
+            }
+        }
+        if (bodySize > 0) {
+            byte[] body = new byte[bodySize];
+            for (int i = 0; i < body.length; i++) {
+                body[i] = (byte) ('a' + i % 26);
+            }
+            kuraPayload.setBody(body);
+        }
+
+        bytes = kuraPayload.toByteArray();
+        if (compressed) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+                out.write(bytes);
+            }
+            bytes = result.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeGenerated() throws IOException {
+        byte[] protoBytes = bytes;
+        if (GZIPUtils.isCompressed(protoBytes)) {
+            try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(protoBytes))) {
+                protoBytes = ByteStreams.toByteArray(inputStream);
+            }
+        }
+        KuraPayloadProto.KuraPayload protoMsg = KuraPayloadProto.KuraPayload.parseFrom(protoBytes);
+        Map<String, Object> metrics = new HashMap<>();
+        for (KuraPayloadProto.KuraPayload.KuraMetric metric : protoMsg.getMetricList()) {
+            switch (metric.getType()) {
+            case DOUBLE:
+                metrics.put(metric.getName(), metric.getDoubleValue());
+                break;
+            case INT64:
+                metrics.put(metric.getName(), metric.getLongValue());
+                break;
+            case BOOL:
+                metrics.put(metric.getName(), metric.getBoolValue());
+                break;
+            default:
+                metrics.put(metric.getName(), metric.getStringValue());
+                break;
+            }
+        }
+        metrics.put("body", protoMsg.getBody().toByteArray());
+        return metrics;
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeCodec() throws KapuaException {
+        KuraPayload decoded = new KuraPayload();
+        decoded.readFromByteArray(bytes);
+        return decoded.getMetrics();
+    }
+
+    @Benchmark
+    public KuraPayload decodeCodecWithoutMetrics() throws KapuaException {
+        KuraPayload decoded = new KuraPayload();
+        decoded.readFromByteArray(bytes);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] encodeGenerated() {
+        KuraPayloadProto.KuraPayload.Builder protoMsg = KuraPayloadProto.KuraPayload.newBuilder()
+                .setTimestamp(kuraPayload.getTimestamp().getTime())
+                .setPosition(KuraPayloadProto.KuraPayload.KuraPosition.newBuilder()
+                        .setLatitude(kuraPayload.getPosition().getLatitude())
+                        .setLongitude(kuraPayload.getPosition().getLongitude())
+                        .setTimestamp(kuraPayload.getPosition().getTimestamp().getTime()));
+        kuraPayload.getMetrics().forEach((name, value) -> {
+            KuraPayloadProto.KuraPayload.KuraMetric.Builder metric = KuraPayloadProto.KuraPayload.KuraMetric.newBuilder().setName(name);
+            if (value instanceof String) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.STRING).setStringValue((String) value);
+            } else if (value instanceof Double) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.DOUBLE).setDoubleValue((Double) value);
+            } else if (value instanceof Long) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.INT64).setLongValue((Long) value);
+            } else {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.BOOL).setBoolValue((Boolean) value);
+            }
+            protoMsg.addMetric(metric);
+        });
+        if (kuraPayload.getBody() != null) {
+            protoMsg.setBody(ByteString.copyFrom(kuraPayload.getBody()));
+        }
+        return protoMsg.build().toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeCodec() {
+        return kuraPayload.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KuraPayloadCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
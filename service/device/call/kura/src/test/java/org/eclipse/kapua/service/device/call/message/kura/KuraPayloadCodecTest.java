@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.call.message.kura;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.kapua.message.internal.MessageException;
+import org.eclipse.kapua.service.device.call.message.kura.proto.KuraPayloadProto;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.protobuf.ByteString;
+
+@Category(JUnitTests.class)
+public class KuraPayloadCodecTest {
+
+    @Test
+    public void testEncodeAsGeneratedCode() throws Exception {
+        KuraPayload kuraPayload = newKuraPayload();
+
+        KuraPayloadProto.KuraPayload.Builder protoMsg = KuraPayloadProto.KuraPayload.newBuilder()
+                .setTimestamp(kuraPayload.getTimestamp().getTime())
+                .setPosition(KuraPayloadProto.KuraPayload.KuraPosition.newBuilder()
+                        .setLatitude(45.5)
+                        .setLongitude(13.1)
+                        .setAltitude(120.0)
+                        .setTimestamp(kuraPayload.getPosition().getTimestamp().getTime())
+                        .setSatellites(7));
+        kuraPayload.getMetrics().forEach((name, value) -> {
+            KuraPayloadProto.KuraPayload.KuraMetric.Builder metric = KuraPayloadProto.KuraPayload.KuraMetric.newBuilder().setName(name);
+            if (value instanceof String) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.STRING).setStringValue((String) value);
+            } else if (value instanceof Double) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.DOUBLE).setDoubleValue((Double) value);
+            } else if (value instanceof Float) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.FLOAT).setFloatValue((Float) value);
+            } else if (value instanceof Long) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.INT64).setLongValue((Long) value);
+            } else if (value instanceof Integer) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.INT32).setIntValue((Integer) value);
+            } else if (value instanceof Boolean) {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.BOOL).setBoolValue((Boolean) value);
+            } else {
+                metric.setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.BYTES).setBytesValue(ByteString.copyFrom((byte[]) value));
+            }
+            protoMsg.addMetric(metric);
+        });
+        protoMsg.setBody(ByteString.copyFrom(kuraPayload.getBody()));
+
+        Assert.assertArrayEquals(protoMsg.build().toByteArray(), kuraPayload.toByteArray());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        KuraPayload kuraPayload = newKuraPayload();
+        byte[] bytes = kuraPayload.toByteArray();
+
+        assertEquals(kuraPayload, read(bytes));
+        assertEquals(kuraPayload, read(compress(bytes)));
+
+        // the metrics of a compressed payload must not refer to the reused inflate buffer
+        KuraPayload compressedPayload = read(compress(bytes));
+        read(compress(new KuraPayload().toByteArray()));
+        assertEquals(kuraPayload, compressedPayload);
+    }
+
+    @Test
+    public void testDecodeDefaultValues() throws Exception {
+        KuraPayloadProto.KuraPayload protoMsg = KuraPayloadProto.KuraPayload.newBuilder()
+                .addMetric(KuraPayloadProto.KuraPayload.KuraMetric.newBuilder().setName("double").setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.DOUBLE))
+                .addMetric(KuraPayloadProto.KuraPayload.KuraMetric.newBuilder().setName("string").setType(KuraPayloadProto.KuraPayload.KuraMetric.ValueType.STRING))
+                .build();
+
+        KuraPayload kuraPayload = read(protoMsg.toByteArray());
+        Assert.assertEquals(0d, kuraPayload.getMetrics().get("double"));
+        Assert.assertEquals("", kuraPayload.getMetrics().get("string"));
+        Assert.assertNull(kuraPayload.getTimestamp());
+        Assert.assertNull(kuraPayload.getPosition());
+        Assert.assertNull(kuraPayload.getBody());
+    }
+
+    @Test
+    public void testDecodeInvalid() throws Exception {
+        // metric without the required type
+        byte[] bytes = KuraPayloadProto.KuraPayload.newBuilder()
+                .addMetric(KuraPayloadProto.KuraPayload.KuraMetric.newBuilder().setName("metric").buildPartial())
+                .buildPartial()
+                .toByteArray();
+        assertInvalid(bytes);
+        assertInvalid(compress(bytes));
+
+        byte[] valid = compress(newKuraPayload().toByteArray());
+        assertInvalid(new byte[] { 0x0a, 0x05, 0x01 });
+        assertInvalid(Arrays.copyOf(valid, valid.length - 4));
+    }
+
+    private static KuraPayload newKuraPayload() {
+        KuraPosition position = new KuraPosition();
+        position.setLatitude(45.5);
+        position.setLongitude(13.1);
+        position.setAltitude(120.0);
+        position.setTimestamp(new Date(1500000000000L));
+        position.setSatellites(7);
+
+        KuraPayload kuraPayload = new KuraPayload();
+        kuraPayload.setTimestamp(new Date(1500000001000L));
+        kuraPayload.setPosition(position);
+        kuraPayload.getMetrics().put("string", "value è");
+        kuraPayload.getMetrics().put("double", 1.5d);
+        kuraPayload.getMetrics().put("float", 2.5f);
+        kuraPayload.getMetrics().put("long", -3L);
+        kuraPayload.getMetrics().put("int", 4);
+        kuraPayload.getMetrics().put("bool", true);
+        kuraPayload.getMetrics().put("bytes", new byte[] { 1, 2, 3 });
+        kuraPayload.setBody("body".getBytes(StandardCharsets.UTF_8));
+        return kuraPayload;
+    }
+
+    private static byte[] compress(byte[] bytes) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+            out.write(bytes);
+        }
+        return result.toByteArray();
+    }
+
+    private static KuraPayload read(byte[] bytes) throws Exception {
+        KuraPayload kuraPayload = new KuraPayload();
+        kuraPayload.readFromByteArray(bytes);
+        return kuraPayload;
+    }
+
+    private static void assertInvalid(byte[] bytes) throws Exception {
+        try {
+            read(bytes);
+            Assert.fail("The payload should not be valid");
+        } catch (MessageException e) {
+            // expected
+        }
+    }
+
+    private static void assertEquals(KuraPayload expected, KuraPayload actual) {
+        Assert.assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        Assert.assertEquals(expected.getPosition().getLatitude(), actual.getPosition().getLatitude());
+        Assert.assertEquals(expected.getPosition().getLongitude(), actual.getPosition().getLongitude());
+        Assert.assertEquals(expected.getPosition().getAltitude(), actual.getPosition().getAltitude());
+        Assert.assertEquals(expected.getPosition().getTimestamp(), actual.getPosition().getTimestamp());
+        Assert.assertEquals(expected.getPosition().getSatellites(), actual.getPosition().getSatellites());
+        Assert.assertNull(actual.getPosition().getSpeed());
+        Assert.assertEquals(expected.getMetrics().size(), actual.getMetrics().size());
+        expected.getMetrics().forEach((name, value) -> {
+            if (value instanceof byte[]) {
+                Assert.assertArrayEquals(name, (byte[]) value, (byte[]) actual.getMetrics().get(name));
+            } else {
+                Assert.assertEquals(name, value, actual.getMetrics().get(name));
+            }
+        });
+        Assert.assertArrayEquals(expected.getBody(), actual.getBody());
+    }
+}
@@ -25,7 +25,13 @@ public enum KapuaDeviceRegistrySettingKeys implements SettingKey {
      * The key value in the configuration resources.
      */
     DEVICE_REGISTRY_KEY("device_registry.key"),
-    DEVICE_EVENT_ADDRESS("device.eventAddress");
+    DEVICE_EVENT_ADDRESS("device.eventAddress"),
+    /**
+     * The window (in seconds) in which the repeated births of a device (with the same connection and payload) are coalesced. 0 to disable the coalescing.
+     *
+     * @since 1.1
+     */
+    DEVICE_LIFECYCLE_BIRTH_COALESCE_WINDOW("device.lifecycle.birth.coalesce_window");
 
     private String key;
 
@@ -18,6 +18,8 @@ import org.eclipse.kapua.service.KapuaEntityService;
 import org.eclipse.kapua.service.KapuaUpdatableEntityService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 
+import java.util.List;
+
 /**
  * DeviceConnectionService exposes APIs to retrieve Device connections under a scope.
  * It includes APIs to find, list, and update devices connections associated with a scope.
@@ -39,6 +41,19 @@ public interface DeviceConnectionService extends KapuaEntityService<DeviceConnec
     DeviceConnection findByClientId(KapuaId scopeId, String clientId)
             throws KapuaException;
 
+    /**
+     * Update the connection info (status, client and server ip, protocol, user and allow user change flag) of the provided device connections in a single transaction.<br>
+     * The other fields are left untouched, so the provided device connections may be stale copies.<br>
+     * A status change to {@link DeviceConnectionStatus#DISCONNECTED} or {@link DeviceConnectionStatus#MISSING} is skipped if the server ip of the stored connection
+     * doesn't match the provided one (the device is meanwhile connected to another server).
+     *
+     * @param deviceConnections
+     * @throws KapuaException
+     * @since 1.1
+     */
+    void updateStatus(List<DeviceConnection> deviceConnections)
+            throws KapuaException;
+
     /**
      * Returns the {@link DeviceConnectionListResult} with elements matching the provided query.
      *
@@ -20,6 +20,7 @@ import org.eclipse.kapua.model.query.KapuaQuery;
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionCreator;
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionListResult;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
 
 /**
  * Device connection DAO
@@ -64,6 +65,34 @@ public class DeviceConnectionDAO extends ServiceDAO {
         return ServiceDAO.update(em, DeviceConnectionImpl.class, deviceConnectionImpl);
     }
 
+    /**
+     * Copy the connection info of the provided device connection to the stored one (without flushing, so all the updates of the same transaction are written on commit)
+     *
+     * @param em
+     * @param deviceConnection
+     * @throws KapuaEntityNotFoundException If the {@link DeviceConnection} is not found.
+     * @since 1.1
+     */
+    public static void updateStatus(EntityManager em, DeviceConnection deviceConnection)
+            throws KapuaException {
+        DeviceConnection deviceConnectionToUpdate = find(em, deviceConnection.getScopeId(), deviceConnection.getId());
+        if (deviceConnectionToUpdate == null) {
+            throw new KapuaEntityNotFoundException(DeviceConnection.TYPE, deviceConnection.getId());
+        }
+        if (!DeviceConnectionStatus.CONNECTED.equals(deviceConnection.getStatus()) &&
+                deviceConnectionToUpdate.getServerIp() != null &&
+                !deviceConnectionToUpdate.getServerIp().equals(deviceConnection.getServerIp())) {
+            // the device is connected to another server
+            return;
+        }
+        deviceConnectionToUpdate.setStatus(deviceConnection.getStatus());
+        deviceConnectionToUpdate.setClientIp(deviceConnection.getClientIp());
+        deviceConnectionToUpdate.setServerIp(deviceConnection.getServerIp());
+        deviceConnectionToUpdate.setProtocol(deviceConnection.getProtocol());
+        deviceConnectionToUpdate.setUserId(deviceConnection.getUserId());
+        deviceConnectionToUpdate.setAllowUserChange(deviceConnection.getAllowUserChange());
+    }
+
     /**
      * Find the device connection by device connection identifier
      *
@@ -34,9 +34,12 @@ import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionList
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionQuery;
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
 import org.eclipse.kapua.service.device.registry.internal.DeviceEntityManagerFactory;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceConnectionCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * DeviceConnectionService exposes APIs to retrieve Device connections under a scope.
  * It includes APIs to find, list, and update devices connections associated with a scope.
@@ -96,12 +99,40 @@ public class DeviceConnectionServiceImpl extends
         PermissionFactory permissionFactory = locator.getFactory(PermissionFactory.class);
         authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_CONNECTION_DOMAIN, Actions.write, null));
 
-        return entityManagerSession.onTransactedResult(em -> {
+        DeviceConnection updatedDeviceConnection = entityManagerSession.onTransactedResult(em -> {
             if (DeviceConnectionDAO.find(em, deviceConnection.getScopeId(), deviceConnection.getId()) == null) {
                 throw new KapuaEntityNotFoundException(DeviceConnection.TYPE, deviceConnection.getId());
             }
             return DeviceConnectionDAO.update(em, deviceConnection);
         });
+        // the user coupling may have been changed
+        DeviceConnectionCache.getInstance().invalidate(updatedDeviceConnection.getScopeId(), updatedDeviceConnection.getClientId());
+        return updatedDeviceConnection;
+    }
+
+    @Override
+    public void updateStatus(List<DeviceConnection> deviceConnections)
+            throws KapuaException {
+        //
+        // Argument Validation
+        ArgumentValidator.notNull(deviceConnections, "deviceConnections");
+        for (DeviceConnection deviceConnection : deviceConnections) {
+            ArgumentValidator.notNull(deviceConnection.getId(), "deviceConnection.id");
+            ArgumentValidator.notNull(deviceConnection.getScopeId(), "deviceConnection.scopeId");
+        }
+
+        //
+        // Check Access
+        KapuaLocator locator = KapuaLocator.getInstance();
+        AuthorizationService authorizationService = locator.getService(AuthorizationService.class);
+        PermissionFactory permissionFactory = locator.getFactory(PermissionFactory.class);
+        authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_CONNECTION_DOMAIN, Actions.write, null));
+
+        entityManagerSession.onTransactedAction(em -> {
+            for (DeviceConnection deviceConnection : deviceConnections) {
+                DeviceConnectionDAO.updateStatus(em, deviceConnection);
+            }
+        });
     }
 
     @Override
@@ -193,12 +224,15 @@ public class DeviceConnectionServiceImpl extends
         PermissionFactory permissionFactory = locator.getFactory(PermissionFactory.class);
         authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_CONNECTION_DOMAIN, Actions.write, null));
 
-        entityManagerSession.onTransactedAction(em -> {
-            if (DeviceConnectionDAO.find(em, scopeId, deviceConnectionId) == null) {
+        DeviceConnection deletedDeviceConnection = entityManagerSession.onTransactedResult(em -> {
+            DeviceConnection deviceConnection = DeviceConnectionDAO.find(em, scopeId, deviceConnectionId);
+            if (deviceConnection == null) {
                 throw new KapuaEntityNotFoundException(DeviceConnection.TYPE, deviceConnectionId);
             }
             DeviceConnectionDAO.delete(em, scopeId, deviceConnectionId);
+            return deviceConnection;
         });
+        DeviceConnectionCache.getInstance().invalidate(scopeId, deletedDeviceConnection.getClientId());
     }
 
     @Override
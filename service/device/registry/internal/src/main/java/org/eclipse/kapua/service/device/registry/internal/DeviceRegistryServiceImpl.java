@@ -33,6 +33,7 @@ import org.eclipse.kapua.service.device.registry.DeviceAttributes;
 import org.eclipse.kapua.service.device.registry.DeviceQuery;
 import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
 import org.eclipse.kapua.service.device.registry.common.DeviceValidation;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,7 +78,10 @@ public class DeviceRegistryServiceImpl extends AbstractKapuaConfigurableResource
         if (!deviceListResult.isEmpty()) {
             throw new KapuaDuplicateNameException(deviceCreator.getClientId());
         }
-        return entityManagerSession.onTransactedInsert(entityManager -> DeviceDAO.create(entityManager, deviceCreator));
+        Device device = entityManagerSession.onTransactedInsert(entityManager -> DeviceDAO.create(entityManager, deviceCreator));
+        // the client id may be cached as unknown
+        DeviceIdentityResolver.getInstance().invalidate(device.getScopeId(), device.getClientId());
+        return device;
     }
 
     @Override
@@ -115,7 +119,14 @@ public class DeviceRegistryServiceImpl extends AbstractKapuaConfigurableResource
     @Override
     public void delete(KapuaId scopeId, KapuaId deviceId) throws KapuaException {
         DeviceValidation.validateDeletePreconditions(scopeId, deviceId);
-        entityManagerSession.onTransactedAction(entityManager -> DeviceDAO.delete(entityManager, scopeId, deviceId));
+        Device deletedDevice = entityManagerSession.onTransactedResult(entityManager -> {
+            Device device = DeviceDAO.find(entityManager, scopeId, deviceId);
+            DeviceDAO.delete(entityManager, scopeId, deviceId);
+            return device;
+        });
+        if (deletedDevice != null) {
+            DeviceIdentityResolver.getInstance().invalidate(scopeId, deletedDevice.getClientId());
+        }
     }
 
     @Override
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.registry.internal.cache;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.device.registry.ConnectionUserCouplingMode;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
+import org.eclipse.kapua.service.device.registry.connection.internal.DeviceConnectionImpl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Read through cache of the device connections by scope id and client id, used by the broker login.<br>
+ * The cache holds immutable snapshots with just the fields read by the login: the user coupling (user, reserved user, coupling mode and allow user change flag)
+ * and the connection info (status, client and server ip, protocol). The callers get a new (partial) {@link DeviceConnection} copy on every lookup,
+ * so the cached state is never shared with them.<br>
+ * <br>
+ * A snapshot expires after the configured time since it has been loaded from the database, also if the connection info has been updated meanwhile
+ * through {@link #updateConnectionInfo(DeviceConnection)} (that never changes the user coupling).
+ * The {@link DeviceConnectionService} invalidates the snapshot on update and delete, while the other nodes see the change once the snapshot expires
+ * (see {@link CacheProviders} for the {@code device.registry.connection} cache configuration).
+ *
+ * @since 1.1
+ */
+public final class DeviceConnectionCache {
+
+    private static final long CACHE_SIZE_MAX = 100000;
+    private static final int CACHE_EXPIRE_AFTER = 60;
+
+    private static final DeviceConnectionCache INSTANCE = new DeviceConnectionCache("device.registry.connection", CACHE_EXPIRE_AFTER, System::currentTimeMillis);
+
+    private final Cache<String, Snapshot> snapshots;
+    private final long expireAfterMillis;
+    private final LongSupplier clock;
+    private final AtomicLong version = new AtomicLong();
+
+    DeviceConnectionCache(String name, int expireAfter, LongSupplier clock) {
+        CacheConfiguration<String, Snapshot> configuration = new CacheConfiguration<>(CACHE_SIZE_MAX, expireAfter);
+        snapshots = CacheProviders.newCache(name, configuration, null);
+        // the configuration may be overridden by the settings
+        expireAfterMillis = TimeUnit.SECONDS.toMillis(configuration.getExpireAfter());
+        this.clock = clock;
+    }
+
+    /**
+     * Get the device connection cache instance
+     *
+     * @return
+     */
+    public static DeviceConnectionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Find the device connection by scope id and client id
+     *
+     * @param scopeId
+     * @param clientId
+     * @param loader
+     *            loads the device connection from the database if no valid snapshot is cached
+     * @return a new partial copy of the device connection or null if no device connection is found
+     * @throws KapuaException
+     */
+    public DeviceConnection get(KapuaId scopeId, String clientId, Callable<DeviceConnection> loader) throws KapuaException {
+        String key = getKey(scopeId, clientId);
+        Snapshot snapshot = getSnapshot(key);
+        if (snapshot == null) {
+            long currentVersion = version.get();
+            DeviceConnection deviceConnection;
+            try {
+                deviceConnection = loader.call();
+            } catch (KapuaException e) {
+                throw e;
+            } catch (Exception e) {
+                throw KapuaException.internalError(e);
+            }
+            if (deviceConnection == null) {
+                return null;
+            }
+            snapshot = new Snapshot(deviceConnection, clock.getAsLong());
+            cache(key, snapshot, currentVersion);
+        }
+        return snapshot.toDeviceConnection();
+    }
+
+    /**
+     * Cache the device connection just loaded from the database (i.e. just created)
+     *
+     * @param deviceConnection
+     */
+    public void put(DeviceConnection deviceConnection) {
+        long currentVersion = version.get();
+        cache(getKey(deviceConnection.getScopeId(), deviceConnection.getClientId()), new Snapshot(deviceConnection, clock.getAsLong()), currentVersion);
+    }
+
+    /**
+     * Update the connection info (status, client and server ip, protocol, user and allow user change flag) of the cached snapshot, if any.<br>
+     * The expiration time of the snapshot is not changed.
+     *
+     * @param deviceConnection
+     */
+    public void updateConnectionInfo(DeviceConnection deviceConnection) {
+        long currentVersion = version.get();
+        String key = getKey(deviceConnection.getScopeId(), deviceConnection.getClientId());
+        Snapshot snapshot = getSnapshot(key);
+        if (snapshot != null && snapshot.id.equals(deviceConnection.getId())) {
+            cache(key, snapshot.withConnectionInfo(deviceConnection), currentVersion);
+        }
+    }
+
+    /**
+     * Remove the device connection from the cache
+     *
+     * @param scopeId
+     * @param clientId
+     */
+    public void invalidate(KapuaId scopeId, String clientId) {
+        version.incrementAndGet();
+        snapshots.remove(getKey(scopeId, clientId));
+    }
+
+    private Snapshot getSnapshot(String key) {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && clock.getAsLong() - snapshot.loadedOn >= expireAfterMillis) {
+            snapshots.remove(key);
+            return null;
+        }
+        return snapshot;
+    }
+
+    private void cache(String key, Snapshot snapshot, long loadVersion) {
+        if (version.get() != loadVersion) {
+            return;
+        }
+        snapshots.put(key, snapshot);
+        // the device connection may have been changed while it was cached
+        if (version.get() != loadVersion) {
+            snapshots.remove(key);
+        }
+    }
+
+    private static String getKey(KapuaId scopeId, String clientId) {
+        return scopeId.toCompactId() + ':' + clientId;
+    }
+
+    /**
+     * Immutable device connection snapshot
+     */
+    private static final class Snapshot {
+
+        private final KapuaId id;
+        private final KapuaId scopeId;
+        private final String clientId;
+        private final KapuaId userId;
+        private final boolean allowUserChange;
+        private final ConnectionUserCouplingMode userCouplingMode;
+        private final KapuaId reservedUserId;
+        private final DeviceConnectionStatus status;
+        private final String protocol;
+        private final String clientIp;
+        private final String serverIp;
+        private final long loadedOn;
+
+        private Snapshot(DeviceConnection deviceConnection, long loadedOn) {
+            this(deviceConnection, deviceConnection.getUserCouplingMode(), deviceConnection.getReservedUserId(), loadedOn);
+        }
+
+        private Snapshot(DeviceConnection deviceConnection, ConnectionUserCouplingMode userCouplingMode, KapuaId reservedUserId, long loadedOn) {
+            id = deviceConnection.getId();
+            scopeId = deviceConnection.getScopeId();
+            clientId = deviceConnection.getClientId();
+            userId = deviceConnection.getUserId();
+            allowUserChange = deviceConnection.getAllowUserChange();
+            this.userCouplingMode = userCouplingMode;
+            this.reservedUserId = reservedUserId;
+            status = deviceConnection.getStatus();
+            protocol = deviceConnection.getProtocol();
+            clientIp = deviceConnection.getClientIp();
+            serverIp = deviceConnection.getServerIp();
+            this.loadedOn = loadedOn;
+        }
+
+        /**
+         * @return a new snapshot with the connection info of the provided device connection and the other fields (and the load time) of this one
+         */
+        private Snapshot withConnectionInfo(DeviceConnection deviceConnection) {
+            return new Snapshot(deviceConnection, userCouplingMode, reservedUserId, loadedOn);
+        }
+
+        private DeviceConnection toDeviceConnection() {
+            DeviceConnectionImpl deviceConnection = new DeviceConnectionImpl(scopeId);
+            deviceConnection.setId(id);
+            deviceConnection.setClientId(clientId);
+            deviceConnection.setUserId(userId);
+            deviceConnection.setAllowUserChange(allowUserChange);
+            deviceConnection.setUserCouplingMode(userCouplingMode);
+            deviceConnection.setReservedUserId(reservedUserId);
+            deviceConnection.setStatus(status);
+            deviceConnection.setProtocol(protocol);
+            deviceConnection.setClientIp(clientIp);
+            deviceConnection.setServerIp(serverIp);
+            return deviceConnection;
+        }
+    }
+}
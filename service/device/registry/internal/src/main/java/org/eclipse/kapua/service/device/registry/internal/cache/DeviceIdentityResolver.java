@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.registry.internal.cache;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
+import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.account.Account;
+import org.eclipse.kapua.service.device.registry.Device;
+import org.eclipse.kapua.service.device.registry.DeviceAttributes;
+import org.eclipse.kapua.service.device.registry.DeviceListResult;
+import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.DeviceQueryImpl;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read through resolver of the device identity (the scope id and the device id) from the account name and the client id of the inbound device messages.<br>
+ * The account is resolved through the {@link AccountCache}, the device id through a cache of the device ids by scope id and client id.
+ * The unknown client ids are cached too, for a shorter time, so a client publishing before (or without) registering does not query the device registry on every message.<br>
+ * The devices are looked up through the {@link DeviceRegistryService} without authorization checks, so the caller is responsible for checking the access to the resolved device.<br>
+ * <br>
+ * The {@link DeviceRegistryService} invalidates the device identity on create and delete (the client id of a device cannot be updated), while the other nodes see the change once the cached identity expires
+ * (see {@link CacheProviders} for the {@code device.registry.identity} and {@code device.registry.identity.unknown} cache configurations).
+ *
+ * @since 1.1
+ */
+public final class DeviceIdentityResolver {
+
+    private static final long CACHE_SIZE_MAX = 100000;
+    private static final int CACHE_EXPIRE_AFTER = 300;
+    private static final int UNKNOWN_CACHE_EXPIRE_AFTER = 10;
+
+    private static final DeviceIdentityResolver INSTANCE = new DeviceIdentityResolver();
+
+    private final Cache<DeviceKey, KapuaId> deviceIds;
+    private final Cache<DeviceKey, Boolean> unknownDevices;
+    private final AtomicLong version = new AtomicLong();
+
+    private DeviceIdentityResolver() {
+        deviceIds = CacheProviders.newCache("device.registry.identity", new CacheConfiguration<>(CACHE_SIZE_MAX, CACHE_EXPIRE_AFTER), null);
+        unknownDevices = CacheProviders.newCache("device.registry.identity.unknown", new CacheConfiguration<>(CACHE_SIZE_MAX, UNKNOWN_CACHE_EXPIRE_AFTER), null);
+    }
+
+    /**
+     * Get the device identity resolver instance
+     *
+     * @return
+     */
+    public static DeviceIdentityResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Resolve the device identity
+     *
+     * @param accountName
+     *            the account name (the scope of the device messages)
+     * @param clientId
+     *            the client id
+     * @return the device identity or null if no account is found. The device id of the identity is null if no device is found.
+     * @throws KapuaException
+     */
+    public DeviceIdentity resolve(String accountName, String clientId) throws KapuaException {
+        Account account = AccountCache.getInstance().findByName(accountName);
+        if (account == null) {
+            return null;
+        }
+        return new DeviceIdentity(account.getId(), findDeviceId(account.getId(), clientId));
+    }
+
+    /**
+     * Find the device id by scope id and client id
+     *
+     * @param scopeId
+     * @param clientId
+     * @return the device id or null if no device is found
+     * @throws KapuaException
+     */
+    public KapuaId findDeviceId(KapuaId scopeId, String clientId) throws KapuaException {
+        DeviceKey deviceKey = new DeviceKey(scopeId, clientId);
+        KapuaId deviceId = deviceIds.get(deviceKey);
+        if (deviceId == null && unknownDevices.get(deviceKey) == null) {
+            long currentVersion = version.get();
+
+            DeviceQueryImpl query = new DeviceQueryImpl(scopeId);
+            query.setPredicate(new AttributePredicateImpl<>(DeviceAttributes.CLIENT_ID, clientId));
+            query.setLimit(1);
+            DeviceRegistryService deviceRegistryService = KapuaLocator.getInstance().getService(DeviceRegistryService.class);
+            DeviceListResult devices = KapuaSecurityUtils.doPrivileged(() -> deviceRegistryService.query(query));
+
+            Device device = devices.getFirstItem();
+            deviceId = device != null ? device.getId() : null;
+            cache(deviceKey, deviceId, currentVersion);
+        }
+        return deviceId;
+    }
+
+    /**
+     * Remove the device identity from the cache
+     *
+     * @param scopeId
+     * @param clientId
+     */
+    public void invalidate(KapuaId scopeId, String clientId) {
+        version.incrementAndGet();
+        DeviceKey deviceKey = new DeviceKey(scopeId, clientId);
+        deviceIds.remove(deviceKey);
+        unknownDevices.remove(deviceKey);
+    }
+
+    private void cache(DeviceKey deviceKey, KapuaId deviceId, long loadVersion) {
+        if (version.get() != loadVersion) {
+            return;
+        }
+        if (deviceId != null) {
+            deviceIds.put(deviceKey, deviceId);
+        } else {
+            unknownDevices.put(deviceKey, Boolean.TRUE);
+        }
+        // the device may have been changed while it was cached
+        if (version.get() != loadVersion) {
+            deviceIds.remove(deviceKey);
+            unknownDevices.remove(deviceKey);
+        }
+    }
+
+    /**
+     * Resolved device identity
+     *
+     * @since 1.1
+     */
+    public static final class DeviceIdentity {
+
+        private final KapuaId scopeId;
+        private final KapuaId deviceId;
+
+        private DeviceIdentity(KapuaId scopeId, KapuaId deviceId) {
+            this.scopeId = scopeId;
+            this.deviceId = deviceId;
+        }
+
+        /**
+         * Get the scope id (the account id)
+         *
+         * @return
+         */
+        public KapuaId getScopeId() {
+            return scopeId;
+        }
+
+        /**
+         * Get the device id
+         *
+         * @return the device id or null if the client is not registered
+         */
+        public KapuaId getDeviceId() {
+            return deviceId;
+        }
+    }
+
+    private static final class DeviceKey {
+
+        private final KapuaId scopeId;
+        private final String clientId;
+
+        private DeviceKey(KapuaId scopeId, String clientId) {
+            this.scopeId = scopeId;
+            this.clientId = clientId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * scopeId.getId().hashCode() + clientId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DeviceKey)) {
+                return false;
+            }
+            DeviceKey other = (DeviceKey) obj;
+            return Objects.equals(scopeId.getId(), other.scopeId.getId()) && clientId.equals(other.clientId);
+        }
+    }
+}
@@ -11,8 +11,14 @@
  *******************************************************************************/
 package org.eclipse.kapua.service.device.registry.lifecycle.internal;
 
+import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.service.internal.AbstractKapuaService;
+import org.eclipse.kapua.commons.util.ArgumentValidator;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.locator.KapuaProvider;
 import org.eclipse.kapua.message.KapuaPayload;
@@ -23,24 +29,74 @@ import org.eclipse.kapua.message.device.lifecycle.KapuaBirthMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaBirthPayload;
 import org.eclipse.kapua.message.device.lifecycle.KapuaDisconnectMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaMissingMessage;
+import org.eclipse.kapua.model.domain.Actions;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.authorization.AuthorizationService;
+import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 import org.eclipse.kapua.service.device.management.message.response.KapuaResponseCode;
 import org.eclipse.kapua.service.device.registry.Device;
 import org.eclipse.kapua.service.device.registry.DeviceCreator;
+import org.eclipse.kapua.service.device.registry.DeviceDomains;
 import org.eclipse.kapua.service.device.registry.DeviceFactory;
 import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.KapuaDeviceRegistrySettingKeys;
+import org.eclipse.kapua.service.device.registry.KapuaDeviceRegistrySettings;
+import org.eclipse.kapua.service.device.registry.event.DeviceEvent;
 import org.eclipse.kapua.service.device.registry.event.DeviceEventCreator;
 import org.eclipse.kapua.service.device.registry.event.DeviceEventFactory;
-import org.eclipse.kapua.service.device.registry.event.DeviceEventService;
+import org.eclipse.kapua.service.device.registry.event.internal.DeviceEventDAO;
+import org.eclipse.kapua.service.device.registry.internal.DeviceDAO;
+import org.eclipse.kapua.service.device.registry.internal.DeviceEntityManagerFactory;
 import org.eclipse.kapua.service.device.registry.lifecycle.DeviceLifeCycleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * {@link DeviceLifeCycleService} implementation.
+ * {@link DeviceLifeCycleService} implementation.<br>
+ * <br>
+ * The lifecycle event is inserted and the device is updated (the birth information and the last event id) in a single transaction,
+ * instead of going through the {@link DeviceRegistryService} and the {@link org.eclipse.kapua.service.device.registry.event.DeviceEventService},
+ * which look up the device again and update it in separate transactions.
+ * A new device is still created through the {@link DeviceRegistryService}, so the resource limits and the client id uniqueness are checked.<br>
+ * The saving comes from the single transaction only: the event insert is flushed when it is created and the device is written by a separate update on commit,
+ * so the two statements are never batched together. Batching them would require the JDBC batch writing ({@code eclipselink.jdbc.batch-writing}) in the device persistence unit,
+ * which isn't enabled.<br>
+ * <br>
+ * The births of a device repeated within the {@link KapuaDeviceRegistrySettingKeys#DEVICE_LIFECYCLE_BIRTH_COALESCE_WINDOW}, with the same connection and payload, are coalesced:
+ * only the first one is persisted. A death or a missing message of the device resets the coalescing.
  *
  * @since 1.0.0
  */
 @KapuaProvider
-public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
+public class DeviceLifeCycleServiceImpl extends AbstractKapuaService implements DeviceLifeCycleService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceLifeCycleServiceImpl.class);
+
+    private static final long BIRTH_CACHE_SIZE_MAX = 10000;
+
+    private final AuthorizationService authorizationService;
+    private final PermissionFactory permissionFactory;
+    private final DeviceRegistryService deviceRegistryService;
+    private final DeviceFactory deviceFactory;
+    private final DeviceEventFactory deviceEventFactory;
+
+    private final Cache<String, String> lastBirths;
+
+    /**
+     * Constructor
+     */
+    public DeviceLifeCycleServiceImpl() {
+        super(DeviceEntityManagerFactory.instance());
+        KapuaLocator locator = KapuaLocator.getInstance();
+        authorizationService = locator.getService(AuthorizationService.class);
+        permissionFactory = locator.getFactory(PermissionFactory.class);
+        deviceRegistryService = locator.getService(DeviceRegistryService.class);
+        deviceFactory = locator.getFactory(DeviceFactory.class);
+        deviceEventFactory = locator.getFactory(DeviceEventFactory.class);
+
+        int birthCoalesceWindow = KapuaDeviceRegistrySettings.getInstance().getInt(KapuaDeviceRegistrySettingKeys.DEVICE_LIFECYCLE_BIRTH_COALESCE_WINDOW, 0);
+        lastBirths = birthCoalesceWindow > 0 ? CacheProviders.newCache("device.lifecycle.birth", new CacheConfiguration<>(BIRTH_CACHE_SIZE_MAX, birthCoalesceWindow), null) : null;
+    }
 
     @Override
     public void birth(KapuaId connectionId, KapuaBirthMessage message)
@@ -49,16 +105,22 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
         KapuaBirthChannel channel = message.getChannel();
         KapuaId scopeId = message.getScopeId();
         KapuaId deviceId = message.getDeviceId();
+        String eventMessage = payload.toDisplayString();
 
         //
-        // Device update
-        KapuaLocator locator = KapuaLocator.getInstance();
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device;
+        // Birth coalescing
+        String birthFingerprint = connectionId + "\n" + eventMessage;
+        if (deviceId != null && lastBirths != null && birthFingerprint.equals(lastBirths.get(birthKey(scopeId, deviceId)))) {
+            LOG.debug("Coalescing repeated birth of device {} in scope {}", deviceId, scopeId);
+            return;
+        }
+
+        //
+        // Device create
+        Device createdDevice = null;
         if (deviceId == null) {
             String clientId = channel.getClientId();
 
-            DeviceFactory deviceFactory = locator.getFactory(DeviceFactory.class);
             DeviceCreator deviceCreator = deviceFactory.newCreator(scopeId, clientId);
 
             deviceCreator.setDisplayName(payload.getDisplayName());
@@ -82,40 +144,16 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
             // issue #57
             deviceCreator.setConnectionId(connectionId);
 
-            device = deviceRegistryService.create(deviceCreator);
-        } else {
-            device = deviceRegistryService.find(scopeId, deviceId);
-            device.setDisplayName(payload.getDisplayName());
-            device.setSerialNumber(payload.getSerialNumber());
-            device.setModelId(payload.getModelId());
-            device.setModelName(payload.getModelName());
-            device.setImei(payload.getModemImei());
-            device.setImsi(payload.getModemImsi());
-            device.setIccid(payload.getModemIccid());
-            device.setBiosVersion(payload.getBiosVersion());
-            device.setFirmwareVersion(payload.getFirmwareVersion());
-            device.setOsVersion(payload.getOsVersion());
-            device.setJvmVersion(payload.getJvmVersion());
-            device.setOsgiFrameworkVersion(payload.getContainerFrameworkVersion());
-            device.setApplicationFrameworkVersion(payload.getApplicationFrameworkVersion());
-            device.setConnectionInterface(payload.getConnectionInterface());
-            device.setConnectionIp(payload.getConnectionIp());
-            device.setApplicationIdentifiers(payload.getApplicationIdentifiers());
-            device.setAcceptEncoding(payload.getAcceptEncoding());
-
-            // issue #57
-            device.setConnectionId(connectionId);
-
-            deviceRegistryService.update(device);
+            createdDevice = deviceRegistryService.create(deviceCreator);
         }
+        boolean deviceCreated = createdDevice != null;
+        KapuaId birthDeviceId = deviceCreated ? createdDevice.getId() : deviceId;
 
         //
         // Event create
-        DeviceEventService deviceEventService = locator.getService(DeviceEventService.class);
-        DeviceEventFactory deviceEventFactory = locator.getFactory(DeviceEventFactory.class);
-        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, device.getId(), message.getReceivedOn(), "BIRTH");
+        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, birthDeviceId, message.getReceivedOn(), "BIRTH");
 
-        deviceEventCreator.setEventMessage(payload.toDisplayString());
+        deviceEventCreator.setEventMessage(eventMessage);
         // TODO check this change
         deviceEventCreator.setResponseCode(KapuaResponseCode.ACCEPTED);
         deviceEventCreator.setSentOn(message.getSentOn());
@@ -125,7 +163,44 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
             deviceEventCreator.setPosition(position);
         }
 
-        KapuaSecurityUtils.doPrivileged(() -> deviceEventService.create(deviceEventCreator));
+        //
+        // Device update
+        entityManagerSession.onTransactedInsert(entityManager -> {
+            Device device = findDevice(entityManager, scopeId, birthDeviceId);
+            if (!deviceCreated) {
+                authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_DOMAIN, Actions.write, scopeId, device.getGroupId()));
+            }
+
+            DeviceEvent deviceEvent = createDeviceEvent(entityManager, device, deviceEventCreator);
+
+            if (!deviceCreated) {
+                device.setDisplayName(payload.getDisplayName());
+                device.setSerialNumber(payload.getSerialNumber());
+                device.setModelId(payload.getModelId());
+                device.setModelName(payload.getModelName());
+                device.setImei(payload.getModemImei());
+                device.setImsi(payload.getModemImsi());
+                device.setIccid(payload.getModemIccid());
+                device.setBiosVersion(payload.getBiosVersion());
+                device.setFirmwareVersion(payload.getFirmwareVersion());
+                device.setOsVersion(payload.getOsVersion());
+                device.setJvmVersion(payload.getJvmVersion());
+                device.setOsgiFrameworkVersion(payload.getContainerFrameworkVersion());
+                device.setApplicationFrameworkVersion(payload.getApplicationFrameworkVersion());
+                device.setConnectionInterface(payload.getConnectionInterface());
+                device.setConnectionIp(payload.getConnectionIp());
+                device.setApplicationIdentifiers(payload.getApplicationIdentifiers());
+                device.setAcceptEncoding(payload.getAcceptEncoding());
+
+                // issue #57
+                device.setConnectionId(connectionId);
+            }
+            return deviceEvent;
+        });
+
+        if (lastBirths != null) {
+            lastBirths.put(birthKey(scopeId, birthDeviceId), birthFingerprint);
+        }
     }
 
     @Override
@@ -134,14 +209,8 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
         KapuaId scopeId = message.getScopeId();
         KapuaId deviceId = message.getDeviceId();
 
-        //
-        // Device update
-        KapuaLocator locator = KapuaLocator.getInstance();
-
         //
         // Event create
-        DeviceEventService deviceEventService = locator.getService(DeviceEventService.class);
-        DeviceEventFactory deviceEventFactory = locator.getFactory(DeviceEventFactory.class);
         DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, deviceId, message.getReceivedOn(), "DEATH");
 
         deviceEventCreator.setReceivedOn(message.getReceivedOn());
@@ -154,7 +223,11 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
             deviceEventCreator.setPosition(position);
         }
 
-        KapuaSecurityUtils.doPrivileged(() -> deviceEventService.create(deviceEventCreator));
+        //
+        // Device update
+        entityManagerSession.onTransactedInsert(entityManager -> createDeviceEvent(entityManager, findDevice(entityManager, scopeId, deviceId), deviceEventCreator));
+
+        resetBirth(scopeId, deviceId);
     }
 
     @Override
@@ -164,17 +237,9 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
         KapuaId scopeId = message.getScopeId();
         KapuaId deviceId = message.getDeviceId();
 
-        //
-        // Device update
-        KapuaLocator locator = KapuaLocator.getInstance();
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.find(scopeId, deviceId);
-
         //
         // Event create
-        DeviceEventService deviceEventService = locator.getService(DeviceEventService.class);
-        DeviceEventFactory deviceEventFactory = locator.getFactory(DeviceEventFactory.class);
-        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, device.getId(), message.getReceivedOn(), "MISSING");
+        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, deviceId, message.getReceivedOn(), "MISSING");
 
         deviceEventCreator.setEventMessage(payload.toDisplayString());
         // TODO check this change
@@ -186,8 +251,15 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
             deviceEventCreator.setPosition(position);
         }
 
-        KapuaSecurityUtils.doPrivileged(() -> deviceEventService.create(deviceEventCreator));
+        //
+        // Device update
+        entityManagerSession.onTransactedInsert(entityManager -> {
+            Device device = findDevice(entityManager, scopeId, deviceId);
+            authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_DOMAIN, Actions.read, scopeId, device.getGroupId()));
+            return createDeviceEvent(entityManager, device, deviceEventCreator);
+        });
 
+        resetBirth(scopeId, deviceId);
     }
 
     @Override
@@ -197,17 +269,9 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
         KapuaId scopeId = message.getScopeId();
         KapuaId deviceId = message.getDeviceId();
 
-        //
-        // Device update
-        KapuaLocator locator = KapuaLocator.getInstance();
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.find(scopeId, deviceId);
-
         //
         // Event create
-        DeviceEventService deviceEventService = locator.getService(DeviceEventService.class);
-        DeviceEventFactory deviceEventFactory = locator.getFactory(DeviceEventFactory.class);
-        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, device.getId(), message.getReceivedOn(), "APPLICATION");
+        DeviceEventCreator deviceEventCreator = deviceEventFactory.newCreator(scopeId, deviceId, message.getReceivedOn(), "APPLICATION");
 
         deviceEventCreator.setEventMessage(payload.toDisplayString());
         // TODO check this change
@@ -219,6 +283,46 @@ public class DeviceLifeCycleServiceImpl implements DeviceLifeCycleService {
             deviceEventCreator.setPosition(position);
         }
 
-        KapuaSecurityUtils.doPrivileged(() -> deviceEventService.create(deviceEventCreator));
+        //
+        // Device update
+        entityManagerSession.onTransactedInsert(entityManager -> {
+            Device device = findDevice(entityManager, scopeId, deviceId);
+            authorizationService.checkPermission(permissionFactory.newPermission(DeviceDomains.DEVICE_DOMAIN, Actions.read, scopeId, device.getGroupId()));
+            return createDeviceEvent(entityManager, device, deviceEventCreator);
+        });
+    }
+
+    //
+    // Private methods
+    //
+
+    private static Device findDevice(EntityManager entityManager, KapuaId scopeId, KapuaId deviceId) throws KapuaException {
+        ArgumentValidator.notNull(deviceId, "deviceId");
+
+        Device device = DeviceDAO.find(entityManager, scopeId, deviceId);
+        if (device == null) {
+            throw new KapuaEntityNotFoundException(Device.TYPE, deviceId);
+        }
+        return device;
+    }
+
+    /**
+     * Insert the event and set it as the last event of the device.<br>
+     * The device is managed by the entity manager, so the device changes are written on commit, with a single update.
+     */
+    private static DeviceEvent createDeviceEvent(EntityManager entityManager, Device device, DeviceEventCreator deviceEventCreator) {
+        DeviceEvent deviceEvent = DeviceEventDAO.create(entityManager, deviceEventCreator);
+        device.setLastEventId(deviceEvent.getId());
+        return deviceEvent;
+    }
+
+    private void resetBirth(KapuaId scopeId, KapuaId deviceId) {
+        if (lastBirths != null) {
+            lastBirths.remove(birthKey(scopeId, deviceId));
+        }
+    }
+
+    private static String birthKey(KapuaId scopeId, KapuaId deviceId) {
+        return scopeId.toCompactId() + "/" + deviceId.toCompactId();
     }
 }
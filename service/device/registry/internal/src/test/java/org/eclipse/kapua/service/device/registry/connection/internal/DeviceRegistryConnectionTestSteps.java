@@ -47,6 +47,7 @@ import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionQuer
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionService;
 import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
 import org.eclipse.kapua.service.device.registry.internal.DeviceEntityManagerFactory;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceConnectionCache;
 import org.eclipse.kapua.service.device.registry.shared.SharedTestSteps;
 import org.eclipse.kapua.service.liquibase.KapuaLiquibaseClient;
 import org.eclipse.kapua.test.MockedLocator;
@@ -57,6 +58,7 @@ import org.mockito.Mockito;
 
 import java.math.BigInteger;
 import java.security.acl.Permission;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -105,6 +107,9 @@ public class DeviceRegistryConnectionTestSteps extends AbstractKapuaSteps {
     KapuaId scopeId;
     KapuaId connectionId;
 
+    // The client IDs of the cached connections
+    List<String> cachedClientIds = new ArrayList<>();
+
     // Scratchpad data
     String stringVal = "";
 
@@ -171,6 +176,11 @@ public class DeviceRegistryConnectionTestSteps extends AbstractKapuaSteps {
     @After
     public void afterScenario()
             throws Exception {
+        // Clear the cached connections, since the same IDs are used by the other scenarios
+        for (String clientId : cachedClientIds) {
+            DeviceConnectionCache.getInstance().invalidate(scopeId, clientId);
+        }
+
         // Drop the Account Service tables
         scriptSession(DeviceEntityManagerFactory.instance(), DROP_DEVICE_TABLES);
         KapuaConfigurableServiceSchemaUtils.dropSchemaObjects(DEFAULT_COMMONS_PATH);
@@ -359,6 +369,13 @@ public class DeviceRegistryConnectionTestSteps extends AbstractKapuaSteps {
         connection = deviceConnectionService.findByClientId(scopeId, client);
     }
 
+    @When("^I search for a cached connection with the client ID \"(.+)\"$")
+    public void findCachedConnectionByClientId(String client)
+            throws KapuaException {
+        cachedClientIds.add(client);
+        connection = DeviceConnectionCache.getInstance().get(scopeId, client, () -> deviceConnectionService.findByClientId(scopeId, client));
+    }
+
     @When("^I delete the existing connection$")
     public void deleteExistingConnection()
             throws KapuaException {
@@ -22,7 +22,8 @@ import org.junit.runner.RunWith;
                 "org.eclipse.kapua.service.device.registry.internal",
                 "org.eclipse.kapua.service.device.registry.shared",
                 "org.eclipse.kapua.service.device.registry.connection.internal",
-                "org.eclipse.kapua.service.device.registry.event.internal" },
+                "org.eclipse.kapua.service.device.registry.event.internal",
+                "org.eclipse.kapua.service.device.registry.lifecycle.internal" },
         plugin = { "pretty",
                 "html:target/cucumber",
                 "json:target/cucumber.json" },
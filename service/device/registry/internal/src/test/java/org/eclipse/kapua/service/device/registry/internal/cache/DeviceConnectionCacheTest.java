@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.registry.internal.cache;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.device.registry.ConnectionUserCouplingMode;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnection;
+import org.eclipse.kapua.service.device.registry.connection.DeviceConnectionStatus;
+import org.eclipse.kapua.service.device.registry.connection.internal.DeviceConnectionImpl;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class DeviceConnectionCacheTest {
+
+    private static final KapuaId SCOPE_ID = new KapuaEid(BigInteger.ONE);
+    private static final KapuaId USER_ID = new KapuaEid(BigInteger.valueOf(10));
+    private static final KapuaId RESERVED_USER_ID = new KapuaEid(BigInteger.valueOf(11));
+    private static final String CLIENT_ID = "client-1";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private DeviceConnectionCache cache;
+    private DeviceConnection stored;
+
+    @Before
+    public void setUp() {
+        cache = new DeviceConnectionCache("test.device.registry.connection." + System.nanoTime(), 60, clock::get);
+
+        stored = new DeviceConnectionImpl(SCOPE_ID);
+        stored.setId(new KapuaEid(BigInteger.valueOf(100)));
+        stored.setClientId(CLIENT_ID);
+        stored.setUserId(USER_ID);
+        stored.setReservedUserId(RESERVED_USER_ID);
+        stored.setUserCouplingMode(ConnectionUserCouplingMode.STRICT);
+        stored.setStatus(DeviceConnectionStatus.DISCONNECTED);
+        stored.setServerIp("10.0.0.1");
+    }
+
+    @Test
+    public void getReturnsCopiesOfTheCachedConnection() throws KapuaException {
+        DeviceConnection first = get();
+        first.setReservedUserId(USER_ID);
+        first.setStatus(DeviceConnectionStatus.CONNECTED);
+
+        DeviceConnection second = get();
+        Assert.assertEquals(1, loads.get());
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(RESERVED_USER_ID, second.getReservedUserId());
+        Assert.assertEquals(DeviceConnectionStatus.DISCONNECTED, second.getStatus());
+    }
+
+    @Test
+    public void updateConnectionInfoKeepsUserCouplingAndExpiration() throws KapuaException {
+        DeviceConnection deviceConnection = get();
+
+        clock.set(50000);
+        deviceConnection.setStatus(DeviceConnectionStatus.CONNECTED);
+        deviceConnection.setServerIp("10.0.0.2");
+        deviceConnection.setReservedUserId(null);
+        deviceConnection.setUserCouplingMode(ConnectionUserCouplingMode.LOOSE);
+        cache.updateConnectionInfo(deviceConnection);
+
+        DeviceConnection updated = get();
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(DeviceConnectionStatus.CONNECTED, updated.getStatus());
+        Assert.assertEquals("10.0.0.2", updated.getServerIp());
+        Assert.assertEquals(RESERVED_USER_ID, updated.getReservedUserId());
+        Assert.assertEquals(ConnectionUserCouplingMode.STRICT, updated.getUserCouplingMode());
+
+        // expired since the load, although updated meanwhile
+        clock.set(60000);
+        DeviceConnection reloaded = get();
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(DeviceConnectionStatus.DISCONNECTED, reloaded.getStatus());
+    }
+
+    @Test
+    public void invalidateReloadsTheConnection() throws KapuaException {
+        get();
+        stored.setUserCouplingMode(ConnectionUserCouplingMode.LOOSE);
+        cache.invalidate(SCOPE_ID, CLIENT_ID);
+
+        DeviceConnection reloaded = get();
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(ConnectionUserCouplingMode.LOOSE, reloaded.getUserCouplingMode());
+    }
+
+    @Test
+    public void updateConnectionInfoDoesNotCache() throws KapuaException {
+        cache.updateConnectionInfo(stored);
+        get();
+        Assert.assertEquals(1, loads.get());
+    }
+
+    private DeviceConnection get() throws KapuaException {
+        return cache.get(SCOPE_ID, CLIENT_ID, () -> {
+            loads.incrementAndGet();
+            return new DeviceConnectionImpl(stored);
+        });
+    }
+}
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.device.registry.lifecycle.internal;
+
+import com.google.common.base.MoreObjects;
+import cucumber.api.java.After;
+import cucumber.api.java.Before;
+import cucumber.api.java.en.Given;
+import cucumber.api.java.en.Then;
+import cucumber.api.java.en.When;
+import cucumber.runtime.java.guice.ScenarioScoped;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.configuration.KapuaConfigurableServiceSchemaUtils;
+import org.eclipse.kapua.commons.configuration.metatype.KapuaMetatypeFactoryImpl;
+import org.eclipse.kapua.commons.jpa.JdbcConnectionUrlResolvers;
+import org.eclipse.kapua.commons.model.id.IdGenerator;
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
+import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
+import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
+import org.eclipse.kapua.commons.security.KapuaSession;
+import org.eclipse.kapua.commons.setting.system.SystemSetting;
+import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
+import org.eclipse.kapua.message.internal.KapuaMessageImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsChannelImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsMessageImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsPayloadImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthChannelImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthMessageImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthPayloadImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaDisconnectChannelImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaDisconnectMessageImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingChannelImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingMessageImpl;
+import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingPayloadImpl;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.authorization.AuthorizationService;
+import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
+import org.eclipse.kapua.service.device.registry.Device;
+import org.eclipse.kapua.service.device.registry.DeviceFactory;
+import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.KapuaDeviceRegistrySettingKeys;
+import org.eclipse.kapua.service.device.registry.event.DeviceEvent;
+import org.eclipse.kapua.service.device.registry.event.DeviceEventAttributes;
+import org.eclipse.kapua.service.device.registry.event.DeviceEventFactory;
+import org.eclipse.kapua.service.device.registry.event.DeviceEventQuery;
+import org.eclipse.kapua.service.device.registry.event.DeviceEventService;
+import org.eclipse.kapua.service.device.registry.event.internal.DeviceEventFactoryImpl;
+import org.eclipse.kapua.service.device.registry.event.internal.DeviceEventServiceImpl;
+import org.eclipse.kapua.service.device.registry.internal.DeviceEntityManagerFactory;
+import org.eclipse.kapua.service.device.registry.internal.DeviceFactoryImpl;
+import org.eclipse.kapua.service.device.registry.internal.DeviceRegistryServiceImpl;
+import org.eclipse.kapua.service.device.registry.lifecycle.DeviceLifeCycleService;
+import org.eclipse.kapua.service.device.registry.shared.SharedTestSteps;
+import org.eclipse.kapua.service.liquibase.KapuaLiquibaseClient;
+import org.eclipse.kapua.test.MockedLocator;
+import org.eclipse.kapua.test.steps.AbstractKapuaSteps;
+import org.mockito.Mockito;
+
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementation of Gherkin steps used in DeviceLifeCycle.feature scenarios.
+ * <p>
+ * The device lifecycle service is backed by the actual device registry and device event services,
+ * the Authorization Service and the Permission Factory are mocked.
+ */
+@ScenarioScoped
+public class DeviceLifeCycleServiceTestSteps extends AbstractKapuaSteps {
+
+    public static final String DEFAULT_COMMONS_PATH = "../../../../commons";
+    public static final String DROP_DEVICE_TABLES = "dvc_*_drop.sql";
+
+    private static final String BIRTH_COALESCE_WINDOW_PROPERTY = KapuaDeviceRegistrySettingKeys.DEVICE_LIFECYCLE_BIRTH_COALESCE_WINDOW.key();
+
+    // Common test steps
+    SharedTestSteps sharedTests;
+
+    // Device registry related service references
+    DeviceRegistryService deviceService;
+    DeviceFactory deviceFactory;
+    DeviceEventService eventService;
+    DeviceEventFactory eventFactory;
+    DeviceLifeCycleService lifeCycleService;
+
+    KapuaId scopeId;
+
+    // The connection of the next lifecycle messages
+    KapuaId connectionId = new KapuaEid(BigInteger.ONE);
+
+    // The devices known by the registry, by client id
+    Map<String, KapuaId> deviceIds = new HashMap<>();
+
+    // *************************************
+    // Definition of Cucumber scenario steps
+    // *************************************
+
+    // Setup and tear-down steps
+
+    @Before
+    public void beforeScenario()
+            throws Exception {
+        enableH2Connection();
+
+        // Drop and create the Device Registry Service tables
+        scriptSession(DeviceEntityManagerFactory.instance(), DROP_DEVICE_TABLES);
+        KapuaConfigurableServiceSchemaUtils.dropSchemaObjects(DEFAULT_COMMONS_PATH);
+
+        KapuaConfigurableServiceSchemaUtils.createSchemaObjects(DEFAULT_COMMONS_PATH);
+        SystemSetting config = SystemSetting.getInstance();
+        String schema = MoreObjects.firstNonNull(config.getString(SystemSettingKey.DB_SCHEMA_ENV), config.getString(SystemSettingKey.DB_SCHEMA));
+        String jdbcUrl = JdbcConnectionUrlResolvers.resolveJdbcUrl();
+
+        new KapuaLiquibaseClient(jdbcUrl, "kapua", "kapua", Optional.ofNullable(schema)).update();
+
+        MockedLocator mockLocator = (MockedLocator) locator;
+
+        // Inject mocked Authorization Service and Permission Factory
+        mockLocator.setMockedService(AuthorizationService.class, Mockito.mock(AuthorizationService.class));
+        mockLocator.setMockedFactory(PermissionFactory.class, Mockito.mock(PermissionFactory.class));
+
+        // Inject actual device registry related services
+        deviceService = new DeviceRegistryServiceImpl();
+        mockLocator.setMockedService(DeviceRegistryService.class, deviceService);
+        deviceFactory = new DeviceFactoryImpl();
+        mockLocator.setMockedFactory(DeviceFactory.class, deviceFactory);
+
+        eventService = new DeviceEventServiceImpl();
+        mockLocator.setMockedService(DeviceEventService.class, eventService);
+        eventFactory = new DeviceEventFactoryImpl();
+        mockLocator.setMockedFactory(DeviceEventFactory.class, eventFactory);
+
+        // Set KapuaMetatypeFactory for Metatype configuration
+        mockLocator.setMockedFactory(org.eclipse.kapua.model.config.metatype.KapuaMetatypeFactory.class, new KapuaMetatypeFactoryImpl());
+
+        // All operations on database are performed using system user.
+        KapuaSession kapuaSession = new KapuaSession(null, new KapuaEid(BigInteger.ONE), new KapuaEid(BigInteger.ONE));
+        KapuaSecurityUtils.setSession(kapuaSession);
+
+        sharedTests = new SharedTestSteps();
+    }
+
+    @After
+    public void afterScenario()
+            throws Exception {
+        System.clearProperty(BIRTH_COALESCE_WINDOW_PROPERTY);
+
+        // Drop the Device Registry Service tables
+        scriptSession(DeviceEntityManagerFactory.instance(), DROP_DEVICE_TABLES);
+        KapuaConfigurableServiceSchemaUtils.dropSchemaObjects(DEFAULT_COMMONS_PATH);
+        KapuaSecurityUtils.clearSession();
+    }
+
+    // The Cucumber test steps
+
+    @Given("^A device lifecycle service in scope (\\d+) with a birth coalescing window of (\\d+) seconds$")
+    public void createLifeCycleService(int scope, int birthCoalesceWindow)
+            throws Exception {
+        scopeId = new KapuaEid(BigInteger.valueOf(scope));
+
+        Map<String, Object> valueMap = new HashMap<>();
+        valueMap.put("infiniteChildEntities", true);
+        valueMap.put("maxNumberChildEntities", 10);
+        deviceService.setConfigValues(scopeId, new KapuaEid(BigInteger.ONE), valueMap);
+
+        // the window is read by the service constructor
+        System.setProperty(BIRTH_COALESCE_WINDOW_PROPERTY, String.valueOf(birthCoalesceWindow));
+        lifeCycleService = new DeviceLifeCycleServiceImpl();
+    }
+
+    @Given("^The registered device \"(.+)\"$")
+    public void createRegisteredDevice(String clientId)
+            throws Exception {
+        Device device = deviceService.create(deviceFactory.newCreator(scopeId, clientId));
+        assertNotNull(device.getId());
+        deviceIds.put(clientId, device.getId());
+    }
+
+    @Given("^The device connection changes$")
+    public void changeConnection() {
+        connectionId = new KapuaEid(connectionId.getId().add(BigInteger.ONE));
+    }
+
+    @When("^The device \"(.+)\" sends a birth message with display name \"(.+)\"$")
+    public void sendBirthMessage(String clientId, String displayName)
+            throws Exception {
+        KapuaBirthChannelImpl channel = new KapuaBirthChannelImpl();
+        channel.setClientId(clientId);
+        KapuaBirthPayloadImpl payload = new KapuaBirthPayloadImpl("1000", displayName, "model", "model-id", "part-number", "serial-number",
+                null, "firmware-version", null, "bios-version", "os", "os-version", "jvm", "jvm-version", null, null, "container-framework-version",
+                null, "application-framework-version", "eth0", "10.0.0.1", null, "CONF-V1,DEPLOY-V2", null, null, null, null, null, null);
+
+        // the birth of an unknown device has no device id
+        KapuaBirthMessageImpl message = new KapuaBirthMessageImpl();
+        fillMessage(message, clientId, deviceIds.get(clientId));
+        message.setChannel(channel);
+        message.setPayload(payload);
+
+        try {
+            sharedTests.primeException();
+            lifeCycleService.birth(connectionId, message);
+        } catch (KapuaException ex) {
+            sharedTests.verifyException(ex);
+        }
+        if (!deviceIds.containsKey(clientId)) {
+            Device device = deviceService.findByClientId(scopeId, clientId);
+            if (device != null) {
+                deviceIds.put(clientId, device.getId());
+            }
+        }
+    }
+
+    @When("^The device \"(.+)\" sends a death message$")
+    public void sendDeathMessage(String clientId)
+            throws Exception {
+        KapuaDisconnectMessageImpl message = new KapuaDisconnectMessageImpl();
+        fillMessage(message, clientId, getDeviceId(clientId));
+        message.setChannel(new KapuaDisconnectChannelImpl());
+
+        try {
+            sharedTests.primeException();
+            lifeCycleService.death(connectionId, message);
+        } catch (KapuaException ex) {
+            sharedTests.verifyException(ex);
+        }
+    }
+
+    @When("^The device \"(.+)\" sends a missing message$")
+    public void sendMissingMessage(String clientId)
+            throws Exception {
+        KapuaMissingMessageImpl message = new KapuaMissingMessageImpl();
+        fillMessage(message, clientId, getDeviceId(clientId));
+        message.setChannel(new KapuaMissingChannelImpl());
+        message.setPayload(new KapuaMissingPayloadImpl());
+
+        try {
+            sharedTests.primeException();
+            lifeCycleService.missing(connectionId, message);
+        } catch (KapuaException ex) {
+            sharedTests.verifyException(ex);
+        }
+    }
+
+    @When("^The device \"(.+)\" sends an applications message$")
+    public void sendApplicationsMessage(String clientId)
+            throws Exception {
+        KapuaAppsMessageImpl message = new KapuaAppsMessageImpl();
+        fillMessage(message, clientId, getDeviceId(clientId));
+        message.setChannel(new KapuaAppsChannelImpl());
+        message.setPayload(new KapuaAppsPayloadImpl("1000", null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, "CONF-V1,DEPLOY-V2,CMD-V1", null, null, null, null, null, null));
+
+        try {
+            sharedTests.primeException();
+            lifeCycleService.applications(connectionId, message);
+        } catch (KapuaException ex) {
+            sharedTests.verifyException(ex);
+        }
+    }
+
+    @Then("^The device \"(.+)\" has the display name \"(.+)\" and the current connection$")
+    public void checkDevice(String clientId, String displayName)
+            throws KapuaException {
+        Device device = findDevice(clientId);
+        assertEquals(displayName, device.getDisplayName());
+        assertEquals(connectionId, device.getConnectionId());
+    }
+
+    @Then("^The device \"(.+)\" has (\\d+) \"(.+)\" events?$")
+    public void checkEventCount(String clientId, int count, String resource)
+            throws KapuaException {
+        DeviceEventQuery query = eventFactory.newQuery(scopeId);
+        query.setPredicate(new AndPredicateImpl(
+                AttributePredicateImpl.attributeIsEqualTo(DeviceEventAttributes.DEVICE_ID, findDevice(clientId).getId()),
+                AttributePredicateImpl.attributeIsEqualTo(DeviceEventAttributes.RESOURCE, resource)));
+        assertEquals(count, eventService.count(query));
+    }
+
+    @Then("^The last event of the device \"(.+)\" is a \"(.+)\" event$")
+    public void checkLastEvent(String clientId, String resource)
+            throws KapuaException {
+        Device device = findDevice(clientId);
+        assertNotNull(device.getLastEventId());
+
+        DeviceEvent lastEvent = eventService.find(scopeId, device.getLastEventId());
+        assertNotNull(lastEvent);
+        assertEquals(device.getId(), lastEvent.getDeviceId());
+        assertEquals(resource, lastEvent.getResource());
+    }
+
+    @Then("^There are no device events$")
+    public void checkNoEvents()
+            throws KapuaException {
+        assertEquals(0, eventService.count(eventFactory.newQuery(scopeId)));
+    }
+
+    // *******************
+    // * Private Helpers *
+    // *******************
+
+    private void fillMessage(KapuaMessageImpl<?, ?> message, String clientId, KapuaId deviceId) {
+        message.setScopeId(scopeId);
+        message.setClientId(clientId);
+        message.setDeviceId(deviceId);
+        message.setReceivedOn(new Date());
+        message.setSentOn(new Date());
+    }
+
+    // An unknown device is identified by a random id
+    private KapuaId getDeviceId(String clientId) {
+        KapuaId deviceId = deviceIds.get(clientId);
+        return deviceId != null ? deviceId : new KapuaEid(IdGenerator.generate());
+    }
+
+    private Device findDevice(String clientId)
+            throws KapuaException {
+        Device device = deviceService.findByClientId(scopeId, clientId);
+        assertNotNull(device);
+        return device;
+    }
+}
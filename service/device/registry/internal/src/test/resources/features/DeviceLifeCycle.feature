@@ -0,0 +1,132 @@
+###############################################################################
+# Copyright (c) 2018 Eurotech and/or its affiliates and others
+#
+# All rights reserved. This program and the accompanying materials
+# are made available under the terms of the Eclipse Public License v1.0
+# which accompanies this distribution, and is available at
+# http://www.eclipse.org/legal/epl-v10.html
+#
+# Contributors:
+#     Eurotech - initial API and implementation
+###############################################################################
+@default
+Feature: Device Lifecycle tests
+    The Device Lifecycle service handles the lifecycle messages of the devices.
+    Every message inserts its event and updates the device in a single transaction,
+    the repeated births of a device are coalesced.
+
+Scenario: The birth of a new device
+    The birth of an unknown device creates the device and its birth event.
+    The birth event is the last event of the device.
+
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    When The device "first" sends a birth message with display name "First device"
+    Then There was no exception
+    And The device "first" has the display name "First device" and the current connection
+    And The device "first" has 1 "BIRTH" event
+    And The last event of the device "first" is a "BIRTH" event
+
+Scenario: The birth of a registered device
+    The birth of a registered device updates the device with the birth information
+    and the connection, and sets the birth event as the last event of the device.
+
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And The registered device "first"
+    And The device connection changes
+    When The device "first" sends a birth message with display name "Updated device"
+    Then There was no exception
+    And The device "first" has the display name "Updated device" and the current connection
+    And The device "first" has 1 "BIRTH" event
+    And The last event of the device "first" is a "BIRTH" event
+
+Scenario: The death of a device
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a death message
+    Then There was no exception
+    And The device "first" has 1 "DEATH" event
+    And The last event of the device "first" is a "DEATH" event
+
+Scenario: A missing device
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a missing message
+    Then There was no exception
+    And The device "first" has 1 "MISSING" event
+    And The last event of the device "first" is a "MISSING" event
+
+Scenario: The applications of a device
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And The registered device "first"
+    When The device "first" sends an applications message
+    Then There was no exception
+    And The device "first" has 1 "APPLICATION" event
+    And The last event of the device "first" is a "APPLICATION" event
+
+Scenario: The lifecycle messages of an unknown device
+    The lifecycle messages of a device that isn't in the registry are refused
+    and their event isn't inserted.
+
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And I expect the exception "KapuaEntityNotFoundException" with the text "The entity of type device with id/name"
+    When The device "unknown" sends a death message
+    Then An exception was raised
+    When The device "unknown" sends a missing message
+    Then An exception was raised
+    When The device "unknown" sends an applications message
+    Then An exception was raised
+    And There are no device events
+
+Scenario: Repeated births without coalescing
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 0 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a birth message with display name "First device"
+    Then The device "first" has 2 "BIRTH" events
+
+Scenario: Repeated births are coalesced
+    The births repeated within the coalescing window, with the same connection and payload,
+    are persisted once. A birth with a different payload or on a different connection is persisted.
+
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 60 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a birth message with display name "First device"
+    Then There was no exception
+    And The device "first" has 1 "BIRTH" event
+    When The device "first" sends a birth message with display name "Updated device"
+    Then The device "first" has 2 "BIRTH" events
+    And The device "first" has the display name "Updated device" and the current connection
+    When The device connection changes
+    And The device "first" sends a birth message with display name "Updated device"
+    Then The device "first" has 3 "BIRTH" events
+    And The device "first" has the display name "Updated device" and the current connection
+
+Scenario: The births of a new device are coalesced
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 60 seconds
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a birth message with display name "First device"
+    Then There was no exception
+    And The device "first" has 1 "BIRTH" event
+
+Scenario: A death resets the birth coalescing
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 60 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a death message
+    And The device "first" sends a birth message with display name "First device"
+    Then There was no exception
+    And The device "first" has 2 "BIRTH" events
+    And The last event of the device "first" is a "BIRTH" event
+
+Scenario: A missing message resets the birth coalescing
+    Given A device lifecycle service in scope 12 with a birth coalescing window of 60 seconds
+    And The registered device "first"
+    When The device "first" sends a birth message with display name "First device"
+    And The device "first" sends a missing message
+    And The device "first" sends a birth message with display name "First device"
+    Then There was no exception
+    And The device "first" has 2 "BIRTH" events
+    And The last event of the device "first" is a "BIRTH" event
@@ -183,6 +183,37 @@ Scenario: Delete a connection from the database
     When I search for a connection with the client ID "testClient3"
     Then No connection was found
 
+Scenario: Device connection update invalidates the cached connection
+    Updating a device connection must invalidate the cached connection, so the
+    following cached lookups return the updated connection.
+
+    Given User 1 in scope 1
+    And I have the following connection
+        | clientId    | clientIp    | serverIp   | protocol | allowUserChange   |
+        | testClient1 | 127.0.0.101 | 127.0.0.10 | tcp      | true              |
+    And I search for a cached connection with the client ID "testClient1"
+    And I search for a connection with the client ID "testClient1"
+    When I modify the connection details to
+        | clientIp    | serverIp   | protocol | allowUserChange   |
+        | 127.0.0.109 | 127.0.0.25 | udp      | true              |
+    And I search for a cached connection with the client ID "testClient1"
+    Then The connection details match
+        | clientId    | clientIp    | serverIp   | protocol | allowUserChange   |
+        | testClient1 | 127.0.0.109 | 127.0.0.25 | udp      | true              |
+
+Scenario: Device connection delete invalidates the cached connection
+    Deleting a device connection must invalidate the cached connection.
+
+    Given User 1 in scope 1
+    And I have the following connection
+        | clientId    | clientIp    | serverIp   | protocol | allowUserChange   |
+        | testClient1 | 127.0.0.101 | 127.0.0.10 | tcp      | true              |
+    And I search for a cached connection with the client ID "testClient1"
+    And I search for a connection with the client ID "testClient1"
+    And I delete the existing connection
+    When I search for a cached connection with the client ID "testClient1"
+    Then No connection was found
+
 Scenario: Delete a non existing connection
     Trying to delete a non existent connection should result in an exception
     being thrown.
@@ -17,6 +17,8 @@ import org.eclipse.kapua.service.KapuaEntityService;
 import org.eclipse.kapua.service.KapuaUpdatableEntityService;
 import org.eclipse.kapua.service.config.KapuaConfigurableService;
 
+import java.util.List;
+
 /**
  * {@link JobTargetService} exposes APIs to manage JobTarget objects.<br>
  * It includes APIs to create, update, find, list and delete Jobs.<br>
@@ -38,4 +40,14 @@ public interface JobTargetService extends KapuaEntityService<JobTarget, JobTarge
      */
     @Override
     JobTargetListResult query(KapuaQuery<JobTarget> query) throws KapuaException;
+
+    /**
+     * Updates the {@link JobTarget#getStepIndex()}, the {@link JobTarget#getStatus()} and the {@link JobTarget#getException()} of the given {@link JobTarget}s.<br>
+     * The {@link JobTarget}s are loaded with a single query and updated in a single transaction.
+     *
+     * @param jobTargets The {@link JobTarget}s to update.
+     * @throws KapuaException
+     * @since 1.1.0
+     */
+    void updateStatus(List<JobTarget> jobTargets) throws KapuaException;
 }
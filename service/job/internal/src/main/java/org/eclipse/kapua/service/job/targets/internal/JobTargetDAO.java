@@ -14,14 +14,18 @@ package org.eclipse.kapua.service.job.targets.internal;
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.commons.jpa.EntityManager;
+import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.service.internal.ServiceDAO;
 import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.KapuaQuery;
 import org.eclipse.kapua.service.job.targets.JobTarget;
+import org.eclipse.kapua.service.job.targets.JobTargetAttributes;
 import org.eclipse.kapua.service.job.targets.JobTargetCreator;
 import org.eclipse.kapua.service.job.targets.JobTargetListResult;
 import org.eclipse.kapua.service.job.targets.JobTargetStatus;
 
+import java.util.Map;
+
 /**
  * JobTarget DAO
  * 
@@ -72,6 +76,41 @@ public class JobTargetDAO {
         return ServiceDAO.update(em, JobTargetImpl.class, jobTargetImpl);
     }
 
+    /**
+     * Updates the step index, the status and the exception of the provided jobTargets.<br>
+     * The jobTargets to update are loaded with a single query and they are written once the transaction is committed.
+     *
+     * @param em
+     * @param scopeId
+     * @param jobTargets
+     *            the jobTargets by jobTarget identifier
+     * @throws KapuaException
+     * @throws KapuaEntityNotFoundException
+     *             If one of the {@link JobTarget}s is not found
+     */
+    public static void updateStatus(EntityManager em, KapuaId scopeId, Map<KapuaId, JobTarget> jobTargets)
+            throws KapuaException {
+        JobTargetQueryImpl query = new JobTargetQueryImpl(scopeId);
+        query.setPredicate(new AttributePredicateImpl<>(JobTargetAttributes.ENTITY_ID, jobTargets.keySet().toArray()));
+
+        JobTargetListResult jobTargetsToUpdate = query(em, query);
+        if (jobTargetsToUpdate.getSize() != jobTargets.size()) {
+            for (KapuaId jobTargetId : jobTargets.keySet()) {
+                if (jobTargetsToUpdate.getItems().stream().noneMatch(jobTarget -> jobTarget.getId().equals(jobTargetId))) {
+                    throw new KapuaEntityNotFoundException(JobTarget.TYPE, jobTargetId);
+                }
+            }
+        }
+
+        for (JobTarget jobTargetToUpdate : jobTargetsToUpdate.getItems()) {
+            JobTarget jobTarget = jobTargets.get(jobTargetToUpdate.getId());
+
+            jobTargetToUpdate.setStepIndex(jobTarget.getStepIndex());
+            jobTargetToUpdate.setStatus(jobTarget.getStatus());
+            jobTargetToUpdate.setException(jobTarget.getException());
+        }
+    }
+
     /**
      * Finds the jobTarget by jobTarget identifier
      *
@@ -31,6 +31,10 @@ import org.eclipse.kapua.service.job.targets.JobTargetListResult;
 import org.eclipse.kapua.service.job.targets.JobTargetQuery;
 import org.eclipse.kapua.service.job.targets.JobTargetService;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * {@link JobTargetService} implementation
  *
@@ -88,6 +92,36 @@ public class JobTargetServiceImpl extends AbstractKapuaConfigurableResourceLimit
         return entityManagerSession.onTransactedResult(em -> JobTargetDAO.update(em, jobTarget));
     }
 
+    @Override
+    public void updateStatus(List<JobTarget> jobTargets) throws KapuaException {
+        //
+        // Argument Validation
+        ArgumentValidator.notNull(jobTargets, "jobTargets");
+
+        Map<KapuaId, Map<KapuaId, JobTarget>> jobTargetsByScopeId = new LinkedHashMap<>();
+        for (JobTarget jobTarget : jobTargets) {
+            ArgumentValidator.notNull(jobTarget, "jobTarget");
+            ArgumentValidator.notNull(jobTarget.getScopeId(), "jobTarget.scopeId");
+            ArgumentValidator.notNull(jobTarget.getId(), "jobTarget.id");
+
+            jobTargetsByScopeId.computeIfAbsent(jobTarget.getScopeId(), scopeId -> new LinkedHashMap<>()).put(jobTarget.getId(), jobTarget);
+        }
+
+        //
+        // Check access
+        for (KapuaId scopeId : jobTargetsByScopeId.keySet()) {
+            AUTHORIZATION_SERVICE.checkPermission(PERMISSION_FACTORY.newPermission(JobDomains.JOB_DOMAIN, Actions.write, scopeId));
+        }
+
+        //
+        // Do update
+        entityManagerSession.onTransactedAction(em -> {
+            for (Map.Entry<KapuaId, Map<KapuaId, JobTarget>> scopeJobTargets : jobTargetsByScopeId.entrySet()) {
+                JobTargetDAO.updateStatus(em, scopeJobTargets.getKey(), scopeJobTargets.getValue());
+            }
+        });
+    }
+
     @Override
     public void delete(KapuaId scopeId, KapuaId jobTargetId) throws KapuaException {
         //
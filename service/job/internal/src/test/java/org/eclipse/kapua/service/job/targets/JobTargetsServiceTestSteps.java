@@ -24,6 +24,9 @@ import org.eclipse.kapua.commons.configuration.KapuaConfigurableServiceSchemaUti
 import org.eclipse.kapua.commons.configuration.metatype.KapuaMetatypeFactoryImpl;
 import org.eclipse.kapua.commons.jpa.JdbcConnectionUrlResolvers;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria;
+import org.eclipse.kapua.commons.model.query.FieldSortCriteria.SortOrder;
+import org.eclipse.kapua.commons.model.query.predicate.AndPredicateImpl;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.commons.security.KapuaSession;
@@ -32,6 +35,7 @@ import org.eclipse.kapua.commons.setting.system.SystemSettingKey;
 import org.eclipse.kapua.commons.util.xml.XmlUtil;
 import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.model.query.predicate.AttributePredicate;
 import org.eclipse.kapua.service.authorization.AuthorizationService;
 import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 import org.eclipse.kapua.service.job.internal.JobEntityManagerFactory;
@@ -284,6 +288,63 @@ public class JobTargetsServiceTestSteps extends AbstractKapuaSteps {
         }
     }
 
+    @When("^I query the targets for the current job in pages of (\\d+)$")
+    public void queryTargetsForJobInPages(int pageSize)
+            throws Exception {
+
+        try {
+            commonData.primeException();
+            commonData.itemCount = 0;
+
+            BigInteger lastTargetId = null;
+            JobTargetListResult page;
+            do {
+                JobTargetQuery tmpQuery = targetFactory.newQuery(commonData.currentScopeId);
+                AndPredicateImpl andPredicate = new AndPredicateImpl(AttributePredicateImpl.attributeIsEqualTo("jobId", jobData.job.getId()));
+                if (lastTargetId != null) {
+                    andPredicate.and(new AttributePredicateImpl<>("id.eid", lastTargetId, AttributePredicate.Operator.GREATER_THAN));
+                }
+                tmpQuery.setPredicate(andPredicate);
+                tmpQuery.setSortCriteria(new FieldSortCriteria("id.eid", SortOrder.ASCENDING));
+                tmpQuery.setLimit(pageSize);
+
+                page = targetService.query(tmpQuery);
+                assertTrue(page.getSize() <= pageSize);
+                for (JobTarget target : page.getItems()) {
+                    assertTrue(lastTargetId == null || target.getId().getId().compareTo(lastTargetId) > 0);
+                    lastTargetId = target.getId().getId();
+                }
+                commonData.itemCount += page.getSize();
+            } while (page.isLimitExceeded());
+        } catch (KapuaException ex) {
+            commonData.verifyException(ex);
+        }
+    }
+
+    @When("^I update the status of the queried targets to \"(.+)\"$")
+    public void updateQueriedTargetsStatus(String stat)
+            throws Exception {
+
+        for (JobTarget target : targetData.targetList.getItems()) {
+            target.setStatus(parseJobTargetStatusFromString(stat));
+        }
+
+        try {
+            commonData.primeException();
+            targetService.updateStatus(targetData.targetList.getItems());
+        } catch (KapuaException ex) {
+            commonData.verifyException(ex);
+        }
+    }
+
+    @Then("^All the queried targets have status \"(.+)\"$")
+    public void checkQueriedTargetsStatus(String stat) {
+
+        for (JobTarget target : targetData.targetList.getItems()) {
+            assertEquals(parseJobTargetStatusFromString(stat), target.getStatus());
+        }
+    }
+
     @Then("^The target step index is indeed (\\d+)$")
     public void checkTargetStepIndex(int i) {
 
@@ -75,6 +75,21 @@ Scenario: Query for the targets of a specific job
     When I query the targets for the current job
     Then There are exactly 4 items
 
+Scenario: Query for the targets of a specific job in pages
+
+    Given I create a job with the name "TestJob1"
+    And A regular job target item
+    And A regular job target item
+    And A regular job target item
+    And A regular job target item
+    And A regular job target item
+    Given I create a job with the name "TestJob2"
+    And A regular job target item
+    Given I query for the job with the name "TestJob1"
+    When I query the targets for the current job in pages of 2
+    Then No exception was thrown
+    And There are exactly 5 items
+
 Scenario: Update a job target TargetId
 
     Given I create a job with the name "TestJob1"
@@ -99,6 +114,19 @@ Scenario: Update a job target status
     When I update the job target step status to "PROCESS_AWAITING"
     Then The target step status is indeed "PROCESS_AWAITING"
 
+Scenario: Update the status of multiple job targets
+
+    Given I create a job with the name "TestJob1"
+    And A regular job target item
+    And A regular job target item
+    And A regular job target item
+    When I query the targets for the current job
+    And I update the status of the queried targets to "PROCESS_FAILED"
+    Then No exception was thrown
+    When I query the targets for the current job
+    Then There are exactly 3 items
+    And All the queried targets have status "PROCESS_FAILED"
+
 #Scenario: Update a job target step exception
 #
 #    Given I create a job with the name "TestJob1"
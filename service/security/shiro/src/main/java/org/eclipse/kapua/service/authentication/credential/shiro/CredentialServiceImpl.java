@@ -42,6 +42,7 @@ import org.eclipse.kapua.service.authentication.credential.CredentialService;
 import org.eclipse.kapua.service.authentication.credential.CredentialType;
 import org.eclipse.kapua.service.authentication.credential.KapuaExistingCredentialException;
 import org.eclipse.kapua.service.authentication.shiro.AuthenticationEntityManagerFactory;
+import org.eclipse.kapua.service.authentication.shiro.realm.CredentialVerifier;
 import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSetting;
 import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSettingKeys;
 import org.eclipse.kapua.service.authorization.AuthorizationService;
@@ -200,6 +201,10 @@ public class CredentialServiceImpl extends AbstractKapuaConfigurableService impl
                 throw new KapuaIllegalArgumentException("credentialType", credential.getCredentialType().toString());
             }
 
+            if (!currentCredential.getCredentialKey().equals(credential.getCredentialKey())) {
+                CredentialVerifier.getInstance().invalidate(credential.getId());
+            }
+
             // Passing attributes??
             return CredentialDAO.update(em, credential);
         });
@@ -279,6 +284,8 @@ public class CredentialServiceImpl extends AbstractKapuaConfigurableService impl
             }
             CredentialDAO.delete(em, scopeId, credentialId);
         });
+
+        CredentialVerifier.getInstance().invalidate(credentialId);
     }
 
     @Override
@@ -19,7 +19,6 @@ import org.eclipse.kapua.service.authentication.credential.Credential;
 import org.eclipse.kapua.service.authentication.credential.CredentialType;
 import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSetting;
 import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSettingKeys;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 
 /**
  * {@link UsernamePasswordCredentials} credential matcher implementation
@@ -56,10 +55,8 @@ public class ApiKeyCredentialsMatcher implements CredentialsMatcher {
             String infoPre = fullApiKey.split(preSeparator)[0];
             String infoHashedKey = fullApiKey.split(preSeparator)[1];
 
-            if (tokenPre.equals(infoPre) && BCrypt.checkpw(tokenKey, infoHashedKey)) {
+            if (tokenPre.equals(infoPre) && CredentialVerifier.getInstance().verify(infoCredential, tokenKey, infoHashedKey)) {
                 credentialMatch = true;
-
-                // FIXME: if true cache token password for authentication performance improvement
             }
         }
 
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authentication.shiro.realm;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import org.apache.shiro.ShiroException;
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
+import org.eclipse.kapua.commons.metric.MetricServiceFactory;
+import org.eclipse.kapua.commons.metric.MetricsService;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.authentication.credential.Credential;
+import org.eclipse.kapua.service.authentication.credential.CredentialType;
+import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSetting;
+import org.eclipse.kapua.service.authentication.shiro.setting.KapuaAuthenticationSettingKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password and API key hash verifier.<br>
+ * <br>
+ * The {@link BCrypt} verifications run on a dedicated bounded pool (see {@link KapuaAuthenticationSettingKeys#AUTHENTICATION_CREDENTIAL_VERIFICATION_THREADS} and
+ * {@link KapuaAuthenticationSettingKeys#AUTHENTICATION_CREDENTIAL_VERIFICATION_QUEUE_SIZE}), so a reconnection storm cannot take all the processors.
+ * If the queue is full the verification fails with a {@link ShiroException}, which does not count as a login failure for the lockout policy.<br>
+ * <br>
+ * The successful verifications are cached by credential id for the configured time
+ * (see {@link KapuaAuthenticationSettingKeys#AUTHENTICATION_CREDENTIAL_USERPASS_CACHE_TTL} and {@link KapuaAuthenticationSettingKeys#AUTHENTICATION_CREDENTIAL_APIKEY_CACHE_TTL}).
+ * Only a keyed hash (with a random key generated at startup) of the credential id, the stored hash and the provided secret is kept, never the secret itself,
+ * so a changed password or API key never matches a cached verification.
+ *
+ * @since 1.1
+ */
+public final class CredentialVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialVerifier.class);
+
+    private static final long CACHE_SIZE_MAX = 10000;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String METRIC_MODULE_NAME = "security";
+    private static final String METRIC_COMPONENT_NAME = "credential_verification";
+
+    private static final CredentialVerifier INSTANCE = new CredentialVerifier();
+
+    private final Cache<KapuaId, byte[]> verifiedPasswords;
+    private final Cache<KapuaId, byte[]> verifiedApiKeys;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+
+    private CredentialVerifier() {
+        KapuaAuthenticationSetting setting = KapuaAuthenticationSetting.getInstance();
+
+        verifiedPasswords = newCache(setting, "authentication.credential.userpass",
+                KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_USERPASS_CACHE_ENABLE, KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_USERPASS_CACHE_CACHE_TTL);
+        verifiedApiKeys = newCache(setting, "authentication.credential.apiKey",
+                KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_APIKEY_CACHE_ENABLE, KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_APIKEY_CACHE_TTL);
+
+        byte[] macKey = new byte[32];
+        new SecureRandom().nextBytes(macKey);
+        SecretKeySpec macKeySpec = new SecretKeySpec(macKey, MAC_ALGORITHM);
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac threadMac = Mac.getInstance(MAC_ALGORITHM);
+                threadMac.init(macKeySpec);
+                return threadMac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        int threads = setting.getInt(KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_VERIFICATION_THREADS, 0);
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        int queueSize = setting.getInt(KapuaAuthenticationSettingKeys.AUTHENTICATION_CREDENTIAL_VERIFICATION_QUEUE_SIZE, 1000);
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), new VerificationThreadFactory());
+
+        MetricsService metricsService = MetricServiceFactory.getInstance();
+        rejected = metricsService.getCounter(METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, "rejected", "count");
+        try {
+            metricsService.registerGauge((Gauge<Integer>) () -> executor.getQueue().size(), METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, "queue", "size");
+            metricsService.registerGauge((Gauge<Integer>) executor::getActiveCount, METRIC_MODULE_NAME, METRIC_COMPONENT_NAME, "active", "count");
+        } catch (KapuaException e) {
+            logger.warn("Cannot register the credential verification gauges", e);
+        }
+    }
+
+    /**
+     * Get the credential verifier instance
+     *
+     * @return
+     */
+    public static CredentialVerifier getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Verify the provided secret against the hashed secret of the credential
+     *
+     * @param credential
+     *            the stored credential
+     * @param secret
+     *            the provided password or API key
+     * @param hashedSecret
+     *            the stored hash of the password or API key
+     * @return {@code true} if the secret matches the hashed secret, {@code false} otherwise
+     * @throws ShiroException
+     *             if the verification cannot be executed
+     */
+    boolean verify(Credential credential, String secret, String hashedSecret) {
+        Cache<KapuaId, byte[]> verified = CredentialType.API_KEY.equals(credential.getCredentialType()) ? verifiedApiKeys : verifiedPasswords;
+
+        byte[] verification = null;
+        if (verified != null) {
+            verification = verification(credential.getId(), secret, hashedSecret);
+            byte[] cachedVerification = verified.get(credential.getId());
+            if (cachedVerification != null && MessageDigest.isEqual(cachedVerification, verification)) {
+                return true;
+            }
+        }
+
+        boolean match = checkpw(secret, hashedSecret);
+        if (match && verified != null) {
+            verified.put(credential.getId(), verification);
+        }
+        return match;
+    }
+
+    /**
+     * Remove the cached verifications of the credential
+     *
+     * @param credentialId
+     */
+    public void invalidate(KapuaId credentialId) {
+        if (verifiedPasswords != null) {
+            verifiedPasswords.remove(credentialId);
+        }
+        if (verifiedApiKeys != null) {
+            verifiedApiKeys.remove(credentialId);
+        }
+    }
+
+    private boolean checkpw(String secret, String hashedSecret) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> BCrypt.checkpw(secret, hashedSecret));
+        } catch (RejectedExecutionException e) {
+            rejected.inc();
+            throw new ShiroException("Too many pending credential verifications", e);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ShiroException("Interrupted while verifying the credential", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ShiroException("Error while verifying the credential", e.getCause());
+        }
+    }
+
+    private byte[] verification(KapuaId credentialId, String secret, String hashedSecret) {
+        Mac threadMac = mac.get();
+        threadMac.update(credentialId.getId().toByteArray());
+        threadMac.update((byte) 0);
+        threadMac.update(hashedSecret.getBytes(StandardCharsets.UTF_8));
+        threadMac.update((byte) 0);
+        return threadMac.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cache<KapuaId, byte[]> newCache(KapuaAuthenticationSetting setting, String name, KapuaAuthenticationSettingKeys enabledKey, KapuaAuthenticationSettingKeys ttlKey) {
+        if (!setting.getBoolean(enabledKey, false)) {
+            return null;
+        }
+        int expireAfter = (int) Math.max(1, setting.getLong(ttlKey, 0L) / 1000);
+        return CacheProviders.newCache(name, new CacheConfiguration<>(CACHE_SIZE_MAX, expireAfter), null);
+    }
+
+    private static class VerificationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "credential-verification-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
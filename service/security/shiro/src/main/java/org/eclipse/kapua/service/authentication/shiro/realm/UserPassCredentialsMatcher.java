@@ -19,7 +19,6 @@ import org.eclipse.kapua.service.authentication.UsernamePasswordCredentials;
 import org.eclipse.kapua.service.authentication.credential.Credential;
 import org.eclipse.kapua.service.authentication.credential.CredentialType;
 import org.eclipse.kapua.service.user.User;
-import org.springframework.security.crypto.bcrypt.BCrypt;
 
 /**
  * {@link ApiKeyCredentials} credential matcher implementation
@@ -47,10 +46,10 @@ public class UserPassCredentialsMatcher implements CredentialsMatcher {
         //
         // Match token with info
         boolean credentialMatch = false;
-        if (tokenUsername.equals(infoUser.getName()) && CredentialType.PASSWORD.equals(infoCredential.getCredentialType()) && BCrypt.checkpw(tokenPassword, infoCredential.getCredentialKey())) {
+        if (tokenUsername.equals(infoUser.getName()) &&
+                CredentialType.PASSWORD.equals(infoCredential.getCredentialType()) &&
+                CredentialVerifier.getInstance().verify(infoCredential, tokenPassword, infoCredential.getCredentialKey())) {
             credentialMatch = true;
-
-            // FIXME: if true cache token password for authentication performance improvement
         }
 
         return credentialMatch;
@@ -44,6 +44,9 @@ public enum KapuaAuthenticationSettingKeys implements SettingKey {
     AUTHENTICATION_CREDENTIAL_APIKEY_CACHE_ENABLE("authentication.credential.apiKey.cache.enabled"), //
     AUTHENTICATION_CREDENTIAL_APIKEY_CACHE_TTL("authentication.credential.apiKey.cache.ttl"), //
 
+    AUTHENTICATION_CREDENTIAL_VERIFICATION_THREADS("authentication.credential.verification.threads"), //
+    AUTHENTICATION_CREDENTIAL_VERIFICATION_QUEUE_SIZE("authentication.credential.verification.queue.size"), //
+
     //event queues
     AUTHENTICATION_EVENT_ADDRESS("authentication.eventAddress");
 
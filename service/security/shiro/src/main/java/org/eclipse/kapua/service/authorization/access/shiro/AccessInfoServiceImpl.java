@@ -42,6 +42,7 @@ import org.eclipse.kapua.service.authorization.permission.shiro.PermissionValida
 import org.eclipse.kapua.service.authorization.role.Role;
 import org.eclipse.kapua.service.authorization.role.RoleService;
 import org.eclipse.kapua.service.authorization.shiro.AuthorizationEntityManagerFactory;
+import org.eclipse.kapua.service.authorization.shiro.KapuaAuthorizingRealm;
 import org.eclipse.kapua.service.authorization.shiro.exception.KapuaAuthorizationErrorCodes;
 import org.eclipse.kapua.service.authorization.shiro.exception.KapuaAuthorizationException;
 import org.slf4j.Logger;
@@ -104,7 +105,7 @@ public class AccessInfoServiceImpl extends AbstractKapuaService implements Acces
             }
         }
 
-        return entityManagerSession.onTransactedInsert(em -> {
+        AccessInfo newAccessInfo = entityManagerSession.onTransactedInsert(em -> {
             AccessInfo accessInfo = AccessInfoDAO.create(em, accessInfoCreator);
 
             if (!accessInfoCreator.getPermissions().isEmpty()) {
@@ -133,6 +134,9 @@ public class AccessInfoServiceImpl extends AbstractKapuaService implements Acces
 
             return accessInfo;
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return newAccessInfo;
     }
 
     @Override
@@ -220,6 +224,8 @@ public class AccessInfoServiceImpl extends AbstractKapuaService implements Acces
 
             AccessInfoDAO.delete(em, scopeId, accessInfoId);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
     }
 
     //@ListenServiceEvent(fromAddress="account")
@@ -36,6 +36,7 @@ import org.eclipse.kapua.service.authorization.permission.Permission;
 import org.eclipse.kapua.service.authorization.permission.PermissionFactory;
 import org.eclipse.kapua.service.authorization.permission.shiro.PermissionValidator;
 import org.eclipse.kapua.service.authorization.shiro.AuthorizationEntityManagerFactory;
+import org.eclipse.kapua.service.authorization.shiro.KapuaAuthorizingRealm;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -109,7 +110,7 @@ public class AccessPermissionServiceImpl extends AbstractKapuaService implements
 
         //
         // Do create
-        return entityManagerSession.onTransactedInsert(em -> {
+        AccessPermission newAccessPermission = entityManagerSession.onTransactedInsert(em -> {
             //
             // Check that accessInfo exists
             AccessInfo accessInfo = AccessInfoDAO.find(em, accessPermissionCreator.getScopeId(), accessPermissionCreator.getAccessInfoId());
@@ -120,6 +121,9 @@ public class AccessPermissionServiceImpl extends AbstractKapuaService implements
 
             return AccessPermissionDAO.create(em, accessPermissionCreator);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return newAccessPermission;
     }
 
     @Override
@@ -140,6 +144,8 @@ public class AccessPermissionServiceImpl extends AbstractKapuaService implements
 
             AccessPermissionDAO.delete(em, scopeId, accessPermissionId);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
     }
 
     @Override
@@ -37,6 +37,7 @@ import org.eclipse.kapua.service.authorization.role.Role;
 import org.eclipse.kapua.service.authorization.role.shiro.RoleDAO;
 import org.eclipse.kapua.service.authorization.role.RolePermissionAttributes;
 import org.eclipse.kapua.service.authorization.shiro.AuthorizationEntityManagerFactory;
+import org.eclipse.kapua.service.authorization.shiro.KapuaAuthorizingRealm;
 import org.eclipse.kapua.service.authorization.shiro.exception.KapuaAuthorizationErrorCodes;
 import org.eclipse.kapua.service.authorization.shiro.exception.KapuaAuthorizationException;
 
@@ -68,7 +69,7 @@ public class AccessRoleServiceImpl extends AbstractKapuaService implements Acces
 
         //
         // If role is not in the scope of the access info or does not exists throw an exception.
-        return entityManagerSession.onTransactedInsert(em -> {
+        AccessRole newAccessRole = entityManagerSession.onTransactedInsert(em -> {
 
             //
             // Check that accessInfo exists
@@ -105,6 +106,9 @@ public class AccessRoleServiceImpl extends AbstractKapuaService implements Acces
 
             return AccessRoleDAO.create(em, accessRoleCreator);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return newAccessRole;
     }
 
     @Override
@@ -125,6 +129,8 @@ public class AccessRoleServiceImpl extends AbstractKapuaService implements Acces
 
             AccessRoleDAO.delete(em, scopeId, accessRoleId);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -17,8 +17,7 @@ import org.apache.shiro.subject.Subject;
 import org.eclipse.kapua.KapuaException;
 import org.eclipse.kapua.KapuaRuntimeException;
 import org.eclipse.kapua.commons.model.id.KapuaEid;
-import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
-import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.model.KapuaEntity;
 import org.eclipse.kapua.model.KapuaEntityCreator;
 import org.eclipse.kapua.model.domain.Actions;
@@ -26,7 +25,6 @@ import org.eclipse.kapua.model.id.KapuaId;
 import org.eclipse.kapua.model.query.KapuaQuery;
 import org.eclipse.kapua.service.KapuaEntityService;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.authorization.AuthorizationService;
 import org.eclipse.kapua.service.authorization.group.Group;
 import org.eclipse.kapua.service.authorization.permission.Permission;
@@ -51,9 +49,6 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
 
     private static final long serialVersionUID = 1480557438886065675L;
 
-    private static final KapuaLocator LOCATOR = KapuaLocator.getInstance();
-    private static final AccountService ACCOUNT_SERVICE = LOCATOR.getService(AccountService.class);
-
     @Basic
     @Column(name = "domain", nullable = true, updatable = false)
     private String domain;
@@ -214,20 +209,22 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
 
         Permission permission = (Permission) p;
 
-        if (KapuaId.ANY.equals(permission.getTargetScopeId())) {
-            setTargetScopeId(null);
-        }
+        //
+        // The check is made on a copy of this permission, so this permission is never modified and it can be safely shared between threads
+        boolean anyTargetScope = KapuaId.ANY.equals(permission.getTargetScopeId());
+        boolean anyGroup = Group.ANY.equals(permission.getGroupId());
 
-        if (Group.ANY.equals(permission.getGroupId())) {
-            setGroupId(null);
-        }
-
-        setParts(toString());
+        PermissionImpl impliedPermission = new PermissionImpl(
+                getDomain(),
+                getAction(),
+                anyTargetScope ? null : getTargetScopeId(),
+                anyGroup ? null : getGroupId(),
+                getForwardable());
 
-        boolean implies = super.implies(p);
+        boolean implies = impliedPermission.wildcardImplies(p);
 
-        if (!implies && permission.getTargetScopeId() != null && getForwardable()) {
-            implies = forwardPermission(p);
+        if (!implies && !anyTargetScope && permission.getTargetScopeId() != null && getForwardable()) {
+            implies = impliedPermission.forwardPermission(p);
         }
 
         return implies;
@@ -260,8 +257,12 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
     private boolean forwardPermission(org.apache.shiro.authz.Permission p) {
         Permission permission = (Permission) p;
 
+        if (getTargetScopeId() == null) {
+            return false;
+        }
+
         try {
-            Account account = KapuaSecurityUtils.doPrivileged(() -> ACCOUNT_SERVICE.find(permission.getTargetScopeId()));
+            Account account = AccountCache.getInstance().findById(permission.getTargetScopeId());
 
             if (account != null && account.getScopeId() != null) {
                 String parentAccountPath = account.getParentAccountPath();
@@ -271,7 +272,7 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
                     setTargetScopeId(permission.getTargetScopeId());
                     setParts(toString());
 
-                    return super.implies(p);
+                    return wildcardImplies(p);
                 }
             }
         } catch (KapuaException e) {
@@ -281,6 +282,10 @@ public class PermissionImpl extends WildcardPermission implements Permission, or
         return false;
     }
 
+    private boolean wildcardImplies(org.apache.shiro.authz.Permission p) {
+        return super.implies(p);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
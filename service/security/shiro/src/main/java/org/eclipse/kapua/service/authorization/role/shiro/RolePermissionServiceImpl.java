@@ -37,6 +37,7 @@ import org.eclipse.kapua.service.authorization.role.RolePermissionQuery;
 import org.eclipse.kapua.service.authorization.role.RolePermissionService;
 import org.eclipse.kapua.service.authorization.role.RoleService;
 import org.eclipse.kapua.service.authorization.shiro.AuthorizationEntityManagerFactory;
+import org.eclipse.kapua.service.authorization.shiro.KapuaAuthorizingRealm;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -116,7 +117,10 @@ public class RolePermissionServiceImpl extends AbstractKapuaService implements R
             throw new KapuaEntityUniquenessException(RolePermission.TYPE, uniquesFieldValues);
         }
 
-        return entityManagerSession.onTransactedInsert(em -> RolePermissionDAO.create(em, rolePermissionCreator));
+        RolePermission newRolePermission = entityManagerSession.onTransactedInsert(em -> RolePermissionDAO.create(em, rolePermissionCreator));
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return newRolePermission;
     }
 
     @Override
@@ -137,6 +141,8 @@ public class RolePermissionServiceImpl extends AbstractKapuaService implements R
 
             RolePermissionDAO.delete(em, scopeId, rolePermissionId);
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
     }
 
     @Override
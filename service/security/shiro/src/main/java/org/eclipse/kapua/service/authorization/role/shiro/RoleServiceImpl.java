@@ -41,6 +41,7 @@ import org.eclipse.kapua.service.authorization.role.RoleAttributes;
 import org.eclipse.kapua.service.authorization.role.RoleQuery;
 import org.eclipse.kapua.service.authorization.role.RoleService;
 import org.eclipse.kapua.service.authorization.shiro.AuthorizationEntityManagerFactory;
+import org.eclipse.kapua.service.authorization.shiro.KapuaAuthorizingRealm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,7 +109,7 @@ public class RoleServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
 
         //
         // Do create
-        return entityManagerSession.onTransactedInsert(em -> {
+        Role newRole = entityManagerSession.onTransactedInsert(em -> {
             Role role = RoleDAO.create(em, roleCreator);
 
             if (!roleCreator.getPermissions().isEmpty()) {
@@ -125,6 +126,9 @@ public class RoleServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
 
             return role;
         });
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return newRole;
     }
 
     @Override
@@ -162,7 +166,10 @@ public class RoleServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
 
         //
         // Do update
-        return entityManagerSession.onTransactedInsert(em -> RoleDAO.update(em, role));
+        Role updatedRole = entityManagerSession.onTransactedInsert(em -> RoleDAO.update(em, role));
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
+        return updatedRole;
     }
 
     @Override
@@ -185,6 +192,8 @@ public class RoleServiceImpl extends AbstractKapuaConfigurableResourceLimitedSer
         //
         // Do delete
         entityManagerSession.onTransactedAction(em -> RoleDAO.delete(em, scopeId, roleId));
+
+        KapuaAuthorizingRealm.invalidateEffectivePermissions();
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authorization.shiro;
+
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.eclipse.kapua.model.domain.Actions;
+import org.eclipse.kapua.service.authorization.permission.Permission;
+import org.eclipse.kapua.service.authorization.permission.shiro.PermissionImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The effective permissions of a user (the permissions of its access infos and the ones of the assigned roles) indexed by domain and action.<br>
+ * A required {@link Permission} is checked only against the granted permissions having the same domain and action or the wildcard ones,
+ * instead of scanning all the granted permissions.<br>
+ * <br>
+ * The instance is immutable and it is shared between the requests of the same user (see {@link KapuaAuthorizingRealm}).
+ *
+ * @since 1.1
+ */
+class EffectivePermissions implements AuthorizationInfo {
+
+    private static final long serialVersionUID = -2795342432575419466L;
+
+    private final Set<String> roles;
+    private final Set<org.apache.shiro.authz.Permission> permissions;
+    private final Map<String, List<PermissionImpl>> permissionsByDomainAction;
+
+    /**
+     * Constructor
+     *
+     * @param roles
+     *            the role names
+     * @param permissions
+     *            the granted permissions
+     */
+    EffectivePermissions(Collection<String> roles, Collection<? extends Permission> permissions) {
+        this.roles = Collections.unmodifiableSet(new HashSet<>(roles));
+
+        Set<org.apache.shiro.authz.Permission> grantedPermissions = new HashSet<>();
+        Map<String, List<PermissionImpl>> buckets = new HashMap<>();
+        for (Permission permission : permissions) {
+            // copy the permission so the shared instance is not bound to the persistence context it has been loaded from
+            PermissionImpl grantedPermission = new PermissionImpl(permission);
+            if (grantedPermissions.add(grantedPermission)) {
+                buckets.computeIfAbsent(key(permission.getDomain(), permission.getAction()), k -> new ArrayList<>()).add(grantedPermission);
+            }
+        }
+        this.permissions = Collections.unmodifiableSet(grantedPermissions);
+        this.permissionsByDomainAction = buckets;
+    }
+
+    @Override
+    public Collection<String> getRoles() {
+        return roles;
+    }
+
+    @Override
+    public Collection<String> getStringPermissions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Collection<org.apache.shiro.authz.Permission> getObjectPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Check if the required permission is implied by one of the granted permissions
+     *
+     * @param permission
+     *            the required permission
+     * @return
+     */
+    boolean isPermitted(Permission permission) {
+        String domain = permission.getDomain();
+        Actions action = permission.getAction();
+        return isPermitted(key(domain, action), permission) ||
+                (action != null && isPermitted(key(domain, null), permission)) ||
+                (domain != null && isPermitted(key(null, action), permission)) ||
+                (domain != null && action != null && isPermitted(key(null, null), permission));
+    }
+
+    private boolean isPermitted(String key, Permission permission) {
+        List<PermissionImpl> candidates = permissionsByDomainAction.get(key);
+        if (candidates != null) {
+            for (PermissionImpl candidate : candidates) {
+                if (candidate.implies((org.apache.shiro.authz.Permission) permission)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The domain is lower cased as the {@link org.apache.shiro.authz.permission.WildcardPermission} comparison is case insensitive
+     */
+    private static String key(String domain, Actions action) {
+        return (domain != null ? domain.toLowerCase(Locale.ROOT) : Permission.WILDCARD) + Permission.SEPARATOR + (action != null ? action.name() : Permission.WILDCARD);
+    }
+}
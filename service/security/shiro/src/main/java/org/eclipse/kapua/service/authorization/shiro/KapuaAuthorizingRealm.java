@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates and others
+ * Copyright (c) 2011, 2018 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -17,10 +17,13 @@ import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UnknownAccountException;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.commons.cache.Cache;
+import org.eclipse.kapua.commons.cache.CacheConfiguration;
+import org.eclipse.kapua.commons.cache.CacheProviders;
 import org.eclipse.kapua.commons.model.query.predicate.AttributePredicateImpl;
 import org.eclipse.kapua.commons.security.KapuaSecurityUtils;
 import org.eclipse.kapua.locator.KapuaLocator;
@@ -49,8 +52,17 @@ import org.eclipse.kapua.service.user.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * The JPA-based application's one and only configured Apache Shiro Realm.
+ * The JPA-based application's one and only configured Apache Shiro Realm.<br>
+ * <br>
+ * The {@link EffectivePermissions} of a user are cached (see {@link CacheProviders} for the {@code authorization.effective_permissions} cache configuration)
+ * and they are invalidated by the access and role services on changes, while the other nodes see the changes once the cached permissions expire.
  */
 public class KapuaAuthorizingRealm extends AuthorizingRealm {
 
@@ -58,10 +70,27 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
 
     public static final String REALM_NAME = "kapuaAuthorizingRealm";
 
+    private static final long CACHE_SIZE_MAX = 10000;
+    private static final int CACHE_EXPIRE_AFTER = 30;
+
+    private static final Cache<KapuaId, EffectivePermissions> EFFECTIVE_PERMISSIONS = CacheProviders.newCache("authorization.effective_permissions", new CacheConfiguration<>(CACHE_SIZE_MAX, CACHE_EXPIRE_AFTER), null);
+    private static final AtomicLong EFFECTIVE_PERMISSIONS_VERSION = new AtomicLong();
+
     public KapuaAuthorizingRealm() throws KapuaException {
         setName(REALM_NAME);
     }
 
+    /**
+     * Invalidate the cached effective permissions of all the users.<br>
+     * It must be called once an access info, access permission, access role, role or role permission has been changed.
+     *
+     * @since 1.1
+     */
+    public static void invalidateEffectivePermissions() {
+        EFFECTIVE_PERMISSIONS_VERSION.incrementAndGet();
+        EFFECTIVE_PERMISSIONS.invalidateAll();
+    }
+
     /**
      * Authorization.
      */
@@ -69,7 +98,35 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
             throws AuthenticationException {
         //
         // Extract principal
-        String username = ((User) principals.getPrimaryPrincipal()).getName();
+        User principal = (User) principals.getPrimaryPrincipal();
+
+        EffectivePermissions effectivePermissions = EFFECTIVE_PERMISSIONS.get(principal.getId());
+        if (effectivePermissions == null) {
+            long currentVersion = EFFECTIVE_PERMISSIONS_VERSION.get();
+            effectivePermissions = loadEffectivePermissions(principal.getName());
+            if (EFFECTIVE_PERMISSIONS_VERSION.get() == currentVersion) {
+                EFFECTIVE_PERMISSIONS.put(principal.getId(), effectivePermissions);
+                // the permissions may have been changed while they were cached
+                if (EFFECTIVE_PERMISSIONS_VERSION.get() != currentVersion) {
+                    EFFECTIVE_PERMISSIONS.remove(principal.getId());
+                }
+            }
+        }
+        return effectivePermissions;
+    }
+
+    /**
+     * Check the permission against the granted permissions with the same domain and action only
+     */
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        if (info instanceof EffectivePermissions && permission instanceof org.eclipse.kapua.service.authorization.permission.Permission) {
+            return ((EffectivePermissions) info).isPermitted((org.eclipse.kapua.service.authorization.permission.Permission) permission);
+        }
+        return super.isPermitted(permission, info);
+    }
+
+    private EffectivePermissions loadEffectivePermissions(String username) {
         logger.debug("Getting authorization info for: {}", username);
 
         //
@@ -119,8 +176,9 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
         }
 
         //
-        // Create SimpleAuthorizationInfo with principals permissions
-        SimpleAuthorizationInfo info = new SimpleAuthorizationInfo();
+        // Collect principals roles and permissions
+        Set<String> roles = new HashSet<>();
+        List<PermissionImpl> permissions = new ArrayList<>();
 
         // Get user roles set and related permissions
         for (AccessInfo accessInfo : accessInfos.getItems()) {
@@ -139,7 +197,7 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
             for (AccessPermission accessPermission : accessPermissions.getItems()) {
                 PermissionImpl p = accessPermission.getPermission();
                 logger.trace("User: {} has permission: {}", username, p);
-                info.addObjectPermission(p);
+                permissions.add(p);
             }
 
             // Access Role Id
@@ -168,7 +226,7 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
                     throw new ShiroException("Error while find role ids!", e);
                 }
 
-                info.addRole(role.getName());
+                roles.add(role.getName());
                 final RolePermissionListResult rolePermissions;
                 try {
                     rolePermissions = KapuaSecurityUtils.doPrivileged(() -> rolePermissionService.findByRoleId(role.getScopeId(), role.getId()));
@@ -180,14 +238,14 @@ public class KapuaAuthorizingRealm extends AuthorizingRealm {
 
                     PermissionImpl p = rolePermission.getPermission();
                     logger.trace("Role: {} has permission: {}", role, p);
-                    info.addObjectPermission(p);
+                    permissions.add(p);
                 }
             }
         }
 
         //
         // Return authorization info
-        return info;
+        return new EffectivePermissions(roles, permissions);
     }
 
     /**
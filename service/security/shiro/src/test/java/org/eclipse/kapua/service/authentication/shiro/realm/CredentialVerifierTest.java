@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authentication.shiro.realm;
+
+import java.math.BigInteger;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.service.authentication.credential.CredentialStatus;
+import org.eclipse.kapua.service.authentication.credential.CredentialType;
+import org.eclipse.kapua.service.authentication.credential.shiro.CredentialImpl;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+@Category(JUnitTests.class)
+public class CredentialVerifierTest {
+
+    @Test
+    public void testVerify() {
+        String oldHash = BCrypt.hashpw("old-password", BCrypt.gensalt(4));
+        CredentialImpl credential = new CredentialImpl(new KapuaEid(BigInteger.ONE), new KapuaEid(BigInteger.ONE), CredentialType.PASSWORD, oldHash, CredentialStatus.ENABLED, null);
+        credential.setId(new KapuaEid(BigInteger.valueOf(100)));
+
+        CredentialVerifier verifier = CredentialVerifier.getInstance();
+        Assert.assertTrue(verifier.verify(credential, "old-password", oldHash));
+        Assert.assertTrue(verifier.verify(credential, "old-password", oldHash));
+        Assert.assertFalse(verifier.verify(credential, "new-password", oldHash));
+
+        // the cached verification must not match once the password has been changed
+        String newHash = BCrypt.hashpw("new-password", BCrypt.gensalt(4));
+        Assert.assertFalse(verifier.verify(credential, "old-password", newHash));
+        Assert.assertTrue(verifier.verify(credential, "new-password", newHash));
+
+        verifier.invalidate(credential.getId());
+        Assert.assertTrue(verifier.verify(credential, "new-password", newHash));
+    }
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.service.authorization.shiro;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.kapua.commons.model.id.KapuaEid;
+import org.eclipse.kapua.model.domain.Actions;
+import org.eclipse.kapua.model.id.KapuaId;
+import org.eclipse.kapua.service.authorization.permission.shiro.PermissionImpl;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class EffectivePermissionsTest {
+
+    private static final KapuaId SCOPE_ID = new KapuaEid(BigInteger.valueOf(42));
+    private static final KapuaId OTHER_SCOPE_ID = new KapuaEid(BigInteger.valueOf(43));
+
+    @Test
+    public void testDomainActionBuckets() {
+        EffectivePermissions effectivePermissions = new EffectivePermissions(Collections.singleton("role"), Arrays.asList(
+                new PermissionImpl("device", Actions.read, SCOPE_ID, null),
+                new PermissionImpl("user", null, SCOPE_ID, null),
+                new PermissionImpl(null, Actions.connect, OTHER_SCOPE_ID, null)));
+
+        Assert.assertTrue(effectivePermissions.isPermitted(new PermissionImpl("device", Actions.read, SCOPE_ID, null)));
+        Assert.assertTrue(effectivePermissions.isPermitted(new PermissionImpl("DEVICE", Actions.read, SCOPE_ID, null)));
+        Assert.assertFalse(effectivePermissions.isPermitted(new PermissionImpl("device", Actions.write, SCOPE_ID, null)));
+        Assert.assertFalse(effectivePermissions.isPermitted(new PermissionImpl("device", Actions.read, OTHER_SCOPE_ID, null)));
+
+        Assert.assertTrue(effectivePermissions.isPermitted(new PermissionImpl("user", Actions.delete, SCOPE_ID, null)));
+        Assert.assertTrue(effectivePermissions.isPermitted(new PermissionImpl("broker", Actions.connect, OTHER_SCOPE_ID, null)));
+        Assert.assertFalse(effectivePermissions.isPermitted(new PermissionImpl("broker", Actions.connect, SCOPE_ID, null)));
+
+        Assert.assertEquals(Collections.singleton("role"), effectivePermissions.getRoles());
+        Assert.assertEquals(3, effectivePermissions.getObjectPermissions().size());
+    }
+
+    @Test
+    public void testAnyTargetScopeDoesNotModifyGrantedPermission() {
+        PermissionImpl grantedPermission = new PermissionImpl("device", Actions.read, SCOPE_ID, null);
+        EffectivePermissions effectivePermissions = new EffectivePermissions(Collections.emptySet(), Collections.singleton(grantedPermission));
+
+        Assert.assertTrue(effectivePermissions.isPermitted(new PermissionImpl("device", Actions.read, KapuaId.ANY, null)));
+        Assert.assertFalse(effectivePermissions.isPermitted(new PermissionImpl("device", Actions.read, OTHER_SCOPE_ID, null)));
+
+        Assert.assertTrue(grantedPermission.implies(new PermissionImpl("device", Actions.read, KapuaId.ANY, null)));
+        Assert.assertEquals(SCOPE_ID, grantedPermission.getTargetScopeId());
+        Assert.assertFalse(grantedPermission.implies(new PermissionImpl("device", Actions.read, OTHER_SCOPE_ID, null)));
+    }
+}
@@ -19,7 +19,11 @@ import org.eclipse.kapua.message.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.ServiceLoader;
 
 /**
@@ -40,36 +44,33 @@ public abstract class Translator<FROM_M extends Message, TO_M extends Message> {
 
     private static final Logger LOG = LoggerFactory.getLogger(Translator.class);
 
-    private static final ServiceLoader<Translator> AVAILABLE_TRANSLATORS = ServiceLoader.load(Translator.class);
-
     /**
      * Return a translator for the given messages classes.
      * <br>
-     * This method will lookup instances of Translator through {@link java.util.ServiceLoader}
+     * This method will lookup instances of Translator through {@link java.util.ServiceLoader}.
+     * The available translators are loaded once and the translator found for each pair of messages classes is kept in a lock free lookup table.
      *
      * @param fromMessageClass message from type
      * @param toMessageClass   message to type
      * @return
      * @throws KapuaException
      */
-    public static synchronized <FROM_M extends Message, TO_M extends Message, T extends Translator<FROM_M, TO_M>> T getTranslatorFor(Class<? extends FROM_M> fromMessageClass,
+    public static <FROM_M extends Message, TO_M extends Message, T extends Translator<FROM_M, TO_M>> T getTranslatorFor(Class<? extends FROM_M> fromMessageClass,
             Class<? extends TO_M> toMessageClass)
             throws KapuaException {
 
         Objects.requireNonNull(fromMessageClass);
         Objects.requireNonNull(toMessageClass);
 
-        for (Translator translator : AVAILABLE_TRANSLATORS) {
-            if ((fromMessageClass.isAssignableFrom(translator.getClassFrom())) &&
-                    toMessageClass.isAssignableFrom(translator.getClassTo())) {
-                return (T) translator;
-            }
+        Translator translator = TranslatorDispatchTable.BY_FROM_CLASS.get(fromMessageClass).get(toMessageClass).orElse(null);
+        if (translator != null) {
+            return (T) translator;
         }
 
         LOG.error("Cannot find translator from: {} - to: {}", fromMessageClass.getName(), toMessageClass.getName());
         throw new KapuaRuntimeException(KapuaRuntimeErrorCodes.TRANSLATOR_NOT_FOUND,
                 null,
-                AVAILABLE_TRANSLATORS,
+                TranslatorDispatchTable.AVAILABLE_TRANSLATORS,
                 fromMessageClass.getName(),
                 toMessageClass.getName());
     }
@@ -96,4 +97,42 @@ public abstract class Translator<FROM_M extends Message, TO_M extends Message> {
      * @return
      */
     public abstract Class<TO_M> getClassTo();
+
+    /**
+     * Translators lookup table by from message class and to message class.<br>
+     * The available translators are loaded on first use (and not when the {@link Translator} class is initialized, since loading them initializes the subclasses).
+     * A translator matches if its from and to messages classes are assignable to the requested ones; the first matching translator, in the {@link ServiceLoader} order, is returned.
+     */
+    private static class TranslatorDispatchTable {
+
+        private static final List<Translator> AVAILABLE_TRANSLATORS;
+
+        static {
+            List<Translator> translators = new ArrayList<>();
+            for (Translator translator : ServiceLoader.load(Translator.class)) {
+                translators.add(translator);
+            }
+            AVAILABLE_TRANSLATORS = Collections.unmodifiableList(translators);
+        }
+
+        private static final ClassValue<ClassValue<Optional<Translator>>> BY_FROM_CLASS = new ClassValue<ClassValue<Optional<Translator>>>() {
+
+            @Override
+            protected ClassValue<Optional<Translator>> computeValue(Class<?> fromMessageClass) {
+                return new ClassValue<Optional<Translator>>() {
+
+                    @Override
+                    protected Optional<Translator> computeValue(Class<?> toMessageClass) {
+                        for (Translator translator : AVAILABLE_TRANSLATORS) {
+                            if (fromMessageClass.isAssignableFrom(translator.getClassFrom()) &&
+                                    toMessageClass.isAssignableFrom(translator.getClassTo())) {
+                                return Optional.of(translator);
+                            }
+                        }
+                        return Optional.empty();
+                    }
+                };
+            }
+        };
+    }
 }
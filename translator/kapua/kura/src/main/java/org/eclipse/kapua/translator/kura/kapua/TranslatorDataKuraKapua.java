@@ -15,7 +15,6 @@ import java.util.HashMap;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.data.KapuaDataChannel;
 import org.eclipse.kapua.message.device.data.KapuaDataMessage;
 import org.eclipse.kapua.message.device.data.KapuaDataPayload;
@@ -23,12 +22,11 @@ import org.eclipse.kapua.message.internal.device.data.KapuaDataChannelImpl;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataMessageImpl;
 import org.eclipse.kapua.message.internal.device.data.KapuaDataPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.KuraChannel;
 import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataMessage;
 import org.eclipse.kapua.service.device.call.message.kura.data.KuraDataPayload;
-import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -52,21 +50,15 @@ public class TranslatorDataKuraKapua extends Translator<KuraDataMessage, KapuaDa
 
         //
         // Kapua message
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraDataMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraDataMessage.getChannel().getScope(), kuraDataMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraDataMessage.getChannel().getScope());
         }
 
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(),
-                kuraDataMessage.getChannel().getClientId());
-
         KapuaDataMessage kapuaDataMessage = new KapuaDataMessageImpl();
-        kapuaDataMessage.setScopeId(account.getId());
-        kapuaDataMessage.setDeviceId(device != null ? device.getId() : null);
+        kapuaDataMessage.setScopeId(deviceIdentity.getScopeId());
+        kapuaDataMessage.setDeviceId(deviceIdentity.getDeviceId());
         kapuaDataMessage.setClientId(kuraDataMessage.getChannel().getClientId());
         kapuaDataMessage.setChannel(kapuaDataChannel);
         kapuaDataMessage.setPayload(kapuaDataPayload);
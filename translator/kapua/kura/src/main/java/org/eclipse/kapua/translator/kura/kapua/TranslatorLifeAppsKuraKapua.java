@@ -13,7 +13,6 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.lifecycle.KapuaAppsChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaAppsMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaAppsPayload;
@@ -21,12 +20,12 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsChannelImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaAppsPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraAppsChannel;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraAppsMessage;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraAppsPayload;
 import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -44,22 +43,17 @@ public class TranslatorLifeAppsKuraKapua extends Translator<KuraAppsMessage, Kap
         kapuaAppsMessage.setChannel(translate(kuraAppsMessage.getChannel()));
         kapuaAppsMessage.setPayload(translate(kuraAppsMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraAppsMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraAppsMessage.getChannel().getScope(), kuraAppsMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraAppsMessage.getChannel().getScope());
         }
-
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(), kuraAppsMessage.getChannel().getClientId());
-        if (device == null) {
+        if (deviceIdentity.getDeviceId() == null) {
             throw new KapuaEntityNotFoundException(Device.class.toString(), kuraAppsMessage.getChannel().getClientId());
         }
 
-        kapuaAppsMessage.setDeviceId(device.getId());
-        kapuaAppsMessage.setScopeId(account.getId());
+        kapuaAppsMessage.setDeviceId(deviceIdentity.getDeviceId());
+        kapuaAppsMessage.setScopeId(deviceIdentity.getScopeId());
         kapuaAppsMessage.setCapturedOn(kuraAppsMessage.getPayload().getTimestamp());
         kapuaAppsMessage.setSentOn(kuraAppsMessage.getPayload().getTimestamp());
         kapuaAppsMessage.setReceivedOn(kuraAppsMessage.getTimestamp());
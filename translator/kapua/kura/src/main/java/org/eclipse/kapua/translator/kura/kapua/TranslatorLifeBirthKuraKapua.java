@@ -13,7 +13,6 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.lifecycle.KapuaBirthChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaBirthMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaBirthPayload;
@@ -21,12 +20,11 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthChannelImpl
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaBirthPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraBirthChannel;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraBirthMessage;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraBirthPayload;
-import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -43,20 +41,15 @@ public class TranslatorLifeBirthKuraKapua extends Translator<KuraBirthMessage, K
         kapuaBirthMessage.setChannel(translate(kuraBirthMessage.getChannel()));
         kapuaBirthMessage.setPayload(translate(kuraBirthMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraBirthMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraBirthMessage.getChannel().getScope(), kuraBirthMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraBirthMessage.getChannel().getScope());
         }
 
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(), kuraBirthMessage.getChannel().getClientId());
-
-        kapuaBirthMessage.setScopeId(account.getId());
-        if (device != null) {
-            kapuaBirthMessage.setDeviceId(device.getId());
+        kapuaBirthMessage.setScopeId(deviceIdentity.getScopeId());
+        if (deviceIdentity.getDeviceId() != null) {
+            kapuaBirthMessage.setDeviceId(deviceIdentity.getDeviceId());
         } else {
             kapuaBirthMessage.setClientId(kuraBirthMessage.getChannel().getClientId());
         }
@@ -13,7 +13,6 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.lifecycle.KapuaDisconnectChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaDisconnectMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaDisconnectPayload;
@@ -21,12 +20,12 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaDisconnectChanne
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaDisconnectMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaDisconnectPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraDisconnectChannel;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraDisconnectMessage;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraDisconnectPayload;
 import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -44,22 +43,17 @@ public class TranslatorLifeDisconnectKuraKapua extends Translator<KuraDisconnect
         kapuaDisconnectMessage.setChannel(translate(kuraDisconnectMessage.getChannel()));
         kapuaDisconnectMessage.setPayload(translate(kuraDisconnectMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraDisconnectMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraDisconnectMessage.getChannel().getScope(), kuraDisconnectMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraDisconnectMessage.getChannel().getScope());
         }
-
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(), kuraDisconnectMessage.getChannel().getClientId());
-        if (device == null) {
+        if (deviceIdentity.getDeviceId() == null) {
             throw new KapuaEntityNotFoundException(Device.class.toString(), kuraDisconnectMessage.getChannel().getClientId());
         }
 
-        kapuaDisconnectMessage.setDeviceId(device.getId());
-        kapuaDisconnectMessage.setScopeId(account.getId());
+        kapuaDisconnectMessage.setDeviceId(deviceIdentity.getDeviceId());
+        kapuaDisconnectMessage.setScopeId(deviceIdentity.getScopeId());
         kapuaDisconnectMessage.setCapturedOn(kuraDisconnectMessage.getPayload().getTimestamp());
         kapuaDisconnectMessage.setSentOn(kuraDisconnectMessage.getPayload().getTimestamp());
         kapuaDisconnectMessage.setReceivedOn(kuraDisconnectMessage.getTimestamp());
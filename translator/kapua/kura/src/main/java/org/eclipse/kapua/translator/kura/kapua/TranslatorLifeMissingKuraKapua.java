@@ -13,7 +13,6 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.lifecycle.KapuaMissingChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaMissingMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaMissingPayload;
@@ -21,12 +20,12 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingChannelIm
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaMissingPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraMissingChannel;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraMissingMessage;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraMissingPayload;
 import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -44,23 +43,18 @@ public class TranslatorLifeMissingKuraKapua extends Translator<KuraMissingMessag
         kapuaMissingMessage.setChannel(translate(kuraMissingMessage.getChannel()));
         kapuaMissingMessage.setPayload(translate(kuraMissingMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraMissingMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraMissingMessage.getChannel().getScope(), kuraMissingMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraMissingMessage.getChannel().getScope());
         }
 
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(), kuraMissingMessage.getChannel().getClientId());
-
-        if (device == null) {
+        if (deviceIdentity.getDeviceId() == null) {
             throw new KapuaEntityNotFoundException(Device.class.toString(), kuraMissingMessage.getChannel().getClientId());
         }
 
-        kapuaMissingMessage.setDeviceId(device.getId());
-        kapuaMissingMessage.setScopeId(account.getId());
+        kapuaMissingMessage.setDeviceId(deviceIdentity.getDeviceId());
+        kapuaMissingMessage.setScopeId(deviceIdentity.getScopeId());
         kapuaMissingMessage.setCapturedOn(kuraMissingMessage.getPayload().getTimestamp());
         kapuaMissingMessage.setSentOn(kuraMissingMessage.getPayload().getTimestamp());
         kapuaMissingMessage.setReceivedOn(kuraMissingMessage.getTimestamp());
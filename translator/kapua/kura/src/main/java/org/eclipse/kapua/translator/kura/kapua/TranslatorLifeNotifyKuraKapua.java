@@ -13,7 +13,6 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
 import org.eclipse.kapua.message.device.lifecycle.KapuaNotifyChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaNotifyMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaNotifyPayload;
@@ -21,12 +20,12 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaNotifyChannelImp
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaNotifyMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaNotifyPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraNotifyChannel;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraNotifyMessage;
 import org.eclipse.kapua.service.device.call.message.kura.lifecycle.KuraNotifyPayload;
 import org.eclipse.kapua.service.device.registry.Device;
-import org.eclipse.kapua.service.device.registry.DeviceRegistryService;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver;
+import org.eclipse.kapua.service.device.registry.internal.cache.DeviceIdentityResolver.DeviceIdentity;
 import org.eclipse.kapua.translator.Translator;
 
 /**
@@ -44,23 +43,18 @@ public class TranslatorLifeNotifyKuraKapua extends Translator<KuraNotifyMessage,
         kapuaNotifyMessage.setChannel(translate(kuraNotifyMessage.getChannel()));
         kapuaNotifyMessage.setPayload(translate(kuraNotifyMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraNotifyMessage.getChannel().getScope());
+        DeviceIdentity deviceIdentity = DeviceIdentityResolver.getInstance().resolve(kuraNotifyMessage.getChannel().getScope(), kuraNotifyMessage.getChannel().getClientId());
 
-        if (account == null) {
+        if (deviceIdentity == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraNotifyMessage.getChannel().getScope());
         }
 
-        DeviceRegistryService deviceRegistryService = locator.getService(DeviceRegistryService.class);
-        Device device = deviceRegistryService.findByClientId(account.getId(), kuraNotifyMessage.getChannel().getClientId());
-
-        if (device == null) {
+        if (deviceIdentity.getDeviceId() == null) {
             throw new KapuaEntityNotFoundException(Device.class.toString(), kuraNotifyMessage.getChannel().getClientId());
         }
 
-        kapuaNotifyMessage.setDeviceId(device.getId());
-        kapuaNotifyMessage.setScopeId(account.getId());
+        kapuaNotifyMessage.setDeviceId(deviceIdentity.getDeviceId());
+        kapuaNotifyMessage.setScopeId(deviceIdentity.getScopeId());
         kapuaNotifyMessage.setCapturedOn(kuraNotifyMessage.getPayload().getTimestamp());
         kapuaNotifyMessage.setSentOn(kuraNotifyMessage.getPayload().getTimestamp());
         kapuaNotifyMessage.setReceivedOn(kuraNotifyMessage.getTimestamp());
@@ -13,7 +13,7 @@ package org.eclipse.kapua.translator.kura.kapua;
 
 import org.eclipse.kapua.KapuaEntityNotFoundException;
 import org.eclipse.kapua.KapuaException;
-import org.eclipse.kapua.locator.KapuaLocator;
+import org.eclipse.kapua.commons.service.internal.cache.AccountCache;
 import org.eclipse.kapua.message.device.lifecycle.KapuaUnmatchedChannel;
 import org.eclipse.kapua.message.device.lifecycle.KapuaUnmatchedMessage;
 import org.eclipse.kapua.message.device.lifecycle.KapuaUnmatchedPayload;
@@ -21,7 +21,6 @@ import org.eclipse.kapua.message.internal.device.lifecycle.KapuaUnmatchedChannel
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaUnmatchedMessageImpl;
 import org.eclipse.kapua.message.internal.device.lifecycle.KapuaUnmatchedPayloadImpl;
 import org.eclipse.kapua.service.account.Account;
-import org.eclipse.kapua.service.account.AccountService;
 import org.eclipse.kapua.service.device.call.message.kura.others.KuraUnmatchedChannel;
 import org.eclipse.kapua.service.device.call.message.kura.others.KuraUnmatchedMessage;
 import org.eclipse.kapua.service.device.call.message.kura.others.KuraUnmatchedPayload;
@@ -41,9 +40,7 @@ public class TranslatorLifeUnmatchedKuraKapua extends Translator<KuraUnmatchedMe
         kapuaUnmatchedMessage.setChannel(translate(kuraUnmatchedMessage.getChannel()));
         kapuaUnmatchedMessage.setPayload(translate(kuraUnmatchedMessage.getPayload()));
 
-        KapuaLocator locator = KapuaLocator.getInstance();
-        AccountService accountService = locator.getService(AccountService.class);
-        Account account = accountService.findByName(kuraUnmatchedMessage.getChannel().getScope());
+        Account account = AccountCache.getInstance().findByName(kuraUnmatchedMessage.getChannel().getScope());
 
         if (account == null) {
             throw new KapuaEntityNotFoundException(Account.TYPE, kuraUnmatchedMessage.getChannel().getScope());
@@ -16,6 +16,8 @@ import org.eclipse.kapua.transport.message.TransportChannel;
 import org.eclipse.kapua.transport.message.TransportMessage;
 import org.eclipse.kapua.transport.message.TransportPayload;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * API to use the Transport layer for the device communication.
  *
@@ -47,6 +49,23 @@ public interface TransportFacade<C extends TransportChannel, P extends Transport
     public MS sendSync(MQ message, Long timeout)
             throws KapuaException;
 
+    /**
+     * Send a request message to a device without blocking while waiting for the response.
+     * <p>
+     * The timeout is optional. If {@code null} the default one defined by the implementation will be used.
+     * The requester id to set in the request message is the one returned by {@link #getClientId()}.
+     * </p>
+     *
+     * @param message The request message to send.
+     * @param timeout The timeout for the operation.
+     * @return The {@link CompletableFuture} completed with the response to the request message,
+     * or completed exceptionally if the request fails or times out.
+     * @throws KapuaException if the request cannot be sent.
+     * @since 1.1.0
+     */
+    public CompletableFuture<MS> sendRequest(MQ message, Long timeout)
+            throws KapuaException;
+
     /**
      * Send a request message to a device without waiting for the response
      *
@@ -16,6 +16,7 @@ import org.eclipse.kapua.transport.TransportClientConnectOptions;
 import org.eclipse.kapua.transport.message.mqtt.MqttMessage;
 import org.eclipse.kapua.transport.message.mqtt.MqttPayload;
 import org.eclipse.kapua.transport.message.mqtt.MqttTopic;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
@@ -225,12 +226,12 @@ public class MqttClient {
     }
 
     /**
-     * Sets a {@link MqttClientCallback} to this client.
+     * Sets a {@link MqttCallback} to this client.
      *
-     * @param mqttClientCallback The {@link MqttClientCallback} to use.
+     * @param mqttClientCallback The {@link MqttCallback} to use (i.e. {@link MqttClientCallback}).
      * @throws KapuaException When set the callback fails.
      */
-    public void setCallback(MqttClientCallback mqttClientCallback)
+    public void setCallback(MqttCallback mqttClientCallback)
             throws KapuaException {
         try {
             getPahoClient().setCallback(mqttClientCallback);
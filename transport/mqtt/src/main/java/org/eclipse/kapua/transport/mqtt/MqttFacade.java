@@ -13,16 +13,15 @@ package org.eclipse.kapua.transport.mqtt;
 
 import org.eclipse.kapua.KapuaErrorCodes;
 import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaRuntimeException;
 import org.eclipse.kapua.transport.TransportFacade;
 import org.eclipse.kapua.transport.message.mqtt.MqttMessage;
 import org.eclipse.kapua.transport.message.mqtt.MqttPayload;
 import org.eclipse.kapua.transport.message.mqtt.MqttTopic;
 import org.eclipse.kapua.transport.mqtt.pooling.MqttClientPool;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Implementation of {@link TransportFacade} API for MQTT transport facade.
@@ -32,37 +31,33 @@ import java.util.TimerTask;
 public class MqttFacade implements TransportFacade<MqttTopic, MqttPayload, MqttMessage, MqttMessage> {
 
     /**
-     * The client to use to make requests.
+     * The client to use to publish messages without waiting for responses, borrowed on first use.
      *
      * @since 1.0.0
      */
     private MqttClient borrowedClient;
 
+    private final String nodeUri;
+
     /**
-     * The client callback for this set of requests.
+     * The multiplexer of the requests waiting for the response.
      *
-     * @since 1.0.0
+     * @since 1.1.0
      */
-    private MqttClientCallback mqttClientCallback;
-
-    private final String nodeUri;
+    private final MqttRequestMultiplexer requestMultiplexer;
 
     /**
      * Initialize a transport facade to be used to send requests to devices.
+     * <p>
+     * The requests waiting for a response are sent through the shared connection of the {@link MqttRequestMultiplexer} of the node,
+     * while a client is borrowed from the {@link MqttClientPool} only to publish messages without waiting for responses.
+     * </p>
      *
      * @throws KapuaException When MQTT client is not available.
      */
     public MqttFacade(String nodeUri) throws KapuaException {
         this.nodeUri = nodeUri;
-
-        //
-        // Get the client form the pool
-        try {
-            borrowedClient = MqttClientPool.getInstance(nodeUri).borrowObject();
-        } catch (Exception e) {
-            // FIXME use appropriate exception for this
-            throw new KapuaException(KapuaErrorCodes.INTERNAL_ERROR, e, (Object[]) null);
-        }
+        this.requestMultiplexer = MqttRequestMultiplexer.getInstance(nodeUri);
     }
 
     //
@@ -81,50 +76,50 @@ public class MqttFacade implements TransportFacade<MqttTopic, MqttPayload, MqttM
     @Override
     public MqttMessage sendSync(MqttMessage mqttMessage, Long timeout)
             throws KapuaException {
-        List<MqttMessage> responses = new ArrayList<>();
-
-        sendInternal(mqttMessage, responses, timeout);
-
-        if (timeout != null) {
-            if (responses.isEmpty()) {
-                throw new MqttClientException(MqttClientErrorCodes.CLIENT_TIMEOUT_EXCEPTION, null, mqttMessage.getRequestTopic());
+        if (mqttMessage.getResponseTopic() != null && timeout != null) {
+            try {
+                return sendRequest(mqttMessage, timeout).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MqttClientException(MqttClientErrorCodes.CLIENT_CALLBACK_ERROR, e, (Object) null);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof KapuaException) {
+                    throw (KapuaException) e.getCause();
+                }
+                throw new MqttClientException(MqttClientErrorCodes.SEND_ERROR, e.getCause(), mqttMessage.getRequestTopic().getTopic());
             }
+        }
 
-            return responses.get(0);
-        } else {
-            return null;
+        sendInternal(mqttMessage);
+        return null;
+    }
+
+    /**
+     * Sends the request through the shared connection of the {@link MqttRequestMultiplexer} of the node.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public CompletableFuture<MqttMessage> sendRequest(MqttMessage mqttMessage, Long timeout)
+            throws KapuaException {
+        if (mqttMessage.getResponseTopic() == null) {
+            throw new MqttClientException(MqttClientErrorCodes.SEND_ERROR, null, mqttMessage.getRequestTopic().getTopic());
         }
+
+        return requestMultiplexer.send(mqttMessage, timeout);
     }
 
     /**
-     * Actual implementation of the send operations.
-     * <p>
-     * According to the parameters given, it will make a sync or async request.
-     * </p>
+     * Publishes the message with a client borrowed from the {@link MqttClientPool}, without waiting for any response.
      *
-     * @param mqttMessage The request to send.
-     * @param responses   The container in which load responses received from the device
-     * @param timeout     The timeout of waiting the response from the device.
-     *                    If {@code null} request will be fired without waiting for the response.
-     *                    If mqttMessage has no response message set, timeout will be ignore even if set.
+     * @param mqttMessage The message to send.
      * @throws KapuaException
-     * @see MqttMessage#getResponseTopic()
      * @since 1.0.0.
      */
-    private void sendInternal(MqttMessage mqttMessage, List<MqttMessage> responses, Long timeout)
+    private void sendInternal(MqttMessage mqttMessage)
             throws KapuaException {
         try {
-            //
-            // Subscribe if necessary
-            if (mqttMessage.getResponseTopic() != null) {
-                try {
-                    mqttClientCallback = new MqttClientCallback(responses);
-                    borrowedClient.setCallback(mqttClientCallback);
-                    borrowedClient.subscribe(mqttMessage.getResponseTopic());
-                } catch (KapuaException e) {
-                    throw new MqttClientException(MqttClientErrorCodes.CLIENT_SUBSCRIBE_ERROR, e, mqttMessage.getResponseTopic().getTopic());
-                }
-            }
+            borrowClient();
 
             //
             // Publish message
@@ -137,41 +132,6 @@ public class MqttFacade implements TransportFacade<MqttTopic, MqttPayload, MqttM
                         mqttMessage.getRequestTopic().getTopic(),
                         mqttMessage.getPayload().getBody());
             }
-
-            //
-            // Wait if required
-            if (mqttMessage.getResponseTopic() != null &&
-                    timeout != null) {
-                String timerName = new StringBuilder().append(MqttFacade.class.getSimpleName())
-                        .append("-TimeoutTimer-")
-                        .append(borrowedClient.getClientId())
-                        .toString();
-
-                Timer timeoutTimer = new Timer(timerName, true);
-
-                timeoutTimer.schedule(new TimerTask() {
-
-                    @Override
-                    public void run() {
-                        if (mqttMessage.getResponseTopic() != null) {
-                            synchronized (mqttClientCallback) {
-                                mqttClientCallback.notifyAll();
-                            }
-                        }
-                    }
-                }, timeout);
-
-                try {
-                    synchronized (mqttClientCallback) {
-                        mqttClientCallback.wait();
-                    }
-                } catch (InterruptedException e) {
-                    Thread.interrupted();
-                    throw new MqttClientException(MqttClientErrorCodes.CLIENT_CALLBACK_ERROR, e, (Object) null);
-                } finally {
-                    timeoutTimer.cancel();
-                }
-            }
         } catch (Exception e) {
             throw new MqttClientException(MqttClientErrorCodes.SEND_ERROR,
                     e,
@@ -179,9 +139,19 @@ public class MqttFacade implements TransportFacade<MqttTopic, MqttPayload, MqttM
         }
     }
 
+    /**
+     * Gets the client id of the shared connection of the {@link MqttRequestMultiplexer} of the node,
+     * which receives the responses of the requests sent by {@link #sendSync(MqttMessage, Long)} and {@link #sendRequest(MqttMessage, Long)}.
+     *
+     * @throws KapuaRuntimeException When the connection cannot be opened, since the requests cannot be sent without a requester client id.
+     */
     @Override
     public String getClientId() {
-        return borrowedClient.getClientId();
+        try {
+            return requestMultiplexer.getClientId();
+        } catch (KapuaException e) {
+            throw KapuaRuntimeException.internalError(e);
+        }
     }
 
     @Override
@@ -193,7 +163,22 @@ public class MqttFacade implements TransportFacade<MqttTopic, MqttPayload, MqttM
     public void clean() {
         //
         // Return the client form the pool
-        MqttClientPool.getInstance(nodeUri).returnObject(borrowedClient);
-        borrowedClient = null;
+        if (borrowedClient != null) {
+            MqttClientPool.getInstance(nodeUri).returnObject(borrowedClient);
+            borrowedClient = null;
+        }
+    }
+
+    private void borrowClient() throws KapuaException {
+        if (borrowedClient == null) {
+            //
+            // Get the client form the pool
+            try {
+                borrowedClient = MqttClientPool.getInstance(nodeUri).borrowObject();
+            } catch (Exception e) {
+                // FIXME use appropriate exception for this
+                throw new KapuaException(KapuaErrorCodes.INTERNAL_ERROR, e, (Object[]) null);
+            }
+        }
     }
 }
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.transport.mqtt;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.transport.message.mqtt.MqttMessage;
+import org.eclipse.kapua.transport.message.mqtt.MqttPayload;
+import org.eclipse.kapua.transport.message.mqtt.MqttTopic;
+import org.eclipse.kapua.transport.mqtt.pooling.PooledMqttClientFactory;
+import org.eclipse.kapua.transport.mqtt.setting.MqttClientSetting;
+import org.eclipse.kapua.transport.mqtt.setting.MqttClientSettingKeys;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request/response multiplexer over a single long-lived {@link MqttClient} connection to a broker node.
+ * <p>
+ * Many requests can be in flight at the same time on the same connection, without holding a client of the
+ * {@link org.eclipse.kapua.transport.mqtt.pooling.MqttClientPool} nor a thread while waiting for the responses.
+ * The pending requests are kept in a correlation table keyed by the response topic, whose last level is the request id.
+ * The connection subscribes once to the response topic with the last level replaced by the single level wildcard,
+ * so only the first request of each scope and application waits for the subscription.
+ * </p>
+ * <p>
+ * The timeouts are scheduled on a shared timer thread and cancelled as soon as the response arrives.
+ * When the connection is lost all the pending requests fail and the next request opens a new connection.
+ * The subscriptions are removed when the connection is closed with {@link #close()} (or {@link #closeAll()}).
+ * </p>
+ *
+ * @since 1.1.0
+ */
+public class MqttRequestMultiplexer implements MqttCallback {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MqttRequestMultiplexer.class);
+
+    private static final Map<String, MqttRequestMultiplexer> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final String TOPIC_SEPARATOR = MqttClientSetting.getInstance().getString(MqttClientSettingKeys.TRANSPORT_TOPIC_SEPARATOR);
+    private static final long SEND_TIMEOUT_MAX = MqttClientSetting.getInstance().getLong(MqttClientSettingKeys.SEND_TIMEOUT_MAX);
+
+    private static final ScheduledThreadPoolExecutor TIMEOUT_TIMER;
+
+    static {
+        TIMEOUT_TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, MqttRequestMultiplexer.class.getSimpleName() + "-TimeoutTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        TIMEOUT_TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String nodeUri;
+    private final Callable<MqttClient> clientFactory;
+    private final Map<String, CompletableFuture<MqttMessage>> pendingRequests = new ConcurrentHashMap<>();
+    private final Set<String> subscriptions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private volatile MqttClient mqttClient;
+
+    private MqttRequestMultiplexer(String nodeUri) {
+        this(nodeUri, () -> new PooledMqttClientFactory(nodeUri).create());
+    }
+
+    MqttRequestMultiplexer(String nodeUri, Callable<MqttClient> clientFactory) {
+        this.nodeUri = nodeUri;
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Gets the {@link MqttRequestMultiplexer} of the given broker node.
+     *
+     * @param nodeUri The URI of the broker node.
+     * @return The {@link MqttRequestMultiplexer} of the broker node.
+     * @since 1.1.0
+     */
+    public static MqttRequestMultiplexer getInstance(String nodeUri) {
+        return INSTANCES.computeIfAbsent(nodeUri, MqttRequestMultiplexer::new);
+    }
+
+    /**
+     * Closes the connections of all the broker nodes.
+     *
+     * @see #close()
+     * @since 1.1.0
+     */
+    public static void closeAll() {
+        for (MqttRequestMultiplexer requestMultiplexer : INSTANCES.values()) {
+            requestMultiplexer.close();
+        }
+    }
+
+    /**
+     * Gets the client id of the connection, to be used as requester client id of the requests.
+     * <p>
+     * The connection is opened if not connected.
+     * </p>
+     *
+     * @return The client id of the connection.
+     * @throws KapuaException When the connection cannot be opened.
+     * @since 1.1.0
+     */
+    public String getClientId() throws KapuaException {
+        return getClient().getClientId();
+    }
+
+    /**
+     * Sends the request without waiting for the response.
+     *
+     * @param mqttMessage The request to send. The {@link MqttMessage#getResponseTopic()} must be set.
+     * @param timeout     The timeout of waiting the response from the device. If {@code null} the {@link MqttClientSettingKeys#SEND_TIMEOUT_MAX} is used.
+     * @return The {@link CompletableFuture} completed with the response, or exceptionally with a {@link MqttClientException} when the request
+     * times out ({@link MqttClientErrorCodes#CLIENT_TIMEOUT_EXCEPTION}) or fails. The dependent actions are executed by the MQTT callback thread,
+     * so the long running ones should use the asynchronous variants.
+     * @throws KapuaException When the request cannot be sent.
+     * @since 1.1.0
+     */
+    public CompletableFuture<MqttMessage> send(MqttMessage mqttMessage, Long timeout) throws KapuaException {
+        MqttClient client = getClient();
+
+        String responseTopic = mqttMessage.getResponseTopic().getTopic();
+        subscribe(client, responseTopic);
+
+        CompletableFuture<MqttMessage> response = new CompletableFuture<>();
+        if (pendingRequests.putIfAbsent(responseTopic, response) != null) {
+            throw new MqttClientException(MqttClientErrorCodes.SEND_ERROR, null, mqttMessage.getRequestTopic().getTopic());
+        }
+
+        long responseTimeout = timeout != null ? Math.min(timeout, SEND_TIMEOUT_MAX) : SEND_TIMEOUT_MAX;
+        ScheduledFuture<?> timeoutTask = TIMEOUT_TIMER.schedule(() -> {
+            if (pendingRequests.remove(responseTopic, response)) {
+                response.completeExceptionally(new MqttClientException(MqttClientErrorCodes.CLIENT_TIMEOUT_EXCEPTION, null, mqttMessage.getRequestTopic().getTopic()));
+            }
+        }, responseTimeout, TimeUnit.MILLISECONDS);
+        response.whenComplete((message, throwable) -> timeoutTask.cancel(false));
+
+        try {
+            client.publish(mqttMessage);
+        } catch (KapuaException e) {
+            pendingRequests.remove(responseTopic, response);
+            response.completeExceptionally(new MqttClientException(MqttClientErrorCodes.CLIENT_PUBLISH_ERROR,
+                    e,
+                    mqttMessage.getRequestTopic().getTopic(),
+                    mqttMessage.getPayload().getBody()));
+        }
+
+        return response;
+    }
+
+    /**
+     * Completes the pending request matching the topic of the received message.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void messageArrived(String topic, org.eclipse.paho.client.mqttv3.MqttMessage message) {
+        CompletableFuture<MqttMessage> response = pendingRequests.remove(topic);
+        if (response == null) {
+            LOG.debug("Discarding response on {}: no pending request (already timed out?)", topic);
+            return;
+        }
+
+        try {
+            response.complete(new MqttMessage(new MqttTopic(topic), new Date(), new MqttPayload(message.getPayload())));
+        } catch (RuntimeException e) {
+            // a failing dependent action must not close the connection
+            LOG.warn("Error while completing the request on {}", topic, e);
+        }
+    }
+
+    /**
+     * Implements the API signature {@link MqttCallback#deliveryComplete(IMqttDeliveryToken)} with an empty method
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+    }
+
+    /**
+     * Fails all the pending requests with {@link MqttClientErrorCodes#CLIENT_CONNECTION_LOST}.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void connectionLost(Throwable cause) {
+        LOG.warn("Connection to {} lost. Failing {} pending requests", nodeUri, pendingRequests.size(), cause);
+
+        MqttClient lostClient = detachClient();
+        failPendingRequests(cause);
+
+        if (lostClient != null) {
+            try {
+                lostClient.terminateClient();
+            } catch (KapuaException e) {
+                LOG.debug("Error while terminating the client connected to {}", nodeUri, e);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection, if any.
+     * <p>
+     * The pending requests fail with {@link MqttClientErrorCodes#CLIENT_CONNECTION_LOST}, the response topic subscriptions are removed and the client is disconnected.
+     * The next request opens a new connection.
+     * </p>
+     *
+     * @since 1.1.0
+     */
+    public void close() {
+        MqttClient closedClient = detachClient();
+        failPendingRequests(null);
+
+        if (closedClient != null) {
+            try {
+                closedClient.setCallback(null);
+                closedClient.unsubscribeAll();
+            } catch (KapuaException e) {
+                LOG.warn("Error while removing the subscriptions of the client connected to {}", nodeUri, e);
+            }
+
+            try {
+                closedClient.terminateClient();
+            } catch (KapuaException e) {
+                LOG.warn("Error while terminating the client connected to {}", nodeUri, e);
+            }
+        }
+    }
+
+    //
+    // Private methods
+    //
+
+    private synchronized MqttClient detachClient() {
+        MqttClient detachedClient = mqttClient;
+        mqttClient = null;
+        subscriptions.clear();
+        return detachedClient;
+    }
+
+    private void failPendingRequests(Throwable cause) {
+        for (String responseTopic : new ArrayList<>(pendingRequests.keySet())) {
+            CompletableFuture<MqttMessage> failedRequest = pendingRequests.remove(responseTopic);
+            if (failedRequest != null) {
+                failedRequest.completeExceptionally(new MqttClientException(MqttClientErrorCodes.CLIENT_CONNECTION_LOST, cause, (Object[]) null));
+            }
+        }
+    }
+
+    private MqttClient getClient() throws KapuaException {
+        MqttClient client = mqttClient;
+        if (client == null) {
+            synchronized (this) {
+                client = mqttClient;
+                if (client == null) {
+                    try {
+                        client = clientFactory.call();
+                    } catch (KapuaException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new MqttClientException(MqttClientErrorCodes.CLIENT_CONNECT_ERROR, e, nodeUri);
+                    }
+                    client.setCallback(this);
+                    mqttClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Subscribes to the response topic with the last level (the request id) replaced by the single level wildcard, if not already subscribed.
+     */
+    private void subscribe(MqttClient client, String responseTopic) throws KapuaException {
+        int requestIdIndex = responseTopic.lastIndexOf(TOPIC_SEPARATOR);
+        String subscription = requestIdIndex >= 0 ? responseTopic.substring(0, requestIdIndex + TOPIC_SEPARATOR.length()) + "+" : responseTopic;
+
+        if (!subscriptions.contains(subscription)) {
+            synchronized (this) {
+                if (client != mqttClient) {
+                    throw new MqttClientException(MqttClientErrorCodes.CLIENT_CONNECTION_LOST, null, (Object[]) null);
+                }
+                if (!subscriptions.contains(subscription)) {
+                    client.subscribe(new MqttTopic(subscription));
+                    subscriptions.add(subscription);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.kapua.transport.mqtt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kapua.KapuaException;
+import org.eclipse.kapua.KapuaRuntimeException;
+import org.eclipse.kapua.test.junit.JUnitTests;
+import org.eclipse.kapua.transport.message.mqtt.MqttMessage;
+import org.eclipse.kapua.transport.message.mqtt.MqttPayload;
+import org.eclipse.kapua.transport.message.mqtt.MqttTopic;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(JUnitTests.class)
+public class MqttRequestMultiplexerTest {
+
+    private static final String REPLY_TOPIC = "$EDC/account/requester/device/CONF-V1/REPLY/";
+
+    private TestMqttClient client;
+    private MqttRequestMultiplexer requestMultiplexer;
+
+    @Before
+    public void setUp() {
+        client = new TestMqttClient();
+        requestMultiplexer = new MqttRequestMultiplexer("tcp://test:1883", () -> client);
+    }
+
+    @Test
+    public void testResponsesAreCorrelatedByRequestId() throws Exception {
+        CompletableFuture<MqttMessage> first = requestMultiplexer.send(newRequest("1"), 10000L);
+        CompletableFuture<MqttMessage> second = requestMultiplexer.send(newRequest("2"), 10000L);
+
+        // a single subscription for all the requests with the same reply topic
+        Assert.assertEquals(1, client.subscriptions.size());
+        Assert.assertEquals(REPLY_TOPIC + "+", client.subscriptions.get(0));
+        Assert.assertEquals(2, client.published.size());
+
+        requestMultiplexer.messageArrived(REPLY_TOPIC + "2", newResponse("second"));
+        Assert.assertFalse(first.isDone());
+        Assert.assertEquals("second", new String(second.get().getPayload().getBody()));
+
+        requestMultiplexer.messageArrived(REPLY_TOPIC + "1", newResponse("first"));
+        Assert.assertEquals("first", new String(first.get().getPayload().getBody()));
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        CompletableFuture<MqttMessage> response = requestMultiplexer.send(newRequest("1"), 50L);
+
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            Assert.fail("The request should time out!");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof MqttClientException);
+            Assert.assertEquals(MqttClientErrorCodes.CLIENT_TIMEOUT_EXCEPTION, ((MqttClientException) e.getCause()).getCode());
+        }
+    }
+
+    @Test
+    public void testLateResponseIsDiscarded() throws Exception {
+        CompletableFuture<MqttMessage> response = requestMultiplexer.send(newRequest("1"), 50L);
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            Assert.fail("The request should time out!");
+        } catch (ExecutionException e) {
+            // expected
+        }
+
+        // the late response completes nothing
+        requestMultiplexer.messageArrived(REPLY_TOPIC + "1", newResponse("late"));
+        Assert.assertTrue(response.isCompletedExceptionally());
+
+        // the timed out request is no more pending, so the same response topic can be used again
+        CompletableFuture<MqttMessage> retry = requestMultiplexer.send(newRequest("1"), 10000L);
+        requestMultiplexer.messageArrived(REPLY_TOPIC + "1", newResponse("retry"));
+        Assert.assertEquals("retry", new String(retry.get().getPayload().getBody()));
+    }
+
+    @Test
+    public void testCloseRemovesSubscriptionsAndFailsPendingRequests() throws Exception {
+        CompletableFuture<MqttMessage> response = requestMultiplexer.send(newRequest("1"), 10000L);
+
+        requestMultiplexer.close();
+
+        Assert.assertTrue(client.subscriptions.isEmpty());
+        Assert.assertTrue(client.terminated);
+        try {
+            response.get();
+            Assert.fail("The pending request should fail!");
+        } catch (ExecutionException e) {
+            Assert.assertEquals(MqttClientErrorCodes.CLIENT_CONNECTION_LOST, ((MqttClientException) e.getCause()).getCode());
+        }
+
+        // the next request opens a new connection and subscribes again
+        TestMqttClient closedClient = client;
+        client = new TestMqttClient();
+        requestMultiplexer.send(newRequest("2"), 10000L);
+        Assert.assertEquals(1, client.subscriptions.size());
+        Assert.assertTrue(closedClient.subscriptions.isEmpty());
+    }
+
+    @Test(expected = KapuaRuntimeException.class)
+    public void testFacadeClientIdWithoutConnection() throws KapuaException {
+        new MqttFacade("tcp://127.0.0.1:1").getClientId();
+    }
+
+    private static MqttMessage newRequest(String requestId) {
+        return new MqttMessage(new MqttTopic("$EDC/account/device/CONF-V1/GET/configurations"),
+                new MqttTopic(REPLY_TOPIC + requestId),
+                new MqttPayload(new byte[0]));
+    }
+
+    private static org.eclipse.paho.client.mqttv3.MqttMessage newResponse(String body) {
+        return new org.eclipse.paho.client.mqttv3.MqttMessage(body.getBytes());
+    }
+
+    /**
+     * {@link MqttClient} recording the subscriptions and the published messages without any connection.
+     */
+    private static class TestMqttClient extends MqttClient {
+
+        private final List<String> subscriptions = new ArrayList<>();
+        private final List<MqttMessage> published = new ArrayList<>();
+        private boolean terminated;
+
+        @Override
+        public void subscribe(MqttTopic mqttTopic) {
+            subscriptions.add(mqttTopic.getTopic());
+        }
+
+        @Override
+        public synchronized void unsubscribeAll() {
+            subscriptions.clear();
+        }
+
+        @Override
+        public void publish(MqttMessage mqttMessage) {
+            published.add(mqttMessage);
+        }
+
+        @Override
+        public void setCallback(MqttCallback mqttClientCallback) {
+        }
+
+        @Override
+        public void terminateClient() {
+            terminated = true;
+        }
+
+        @Override
+        public String getClientId() {
+            return "test-client";
+        }
+    }
+}